@@ -0,0 +1,95 @@
+package pine;
+
+import org.joml.Matrix4f;
+import org.joml.Vector2f;
+import org.joml.Vector3f;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Camera matrix benchmarks comparing the original allocating view matrix path against the cached one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CameraBenchmark {
+    private Camera camera;
+    private Vector2f legacyPosition;
+    private Matrix4f legacyView;
+
+    /**
+     * Create the camera and the state used by the original view matrix path.
+     */
+    @Setup
+    public void setup() {
+        this.camera = new Camera(new Vector2f());
+        this.legacyPosition = new Vector2f();
+        this.legacyView = new Matrix4f();
+    }
+
+    /**
+     * Original view matrix path: three vectors are allocated and the matrix rebuilt on every call.
+     *
+     * @return View matrix.
+     */
+    @Benchmark
+    public Matrix4f legacyViewMatrix() {
+        Vector3f front = new Vector3f(0F, 0F, -1F);
+        Vector3f up = new Vector3f(0F, 1F, 0F);
+
+        this.legacyView.identity();
+        this.legacyView.lookAt(
+            new Vector3f(this.legacyPosition.x, this.legacyPosition.y, 20F),
+            front.add(this.legacyPosition.x, this.legacyPosition.y, 0F),
+            up
+        );
+
+        return this.legacyView;
+    }
+
+    /**
+     * Cached view matrix of a camera that has not moved.
+     *
+     * @return View matrix.
+     */
+    @Benchmark
+    public Matrix4f cachedViewMatrix() {
+        return this.camera.viewMatrix();
+    }
+
+    /**
+     * View matrix of a camera that moves every call, forcing a recalculation.
+     *
+     * @return View matrix.
+     */
+    @Benchmark
+    public Matrix4f movingViewMatrix() {
+        this.camera.translate(1F, 0F);
+        return this.camera.viewMatrix();
+    }
+
+    /**
+     * Cached combined view-projection matrix of a camera that has not moved.
+     *
+     * @return View-projection matrix.
+     */
+    @Benchmark
+    public Matrix4f cachedViewProjectionMatrix() {
+        return this.camera.viewProjectionMatrix();
+    }
+
+    /**
+     * Combined view-projection matrix and its inverse of a camera that moves every call.
+     *
+     * @return Inverse view-projection matrix.
+     */
+    @Benchmark
+    public Matrix4f movingInverseViewProjectionMatrix() {
+        this.camera.translate(1F, 0F);
+        return this.camera.inverseViewProjectionMatrix();
+    }
+}
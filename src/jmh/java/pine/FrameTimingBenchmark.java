@@ -0,0 +1,41 @@
+package pine;
+
+import org.openjdk.jmh.annotations.*;
+import pine.utils.Time;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the per-frame timing done by the window main loop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameTimingBenchmark {
+    private double frameStartTime;
+
+    /**
+     * Record the start time of the first frame.
+     */
+    @Setup
+    public void setup() {
+        this.frameStartTime = Time.time();
+    }
+
+    /**
+     * Compute the time between the current and previous frame the same way as the main loop.
+     *
+     * @return Time between frames.
+     */
+    @Benchmark
+    public double frameDeltaTime() {
+        double frameEndTime = Time.time();
+        double deltaTime = frameEndTime - this.frameStartTime;
+        this.frameStartTime = frameEndTime;
+
+        return deltaTime;
+    }
+}
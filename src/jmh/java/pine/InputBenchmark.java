@@ -0,0 +1,62 @@
+package pine;
+
+import org.lwjgl.glfw.GLFW;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the GLFW input callbacks, invoked directly with synthetic events and drained into the frame snapshot
+ * as the window does after polling.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InputBenchmark {
+    private double mouseX;
+
+    /**
+     * Press and release a key, then query it.
+     *
+     * @return Whether the key went down this frame.
+     */
+    @Benchmark
+    public boolean keyPressRelease() {
+        KeyListener.keyCallback(0L, GLFW.GLFW_KEY_SPACE, 0, GLFW.GLFW_PRESS, 0);
+        KeyListener.keyCallback(0L, GLFW.GLFW_KEY_SPACE, 0, GLFW.GLFW_RELEASE, 0);
+        InputSnapshot.get().update(InputQueue.get());
+
+        return KeyListener.keyJustPressed(GLFW.GLFW_KEY_SPACE);
+    }
+
+    /**
+     * Move the mouse.
+     *
+     * @return Displacement of the mouse along the x-axis this frame.
+     */
+    @Benchmark
+    public double mouseMove() {
+        this.mouseX += 1D;
+        MouseListener.mousePositionCallback(0L, this.mouseX, 100D);
+        InputSnapshot.get().update(InputQueue.get());
+
+        return MouseListener.get().displacement().x;
+    }
+
+    /**
+     * Press and release a mouse button.
+     *
+     * @return Whether the button went up this frame.
+     */
+    @Benchmark
+    public boolean mouseButtonPressRelease() {
+        MouseListener.mouseButtonCallback(0L, GLFW.GLFW_MOUSE_BUTTON_LEFT, GLFW.GLFW_PRESS, 0);
+        MouseListener.mouseButtonCallback(0L, GLFW.GLFW_MOUSE_BUTTON_LEFT, GLFW.GLFW_RELEASE, 0);
+        InputSnapshot.get().update(InputQueue.get());
+
+        return MouseListener.get().mouseButtonReleased(GLFW.GLFW_MOUSE_BUTTON_LEFT);
+    }
+}
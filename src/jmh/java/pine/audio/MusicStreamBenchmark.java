@@ -0,0 +1,92 @@
+package pine.audio;
+
+import org.lwjgl.BufferUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ShortBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of music streaming against an in-memory source and the stub backend: reading blocks the way the decoder
+ * thread does, and streaming a whole track through the decoder thread and the buffer queue with one update per
+ * simulated 60 Hz frame. The counters are the frames streamed and the underruns hit, summed over the iterations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MusicStreamBenchmark {
+    private static final int SAMPLE_RATE = 44100;
+    private static final float TRACK_SECONDS = 10F;
+
+    private MemorySource track;
+    private ShortBuffer block;
+
+    /**
+     * Frames streamed and underruns of the streamed tracks. JMH sums event counters over the measurement iterations.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Streamed {
+        public long frames, underruns;
+    }
+
+    /**
+     * Generate ten seconds of a stereo tone and a block to read it into.
+     */
+    @Setup
+    public void setup() {
+        Audio.setBackend(new StubAudioBackend());
+
+        this.track = MemorySource.tone(2, SAMPLE_RATE, 440F, TRACK_SECONDS);
+        this.block = BufferUtils.createShortBuffer(MusicStream.BUFFER_FRAMES * 2);
+    }
+
+    /**
+     * Read the whole track a block at a time, rewinding first.
+     *
+     * @return Number of frames read.
+     */
+    @Benchmark
+    public long readBlocks() {
+        this.track.rewind();
+        long frames = 0L;
+        int read;
+
+        do {
+            read = this.track.read(this.block.clear());
+            frames += read;
+        }
+        while (read > 0);
+
+        return frames;
+    }
+
+    /**
+     * Stream the whole track, updating once per simulated frame until it has finished playing.
+     *
+     * @param counters Frame and underrun counters.
+     * @return Stream that played the track.
+     */
+    @Benchmark
+    public MusicStream streamTrack(Streamed counters) {
+        this.track.rewind();
+
+        MusicStream stream = new MusicStream(this.track);
+        StubAudioBackend stub = (StubAudioBackend) Audio.backend();
+        stream.play();
+
+        while (stream.playing()) {
+            stub.advance(1D / 60D);
+            stream.update();
+        }
+
+        stream.delete();
+        counters.frames += stream.framesQueued();
+        counters.underruns += stream.underruns();
+
+        return stream;
+    }
+}
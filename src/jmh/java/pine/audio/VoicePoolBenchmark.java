@@ -0,0 +1,61 @@
+package pine.audio;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ShortBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of voice allocation against the stub backend: playing a sound on a free voice and stopping it, against
+ * playing one with every voice busy, so each play scans for a voice to steal or is rejected.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VoicePoolBenchmark {
+    @Param({"32", "256"})
+    public int voices;
+
+    private VoicePool pool;
+    private Sound sound;
+    private int next;
+
+    /**
+     * Create the pool and a tenth of a second of silence to play through it.
+     */
+    @Setup
+    public void setup() {
+        Audio.setBackend(new StubAudioBackend());
+
+        this.pool = new VoicePool(this.voices);
+        this.sound = new Sound("silence", 1, 44100, ShortBuffer.allocate(4410));
+    }
+
+    /**
+     * Play a sound on a free voice and stop it again.
+     *
+     * @return Handle of the voice.
+     */
+    @Benchmark
+    public int playFree() {
+        final int handle = this.pool.play(this.sound, 0, 1F, 1F, false);
+        this.pool.stop(handle);
+
+        return handle;
+    }
+
+    /**
+     * Play a sound with a cycling priority while every voice is busy, stealing the lowest priority voice when it is not
+     * above the new sound's.
+     *
+     * @return Handle of the voice, or {@link VoicePool#NO_VOICE}.
+     */
+    @Benchmark
+    public int playSteal() {
+        this.next = (this.next + 1) & 7;
+        return this.pool.play(this.sound, this.next, 1F, 1F, true);
+    }
+}
@@ -0,0 +1,94 @@
+package pine.ecs;
+
+import org.openjdk.jmh.annotations.*;
+import pine.utils.ComponentType;
+
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of one world update as the number of threads grows. The world runs the chunked movement system alongside an
+ * independent system fading sprite colours, so both the waves and the iteration inside a system can run in parallel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchedulerScalingBenchmark {
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"1000000"})
+    public int entityCount;
+
+    private ForkJoinPool pool;
+    private World world;
+
+    /**
+     * Fade the alpha of every sprite; touches no component the movement system uses.
+     */
+    public static class FadeSystem implements EntitySystem {
+        private static final Set<ComponentType> WRITES = EnumSet.of(ComponentType.Sprite);
+
+        @Override
+        public void update(World world, double deltaTime) {
+            final SpriteStorage sprites = world.sprites;
+            final float fade = (float) deltaTime;
+
+            world.scheduler().parallelFor(sprites.size(), SystemScheduler.DEFAULT_GRAIN, (from, to) -> {
+                for (int i = from; i < to; i++) { sprites.a[i] = Math.max(0F, sprites.a[i] - fade); }
+            });
+        }
+
+        @Override
+        public Set<ComponentType> reads() { return EnumSet.noneOf(ComponentType.class); }
+
+        @Override
+        public Set<ComponentType> writes() { return FadeSystem.WRITES; }
+    }
+
+    /**
+     * Create the pool and spawn the entities.
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(42L);
+
+        this.pool = new ForkJoinPool(this.threads);
+        this.world = new World(this.entityCount, this.pool);
+        this.world.addSystem(new MovementSystem());
+        this.world.addSystem(new FadeSystem());
+
+        for (int i = 0; i < this.entityCount; i++) {
+            final int entity = this.world.create();
+
+            this.world.transforms.add(entity, random.nextFloat(), random.nextFloat(), 32F, 32F);
+            this.world.velocities.add(entity, random.nextFloat(), random.nextFloat());
+            this.world.sprites.add(entity, null, 1F, 1F, 1F, 1F);
+        }
+    }
+
+    /**
+     * Shut the pool down.
+     */
+    @TearDown
+    public void tearDown() {
+        this.pool.shutdown();
+    }
+
+    /**
+     * Run every update system once.
+     *
+     * @return Number of entities in the world.
+     */
+    @Benchmark
+    public int update() {
+        this.world.update(1D / 60D);
+        return this.world.entityCount();
+    }
+}
@@ -0,0 +1,125 @@
+package pine.ecs;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of one movement update over many entities: the structure-of-arrays storages of a {@link World} against a
+ * naive list of game objects, each owning separately allocated transform and velocity objects.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldIterationBenchmark {
+    @Param({"100000"})
+    public int entityCount;
+
+    private World world;
+    private MovementSystem movement;
+    private List<GameObject> gameObjects;
+
+    /**
+     * Position and size of a game object in the naive baseline.
+     */
+    public static class Transform {
+        public float x, y, width, height;
+    }
+
+    /**
+     * Velocity of a game object in the naive baseline.
+     */
+    public static class Velocity {
+        public float x, y;
+    }
+
+    /**
+     * Game object of the naive baseline.
+     */
+    public static class GameObject {
+        public Transform transform;
+        public Velocity velocity;
+    }
+
+    /**
+     * Spawn the entities in both representations. Every other entity is destroyed and respawned so that the world's
+     * storages are iterated after churn, and the game object list is shuffled so that its objects are scattered through
+     * the heap as they would be after a while in a real game.
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(42L);
+
+        this.world = new World();
+        this.movement = new MovementSystem();
+        this.gameObjects = new ArrayList<>(this.entityCount);
+
+        for (int i = 0; i < this.entityCount; i++) {
+            final int entity = this.world.create();
+
+            this.world.transforms.add(entity, random.nextFloat(), random.nextFloat(), 32F, 32F);
+            this.world.velocities.add(entity, random.nextFloat(), random.nextFloat());
+        }
+
+        for (int i = 0; i < this.entityCount; i += 2) { this.world.destroy(i); }
+        for (int i = 0; i < this.entityCount; i += 2) {
+            final int entity = this.world.create();
+
+            this.world.transforms.add(entity, random.nextFloat(), random.nextFloat(), 32F, 32F);
+            this.world.velocities.add(entity, random.nextFloat(), random.nextFloat());
+        }
+
+        for (int i = 0; i < this.entityCount; i++) {
+            GameObject gameObject = new GameObject();
+
+            gameObject.transform = new Transform();
+            gameObject.transform.x = random.nextFloat();
+            gameObject.transform.y = random.nextFloat();
+            gameObject.transform.width = 32F;
+            gameObject.transform.height = 32F;
+
+            gameObject.velocity = new Velocity();
+            gameObject.velocity.x = random.nextFloat();
+            gameObject.velocity.y = random.nextFloat();
+
+            this.gameObjects.add(gameObject);
+        }
+
+        Collections.shuffle(this.gameObjects, random);
+    }
+
+    /**
+     * Move every entity of the world with the movement system.
+     *
+     * @return Number of entities in the world.
+     */
+    @Benchmark
+    public int world() {
+        this.movement.update(this.world, 1D / 60D);
+        return this.world.entityCount();
+    }
+
+    /**
+     * Move every game object of the naive list.
+     *
+     * @return Number of game objects.
+     */
+    @Benchmark
+    public int gameObjectList() {
+        final float dt = 1F / 60F;
+
+        for (GameObject gameObject : this.gameObjects) {
+            gameObject.transform.x += gameObject.velocity.x * dt;
+            gameObject.transform.y += gameObject.velocity.y * dt;
+        }
+
+        return this.gameObjects.size();
+    }
+}
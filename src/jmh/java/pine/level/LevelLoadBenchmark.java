@@ -0,0 +1,112 @@
+package pine.level;
+
+import org.openjdk.jmh.annotations.*;
+import pine.ecs.World;
+import pine.renderer.Graphics;
+import pine.renderer.RecordingBackend;
+import pine.renderer.Sprite;
+import pine.renderer.Texture;
+import pine.renderer.Tilemap;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Benchmark of loading a level: mapping the binary level file and copying its tables into the world, against parsing
+ * the same level from its JSON export and adding every component one by one. The level has moving, sprite-drawn
+ * entities and a 1024 x 1024 tilemap.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LevelLoadBenchmark {
+    private static final int MAP_SIZE = 1024;
+
+    @Param({ "10000", "1000000" })
+    public int entityCount;
+
+    private Path directory, levelPath, jsonPath;
+    private World world;
+    private Function<String, Texture> textures;
+
+    /**
+     * Build a level with random entities and tiles and save it in both formats to a temporary directory.
+     */
+    @Setup
+    public void setup() throws IOException {
+        Graphics.setBackend(new RecordingBackend());
+
+        Map<String, Texture> loaded = new HashMap<>();
+        this.textures = path -> loaded.computeIfAbsent(path, Texture::placeholder);
+
+        Sprite[] sprites = new Sprite[16];
+        for (int i = 0; i < sprites.length; i++) {
+            Texture texture = this.textures.apply("sheet" + i % 4 + ".png");
+            sprites[i] = new Sprite(texture, i / 16F, 0F, (i + 1) / 16F, 1F, 16, 16);
+        }
+
+        Random random = new Random(42L);
+        World source = new World(this.entityCount, null);
+
+        for (int i = 0; i < this.entityCount; i++) {
+            final int entity = source.create();
+
+            source.transforms.add(entity, random.nextFloat() * 1e4F, random.nextFloat() * 1e4F, 16F, 16F);
+            source.velocities.add(entity, random.nextFloat() - 0.5F, random.nextFloat() - 0.5F);
+            source.sprites.add(entity, sprites[random.nextInt(sprites.length)], 1F, 1F, 1F, 1F);
+        }
+
+        Tilemap tilemap = new Tilemap(null, MAP_SIZE, MAP_SIZE, 32F);
+        for (int y = 0; y < MAP_SIZE; y++) {
+            for (int x = 0; x < MAP_SIZE; x++) { tilemap.set(x, y, random.nextInt(4) == 0 ? 0 : 1); }
+        }
+
+        this.directory = Files.createTempDirectory("pine-levels");
+        this.levelPath = this.directory.resolve("benchmark.level");
+        this.jsonPath = this.directory.resolve("benchmark.level.json");
+
+        LevelWriter.write(this.levelPath, source, tilemap);
+        LevelJson.write(this.jsonPath, source, tilemap);
+
+        this.world = new World(World.DEFAULT_CAPACITY, null);
+    }
+
+    /**
+     * Delete the temporary directory.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.levelPath);
+        Files.deleteIfExists(this.jsonPath);
+        Files.deleteIfExists(this.directory);
+    }
+
+    /**
+     * Load the binary level file.
+     *
+     * @return Loaded level.
+     */
+    @Benchmark
+    public LevelLoader.Result loadBinary() throws IOException {
+        return LevelLoader.load(this.levelPath, this.world, this.textures, texture -> { });
+    }
+
+    /**
+     * Load the JSON export of the level.
+     *
+     * @return Loaded level.
+     */
+    @Benchmark
+    public LevelLoader.Result loadJson() throws IOException {
+        return LevelJson.read(this.jsonPath, this.world, this.textures, texture -> { });
+    }
+}
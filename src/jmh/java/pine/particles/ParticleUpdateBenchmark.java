@@ -0,0 +1,96 @@
+package pine.particles;
+
+import org.lwjgl.BufferUtils;
+import org.openjdk.jmh.annotations.*;
+import pine.ecs.SystemScheduler;
+import pine.renderer.Graphics;
+import pine.renderer.InstanceBatch;
+import pine.renderer.RecordingBackend;
+import pine.renderer.Sprite;
+import pine.renderer.Texture;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the particle update kernel as the number of threads grows: one 60 Hz step of a pool holding a million
+ * particles in steady state, with particles dying and being spawned every step, plus packing every particle into the
+ * instance layout as {@link pine.renderer.Renderer#drawQuads} would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParticleUpdateBenchmark {
+    private static final float STEP = 1F / 60F;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"1000000"})
+    public int particleCount;
+
+    private ForkJoinPool pool;
+    private SystemScheduler scheduler;
+    private ParticleSystem particles;
+    private ByteBuffer instances;
+
+    /**
+     * Create the pool and run the particles until their number has settled.
+     */
+    @Setup
+    public void setup() {
+        Graphics.setBackend(new RecordingBackend());
+
+        this.pool = new ForkJoinPool(this.threads);
+        this.scheduler = new SystemScheduler(this.pool);
+        this.particles = new ParticleSystem(this.particleCount * 5 / 4, new Sprite(Texture.placeholder("particle")));
+        this.instances = BufferUtils.createByteBuffer(this.particles.capacity() * InstanceBatch.INSTANCE_SIZE_BYTES);
+
+        // Lifetimes average two seconds, so half the particles are replaced every second.
+        Emitter sparks = new Emitter(this.particleCount / 2F, 1F, 3F);
+        sparks.setVelocity(50F, 200F, 0F, (float) (2D * Math.PI));
+        sparks.setGravity(0F, -98F);
+        sparks.setSize(new Curve(0F, 2F, 0.2F, 6F, 1F, 0F));
+        sparks.setSpeed(new Curve(0F, 1F, 1F, 0.2F));
+        sparks.setColor(
+            Curve.constant(1F), new Curve(0F, 0.9F, 1F, 0.2F), Curve.constant(0.1F), new Curve(0F, 1F, 1F, 0F)
+        );
+        this.particles.addEmitter(sparks);
+
+        for (int i = 0; i < 300; i++) { this.particles.update(STEP, this.scheduler); }
+    }
+
+    /**
+     * Shut the pool down.
+     */
+    @TearDown
+    public void tearDown() {
+        this.pool.shutdown();
+    }
+
+    /**
+     * Spawn, simulate and remove particles for one step.
+     *
+     * @return Number of live particles.
+     */
+    @Benchmark
+    public int update() {
+        this.particles.update(STEP, this.scheduler);
+        return this.particles.size();
+    }
+
+    /**
+     * Pack every live particle into the instance layout.
+     *
+     * @return Instance buffer.
+     */
+    @Benchmark
+    public ByteBuffer packInstances() {
+        this.particles.writeInstances(this.instances, 0, 0, 0, this.particles.size());
+        return this.instances;
+    }
+}
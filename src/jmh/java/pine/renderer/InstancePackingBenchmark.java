@@ -0,0 +1,93 @@
+package pine.renderer;
+
+import org.lwjgl.BufferUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the CPU side of a frame of sprites on each render path: packing four vertices per sprite and copying
+ * them into the upload buffer, against packing one instance per sprite straight into a mapped buffer. The bytes
+ * counter is the number of bytes handed to the GPU per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstancePackingBenchmark {
+    @Param({"10000", "100000"})
+    public int spriteCount;
+
+    private float[] vertices;
+    private FloatBuffer vertexBuffer;
+    private ByteBuffer instanceBuffer;
+
+    /**
+     * Bytes uploaded by the last packed frame. JMH sums event counters over the measurement iterations, so the reported
+     * value is the per-frame count times the iteration count.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class UploadBytes {
+        public long bytes;
+    }
+
+    /**
+     * Allocate the vertex array, its upload buffer and the stand-in for the mapped instance buffer.
+     */
+    @Setup
+    public void setup() {
+        final int floats = this.spriteCount * RenderBatch.VERTICES_PER_QUAD * RenderBatch.VERTEX_SIZE;
+
+        this.vertices = new float[floats];
+        this.vertexBuffer = BufferUtils.createFloatBuffer(floats);
+        this.instanceBuffer = BufferUtils.createByteBuffer(this.spriteCount * InstanceBatch.INSTANCE_SIZE_BYTES);
+    }
+
+    /**
+     * Pack four vertices per sprite and copy them into the upload buffer, as a render batch does.
+     *
+     * @param counters Uploaded byte counter.
+     * @return Upload buffer.
+     */
+    @Benchmark
+    public FloatBuffer batched(UploadBytes counters) {
+        final int stride = RenderBatch.VERTICES_PER_QUAD * RenderBatch.VERTEX_SIZE;
+
+        for (int i = 0; i < this.spriteCount; i++) {
+            RenderBatch.packQuad(
+                this.vertices, i * stride, (i & 1023) * 32F, (i >> 10) * 32F, 32F, 32F,
+                1F, 1F, 1F, 1F, 0F, 0F, 1F, 1F
+            );
+        }
+
+        this.vertexBuffer.clear();
+        this.vertexBuffer.put(this.vertices).flip();
+
+        counters.bytes = (long) this.vertexBuffer.remaining() * Float.BYTES;
+        return this.vertexBuffer;
+    }
+
+    /**
+     * Pack one instance per sprite directly into the buffer, as an instance batch does into its mapped region.
+     *
+     * @param counters Uploaded byte counter.
+     * @return Instance buffer.
+     */
+    @Benchmark
+    public ByteBuffer instanced(UploadBytes counters) {
+        for (int i = 0; i < this.spriteCount; i++) {
+            InstanceBatch.packInstance(
+                this.instanceBuffer, i * InstanceBatch.INSTANCE_SIZE_BYTES, (i & 1023) * 32F, (i >> 10) * 32F,
+                32F, 32F, 1F, 1F, 1F, 1F, 0F, 0F, 1F, 1F, 0
+            );
+        }
+
+        counters.bytes = (long) this.spriteCount * InstanceBatch.INSTANCE_SIZE_BYTES;
+        return this.instanceBuffer;
+    }
+}
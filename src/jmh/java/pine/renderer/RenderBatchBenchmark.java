@@ -0,0 +1,77 @@
+package pine.renderer;
+
+import org.joml.Vector4f;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the CPU side of sprite batching: packing a frame's worth of sprites into render batches. The draw call
+ * count is the number of batches that would be flushed for the frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBatchBenchmark {
+    @Param({"10000", "50000", "100000"})
+    public int spriteCount;
+
+    @Param({"1000"})
+    public int batchSize;
+
+    private final Vector4f color = new Vector4f(1F, 1F, 1F, 1F);
+    private RenderBatch[] batches;
+
+    /**
+     * Draw calls issued by the last packed frame. JMH sums event counters over the measurement iterations, so the
+     * reported value is the per-frame count times the iteration count.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class DrawCalls {
+        public long drawCalls;
+    }
+
+    /**
+     * Allocate enough batches for every sprite.
+     */
+    @Setup
+    public void setup() {
+        this.batches = new RenderBatch[(this.spriteCount + this.batchSize - 1) / this.batchSize];
+        for (int i = 0; i < this.batches.length; i++) { this.batches[i] = new RenderBatch(this.batchSize, null); }
+    }
+
+    /**
+     * Pack every sprite of a frame into the batches on a 32 pixel grid.
+     *
+     * @param counters Draw call counter.
+     * @return Number of quads packed.
+     */
+    @Benchmark
+    public int packFrame(DrawCalls counters) {
+        int batchIndex = 0;
+        int packed = 0;
+        int drawCalls = 0;
+
+        for (int i = 0; i < this.spriteCount; i++) {
+            if (this.batches[batchIndex].isFull()) { batchIndex++; }
+
+            final float x = (i % 1000) * 32F;
+            final float y = (i / 1000) * 32F;
+
+            this.batches[batchIndex].addQuad(x, y, 32F, 32F, this.color, 0F, 0F, 1F, 1F);
+            packed++;
+        }
+
+        for (RenderBatch batch : this.batches) {
+            if (batch.quadCount() > 0) { drawCalls++; }
+            batch.clear();
+        }
+
+        counters.drawCalls = drawCalls;
+        return packed;
+    }
+}
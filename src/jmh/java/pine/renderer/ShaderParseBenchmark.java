@@ -0,0 +1,161 @@
+package pine.renderer;
+
+import org.openjdk.jmh.annotations.*;
+import pine.utils.ShaderType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark of shader source parsing and preprocessing: the split done by the shader constructor before the
+ * preprocessor, against the preprocessor's split, full preprocessing with includes and feature flags, and hashing the
+ * result into a program cache key.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShaderParseBenchmark {
+    private static final List<String> FEATURES = List.of("ALPHA_TEST", "MAX_LIGHTS=4");
+
+    @Param({ "LF", "CRLF" })
+    public String lineEndings;
+
+    private String source;
+    private Path directory;
+    private Map<ShaderType, String> preprocessed;
+
+    /**
+     * Read the default shader and its include from the classpath, with the chosen line endings, and copy them to a
+     * temporary directory so that the include resolves.
+     */
+    @Setup
+    public void setup() throws IOException {
+        String separator = this.lineEndings.equals("CRLF") ? "\r\n" : "\n";
+        this.source = ShaderParseBenchmark.resource("/shaders/default.glsl").replace("\n", separator);
+
+        this.directory = Files.createTempDirectory("pine-shaders");
+        Files.createDirectories(this.directory.resolve("include"));
+        Files.writeString(
+            this.directory.resolve("include/camera.glsl"),
+            ShaderParseBenchmark.resource("/shaders/include/camera.glsl").replace("\n", separator)
+        );
+
+        Graphics.setBackend(new RecordingBackend());
+        this.preprocessed = ShaderPreprocessor.process(this.source, this.directory, FEATURES).sources();
+    }
+
+    /**
+     * Delete the temporary directory.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(this.directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) { Files.delete(file); }
+        }
+    }
+
+    /**
+     * Split the default shader with the regular expression the shader constructor used before the preprocessor.
+     *
+     * @return Parsed shader sources.
+     */
+    @Benchmark
+    public Map<ShaderType, String> parseRegexSplit() throws IOException {
+        return ShaderParseBenchmark.regexSplit(this.source);
+    }
+
+    /**
+     * Split the default shader into its vertex and fragment sources.
+     *
+     * @return Parsed shader sources.
+     */
+    @Benchmark
+    public Map<ShaderType, String> parseDefaultShader() throws IOException {
+        return Shader.parse(this.source);
+    }
+
+    /**
+     * Preprocess the default shader, reading its include from disk.
+     *
+     * @return Preprocessed shader sources.
+     */
+    @Benchmark
+    public ShaderPreprocessor.Result preprocessDefaultShader() throws IOException {
+        return ShaderPreprocessor.process(this.source, this.directory, List.of());
+    }
+
+    /**
+     * Preprocess a variant of the default shader with two feature flags.
+     *
+     * @return Preprocessed shader sources.
+     */
+    @Benchmark
+    public ShaderPreprocessor.Result preprocessVariant() throws IOException {
+        return ShaderPreprocessor.process(this.source, this.directory, FEATURES);
+    }
+
+    /**
+     * Hash a preprocessed variant into its program cache key.
+     *
+     * @return Cache key.
+     */
+    @Benchmark
+    public String programCacheKey() {
+        return ProgramCache.get().key(this.preprocessed);
+    }
+
+    /**
+     * @return Contents of a classpath resource.
+     */
+    private static String resource(String name) throws IOException {
+        try (InputStream stream = ShaderParseBenchmark.class.getResourceAsStream(name)) {
+            assert stream != null : "Error (ShaderParseBenchmark.java): Could not find '" + name + "'.";
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * The shader constructor's split before the preprocessor, which handles exactly two sections.
+     */
+    private static Map<ShaderType, String> regexSplit(String source) throws IOException {
+        Map<ShaderType, String> sources = new EnumMap<>(ShaderType.class);
+        String[] splitString = source.split("(#type)( )+([a-zA-Z]+)");
+
+        int index = source.indexOf("#type") + 6;
+        int eol = source.indexOf("\n", index);
+        String shaderType_1 = source.substring(index, eol).trim();
+
+        index = source.indexOf("#type", eol) + 6;
+        eol = source.indexOf("\n", index);
+        String shaderType_2 = source.substring(index, eol).trim();
+
+        final String shaderSource_1 = splitString[1].trim();
+        final String shaderSource_2 = splitString[2].trim();
+
+        switch (shaderType_1) {
+            case "vertex" -> sources.put(ShaderType.Vertex, shaderSource_1);
+            case "fragment" -> sources.put(ShaderType.Fragment, shaderSource_1);
+            default -> throw new IOException("Unexpected token '" + shaderType_1 + "'.");
+        }
+
+        switch (shaderType_2) {
+            case "vertex" -> sources.put(ShaderType.Vertex, shaderSource_2);
+            case "fragment" -> sources.put(ShaderType.Fragment, shaderSource_2);
+            default -> throw new IOException("Unexpected token '" + shaderType_2 + "'.");
+        }
+
+        return sources;
+    }
+}
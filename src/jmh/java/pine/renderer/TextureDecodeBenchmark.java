@@ -0,0 +1,74 @@
+package pine.renderer;
+
+import org.lwjgl.BufferUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of stb_image decoding from memory, as done by the texture loader's worker threads. Runs without a GL
+ * context.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextureDecodeBenchmark {
+    @Param({"/images/testImage.jpg", "/images/testImage.png"})
+    public String image;
+
+    private ByteBuffer encoded;
+
+    /**
+     * Read the encoded image from the classpath into off-heap memory.
+     */
+    @Setup
+    public void setup() throws IOException {
+        try (InputStream stream = TextureDecodeBenchmark.class.getResourceAsStream(this.image)) {
+            assert stream != null : "Error (TextureDecodeBenchmark.java): Could not find '" + this.image + "'.";
+
+            byte[] bytes = stream.readAllBytes();
+            this.encoded = BufferUtils.createByteBuffer(bytes.length);
+            this.encoded.put(bytes).flip();
+        }
+    }
+
+    /**
+     * Decode the image on a single thread.
+     *
+     * @return Width of the decoded image.
+     */
+    @Benchmark
+    public int decode() {
+        return this.decodeOnce();
+    }
+
+    /**
+     * Decode the image on every available core at once.
+     *
+     * @return Width of the decoded image.
+     */
+    @Benchmark
+    @Threads(Threads.MAX)
+    public int decodeParallel() {
+        return this.decodeOnce();
+    }
+
+    /**
+     * Decode the image and free the pixels.
+     *
+     * @return Width of the decoded image.
+     */
+    private int decodeOnce() {
+        DecodedImage decoded = TextureLoader.decode(this.encoded);
+        int width = decoded.width();
+        decoded.free();
+
+        return width;
+    }
+}
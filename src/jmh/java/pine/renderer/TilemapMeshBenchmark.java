@@ -0,0 +1,83 @@
+package pine.renderer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the CPU side of the chunked tilemap: meshing one chunk, re-meshing after an edit, and meshing a whole
+ * map, which is what rebuilding every frame would cost.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TilemapMeshBenchmark {
+    @Param({"256", "2048"})
+    public int mapSize;
+
+    private Tilemap tilemap;
+    private float[] vertices;
+    private int chunks, edit;
+
+    /**
+     * Fill the map with random tiles, a quarter of them empty.
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(42L);
+
+        this.tilemap = new Tilemap(null, this.mapSize, this.mapSize, 32F);
+        for (int y = 0; y < this.mapSize; y++) {
+            for (int x = 0; x < this.mapSize; x++) { this.tilemap.set(x, y, random.nextInt(4) == 0 ? 0 : 1); }
+        }
+
+        final int chunkSize = this.tilemap.chunkSize();
+        this.chunks = this.mapSize / chunkSize;
+        this.vertices = new float[chunkSize * chunkSize * RenderBatch.VERTICES_PER_QUAD * RenderBatch.VERTEX_SIZE];
+    }
+
+    /**
+     * Mesh a single chunk.
+     *
+     * @return Number of quads written.
+     */
+    @Benchmark
+    public int meshChunk() {
+        return this.tilemap.mesh(0, 0, this.vertices);
+    }
+
+    /**
+     * Toggle one tile and re-mesh the chunk it belongs to, as an edit in the level editor would.
+     *
+     * @return Number of quads written.
+     */
+    @Benchmark
+    public int editAndRemesh() {
+        final int x = this.edit++ % this.tilemap.chunkSize();
+
+        this.tilemap.set(x, 0, this.tilemap.get(x, 0) == 0 ? 1 : 0);
+        return this.tilemap.mesh(0, 0, this.vertices);
+    }
+
+    /**
+     * Mesh every chunk of the map.
+     *
+     * @return Number of quads written.
+     */
+    @Benchmark
+    public int meshAll() {
+        int quads = 0;
+
+        for (int chunkY = 0; chunkY < this.chunks; chunkY++) {
+            for (int chunkX = 0; chunkX < this.chunks; chunkX++) {
+                quads += this.tilemap.mesh(chunkX, chunkY, this.vertices);
+            }
+        }
+
+        return quads;
+    }
+}
@@ -0,0 +1,126 @@
+package pine.spatial;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the spatial indices against a linear scan. Objects are 32x32 boxes spread at constant density over a
+ * square world that grows with the object count, and queries use the 1280x672 viewport of the default camera.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpatialIndexBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    public int objectCount;
+
+    @Param({"hash", "quadtree"})
+    public String indexType;
+
+    private SpatialIndex index;
+    private IntList results;
+    private float[] x, y, velocityX, velocityY;
+    private float worldSize;
+    private int frame;
+
+    /**
+     * Scatter the objects and fill the index.
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(42L);
+
+        this.worldSize = (float) Math.sqrt(this.objectCount) * 64F;
+        this.index = this.indexType.equals("hash")
+            ? new SpatialHash(128F)
+            : new LooseQuadtree(0F, 0F, this.worldSize);
+        this.results = new IntList(this.objectCount);
+
+        this.x = new float[this.objectCount];
+        this.y = new float[this.objectCount];
+        this.velocityX = new float[this.objectCount];
+        this.velocityY = new float[this.objectCount];
+
+        for (int i = 0; i < this.objectCount; i++) {
+            this.x[i] = random.nextFloat() * this.worldSize;
+            this.y[i] = random.nextFloat() * this.worldSize;
+            this.velocityX[i] = random.nextFloat() * 4F - 2F;
+            this.velocityY[i] = random.nextFloat() * 4F - 2F;
+
+            this.index.update(i, this.x[i], this.y[i], 32F, 32F);
+        }
+    }
+
+    /**
+     * Collect the objects visible in a viewport at the centre of the world.
+     *
+     * @return Number of visible objects.
+     */
+    @Benchmark
+    public int queryViewport() {
+        final float minX = this.worldSize * 0.5F - 640F;
+        final float minY = this.worldSize * 0.5F - 336F;
+
+        this.results.clear();
+        return this.index.query(minX, minY, minX + 1280F, minY + 672F, this.results);
+    }
+
+    /**
+     * Collect the objects under a point, as for mouse picking.
+     *
+     * @return Number of objects under the point.
+     */
+    @Benchmark
+    public int queryPoint() {
+        this.results.clear();
+        return this.index.queryPoint(this.worldSize * 0.5F, this.worldSize * 0.5F, this.results);
+    }
+
+    /**
+     * Move every object a little and write it back into the index, reversing direction every 64 calls so objects stay near
+     * their starting point.
+     *
+     * @return Number of objects in the index.
+     */
+    @Benchmark
+    public int updateAll() {
+        final float direction = (this.frame++ & 64) == 0 ? 1F : -1F;
+
+        for (int i = 0; i < this.objectCount; i++) {
+            this.x[i] += this.velocityX[i] * direction;
+            this.y[i] += this.velocityY[i] * direction;
+
+            this.index.update(i, this.x[i], this.y[i], 32F, 32F);
+        }
+
+        return this.index.size();
+    }
+
+    /**
+     * Baseline: collect the objects visible in the viewport by testing every object.
+     *
+     * @return Number of visible objects.
+     */
+    @Benchmark
+    public int linearScan() {
+        final float minX = this.worldSize * 0.5F - 640F;
+        final float minY = this.worldSize * 0.5F - 336F;
+        final float maxX = minX + 1280F;
+        final float maxY = minY + 672F;
+
+        this.results.clear();
+
+        for (int i = 0; i < this.objectCount; i++) {
+            if (this.x[i] <= maxX && this.x[i] + 32F >= minX && this.y[i] <= maxY && this.y[i] + 32F >= minY) {
+                this.results.add(i);
+            }
+        }
+
+        return this.results.size();
+    }
+}
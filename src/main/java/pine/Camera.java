@@ -3,13 +3,19 @@ package pine;
 import org.joml.Matrix4f;
 import org.joml.Vector2f;
 import org.joml.Vector3f;
+import org.joml.Vector4f;
 
 /**
- * Core 2D camera class.
+ * Core 2D camera class. The view, projection and combined matrices are cached and only recalculated when the position
+ * or projection of the camera changes.
  */
 public class Camera {
     private final Vector2f position;
     private final Matrix4f projectionMatrix, viewMatrix;
+    private final Matrix4f viewProjectionMatrix, inverseViewProjectionMatrix;
+    private final Vector3f unprojectScratch;
+    private float viewX, viewY;
+    private int projectionVersion, viewVersion, combinedVersion;
 
     /**
      * Create a new camera with specified position, a zero view matrix and a standard orthographic projection matrix.
@@ -20,8 +26,12 @@ public class Camera {
         this.position = position;
         this.projectionMatrix = new Matrix4f();
         this.viewMatrix = new Matrix4f();
+        this.viewProjectionMatrix = new Matrix4f();
+        this.inverseViewProjectionMatrix = new Matrix4f();
+        this.unprojectScratch = new Vector3f();
 
         this.modifyProjection();
+        this.recalculateView();
     }
 
     /**
@@ -30,6 +40,8 @@ public class Camera {
     public void modifyProjection() {
         this.projectionMatrix.identity();
         this.projectionMatrix.ortho(0F, 32F * 40F, 0F, 32F * 21F, 0F, 100F);
+
+        this.projectionVersion++;
     }
 
     /**
@@ -38,21 +50,135 @@ public class Camera {
     public Matrix4f projectionMatrix() { return projectionMatrix; }
 
     /**
-     * Recalculate the view matrix by making the camera look at its position.
+     * @return Version of the projection matrix; changes every time the projection is modified.
+     */
+    public int projectionVersion() { return this.projectionVersion; }
+
+    /**
+     * @return Position of the camera. The view matrix picks up changes made through this vector on its next access.
+     */
+    public Vector2f position() { return this.position; }
+
+    /**
+     * Move the camera to a new position.
+     *
+     * @param x New x-coordinate of the camera.
+     * @param y New y-coordinate of the camera.
+     */
+    public void setPosition(float x, float y) {
+        this.position.set(x, y);
+    }
+
+    /**
+     * Move the camera by an offset.
+     *
+     * @param dx Offset along the x-axis.
+     * @param dy Offset along the y-axis.
+     */
+    public void translate(float dx, float dy) {
+        this.position.add(dx, dy);
+    }
+
+    /**
+     * Get the view matrix, recalculating it only if the camera has moved since it was last calculated.
      *
      * @return View matrix of the camera.
      */
     public Matrix4f viewMatrix() {
-        Vector3f front = new Vector3f(0F, 0F, -1F);
-        Vector3f up = new Vector3f(0F, 1F, 0F);
-
-        this.viewMatrix.identity();
-        this.viewMatrix.lookAt(
-            new Vector3f(this.position.x, this.position.y, 20F),
-            front.add(this.position.x, this.position.y, 0F),
-            up
+        if (this.position.x != this.viewX || this.position.y != this.viewY) { this.recalculateView(); }
+        return this.viewMatrix;
+    }
+
+    /**
+     * @return Version of the view matrix; changes every time the camera moves.
+     */
+    public int viewVersion() {
+        this.viewMatrix();
+        return this.viewVersion;
+    }
+
+    /**
+     * Get the combined projection * view matrix, recalculating it only if the view or projection changed.
+     *
+     * @return Combined view-projection matrix of the camera.
+     */
+    public Matrix4f viewProjectionMatrix() {
+        this.refreshCombined();
+        return this.viewProjectionMatrix;
+    }
+
+    /**
+     * Get the inverse of the combined view-projection matrix, which maps normalized device coordinates back into world
+     * space.
+     *
+     * @return Inverse view-projection matrix of the camera.
+     */
+    public Matrix4f inverseViewProjectionMatrix() {
+        this.refreshCombined();
+        return this.inverseViewProjectionMatrix;
+    }
+
+    /**
+     * Convert normalized device coordinates into world coordinates, e.g. for mouse picking.
+     *
+     * @param ndcX        x-coordinate in the range [-1, 1].
+     * @param ndcY        y-coordinate in the range [-1, 1].
+     * @param destination Vector to store the world coordinates in.
+     * @return The destination vector.
+     */
+    public Vector2f unproject(float ndcX, float ndcY, Vector2f destination) {
+        this.inverseViewProjectionMatrix().transformPosition(ndcX, ndcY, 0F, this.unprojectScratch);
+        return destination.set(this.unprojectScratch.x, this.unprojectScratch.y);
+    }
+
+    /**
+     * Calculate the world-space rectangle visible to the camera by unprojecting the corners of the viewport, e.g. for
+     * culling.
+     *
+     * @param destination Vector to store the bounds in, as (minX, minY, maxX, maxY).
+     * @return The destination vector.
+     */
+    public Vector4f visibleBounds(Vector4f destination) {
+        Matrix4f inverse = this.inverseViewProjectionMatrix();
+        destination.set(
+            Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY
         );
 
-        return this.viewMatrix;
+        for (int corner = 0; corner < 4; corner++) {
+            final float ndcX = (corner & 1) == 0 ? -1F : 1F;
+            final float ndcY = (corner & 2) == 0 ? -1F : 1F;
+            inverse.transformPosition(ndcX, ndcY, 0F, this.unprojectScratch);
+
+            destination.x = Math.min(destination.x, this.unprojectScratch.x);
+            destination.y = Math.min(destination.y, this.unprojectScratch.y);
+            destination.z = Math.max(destination.z, this.unprojectScratch.x);
+            destination.w = Math.max(destination.w, this.unprojectScratch.y);
+        }
+
+        return destination;
+    }
+
+    /**
+     * Recalculate the view matrix by making the camera look at its position.
+     */
+    private void recalculateView() {
+        this.viewX = this.position.x;
+        this.viewY = this.position.y;
+
+        this.viewMatrix.setLookAt(this.viewX, this.viewY, 20F, this.viewX, this.viewY, -1F, 0F, 1F, 0F);
+        this.viewVersion++;
+    }
+
+    /**
+     * Recalculate the combined matrix and its inverse if the view or projection changed since the last calculation.
+     */
+    private void refreshCombined() {
+        final int version = this.viewVersion() + this.projectionVersion;
+        if (version == this.combinedVersion) { return; }
+
+        this.projectionMatrix.mul(this.viewMatrix, this.viewProjectionMatrix);
+        this.viewProjectionMatrix.invert(this.inverseViewProjectionMatrix);
+
+        this.combinedVersion = version;
     }
 }
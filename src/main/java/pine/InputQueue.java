@@ -0,0 +1,186 @@
+package pine;
+
+import pine.utils.InputEventType;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free single-producer, single-consumer ring buffer of input events. The GLFW callbacks push events on the thread
+ * calling {@code glfwPollEvents()}, and {@link InputSnapshot#update(InputQueue)} drains them on the simulation thread,
+ * which may be a different thread. Events are stored as primitives in preallocated parallel arrays, so neither side
+ * allocates. When the buffer is full, new events are dropped and counted.
+ */
+public class InputQueue {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static InputQueue instance;
+    private final int mask;
+    private final int[] types, codes, actions, modifiers;
+    private final double[] xs, ys;
+    private final AtomicLong head, tail;
+    private long dropped;
+
+    /**
+     * Create a new empty queue.
+     *
+     * @param capacity Number of events the queue can hold; rounded up to a power of two.
+     */
+    public InputQueue(int capacity) {
+        final int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+
+        this.mask = size - 1;
+        this.types = new int[size];
+        this.codes = new int[size];
+        this.actions = new int[size];
+        this.modifiers = new int[size];
+        this.xs = new double[size];
+        this.ys = new double[size];
+        this.head = new AtomicLong();
+        this.tail = new AtomicLong();
+    }
+
+    /**
+     * @return Input queue singleton instance fed by the window's GLFW callbacks.
+     */
+    public static InputQueue get() {
+        if (InputQueue.instance == null) { InputQueue.instance = new InputQueue(InputQueue.DEFAULT_CAPACITY); }
+        return InputQueue.instance;
+    }
+
+    /**
+     * Queue a key event. Producer thread only.
+     *
+     * @param key       GLFW key code.
+     * @param action    GLFW press, release or repeat action.
+     * @param modifiers GLFW modifier bits.
+     */
+    public void pushKey(int key, int action, int modifiers) {
+        this.push(InputEventType.Key, key, action, modifiers, 0D, 0D);
+    }
+
+    /**
+     * Queue a mouse button event. Producer thread only.
+     *
+     * @param button    GLFW mouse button.
+     * @param action    GLFW press or release action.
+     * @param modifiers GLFW modifier bits.
+     */
+    public void pushMouseButton(int button, int action, int modifiers) {
+        this.push(InputEventType.MouseButton, button, action, modifiers, 0D, 0D);
+    }
+
+    /**
+     * Queue a mouse move. Producer thread only.
+     *
+     * @param x New x-coordinate of the mouse.
+     * @param y New y-coordinate of the mouse.
+     */
+    public void pushMouseMove(double x, double y) {
+        this.push(InputEventType.MouseMove, 0, 0, 0, x, y);
+    }
+
+    /**
+     * Queue a scroll. Producer thread only.
+     *
+     * @param xOffset Scroll offset along the x-axis.
+     * @param yOffset Scroll offset along the y-axis.
+     */
+    public void pushScroll(double xOffset, double yOffset) {
+        this.push(InputEventType.Scroll, 0, 0, 0, xOffset, yOffset);
+    }
+
+    /**
+     * @return Sequence number one past the last published event. Consumer thread only.
+     */
+    long publishedTail() { return this.tail.get(); }
+
+    /**
+     * @return Sequence number of the oldest unconsumed event. Consumer thread only.
+     */
+    long consumedHead() { return this.head.get(); }
+
+    /**
+     * Release every event before a sequence number back to the producer. Consumer thread only.
+     *
+     * @param sequence Sequence number one past the last consumed event.
+     */
+    void consume(long sequence) {
+        this.head.lazySet(sequence);
+    }
+
+    /**
+     * @param sequence Sequence number of an event.
+     * @return Kind of the event, as an {@link InputEventType} ordinal.
+     */
+    int type(long sequence) { return this.types[(int) sequence & this.mask]; }
+
+    /**
+     * @return Key or mouse button of the event.
+     */
+    int code(long sequence) { return this.codes[(int) sequence & this.mask]; }
+
+    /**
+     * @return GLFW action of the event.
+     */
+    int action(long sequence) { return this.actions[(int) sequence & this.mask]; }
+
+    /**
+     * @return GLFW modifier bits of the event.
+     */
+    int modifiers(long sequence) { return this.modifiers[(int) sequence & this.mask]; }
+
+    /**
+     * @return x-coordinate or offset of the event.
+     */
+    double x(long sequence) { return this.xs[(int) sequence & this.mask]; }
+
+    /**
+     * @return y-coordinate or offset of the event.
+     */
+    double y(long sequence) { return this.ys[(int) sequence & this.mask]; }
+
+    /**
+     * Discard every event queued so far. Consumer thread only.
+     */
+    public void clear() {
+        this.head.lazySet(this.tail.get());
+    }
+
+    /**
+     * @return Number of events the queue can hold.
+     */
+    public int capacity() { return this.mask + 1; }
+
+    /**
+     * @return Number of events waiting to be drained.
+     */
+    public int size() { return (int) (this.tail.get() - this.head.get()); }
+
+    /**
+     * @return Number of events dropped because the queue was full.
+     */
+    public long dropped() { return this.dropped; }
+
+    /**
+     * Write an event into the next free slot and publish it.
+     */
+    private void push(InputEventType type, int code, int action, int modifiers, double x, double y) {
+        final long sequence = this.tail.get();
+
+        if (sequence - this.head.get() > this.mask) {
+            this.dropped++;
+            return;
+        }
+
+        final int slot = (int) sequence & this.mask;
+        this.types[slot] = type.ordinal();
+        this.codes[slot] = code;
+        this.actions[slot] = action;
+        this.modifiers[slot] = modifiers;
+        this.xs[slot] = x;
+        this.ys[slot] = y;
+
+        // The release store makes the slot's contents visible before the consumer can see the new tail.
+        this.tail.lazySet(sequence + 1);
+    }
+}
@@ -0,0 +1,112 @@
+package pine;
+
+import pine.utils.InputEventType;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Records every input event drained by an {@link InputSnapshot}, grouped by frame together with the frame's time, to a
+ * compact binary file that {@link InputReplay} can play back.
+ * <p>
+ * The file starts with the magic number and format version, followed by one record per frame: the frame index as an
+ * int, the frame time as a double, the number of events as a short, and the events. Each event is its type as a byte,
+ * then the key or button as a short with the action and modifiers as bytes for key and button events, or the
+ * position or offset as two doubles for mouse move and scroll events.
+ */
+public class InputRecorder implements AutoCloseable {
+    public static final int MAGIC = 0x50494E45;
+    public static final int VERSION = 1;
+
+    private static final int MOUSE_MOVE = InputEventType.MouseMove.ordinal();
+    private static final int SCROLL = InputEventType.Scroll.ordinal();
+
+    private final DataOutputStream output;
+    private ByteBuffer frameEvents;
+    private int eventCount, frame;
+
+    /**
+     * Create a new recorder, overwriting the file if it exists.
+     *
+     * @param filePath Location of the recording.
+     * @throws IOException If the file could not be created.
+     */
+    public InputRecorder(Path filePath) throws IOException {
+        this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(filePath)));
+        this.frameEvents = ByteBuffer.allocate(4096);
+
+        this.output.writeInt(InputRecorder.MAGIC);
+        this.output.writeInt(InputRecorder.VERSION);
+    }
+
+    /**
+     * Buffer an event of the current frame.
+     *
+     * @param type      Kind of the event, as an {@link InputEventType} ordinal.
+     * @param code      Key or mouse button of the event.
+     * @param action    GLFW action of the event.
+     * @param modifiers GLFW modifier bits of the event.
+     * @param x         x-coordinate or offset of the event.
+     * @param y         y-coordinate or offset of the event.
+     */
+    public void event(int type, int code, int action, int modifiers, double x, double y) {
+        if (this.frameEvents.remaining() < 1 + 2 * Double.BYTES) {
+            ByteBuffer grown = ByteBuffer.allocate(this.frameEvents.capacity() * 2);
+            this.frameEvents.flip();
+            this.frameEvents = grown.put(this.frameEvents);
+        }
+
+        this.frameEvents.put((byte) type);
+
+        if (type == MOUSE_MOVE || type == SCROLL) {
+            this.frameEvents.putDouble(x).putDouble(y);
+        }
+
+        else {
+            this.frameEvents.putShort((short) code).put((byte) action).put((byte) modifiers);
+        }
+
+        this.eventCount++;
+    }
+
+    /**
+     * Write the current frame's record and start the next frame.
+     *
+     * @param frameTime Time between the current and previous frame in seconds.
+     */
+    public void endFrame(double frameTime) {
+        try {
+            this.output.writeInt(this.frame);
+            this.output.writeDouble(frameTime);
+            this.output.writeShort(this.eventCount);
+            this.output.write(this.frameEvents.array(), 0, this.frameEvents.position());
+        }
+
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        this.frameEvents.clear();
+        this.eventCount = 0;
+        this.frame++;
+    }
+
+    /**
+     * @return Number of frames recorded.
+     */
+    public int frameCount() { return this.frame; }
+
+    /**
+     * Flush and close the file.
+     *
+     * @throws IOException If the file could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        this.output.close();
+    }
+}
@@ -0,0 +1,110 @@
+package pine;
+
+import pine.utils.InputEventType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Plays back a recording written by {@link InputRecorder}. Each call to {@link #nextFrame(InputQueue)} pushes one
+ * frame's events into a queue and returns the recorded frame time, so a run driven by a replay sees the same input on
+ * the same frames with the same time steps every time.
+ */
+public class InputReplay {
+    private static final int KEY = InputEventType.Key.ordinal();
+    private static final int MOUSE_BUTTON = InputEventType.MouseButton.ordinal();
+    private static final int MOUSE_MOVE = InputEventType.MouseMove.ordinal();
+    private static final int SCROLL = InputEventType.Scroll.ordinal();
+    private static final int FRAME_HEADER_BYTES = Integer.BYTES + Double.BYTES + Short.BYTES;
+    private static final int BUTTON_EVENT_BYTES = 1 + Short.BYTES + 2;
+    private static final int MOVE_EVENT_BYTES = 1 + 2 * Double.BYTES;
+
+    private final ByteBuffer data;
+    private int frame;
+
+    /**
+     * Load a recording into memory.
+     *
+     * @param filePath Location of the recording.
+     * @throws IOException If the file could not be read or is not a recording.
+     */
+    public InputReplay(Path filePath) throws IOException {
+        this.data = ByteBuffer.wrap(Files.readAllBytes(filePath));
+
+        if (this.data.remaining() < 2 * Integer.BYTES || this.data.getInt() != InputRecorder.MAGIC) {
+            throw new IOException("'" + filePath + "' is not an input recording.");
+        }
+
+        final int version = this.data.getInt();
+        if (version != InputRecorder.VERSION) {
+            throw new IOException("Unsupported input recording version '" + version + "' in '" + filePath + "'.");
+        }
+    }
+
+    /**
+     * Check whether a whole frame is left to play. A partial frame at the end of the recording, e.g. one cut short
+     * because the recording process was killed, is treated as the end of the replay.
+     *
+     * @return Whether there are frames left to play.
+     */
+    public boolean hasNext() {
+        final int start = this.data.position();
+        if (this.data.limit() - start < FRAME_HEADER_BYTES) { return false; }
+
+        final int eventCount = this.data.getShort(start + Integer.BYTES + Double.BYTES) & 0xFFFF;
+        int position = start + FRAME_HEADER_BYTES;
+
+        for (int i = 0; i < eventCount; i++) {
+            if (position >= this.data.limit()) { return false; }
+
+            final int type = this.data.get(position);
+            if (type < KEY || type > SCROLL) { return false; }
+
+            position += type == KEY || type == MOUSE_BUTTON ? BUTTON_EVENT_BYTES : MOVE_EVENT_BYTES;
+        }
+
+        return position <= this.data.limit();
+    }
+
+    /**
+     * Push the events of the next frame into a queue. Only call this if {@link #hasNext()} is true.
+     *
+     * @param queue Queue to push the events into.
+     * @return Recorded time between the frame and the previous frame in seconds.
+     */
+    public double nextFrame(InputQueue queue) {
+        this.frame = this.data.getInt();
+        final double frameTime = this.data.getDouble();
+        final int eventCount = this.data.getShort() & 0xFFFF;
+
+        for (int i = 0; i < eventCount; i++) {
+            final int type = this.data.get();
+
+            if (type == KEY || type == MOUSE_BUTTON) {
+                final int code = this.data.getShort();
+                final int action = this.data.get();
+                final int modifiers = this.data.get();
+
+                if (type == KEY) { queue.pushKey(code, action, modifiers); }
+                else { queue.pushMouseButton(code, action, modifiers); }
+            }
+
+            else {
+                final double x = this.data.getDouble();
+                final double y = this.data.getDouble();
+
+                if (type == MOUSE_MOVE) { queue.pushMouseMove(x, y); }
+                else { queue.pushScroll(x, y); }
+            }
+        }
+
+        return frameTime;
+    }
+
+    /**
+     * @return Index of the frame last played.
+     */
+    public int frame() { return this.frame; }
+}
@@ -0,0 +1,239 @@
+package pine;
+
+import org.lwjgl.glfw.GLFW;
+import pine.utils.InputEventType;
+
+import java.util.Arrays;
+
+/**
+ * Input state for one frame, built by draining an {@link InputQueue}. Besides whether each key and mouse button is
+ * down, the snapshot records which went down or up during the frame, the mouse displacement over the frame and the
+ * scroll accumulated over it. The snapshot only changes in {@link #update(InputQueue)}, so every query made during a
+ * frame sees the same state.
+ */
+public class InputSnapshot {
+    public static final int KEY_COUNT = GLFW.GLFW_KEY_LAST + 1;
+    public static final int BUTTON_COUNT = GLFW.GLFW_MOUSE_BUTTON_LAST + 1;
+
+    private static final int KEY = InputEventType.Key.ordinal();
+    private static final int MOUSE_BUTTON = InputEventType.MouseButton.ordinal();
+    private static final int MOUSE_MOVE = InputEventType.MouseMove.ordinal();
+
+    private static InputSnapshot instance;
+    private final boolean[] keysDown, keysPressed, keysReleased;
+    private final boolean[] buttonsDown, buttonsPressed, buttonsReleased;
+    private double mouseX, mouseY, deltaX, deltaY, scrollX, scrollY;
+    private boolean mouseMoved, mousePlaced, dragging;
+    private int modifiers;
+    private long frame;
+    private InputRecorder recorder;
+
+    /**
+     * Create a new snapshot with nothing pressed.
+     */
+    public InputSnapshot() {
+        this.keysDown = new boolean[KEY_COUNT];
+        this.keysPressed = new boolean[KEY_COUNT];
+        this.keysReleased = new boolean[KEY_COUNT];
+        this.buttonsDown = new boolean[BUTTON_COUNT];
+        this.buttonsPressed = new boolean[BUTTON_COUNT];
+        this.buttonsReleased = new boolean[BUTTON_COUNT];
+    }
+
+    /**
+     * @return Input snapshot singleton instance updated by the window every frame.
+     */
+    public static InputSnapshot get() {
+        if (InputSnapshot.instance == null) { InputSnapshot.instance = new InputSnapshot(); }
+        return InputSnapshot.instance;
+    }
+
+    /**
+     * Start a new frame: clear the edge states and per-frame mouse movement, then apply every event queued so far.
+     * Events queued while this runs are left for the next frame.
+     *
+     * @param queue Queue to drain.
+     */
+    public void update(InputQueue queue) {
+        Arrays.fill(this.keysPressed, false);
+        Arrays.fill(this.keysReleased, false);
+        Arrays.fill(this.buttonsPressed, false);
+        Arrays.fill(this.buttonsReleased, false);
+
+        final double startX = this.mouseX;
+        final double startY = this.mouseY;
+        this.scrollX = 0D;
+        this.scrollY = 0D;
+        this.mouseMoved = false;
+
+        final long end = queue.publishedTail();
+
+        for (long sequence = queue.consumedHead(); sequence < end; sequence++) {
+            final int type = queue.type(sequence);
+
+            if (this.recorder != null) {
+                this.recorder.event(
+                    type, queue.code(sequence), queue.action(sequence), queue.modifiers(sequence),
+                    queue.x(sequence), queue.y(sequence)
+                );
+            }
+
+            if (type == KEY) {
+                this.modifiers = queue.modifiers(sequence);
+                InputSnapshot.apply(
+                    queue.code(sequence), queue.action(sequence), this.keysDown, this.keysPressed, this.keysReleased
+                );
+            }
+
+            else if (type == MOUSE_BUTTON) {
+                this.modifiers = queue.modifiers(sequence);
+                InputSnapshot.apply(
+                    queue.code(sequence), queue.action(sequence),
+                    this.buttonsDown, this.buttonsPressed, this.buttonsReleased
+                );
+            }
+
+            else if (type == MOUSE_MOVE) {
+                this.mouseX = queue.x(sequence);
+                this.mouseY = queue.y(sequence);
+                this.mouseMoved = true;
+            }
+
+            else {
+                this.scrollX += queue.x(sequence);
+                this.scrollY += queue.y(sequence);
+            }
+        }
+
+        queue.consume(end);
+
+        // The first position only places the cursor; it is not a movement.
+        this.deltaX = this.mousePlaced ? this.mouseX - startX : 0D;
+        this.deltaY = this.mousePlaced ? this.mouseY - startY : 0D;
+        this.mousePlaced |= this.mouseMoved;
+        this.dragging = this.mouseMoved && this.anyButtonDown();
+        this.frame++;
+    }
+
+    /**
+     * Record every event drained from now on.
+     *
+     * @param recorder Recorder to pass the events to, or null to stop recording.
+     */
+    public void setRecorder(InputRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * @param key GLFW key code.
+     * @return Whether the key is down.
+     */
+    public boolean keyDown(int key) { return key >= 0 && key < KEY_COUNT && this.keysDown[key]; }
+
+    /**
+     * @param key GLFW key code.
+     * @return Whether the key went down during the frame.
+     */
+    public boolean keyPressed(int key) { return key >= 0 && key < KEY_COUNT && this.keysPressed[key]; }
+
+    /**
+     * @param key GLFW key code.
+     * @return Whether the key went up during the frame.
+     */
+    public boolean keyReleased(int key) { return key >= 0 && key < KEY_COUNT && this.keysReleased[key]; }
+
+    /**
+     * @param button GLFW mouse button.
+     * @return Whether the mouse button is down.
+     */
+    public boolean buttonDown(int button) { return button >= 0 && button < BUTTON_COUNT && this.buttonsDown[button]; }
+
+    /**
+     * @param button GLFW mouse button.
+     * @return Whether the mouse button went down during the frame.
+     */
+    public boolean buttonPressed(int button) {
+        return button >= 0 && button < BUTTON_COUNT && this.buttonsPressed[button];
+    }
+
+    /**
+     * @param button GLFW mouse button.
+     * @return Whether the mouse button went up during the frame.
+     */
+    public boolean buttonReleased(int button) {
+        return button >= 0 && button < BUTTON_COUNT && this.buttonsReleased[button];
+    }
+
+    /**
+     * @return x-coordinate of the mouse at the end of the frame.
+     */
+    public double mouseX() { return this.mouseX; }
+
+    /**
+     * @return y-coordinate of the mouse at the end of the frame.
+     */
+    public double mouseY() { return this.mouseY; }
+
+    /**
+     * @return Mouse displacement along the x-axis over the frame.
+     */
+    public double deltaX() { return this.deltaX; }
+
+    /**
+     * @return Mouse displacement along the y-axis over the frame.
+     */
+    public double deltaY() { return this.deltaY; }
+
+    /**
+     * @return Scroll along the x-axis accumulated over the frame.
+     */
+    public double scrollX() { return this.scrollX; }
+
+    /**
+     * @return Scroll along the y-axis accumulated over the frame.
+     */
+    public double scrollY() { return this.scrollY; }
+
+    /**
+     * @return Whether the mouse moved during the frame with a button down.
+     */
+    public boolean dragging() { return this.dragging; }
+
+    /**
+     * @return GLFW modifier bits of the last key or mouse button event.
+     */
+    public int modifiers() { return this.modifiers; }
+
+    /**
+     * @return Number of frames the snapshot has been updated for.
+     */
+    public long frame() { return this.frame; }
+
+    /**
+     * @return Whether any mouse button is down.
+     */
+    private boolean anyButtonDown() {
+        for (boolean down : this.buttonsDown) {
+            if (down) { return true; }
+        }
+
+        return false;
+    }
+
+    /**
+     * Apply a press or release to a set of down and edge states. Repeats keep the key down without an edge.
+     */
+    private static void apply(int code, int action, boolean[] down, boolean[] pressed, boolean[] released) {
+        if (code < 0 || code >= down.length) { return; }
+
+        if (action == GLFW.GLFW_PRESS) {
+            if (!down[code]) { pressed[code] = true; }
+            down[code] = true;
+        }
+
+        else if (action == GLFW.GLFW_RELEASE) {
+            if (down[code]) { released[code] = true; }
+            down[code] = false;
+        }
+    }
+}
@@ -1,51 +1,51 @@
 package pine;
 
-import org.lwjgl.glfw.GLFW;
-
 /**
- * Custom key listener singleton to interop with the GLFW key listener.
+ * Custom key listener to interop with the GLFW key listener. The callback only queues events; key state is read from
+ * the frame's {@link InputSnapshot}, so it stays the same for the whole frame.
  */
 public class KeyListener {
-    private static KeyListener instance;
-    private final boolean[] keyPressed = new boolean[350];
-
     /**
-     * Create a new key listener.
+     * Create a new key listener - not to be used.
      */
     private KeyListener() { }
 
-    /**
-     * @return Key listener singleton instance.
-     */
-    public static KeyListener get() {
-        if (KeyListener.instance == null) { KeyListener.instance = new KeyListener(); }
-        return KeyListener.instance;
-    }
-
     /**
      * Set up a key callback to interop with GLFW key callback.
      *
      * @param windowPointer Pointer to the current window.
      * @param key           Key to check for press.
-     * @param scanCode
+     * @param scanCode      Platform-specific scan code of the key.
      * @param action        Whether the key is pressed or released.
      * @param modifiers     Other modifier keys pressed.
      */
     public static void keyCallback(long windowPointer, int key, int scanCode, int action, int modifiers) {
-        KeyListener instance = KeyListener.get();
-
-        if (action == GLFW.GLFW_PRESS) { instance.keyPressed[key] = true; }
-        else if (action == GLFW.GLFW_RELEASE) { instance.keyPressed[key] = false; }
+        InputQueue.get().pushKey(key, action, modifiers);
     }
 
     /**
      * Check if a key is pressed.
      *
      * @param key Key to check for press.
-     * @return Whether the key is pressed.
+     * @return Whether the key is down this frame.
      */
     public static boolean keyPressed(int key) {
-        KeyListener instance = KeyListener.get();
-        return key < instance.keyPressed.length && instance.keyPressed[key];
+        return InputSnapshot.get().keyDown(key);
+    }
+
+    /**
+     * @param key Key to check.
+     * @return Whether the key went down this frame.
+     */
+    public static boolean keyJustPressed(int key) {
+        return InputSnapshot.get().keyPressed(key);
+    }
+
+    /**
+     * @param key Key to check.
+     * @return Whether the key went up this frame.
+     */
+    public static boolean keyJustReleased(int key) {
+        return InputSnapshot.get().keyReleased(key);
     }
 }
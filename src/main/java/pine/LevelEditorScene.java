@@ -1,115 +1,196 @@
 package pine;
 
 import org.joml.Vector2f;
-import org.lwjgl.BufferUtils;
-import org.lwjgl.opengl.*;
+import org.lwjgl.glfw.GLFW;
+import pine.ecs.MovementSystem;
+import pine.ecs.SpatialIndexSystem;
+import pine.ecs.SpriteRenderSystem;
+import pine.level.LevelJson;
+import pine.level.LevelLoader;
+import pine.level.LevelWriter;
+import pine.particles.Curve;
+import pine.particles.Emitter;
+import pine.particles.ParticleSystem;
+import pine.renderer.Renderer;
 import pine.renderer.Shader;
+import pine.renderer.Sprite;
 import pine.renderer.Texture;
-import pine.utils.Time;
-
-import java.nio.FloatBuffer;
-import java.nio.IntBuffer;
+import pine.renderer.Tilemap;
+import pine.spatial.SpatialHash;
+import pine.utils.AssetPool;
+import pine.utils.RenderPath;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * Level editor scene - currently a test scene.
+ * Level editor scene - currently a test scene. The level is loaded from the file named by the {@code pine.level}
+ * system property when it exists, and Ctrl+S saves it back, together with a JSON copy for diffing.
  */
 public class LevelEditorScene extends Scene {
-    private final float[] vertexArray = {
-        100F,   0F, 0F,     1F, 0F, 0F, 1F,     1F, 0F,  // Bottom-right.
-          0F, 100F, 0F,     0F, 1F, 0F, 1F,     0F, 1F,  // Top-left.
-        100F, 100F, 0F,     1F, 0F, 1F, 1F,     1F, 1F,  // Top-right.
-          0F,   0F, 0F,     1F, 1F, 0F, 1F,     0F, 0F   // Bottom-left.
-    };
-    private final int[] elementArray = {
-        2, 1, 0,  // Top-right triangle.
-        0, 1, 3   // Bottom-left triangle.
-    };
-    private int vertexID, fragmentID, shaderProgramID;
-    private int vaoID, vboID, eboID;
-    private Shader defaultShader;
+    public static final String DEFAULT_LEVEL = "levels/editor.level";
+
+    private final Path levelPath;
+    private final List<Texture> levelTextures;
+    private Shader defaultShader, instancedShader;
     private Texture testTexture;
+    private Renderer renderer;
+    private Tilemap tilemap;
+    private ParticleSystem particles;
 
     /**
      * Create the new scene and initialize the camera to (0, 0).
      */
     public LevelEditorScene() {
         this.camera = new Camera(new Vector2f());
+        this.levelPath = Paths.get(System.getProperty("pine.level", DEFAULT_LEVEL));
+        this.levelTextures = new ArrayList<>();
     }
 
     /**
-     * Load the shaders and bind the data to the VAO, VBO and EBOs.
+     * Load the shaders and texture, create the renderer and the dust particles, and load the level, or spawn the test
+     * entity if there is none.
      */
     @Override
     public void initialize() {
-        this.defaultShader = new Shader("src/main/resources/shaders/default.glsl");
-        this.defaultShader.compileAll(true);
-
-        this.testTexture = new Texture("src/main/resources/images/testImage.jpg");
-
-        this.vaoID = GL30.glGenVertexArrays();
-        GL30.glBindVertexArray(this.vaoID);
+        this.defaultShader = AssetPool.shader("src/main/resources/shaders/default.glsl");
+        this.testTexture = AssetPool.texture("src/main/resources/images/testImage.jpg");
 
-        FloatBuffer vertexBuffer = BufferUtils.createFloatBuffer(this.vertexArray.length);
-        vertexBuffer.put(this.vertexArray).flip();
+        this.instancedShader = AssetPool.shader("src/main/resources/shaders/instanced.glsl");
 
-        this.vboID = GL15.glGenBuffers();
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, this.vboID);
-        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, vertexBuffer, GL15.GL_STATIC_DRAW);
+        this.renderer = new Renderer(this.defaultShader);
+        this.renderer.setRenderPath(this.instancedShader, RenderPath.Auto);
 
-        IntBuffer elementBuffer = BufferUtils.createIntBuffer(this.elementArray.length);
-        elementBuffer.put(this.elementArray).flip();
+        Emitter dust = new Emitter(200F, 0.5F, 1.5F);
+        dust.setVelocity(20F, 60F, 0F, (float) Math.PI);
+        dust.setGravity(0F, -40F);
+        dust.setSize(new Curve(0F, 4F, 1F, 12F));
+        dust.setColor(Curve.constant(0.8F), Curve.constant(0.7F), Curve.constant(0.6F), new Curve(0F, 1F, 1F, 0F));
 
-        this.eboID = GL15.glGenBuffers();
-        GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, this.eboID);
-        GL15.glBufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, elementBuffer, GL15.GL_STATIC_DRAW);
+        this.particles = new ParticleSystem(4096, new Sprite(this.testTexture));
+        this.particles.addEmitter(dust);
 
-        final int positionSize = 3;
-        final int colorSize = 4;
-        final int uvSize = 2;
+        SpatialIndexSystem spatialIndex = new SpatialIndexSystem(new SpatialHash(128F));
+        this.world.addSystem(new MovementSystem());
+        this.world.addSystem(spatialIndex);
+        this.world.addSystem(this.particles);
+        this.world.addRenderSystem(new SpriteRenderSystem(this.renderer, this.camera, spatialIndex.index()));
 
-        final int vertexSize = (positionSize + colorSize + uvSize) * Float.BYTES;
+        if (Files.exists(this.levelPath) && this.loadLevel()) { return; }
 
-        GL20.glVertexAttribPointer(0, positionSize, GL11.GL_FLOAT, false, vertexSize, 0);
-        GL20.glEnableVertexAttribArray(0);
-
-        GL20.glVertexAttribPointer(
-            1, colorSize, GL11.GL_FLOAT, false, vertexSize, positionSize * Float.BYTES
-        );
-        GL20.glEnableVertexAttribArray(1);
-
-        GL20.glVertexAttribPointer(
-            2, uvSize, GL11.GL_FLOAT, false, vertexSize, (positionSize + colorSize) * Float.BYTES
-        );
-        GL20.glEnableVertexAttribArray(2);
+        int entity = this.world.create();
+        this.world.transforms.add(entity, 0F, 0F, 100F, 100F);
+        this.world.sprites.add(entity, new Sprite(this.testTexture), 1F, 1F, 1F, 1F);
     }
 
     /**
-     * Use ths shaders, draw the elements and then detach the shaders every frame.
+     * Handle the editor shortcuts, run the world's update systems, then submit the tilemap and particles and run the
+     * world's render systems.
      *
      * @param deltaTime Time between current and previous frame.
      */
     @Override
     public void update(double deltaTime) {
-        this.defaultShader.use();
+        this.editorInput();
+        if (this.tilemap != null) { this.renderer.drawTilemap(this.tilemap); }
 
-        this.defaultShader.uploadTexture("TEXTURE_SAMPLER", 0);
-        GL13.glActiveTexture(GL13.GL_TEXTURE0);
-        this.testTexture.bind();
+        // The particles are simulated by the update systems, so they are only submitted once those have run.
+        this.world.update(deltaTime);
+        this.particles.draw(this.renderer);
+        this.world.render(1D);
+    }
 
-        this.defaultShader.uploadMatrix("uniformProjection", this.camera.projectionMatrix());
-        this.defaultShader.uploadMatrix("uniformView", this.camera.viewMatrix());
-        this.defaultShader.uploadFloat("uniformTime", (float) Time.time());
+    /**
+     * Handle the editor shortcuts, submit the tilemap and particles and run the world's render systems.
+     *
+     * @param alpha Interpolation factor in [0, 1) between the previous and current simulation state.
+     */
+    @Override
+    public void render(double alpha) {
+        this.editorInput();
+        if (this.tilemap != null) { this.renderer.drawTilemap(this.tilemap); }
+        this.particles.draw(this.renderer);
 
-        GL30.glBindVertexArray(this.vaoID);
-        GL20.glEnableVertexAttribArray(0);
-        GL20.glEnableVertexAttribArray(1);
+        super.render(alpha);
+    }
 
-        GL11.glDrawElements(GL11.GL_TRIANGLES, this.elementArray.length, GL11.GL_UNSIGNED_INT, 0);
+    /**
+     * Save the level to its file, and its JSON copy next to it.
+     */
+    public void saveLevel() {
+        try {
+            final long start = System.nanoTime();
+            Path jsonPath = this.levelPath.resolveSibling(this.levelPath.getFileName() + ".json");
+
+            LevelWriter.write(this.levelPath, this.world, this.tilemap);
+            LevelJson.write(jsonPath, this.world, this.tilemap);
+
+            System.out.printf(
+                "Saved %d entities to '%s' in %.2f ms.\n", this.world.entityCount(), this.levelPath,
+                (System.nanoTime() - start) / 1e6D
+            );
+        }
+
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 
-        GL20.glDisableVertexAttribArray(1);
-        GL20.glDisableVertexAttribArray(0);
-        GL30.glBindVertexArray(0);
+    /**
+     * Delete the renderer and tilemap and release the shaders and textures back to the asset pool.
+     */
+    @Override
+    public void destroy() {
+        this.world.clear();
+        this.renderer.delete();
+        if (this.tilemap != null) { this.tilemap.delete(); }
+
+        AssetPool.release(this.defaultShader);
+        AssetPool.release(this.instancedShader);
+        AssetPool.release(this.testTexture);
+        for (Texture texture : this.levelTextures) { AssetPool.release(texture); }
+    }
+
+    /**
+     * Load the level file into the world.
+     *
+     * @return Whether the level was loaded.
+     */
+    private boolean loadLevel() {
+        try {
+            final long start = System.nanoTime();
+            LevelLoader.Result level = LevelLoader.load(
+                this.levelPath, this.world, AssetPool::texture, AssetPool::release
+            );
+
+            this.tilemap = level.tilemap();
+            this.levelTextures.addAll(level.textures());
+
+            System.out.printf(
+                "Loaded %d entities from '%s' in %.2f ms.\n", this.world.entityCount(), this.levelPath,
+                (System.nanoTime() - start) / 1e6D
+            );
+
+            return true;
+        }
+
+        catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Handle the editor's keyboard shortcuts.
+     */
+    private void editorInput() {
+        final boolean control = KeyListener.keyPressed(GLFW.GLFW_KEY_LEFT_CONTROL) ||
+            KeyListener.keyPressed(GLFW.GLFW_KEY_RIGHT_CONTROL);
 
-        this.defaultShader.detach();
+        if (control && KeyListener.keyJustPressed(GLFW.GLFW_KEY_S)) { this.saveLevel(); }
     }
 }
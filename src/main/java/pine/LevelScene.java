@@ -16,7 +16,4 @@ public class LevelScene extends Scene {
         window.g = 1F;
         window.b = 1F;
     }
-
-    @Override
-    public void update(double deltaTime) { }
 }
@@ -1,26 +1,22 @@
 package pine;
 
 import org.joml.Vector2d;
-import org.lwjgl.glfw.GLFW;
 
 /**
- * Custom mouse listener singleton to interop with the GLFW mouse listener.
+ * Custom mouse listener singleton to interop with the GLFW mouse listener. The callbacks only queue events; mouse state
+ * is read from the frame's {@link InputSnapshot}, so it stays the same for the whole frame.
  */
 public class MouseListener {
     public static MouseListener instance;
-    private final Vector2d position;
-    private final boolean[] mouseButtonPressed = new boolean[3];
-    private Vector2d lastPosition;
-    private Vector2d scroll;
-    private boolean isDragging;
+    private final Vector2d position, scroll, displacement;
 
     /**
      * Create a new mouse listener.
      */
     private MouseListener() {
-        this.scroll = new Vector2d(0D, 0D);
         this.position = new Vector2d(0D, 0D);
-        this.lastPosition = new Vector2d(0D, 0D);
+        this.scroll = new Vector2d(0D, 0D);
+        this.displacement = new Vector2d(0D, 0D);
     }
 
     /**
@@ -39,13 +35,7 @@ public class MouseListener {
      * @param yPosition     y-coordinate of the mouse position.
      */
     public static void mousePositionCallback(long windowPointer, double xPosition, double yPosition) {
-        MouseListener instance = MouseListener.get();
-
-        instance.lastPosition = instance.position;
-        instance.position.x = xPosition;
-        instance.position.y = yPosition;
-
-        instance.isDragging = instance.mouseButtonPressed[0] || instance.mouseButtonPressed[1] || instance.mouseButtonPressed[2];
+        InputQueue.get().pushMouseMove(xPosition, yPosition);
     }
 
     /**
@@ -57,16 +47,7 @@ public class MouseListener {
      * @param modifiers     Other modifier keys pressed.
      */
     public static void mouseButtonCallback(long windowPointer, int button, int action, int modifiers) {
-        MouseListener instance = MouseListener.get();
-
-        if (action == GLFW.GLFW_PRESS) {
-            if (button < instance.mouseButtonPressed.length) { instance.mouseButtonPressed[button] = true; }
-        }
-
-        else if (action == GLFW.GLFW_RELEASE) {
-            instance.mouseButtonPressed[button] = false;
-            instance.isDragging = false;
-        }
+        InputQueue.get().pushMouseButton(button, action, modifiers);
     }
 
     /**
@@ -77,55 +58,55 @@ public class MouseListener {
      * @param yOffset       y-coordinate of the scroll offset.
      */
     public static void mouseScrollCallback(long windowPointer, double xOffset, double yOffset) {
-        MouseListener instance = MouseListener.get();
-        instance.scroll.x = xOffset;
-        instance.scroll.y = yOffset;
+        InputQueue.get().pushScroll(xOffset, yOffset);
     }
 
     /**
-     * Change the position of the mouse its last position and stop it scrolling. Useful to call on the last frame of the
-     * window.
+     * @return Position of the mouse this frame. The vector is reused between calls.
      */
-    public static void endFrame() {
-        MouseListener instance = MouseListener.get();
-
-        instance.scroll = new Vector2d(0D, 0D);
-        instance.lastPosition = instance.position;
+    public Vector2d position() {
+        InputSnapshot snapshot = InputSnapshot.get();
+        return this.position.set(snapshot.mouseX(), snapshot.mouseY());
     }
 
     /**
-     * @return Position of the mouse.
-     */
-    public Vector2d position() { return this.position; }
-
-    /**
-     * @return Scroll direction of the mouse.
+     * @return Scroll accumulated over this frame. The vector is reused between calls.
      */
-    public Vector2d scroll() { return this.scroll; }
+    public Vector2d scroll() {
+        InputSnapshot snapshot = InputSnapshot.get();
+        return this.scroll.set(snapshot.scrollX(), snapshot.scrollY());
+    }
 
     /**
-     * @return Displacement of the mouse from the last frame to the current frame.
+     * @return Displacement of the mouse from the last frame to the current frame. The vector is reused between calls.
      */
     public Vector2d displacement() {
-        Vector2d displacement = new Vector2d(0D, 0D);
-        this.lastPosition.sub(this.position, displacement);
-
-        return displacement;
+        InputSnapshot snapshot = InputSnapshot.get();
+        return this.displacement.set(snapshot.deltaX(), snapshot.deltaY());
     }
 
     /**
      * @return Whether the mouse is being dragged.
      */
-    public boolean isDragging() { return this.isDragging; }
+    public boolean isDragging() { return InputSnapshot.get().dragging(); }
 
     /**
      * Check if a mouse button is pressed.
      *
      * @param button Mouse button to check for press.
-     * @return Whether the mouse button is pressed.
+     * @return Whether the mouse button is down this frame.
      */
-    public boolean mouseButtonDown(int button) {
-        MouseListener instance = MouseListener.get();
-        return button < instance.mouseButtonPressed.length && instance.mouseButtonPressed[button];
-    }
+    public boolean mouseButtonDown(int button) { return InputSnapshot.get().buttonDown(button); }
+
+    /**
+     * @param button Mouse button to check.
+     * @return Whether the mouse button went down this frame.
+     */
+    public boolean mouseButtonPressed(int button) { return InputSnapshot.get().buttonPressed(button); }
+
+    /**
+     * @param button Mouse button to check.
+     * @return Whether the mouse button went up this frame.
+     */
+    public boolean mouseButtonReleased(int button) { return InputSnapshot.get().buttonReleased(button); }
 }
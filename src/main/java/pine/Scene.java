@@ -1,15 +1,20 @@
 package pine;
 
+import pine.ecs.World;
+
 /**
- * Abstract scene class for all in-game scenes.
+ * Abstract scene class for all in-game scenes. Every scene owns a {@link World} whose systems it drives.
  */
 public abstract class Scene {
+    protected final World world;
     protected Camera camera;
 
     /**
      * Create a new scene.
      */
-    public Scene() { }
+    public Scene() {
+        this.world = new World();
+    }
 
     /**
      * Initialize the scene.
@@ -17,9 +22,43 @@ public abstract class Scene {
     public void initialize() { }
 
     /**
-     * Update the scene; called every frame.
+     * Release the resources held by the scene; called when the window switches to another scene.
+     */
+    public void destroy() { }
+
+    /**
+     * Update the scene; called every frame when the window uses a variable timestep. Runs the world's update systems
+     * followed by its render systems.
      *
      * @param deltaTime Time between current and previous frame.
      */
-    public abstract void update(double deltaTime);
+    public void update(double deltaTime) {
+        this.world.update(deltaTime);
+        this.world.render(1D);
+    }
+
+    /**
+     * Advance the simulation by one fixed step; called zero or more times per frame when the window uses a fixed
+     * timestep. Runs the world's update systems.
+     *
+     * @param step Length of the fixed step in seconds.
+     */
+    public void fixedUpdate(double step) {
+        this.world.update(step);
+    }
+
+    /**
+     * Draw the scene; called once per frame after the fixed steps when the window uses a fixed timestep. Runs the
+     * world's render systems.
+     *
+     * @param alpha Interpolation factor in [0, 1) between the previous and current simulation state.
+     */
+    public void render(double alpha) {
+        this.world.render(alpha);
+    }
+
+    /**
+     * @return World holding the scene's entities.
+     */
+    public World world() { return this.world; }
 }
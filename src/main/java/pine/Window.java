@@ -7,19 +7,46 @@ import org.lwjgl.glfw.GLFWErrorCallback;
 import org.lwjgl.opengl.GL;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.system.MemoryUtil;
+import pine.audio.Audio;
+import pine.audio.AudioEngine;
+import pine.audio.OpenALBackend;
+import pine.profiling.Profiler;
+import pine.renderer.Graphics;
+import pine.renderer.HotReloader;
+import pine.renderer.RecordingBackend;
+import pine.renderer.TextureLoader;
+import pine.utils.AssetPool;
+import pine.utils.FixedTimestep;
 import pine.utils.GameScene;
-import pine.utils.Time;
+import pine.utils.LoopMode;
+import pine.utils.ProfileSection;
+import pine.utils.SwapMode;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Window singleton.
  */
 public class Window {
+    public static final double HEADLESS_FRAME_TIME = 1D / 60D;
+
     private static Window window = null;
     private static Scene currentScene = null;
     private final int width, height;
     private final String title;
     public float r, g, b, a;
     private long windowPointer;
+    private LoopMode loopMode;
+    private SwapMode swapMode;
+    private double stepsPerSecond;
+    private int maxStepsPerFrame;
+    private InputRecorder inputRecorder;
+    private InputReplay inputReplay;
+    private int headlessFrames;
 
     /**
      * Create a new window with a 1920x1080 resolution, white background and title of "Pine Window".
@@ -33,6 +60,11 @@ public class Window {
         g = 1F;
         b = 1F;
         a = 1F;
+
+        this.loopMode = LoopMode.Variable;
+        this.swapMode = SwapMode.VSync;
+        this.stepsPerSecond = 60D;
+        this.maxStepsPerFrame = 5;
     }
 
     /**
@@ -49,6 +81,8 @@ public class Window {
      * @param newScene New scene to the made the current scene.
      */
     public static void changeScene(GameScene newScene) {
+        if (Window.currentScene != null) { Window.currentScene.destroy(); }
+
         switch (newScene) {
             case LevelEditorScene -> Window.currentScene = new LevelEditorScene();
             case LevelScene -> Window.currentScene = new LevelScene();
@@ -57,15 +91,129 @@ public class Window {
         Window.currentScene.initialize();
     }
 
+    /**
+     * Set how the main loop steps the current scene; takes effect the next time the main loop starts.
+     *
+     * @param loopMode         Variable or fixed timestep.
+     * @param stepsPerSecond   Number of fixed steps per second in fixed timestep mode.
+     * @param maxStepsPerFrame Maximum number of fixed steps run in a single frame in fixed timestep mode.
+     */
+    public void setLoopMode(LoopMode loopMode, double stepsPerSecond, int maxStepsPerFrame) {
+        this.loopMode = loopMode;
+        this.stepsPerSecond = stepsPerSecond;
+        this.maxStepsPerFrame = maxStepsPerFrame;
+    }
+
+    /**
+     * Set the frame pacing mode; applied immediately if the window has already been created.
+     *
+     * @param swapMode Frame pacing mode.
+     */
+    public void setSwapMode(SwapMode swapMode) {
+        this.swapMode = swapMode;
+        if (this.windowPointer != MemoryUtil.NULL) { this.applySwapMode(); }
+    }
+
+    /**
+     * Record every input event and frame time of the run to a file; takes effect the next time the main loop starts.
+     * Set at startup with {@code -Dpine.input.record=<file>}.
+     *
+     * @param recorder Recorder to write to, or null to stop recording.
+     */
+    public void setInputRecorder(InputRecorder recorder) {
+        this.inputRecorder = recorder;
+    }
+
+    /**
+     * Drive the run from a recording instead of live input and the clock; takes effect the next time the main loop
+     * starts. The window closes when the recording ends. Set at startup with {@code -Dpine.input.replay=<file>}.
+     *
+     * @param replay Recording to play back, or null to use live input.
+     */
+    public void setInputReplay(InputReplay replay) {
+        this.inputReplay = replay;
+    }
+
+    /**
+     * Run without a window or OpenGL context for a fixed number of frames, drawing through a
+     * {@link RecordingBackend} that counts the graphics calls instead; takes effect the next time the window is run.
+     * Each frame advances by {@link #HEADLESS_FRAME_TIME}, or by the recorded frame time when replaying. Set at startup
+     * with {@code -Dpine.headless.frames=<frames>}.
+     *
+     * @param frames Number of frames to run, or zero to open a window as usual.
+     */
+    public void setHeadless(int frames) {
+        this.headlessFrames = frames;
+    }
+
+    /**
+     * @return Whether the window runs without a window or OpenGL context.
+     */
+    public boolean headless() { return this.headlessFrames > 0; }
+
     /**
      * Run lifetime of the window.
      */
     public void run() {
         System.out.printf("Hello LWJGL %s!\n", Version.getVersion());
 
-        initialize();
+        try {
+            String recording = System.getProperty("pine.input.record");
+            if (recording != null) { this.setInputRecorder(new InputRecorder(Paths.get(recording))); }
+
+            String replay = System.getProperty("pine.input.replay");
+            if (replay != null) { this.setInputReplay(new InputReplay(Paths.get(replay))); }
+        }
+
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        String hotReload = System.getProperty("pine.hotreload");
+        if (hotReload != null) {
+            List<Path> directories = new ArrayList<>();
+            for (String directory : hotReload.split(",")) { directories.add(Paths.get(directory.trim())); }
+
+            try { HotReloader.get().start(directories); }
+            catch (IOException e) { e.printStackTrace(); }
+        }
+
+        final int frames = Integer.getInteger("pine.headless.frames", 0);
+        if (frames > 0) { this.setHeadless(frames); }
+
+        if (this.headless()) {
+            Graphics.setBackend(new RecordingBackend());
+            Window.changeScene(GameScene.LevelEditorScene);
+        }
+
+        else {
+            initialize();
+        }
+
         mainLoop();
 
+        if (this.inputRecorder != null) {
+            try { this.inputRecorder.close(); }
+            catch (IOException e) { e.printStackTrace(); }
+        }
+
+        Window.currentScene.destroy();
+        HotReloader.get().shutdown();
+        AudioEngine.get().shutdown();
+        Audio.backend().destroy();
+        TextureLoader.get().shutdown();
+        AssetPool.clear();
+
+        if (Profiler.enabled()) {
+            try { Profiler.dump(Paths.get(System.getProperty("pine.profile.output", "profiling"))); }
+            catch (IOException e) { e.printStackTrace(); }
+        }
+
+        if (this.headless()) {
+            System.out.printf("Headless run: %s.\n", ((RecordingBackend) Graphics.backend()).summary());
+            return;
+        }
+
         Callbacks.glfwFreeCallbacks(this.windowPointer);
         GLFW.glfwDestroyWindow(this.windowPointer);
 
@@ -76,7 +224,7 @@ public class Window {
     }
 
     /**
-     * Initialize the window with default settings, setup callbacks and OpenGL.
+     * Initialize the window with default settings, setup callbacks, OpenGL and OpenAL.
      */
     public void initialize() {
         GLFWErrorCallback.createPrint(System.err).set();
@@ -102,36 +250,109 @@ public class Window {
         GLFW.glfwSetKeyCallback(this.windowPointer, KeyListener::keyCallback);
 
         GLFW.glfwMakeContextCurrent(this.windowPointer);
-        GLFW.glfwSwapInterval(1);
+        this.applySwapMode();
 
         GLFW.glfwShowWindow(this.windowPointer);
         GL.createCapabilities();
 
+        // Without an audio device the game still runs, silently, on the stub backend.
+        try { Audio.setBackend(new OpenALBackend()); }
+        catch (IllegalStateException e) { System.err.println(e.getMessage()); }
+
         Window.changeScene(GameScene.LevelEditorScene);
     }
 
     /**
-     * Main loop of the window to update the window every tick.
+     * Main loop of the window to update the window every tick. With a variable timestep the scene is updated once per
+     * frame with the time since the previous frame; with a fixed timestep it is stepped a whole number of fixed steps
+     * and then rendered with the interpolation factor.
+     * <p>
+     * When replaying, the recorded input and frame times replace live input and the clock, so the scene sees exactly
+     * the same frames as the recorded run. When headless, events are neither polled nor swapped and the loop stops
+     * after the requested number of frames.
      */
     public void mainLoop() {
-        double frameStartTime = Time.time();
-        double frameEndTime;
-        double deltaTime = 0D;
+        FixedTimestep timestep = new FixedTimestep(this.stepsPerSecond, this.maxStepsPerFrame);
+        InputQueue replayQueue = this.inputReplay == null ? null : new InputQueue(InputQueue.DEFAULT_CAPACITY);
+        InputSnapshot.get().setRecorder(this.inputRecorder);
+
+        final boolean headless = this.headless();
+        int frame = 0;
+
+        while (headless ? frame++ < this.headlessFrames : !GLFW.glfwWindowShouldClose(this.windowPointer)) {
+            if (this.inputReplay != null && !this.inputReplay.hasNext()) { break; }
+
+            Profiler.begin(ProfileSection.Frame);
+
+            Profiler.begin(ProfileSection.Poll);
+            if (!headless) { GLFW.glfwPollEvents(); }
+            final double frameTime;
+
+            if (this.inputReplay != null) {
+                frameTime = this.inputReplay.nextFrame(replayQueue);
+                InputQueue.get().clear();
+                InputSnapshot.get().update(replayQueue);
+            }
+
+            else if (headless) {
+                frameTime = HEADLESS_FRAME_TIME;
+                InputSnapshot.get().update(InputQueue.get());
+            }
+
+            else {
+                frameTime = timestep.tick();
+                InputSnapshot.get().update(InputQueue.get());
+            }
 
-        while (!GLFW.glfwWindowShouldClose(this.windowPointer)) {
-            GLFW.glfwPollEvents();
+            if (this.inputRecorder != null) { this.inputRecorder.endFrame(frameTime); }
+            Profiler.end(ProfileSection.Poll);
 
-            GL11.glClearColor(this.r, this.g, this.b, this.a);
-            GL11.glClear(GL11.GL_COLOR_BUFFER_BIT);
+            TextureLoader.get().processUploads(TextureLoader.DEFAULT_UPLOAD_BUDGET_NANOS);
+            HotReloader.get().update();
+            AudioEngine.get().update(frameTime);
 
+            Graphics.backend().clearColor(this.r, this.g, this.b, this.a);
+            Graphics.backend().clear(GL11.GL_COLOR_BUFFER_BIT);
 
-            Window.currentScene.update(deltaTime);
+            if (this.loopMode == LoopMode.Fixed) {
+                Profiler.begin(ProfileSection.Update);
+                final int steps = timestep.advance(frameTime);
+                for (int i = 0; i < steps; i++) { Window.currentScene.fixedUpdate(timestep.step()); }
+                Profiler.end(ProfileSection.Update);
 
-            GLFW.glfwSwapBuffers(this.windowPointer);
+                Window.currentScene.render(timestep.alpha());
+            }
 
-            frameEndTime = Time.time();
-            deltaTime = frameEndTime - frameStartTime;
-            frameStartTime = frameEndTime;
+            else {
+                Profiler.begin(ProfileSection.Update);
+                Window.currentScene.update(frameTime);
+                Profiler.end(ProfileSection.Update);
+            }
+
+            Profiler.begin(ProfileSection.Swap);
+            if (!headless) { GLFW.glfwSwapBuffers(this.windowPointer); }
+            Profiler.end(ProfileSection.Swap);
+
+            Profiler.end(ProfileSection.Frame);
+            Profiler.endFrame();
+        }
+
+        InputSnapshot.get().setRecorder(null);
+    }
+
+    /**
+     * Set the swap interval of the current context from the frame pacing mode. Adaptive vsync falls back to regular
+     * vsync if the driver does not support tearing swaps.
+     */
+    private void applySwapMode() {
+        switch (this.swapMode) {
+            case VSync -> GLFW.glfwSwapInterval(1);
+            case Uncapped -> GLFW.glfwSwapInterval(0);
+            case AdaptiveVSync -> {
+                boolean tearSupported = GLFW.glfwExtensionSupported("WGL_EXT_swap_control_tear") ||
+                    GLFW.glfwExtensionSupported("GLX_EXT_swap_control_tear");
+                GLFW.glfwSwapInterval(tearSupported ? -1 : 1);
+            }
         }
     }
 }
@@ -0,0 +1,28 @@
+package pine.audio;
+
+/**
+ * Holder of the audio backend every audio class plays through. Defaults to a {@link StubAudioBackend}; the window
+ * switches to an {@link OpenALBackend} once it has opened the audio device.
+ */
+public class Audio {
+    private static AudioBackend backend = new StubAudioBackend();
+
+    /**
+     * Create a new audio holder - not to be used.
+     */
+    private Audio() { }
+
+    /**
+     * @return Backend sounds play through.
+     */
+    public static AudioBackend backend() { return Audio.backend; }
+
+    /**
+     * Replace the backend. Objects created through the previous backend must not be used afterwards.
+     *
+     * @param backend New backend.
+     */
+    public static void setBackend(AudioBackend backend) {
+        Audio.backend = backend;
+    }
+}
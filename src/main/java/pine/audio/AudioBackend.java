@@ -0,0 +1,49 @@
+package pine.audio;
+
+import java.nio.ShortBuffer;
+
+/**
+ * The OpenAL calls the engine makes, behind an interface so that they can be stubbed out when there is no audio
+ * device. Each method matches the OpenAL function of the same name without its "al" prefix and takes the same
+ * arguments and constants, apart from closing the device at the end.
+ */
+public interface AudioBackend {
+    // Buffers.
+
+    int genBuffers();
+
+    void deleteBuffers(int buffer);
+
+    void bufferData(int buffer, int format, ShortBuffer data, int frequency);
+
+    // Sources.
+
+    int genSources();
+
+    void deleteSources(int source);
+
+    void sourcei(int source, int name, int value);
+
+    void sourcef(int source, int name, float value);
+
+    void source3f(int source, int name, float x, float y, float z);
+
+    int getSourcei(int source, int name);
+
+    void sourcePlay(int source);
+
+    void sourcePause(int source);
+
+    void sourceStop(int source);
+
+    void sourceQueueBuffers(int source, int buffer);
+
+    int sourceUnqueueBuffers(int source);
+
+    // Device.
+
+    /**
+     * Release the context and close the audio device. The backend must not be used afterwards.
+     */
+    void destroy();
+}
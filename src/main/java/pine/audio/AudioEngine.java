@@ -0,0 +1,94 @@
+package pine.audio;
+
+import pine.profiling.Profiler;
+import pine.utils.ProfileSection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Audio engine singleton. Owns the voice pool short sounds play through and the music streams being played, and
+ * services both once per frame.
+ */
+public class AudioEngine {
+    public static final int DEFAULT_VOICES = 32;
+
+    private static AudioEngine instance;
+    private final List<MusicStream> streams;
+    private VoicePool voices;
+
+    /**
+     * Create a new audio engine. The voice pool is only created on first use.
+     */
+    private AudioEngine() {
+        this.streams = new ArrayList<>();
+    }
+
+    /**
+     * @return Audio engine singleton instance.
+     */
+    public static AudioEngine get() {
+        if (AudioEngine.instance == null) { AudioEngine.instance = new AudioEngine(); }
+        return AudioEngine.instance;
+    }
+
+    /**
+     * @return Voice pool short sounds play through.
+     */
+    public VoicePool voices() {
+        if (this.voices == null) { this.voices = new VoicePool(DEFAULT_VOICES); }
+        return this.voices;
+    }
+
+    /**
+     * Create a music stream serviced by the engine every frame.
+     *
+     * @param source Source of the track; owned by the stream from now on.
+     * @return Stream, ready to play.
+     */
+    public MusicStream stream(PcmSource source) {
+        MusicStream stream = new MusicStream(source);
+        this.streams.add(stream);
+
+        return stream;
+    }
+
+    /**
+     * Stop and delete a music stream created by the engine.
+     *
+     * @param stream Stream to delete.
+     */
+    public void release(MusicStream stream) {
+        this.streams.remove(stream);
+        stream.delete();
+    }
+
+    /**
+     * Reclaim finished voices and refill the buffers of every music stream. With the stub backend, which has no clock
+     * of its own, the frame time is also played on it first.
+     *
+     * @param frameTime Time since the previous frame in seconds.
+     */
+    public void update(double frameTime) {
+        Profiler.begin(ProfileSection.Audio);
+
+        if (Audio.backend() instanceof StubAudioBackend stub) { stub.advance(frameTime); }
+        if (this.voices != null) { this.voices.update(); }
+        for (MusicStream stream : this.streams) { stream.update(); }
+
+        Profiler.end(ProfileSection.Audio);
+    }
+
+    /**
+     * Delete every music stream and the voice pool.
+     */
+    public void shutdown() {
+        for (MusicStream stream : this.streams) { stream.delete(); }
+        this.streams.clear();
+
+        if (this.voices != null) {
+            this.voices.delete();
+            this.voices = null;
+        }
+    }
+}
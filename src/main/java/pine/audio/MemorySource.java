@@ -0,0 +1,69 @@
+package pine.audio;
+
+import java.nio.ShortBuffer;
+
+/**
+ * Source reading samples already in memory, for short generated or fully decoded audio.
+ */
+public class MemorySource implements PcmSource {
+    private final ShortBuffer samples;
+    private final int channels, sampleRate;
+
+    /**
+     * Create a new source over samples in memory.
+     *
+     * @param channels   Number of channels.
+     * @param sampleRate Number of frames per second.
+     * @param samples    Interleaved samples, from the buffer's position to its limit; not copied.
+     */
+    public MemorySource(int channels, int sampleRate, ShortBuffer samples) {
+        this.channels = channels;
+        this.sampleRate = sampleRate;
+        this.samples = samples.slice();
+    }
+
+    /**
+     * Generate a sine tone.
+     *
+     * @param channels   Number of channels, each holding the same tone.
+     * @param sampleRate Number of frames per second.
+     * @param frequency  Frequency of the tone in hertz.
+     * @param seconds    Length of the tone in seconds.
+     * @return Source of the tone.
+     */
+    public static MemorySource tone(int channels, int sampleRate, float frequency, float seconds) {
+        final int frames = (int) (sampleRate * seconds);
+        ShortBuffer samples = ShortBuffer.allocate(frames * channels);
+
+        for (int frame = 0; frame < frames; frame++) {
+            final short sample = (short) (Math.sin(2D * Math.PI * frequency * frame / sampleRate) * Short.MAX_VALUE);
+            for (int channel = 0; channel < channels; channel++) { samples.put(sample); }
+        }
+
+        return new MemorySource(channels, sampleRate, samples.flip());
+    }
+
+    @Override
+    public int channels() { return this.channels; }
+
+    @Override
+    public int sampleRate() { return this.sampleRate; }
+
+    @Override
+    public int read(ShortBuffer buffer) {
+        final int frames = Math.min(buffer.remaining(), this.samples.remaining()) / this.channels;
+        final int count = frames * this.channels;
+
+        buffer.put(buffer.position(), this.samples, this.samples.position(), count);
+        buffer.position(buffer.position() + count);
+        this.samples.position(this.samples.position() + count);
+
+        return frames;
+    }
+
+    @Override
+    public void rewind() { this.samples.rewind(); }
+
+    @Override
+    public void close() { }
+}
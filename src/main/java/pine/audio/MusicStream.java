@@ -0,0 +1,258 @@
+package pine.audio;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.openal.AL10;
+
+import java.nio.ShortBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long track streamed through a dedicated OpenAL source. A background thread reads the track's source a block at a
+ * time into a small ring of sample blocks, and {@link #update()} on the main thread uploads finished blocks into
+ * whichever of the source's queued buffers have been played. Only {@link #BUFFERS} blocks and {@link #BUFFERS}
+ * buffers of samples exist at any time, however long the track, and neither thread ever waits on the other: the
+ * decoder blocks only when the ring is full, and the main thread only takes blocks that are ready.
+ */
+public class MusicStream {
+    public static final int BUFFERS = 4;
+    public static final int BUFFER_FRAMES = 8192;
+
+    private final PcmSource source;
+    private final int channels, sampleRate, format, sourceID;
+    private final int[] bufferIDs, idleBuffers;
+    private final ArrayBlockingQueue<Block> free, decoded;
+    private final AtomicLong decodedFrames, decodeNanos;
+    private final Thread decoder;
+    private volatile boolean looping;
+    private int idleCount;
+    private boolean playing, paused, started, ended;
+    private long framesQueued, underruns;
+
+    /**
+     * Block of decoded samples passed from the decoder thread to the main thread.
+     */
+    private static class Block {
+        private final ShortBuffer samples;
+        private int frames;
+        private boolean last;
+
+        private Block(int samples) { this.samples = BufferUtils.createShortBuffer(samples); }
+    }
+
+    /**
+     * Create a new music stream and start decoding the first blocks, so they are ready when it starts playing.
+     *
+     * @param source Source of the track; owned by the stream from now on and closed by the decoder thread.
+     */
+    public MusicStream(PcmSource source) {
+        AudioBackend al = Audio.backend();
+
+        this.source = source;
+        this.channels = source.channels();
+        this.sampleRate = source.sampleRate();
+        this.format = Sound.format(this.channels);
+        this.sourceID = al.genSources();
+
+        this.bufferIDs = new int[BUFFERS];
+        this.idleBuffers = new int[BUFFERS];
+        for (int i = 0; i < BUFFERS; i++) {
+            this.bufferIDs[i] = al.genBuffers();
+            this.idleBuffers[this.idleCount++] = this.bufferIDs[i];
+        }
+
+        this.free = new ArrayBlockingQueue<>(BUFFERS);
+        this.decoded = new ArrayBlockingQueue<>(BUFFERS);
+        for (int i = 0; i < BUFFERS; i++) { this.free.add(new Block(BUFFER_FRAMES * this.channels)); }
+
+        this.decodedFrames = new AtomicLong();
+        this.decodeNanos = new AtomicLong();
+
+        this.decoder = new Thread(this::decode, "pine-music-decoder");
+        this.decoder.setDaemon(true);
+        this.decoder.start();
+    }
+
+    /**
+     * Start playing, or resume if paused.
+     */
+    public void play() {
+        if (this.paused) {
+            Audio.backend().sourcePlay(this.sourceID);
+            this.paused = false;
+        }
+
+        this.playing = true;
+        this.update();
+    }
+
+    /**
+     * Pause playback. Decoding carries on until the ring is full.
+     */
+    public void pause() {
+        if (!this.playing || this.paused) { return; }
+
+        Audio.backend().sourcePause(this.sourceID);
+        this.paused = true;
+    }
+
+    /**
+     * Set whether the track starts over when it ends. Blocks already decoded are not affected.
+     *
+     * @param looping Whether to loop.
+     */
+    public void setLooping(boolean looping) {
+        this.looping = looping;
+    }
+
+    /**
+     * @param gain Volume of the track, where 1 is unchanged.
+     */
+    public void setGain(float gain) {
+        Audio.backend().sourcef(this.sourceID, AL10.AL_GAIN, gain);
+    }
+
+    /**
+     * Requeue the buffers the source has finished with, refilled with any blocks the decoder has finished, and restart
+     * the source if it ran out of buffers. Must be called regularly on the main thread while playing; the queued
+     * buffers cover {@link #BUFFERS} * {@link #BUFFER_FRAMES} frames, so about three quarters of a second at 44.1 kHz.
+     */
+    public void update() {
+        if (!this.playing) { return; }
+
+        AudioBackend al = Audio.backend();
+
+        int processed = al.getSourcei(this.sourceID, AL10.AL_BUFFERS_PROCESSED);
+        while (processed-- > 0) { this.idleBuffers[this.idleCount++] = al.sourceUnqueueBuffers(this.sourceID); }
+
+        Block block;
+        while (this.idleCount > 0 && !this.ended && (block = this.decoded.poll()) != null) {
+            if (block.frames > 0) {
+                final int buffer = this.idleBuffers[--this.idleCount];
+
+                al.bufferData(buffer, this.format, block.samples.flip(), this.sampleRate);
+                al.sourceQueueBuffers(this.sourceID, buffer);
+                this.framesQueued += block.frames;
+            }
+
+            this.ended = block.last;
+            this.free.add(block);
+        }
+
+        if (this.paused || al.getSourcei(this.sourceID, AL10.AL_SOURCE_STATE) == AL10.AL_PLAYING) { return; }
+
+        if (al.getSourcei(this.sourceID, AL10.AL_BUFFERS_QUEUED) > 0) {
+            // A source that stops while blocks are still coming ran out of buffers before the decoder caught up.
+            if (this.started) { this.underruns++; }
+
+            al.sourcePlay(this.sourceID);
+            this.started = true;
+        }
+
+        else if (this.ended) {
+            this.playing = false;
+        }
+    }
+
+    /**
+     * Stop playback, stop the decoder thread and delete the OpenAL source and buffers. The stream must not be used
+     * afterwards.
+     */
+    public void delete() {
+        this.decoder.interrupt();
+
+        try { this.decoder.join(1000L); }
+        catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+
+        AudioBackend al = Audio.backend();
+        al.sourceStop(this.sourceID);
+        al.sourcei(this.sourceID, AL10.AL_BUFFER, 0);
+        al.deleteSources(this.sourceID);
+
+        for (int buffer : this.bufferIDs) { al.deleteBuffers(buffer); }
+        this.playing = false;
+    }
+
+    /**
+     * @return Whether the stream is playing or paused, rather than not started or finished.
+     */
+    public boolean playing() { return this.playing; }
+
+    /**
+     * @return Whether the stream is paused.
+     */
+    public boolean paused() { return this.paused; }
+
+    /**
+     * @return Name of the OpenAL source the stream plays through.
+     */
+    public int sourceID() { return this.sourceID; }
+
+    /**
+     * @return Number of frames uploaded into the source's buffers so far.
+     */
+    public long framesQueued() { return this.framesQueued; }
+
+    /**
+     * @return Number of frames decoded so far.
+     */
+    public long decodedFrames() { return this.decodedFrames.get(); }
+
+    /**
+     * @return Total time the decoder thread spent reading the source in nanoseconds.
+     */
+    public long decodeNanos() { return this.decodeNanos.get(); }
+
+    /**
+     * @return Number of times the source ran out of buffers and had to be restarted.
+     */
+    public long underruns() { return this.underruns; }
+
+    /**
+     * Read the source into free blocks until it ends or the stream is deleted. Runs on the decoder thread, which
+     * closes the source when it finishes.
+     */
+    private void decode() {
+        try {
+            boolean last = false;
+
+            while (!last) {
+                Block block = this.free.take();
+                ShortBuffer samples = block.samples.clear();
+                final long start = System.nanoTime();
+                boolean rewound = false;
+
+                while (samples.hasRemaining()) {
+                    if (this.source.read(samples) > 0) {
+                        rewound = false;
+                        continue;
+                    }
+
+                    // Stop at the end, or if the source is still empty right after rewinding.
+                    if (!this.looping || rewound) {
+                        last = true;
+                        break;
+                    }
+
+                    this.source.rewind();
+                    rewound = true;
+                }
+
+                block.frames = samples.position() / this.channels;
+                block.last = last;
+
+                this.decodeNanos.addAndGet(System.nanoTime() - start);
+                this.decodedFrames.addAndGet(block.frames);
+                this.decoded.put(block);
+            }
+        }
+
+        catch (InterruptedException e) {
+            // The stream is being deleted.
+        }
+
+        finally {
+            this.source.close();
+        }
+    }
+}
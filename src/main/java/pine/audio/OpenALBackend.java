@@ -0,0 +1,91 @@
+package pine.audio;
+
+import org.lwjgl.openal.AL;
+import org.lwjgl.openal.AL10;
+import org.lwjgl.openal.ALC;
+import org.lwjgl.openal.ALC10;
+import org.lwjgl.openal.ALCCapabilities;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Audio backend forwarding every call to OpenAL through LWJGL. Opens the default audio device and makes a context on
+ * it current when created.
+ */
+public class OpenALBackend implements AudioBackend {
+    private final long device, context;
+
+    /**
+     * Open the default audio device and make a new context on it current.
+     *
+     * @throws IllegalStateException If there is no audio device or the context cannot be created.
+     */
+    public OpenALBackend() {
+        this.device = ALC10.alcOpenDevice((ByteBuffer) null);
+        if (this.device == MemoryUtil.NULL) { throw new IllegalStateException("Unable to open the audio device."); }
+
+        ALCCapabilities capabilities = ALC.createCapabilities(this.device);
+        this.context = ALC10.alcCreateContext(this.device, (IntBuffer) null);
+
+        if (this.context == MemoryUtil.NULL || !ALC10.alcMakeContextCurrent(this.context)) {
+            ALC10.alcCloseDevice(this.device);
+            throw new IllegalStateException("Unable to create the audio context.");
+        }
+
+        AL.createCapabilities(capabilities);
+    }
+
+    @Override
+    public int genBuffers() { return AL10.alGenBuffers(); }
+
+    @Override
+    public void deleteBuffers(int buffer) { AL10.alDeleteBuffers(buffer); }
+
+    @Override
+    public void bufferData(int buffer, int format, ShortBuffer data, int frequency) {
+        AL10.alBufferData(buffer, format, data, frequency);
+    }
+
+    @Override
+    public int genSources() { return AL10.alGenSources(); }
+
+    @Override
+    public void deleteSources(int source) { AL10.alDeleteSources(source); }
+
+    @Override
+    public void sourcei(int source, int name, int value) { AL10.alSourcei(source, name, value); }
+
+    @Override
+    public void sourcef(int source, int name, float value) { AL10.alSourcef(source, name, value); }
+
+    @Override
+    public void source3f(int source, int name, float x, float y, float z) { AL10.alSource3f(source, name, x, y, z); }
+
+    @Override
+    public int getSourcei(int source, int name) { return AL10.alGetSourcei(source, name); }
+
+    @Override
+    public void sourcePlay(int source) { AL10.alSourcePlay(source); }
+
+    @Override
+    public void sourcePause(int source) { AL10.alSourcePause(source); }
+
+    @Override
+    public void sourceStop(int source) { AL10.alSourceStop(source); }
+
+    @Override
+    public void sourceQueueBuffers(int source, int buffer) { AL10.alSourceQueueBuffers(source, buffer); }
+
+    @Override
+    public int sourceUnqueueBuffers(int source) { return AL10.alSourceUnqueueBuffers(source); }
+
+    @Override
+    public void destroy() {
+        ALC10.alcMakeContextCurrent(MemoryUtil.NULL);
+        ALC10.alcDestroyContext(this.context);
+        ALC10.alcCloseDevice(this.device);
+    }
+}
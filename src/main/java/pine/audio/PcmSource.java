@@ -0,0 +1,37 @@
+package pine.audio;
+
+import java.nio.ShortBuffer;
+
+/**
+ * Source of interleaved 16-bit samples read a block at a time, such as a file being decoded. A music stream reads its
+ * source on a background thread only, so implementations need not be thread-safe.
+ */
+public interface PcmSource {
+    /**
+     * @return Number of channels.
+     */
+    int channels();
+
+    /**
+     * @return Number of frames per second.
+     */
+    int sampleRate();
+
+    /**
+     * Read the next samples into a buffer, from its position up to its limit, and advance its position past them.
+     *
+     * @param buffer Buffer to fill with interleaved samples.
+     * @return Number of frames read; 0 once the end is reached.
+     */
+    int read(ShortBuffer buffer);
+
+    /**
+     * Go back to the first frame.
+     */
+    void rewind();
+
+    /**
+     * Release the source. It must not be read afterwards.
+     */
+    void close();
+}
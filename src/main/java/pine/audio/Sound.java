@@ -0,0 +1,130 @@
+package pine.audio;
+
+import org.lwjgl.openal.AL10;
+import org.lwjgl.stb.STBVorbis;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+import org.lwjgl.system.libc.LibCStdlib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Short sound fully decoded into a single OpenAL buffer, played through the voices of a {@link VoicePool}. Long
+ * tracks should be streamed with a {@link MusicStream} instead.
+ */
+public class Sound {
+    private final String name;
+    private final int bufferID, channels, sampleRate, frames;
+
+    /**
+     * Create a new sound from 16-bit samples already in memory.
+     *
+     * @param name       Name of the sound, used in place of a file path.
+     * @param channels   Number of channels; 1 for mono or 2 for stereo.
+     * @param sampleRate Number of frames per second.
+     * @param samples    Interleaved samples, from the buffer's position to its limit.
+     */
+    public Sound(String name, int channels, int sampleRate, ShortBuffer samples) {
+        this.name = name;
+        this.channels = channels;
+        this.sampleRate = sampleRate;
+        this.frames = samples.remaining() / channels;
+
+        this.bufferID = Audio.backend().genBuffers();
+        Audio.backend().bufferData(this.bufferID, Sound.format(channels), samples, sampleRate);
+    }
+
+    /**
+     * Read and decode an Ogg Vorbis file.
+     *
+     * @param filePath Location of the sound file.
+     * @return Decoded sound.
+     * @throws IOException If the file cannot be read or decoded.
+     */
+    public static Sound load(String filePath) throws IOException {
+        byte[] bytes = Files.readAllBytes(Paths.get(filePath));
+        ByteBuffer encoded = MemoryUtil.memAlloc(bytes.length);
+
+        try {
+            encoded.put(bytes).flip();
+            return Sound.decode(filePath, encoded);
+        }
+
+        finally {
+            MemoryUtil.memFree(encoded);
+        }
+    }
+
+    /**
+     * Decode an Ogg Vorbis file held in memory.
+     *
+     * @param name    Name of the sound, usually the location of the file.
+     * @param encoded Encoded file contents.
+     * @return Decoded sound.
+     * @throws IOException If the contents cannot be decoded.
+     */
+    public static Sound decode(String name, ByteBuffer encoded) throws IOException {
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer channels = stack.mallocInt(1);
+            IntBuffer sampleRate = stack.mallocInt(1);
+
+            ShortBuffer samples = STBVorbis.stb_vorbis_decode_memory(encoded, channels, sampleRate);
+            if (samples == null) { throw new IOException("Could not decode sound '" + name + "'."); }
+
+            try { return new Sound(name, channels.get(0), sampleRate.get(0), samples); }
+            finally { LibCStdlib.free(samples); }
+        }
+    }
+
+    /**
+     * Delete the OpenAL buffer. The sound must not be playing and must not be used afterwards.
+     */
+    public void delete() {
+        Audio.backend().deleteBuffers(this.bufferID);
+    }
+
+    /**
+     * @return Location of the sound file, or the name of a sound created from memory.
+     */
+    public String name() { return this.name; }
+
+    /**
+     * @return Name of the OpenAL buffer holding the samples.
+     */
+    public int bufferID() { return this.bufferID; }
+
+    /**
+     * @return Number of channels.
+     */
+    public int channels() { return this.channels; }
+
+    /**
+     * @return Number of frames per second.
+     */
+    public int sampleRate() { return this.sampleRate; }
+
+    /**
+     * @return Length of the sound in seconds.
+     */
+    public double duration() { return (double) this.frames / this.sampleRate; }
+
+    /**
+     * @param channels Number of channels; 1 for mono or 2 for stereo.
+     * @return OpenAL format of 16-bit samples with the number of channels.
+     */
+    static int format(int channels) {
+        return switch (channels) {
+            case 1 -> AL10.AL_FORMAT_MONO16;
+            case 2 -> AL10.AL_FORMAT_STEREO16;
+            default -> {
+                assert false : "Error (Sound.java): Unsupported number of channels '" + channels + "'.";
+                yield AL10.AL_FORMAT_MONO16;
+            }
+        };
+    }
+}
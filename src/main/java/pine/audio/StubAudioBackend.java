@@ -0,0 +1,255 @@
+package pine.audio;
+
+import org.lwjgl.openal.AL10;
+
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Audio backend that plays nothing and needs no audio device, but simulates OpenAL source playback: buffers last as
+ * long as their samples, playing sources move through their static or queued buffers as {@link #advance(double)} is
+ * called, and sources that run out of buffers stop. It also counts the calls made to it, sources started and bytes
+ * uploaded, so pooling and streaming can be checked without hearing anything.
+ */
+public class StubAudioBackend implements AudioBackend {
+    private final Map<Integer, Double> bufferSeconds;
+    private final Map<Integer, StubSource> sources;
+    private int nextName;
+    private long calls, plays, uploads, bufferBytes;
+
+    /**
+     * Simulated state of a source.
+     */
+    private static class StubSource {
+        private final List<Integer> buffers = new ArrayList<>();
+        private int state = AL10.AL_INITIAL;
+        private int processed;
+        private boolean looping, streaming;
+        private double position;
+    }
+
+    /**
+     * Create a new stub backend with every counter at zero.
+     */
+    public StubAudioBackend() {
+        this.bufferSeconds = new HashMap<>();
+        this.sources = new HashMap<>();
+        this.nextName = 1;
+    }
+
+    /**
+     * Move every playing source forward in time. The stub has no clock of its own, so time only passes when this is
+     * called.
+     *
+     * @param seconds Time to play for in seconds.
+     */
+    public void advance(double seconds) {
+        for (StubSource source : this.sources.values()) {
+            double remaining = seconds;
+
+            while (source.state == AL10.AL_PLAYING && remaining > 0D) {
+                if (source.processed >= source.buffers.size()) {
+                    final boolean loops = source.looping && !source.streaming && !source.buffers.isEmpty() &&
+                        this.bufferSeconds.getOrDefault(source.buffers.get(0), 0D) > 0D;
+
+                    if (loops) { source.processed = 0; }
+                    else { source.state = AL10.AL_STOPPED; }
+
+                    continue;
+                }
+
+                final double left = this.bufferSeconds.getOrDefault(source.buffers.get(source.processed), 0D) -
+                    source.position;
+
+                if (remaining < left) {
+                    source.position += remaining;
+                    remaining = 0D;
+                }
+
+                else {
+                    remaining -= left;
+                    source.position = 0D;
+                    source.processed++;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int genBuffers() { return this.generate(); }
+
+    @Override
+    public void deleteBuffers(int buffer) {
+        this.calls++;
+        this.bufferSeconds.remove(buffer);
+    }
+
+    @Override
+    public void bufferData(int buffer, int format, ShortBuffer data, int frequency) {
+        this.calls++;
+        this.uploads++;
+        this.bufferBytes += (long) data.remaining() * Short.BYTES;
+
+        final int channels = format == AL10.AL_FORMAT_STEREO16 ? 2 : 1;
+        this.bufferSeconds.put(buffer, (double) (data.remaining() / channels) / frequency);
+    }
+
+    @Override
+    public int genSources() {
+        final int name = this.generate();
+        this.sources.put(name, new StubSource());
+
+        return name;
+    }
+
+    @Override
+    public void deleteSources(int source) {
+        this.calls++;
+        this.sources.remove(source);
+    }
+
+    @Override
+    public void sourcei(int source, int name, int value) {
+        this.calls++;
+        StubSource stub = this.sources.get(source);
+
+        switch (name) {
+            case AL10.AL_BUFFER -> {
+                stub.buffers.clear();
+                if (value != 0) { stub.buffers.add(value); }
+
+                stub.processed = 0;
+                stub.position = 0D;
+                stub.streaming = false;
+            }
+
+            case AL10.AL_LOOPING -> stub.looping = value == AL10.AL_TRUE;
+            default -> { }
+        }
+    }
+
+    @Override
+    public void sourcef(int source, int name, float value) { this.calls++; }
+
+    @Override
+    public void source3f(int source, int name, float x, float y, float z) { this.calls++; }
+
+    @Override
+    public int getSourcei(int source, int name) {
+        this.calls++;
+        StubSource stub = this.sources.get(source);
+
+        return switch (name) {
+            case AL10.AL_SOURCE_STATE -> stub.state;
+            case AL10.AL_BUFFERS_PROCESSED -> stub.streaming ? stub.processed : 0;
+            case AL10.AL_BUFFERS_QUEUED -> stub.buffers.size();
+            default -> 0;
+        };
+    }
+
+    @Override
+    public void sourcePlay(int source) {
+        this.calls++;
+        this.plays++;
+        StubSource stub = this.sources.get(source);
+
+        if (stub.state != AL10.AL_PAUSED) {
+            stub.processed = 0;
+            stub.position = 0D;
+        }
+
+        stub.state = stub.buffers.isEmpty() ? AL10.AL_STOPPED : AL10.AL_PLAYING;
+    }
+
+    @Override
+    public void sourcePause(int source) {
+        this.calls++;
+        StubSource stub = this.sources.get(source);
+
+        if (stub.state == AL10.AL_PLAYING) { stub.state = AL10.AL_PAUSED; }
+    }
+
+    @Override
+    public void sourceStop(int source) {
+        this.calls++;
+        StubSource stub = this.sources.get(source);
+
+        stub.state = AL10.AL_STOPPED;
+        stub.processed = stub.buffers.size();
+        stub.position = 0D;
+    }
+
+    @Override
+    public void sourceQueueBuffers(int source, int buffer) {
+        this.calls++;
+        StubSource stub = this.sources.get(source);
+
+        stub.buffers.add(buffer);
+        stub.streaming = true;
+    }
+
+    @Override
+    public int sourceUnqueueBuffers(int source) {
+        this.calls++;
+        StubSource stub = this.sources.get(source);
+
+        assert stub.processed > 0 : "Error (StubAudioBackend.java): Unqueued a buffer that was not processed.";
+        stub.processed--;
+
+        return stub.buffers.remove(0);
+    }
+
+    @Override
+    public void destroy() { this.calls++; }
+
+    /**
+     * @return Total number of calls made to the backend.
+     */
+    public long calls() { return this.calls; }
+
+    /**
+     * @return Number of times a source was started.
+     */
+    public long plays() { return this.plays; }
+
+    /**
+     * @return Number of buffers filled with samples.
+     */
+    public long uploads() { return this.uploads; }
+
+    /**
+     * @return Number of sample bytes uploaded into buffers.
+     */
+    public long bufferBytes() { return this.bufferBytes; }
+
+    /**
+     * Reset every counter to zero. Object names and source state are kept.
+     */
+    public void reset() {
+        this.calls = 0L;
+        this.plays = 0L;
+        this.uploads = 0L;
+        this.bufferBytes = 0L;
+    }
+
+    /**
+     * @return One-line summary of every counter.
+     */
+    public String summary() {
+        return String.format(
+            "%d calls, %d plays, %d buffer uploads, %d buffer bytes", this.calls, this.plays, this.uploads,
+            this.bufferBytes
+        );
+    }
+
+    /**
+     * @return Next unused object name.
+     */
+    private int generate() {
+        this.calls++;
+        return this.nextName++;
+    }
+}
@@ -0,0 +1,234 @@
+package pine.audio;
+
+import org.lwjgl.openal.AL10;
+import pine.profiling.Profiler;
+import pine.utils.ProfileCounter;
+
+/**
+ * Fixed set of OpenAL sources that short sounds are played through, so sources are never created or deleted while
+ * the game runs. Playing a sound takes a free voice; when none is free, the voice with the lowest priority is stolen,
+ * the oldest first among equal priorities, provided its priority is not above the new sound's.
+ * <p>
+ * A voice is identified by a handle that combines its index with a generation bumped every time the voice is freed,
+ * so a handle to a sound that has finished or been stolen goes stale instead of controlling the voice's next sound.
+ * Finished voices are reclaimed by {@link #update()} once per frame, so playing a sound never queries OpenAL.
+ */
+public class VoicePool {
+    public static final int NO_VOICE = -1;
+    public static final int MAX_VOICES = 1 << 12;
+
+    private static final int INDEX_BITS = Integer.numberOfTrailingZeros(MAX_VOICES);
+    private static final int INDEX_MASK = MAX_VOICES - 1;
+    private static final int GENERATION_MASK = (1 << (Integer.SIZE - 1 - INDEX_BITS)) - 1;
+
+    private final int[] sourceIDs, priorities, generations, free;
+    private final long[] startOrder;
+    private final boolean[] active;
+    private int freeCount, activeCount;
+    private long nextStart, plays, steals, rejections;
+
+    /**
+     * Create a new voice pool, generating one OpenAL source per voice.
+     *
+     * @param voices Number of voices, at most {@link #MAX_VOICES}.
+     */
+    public VoicePool(int voices) {
+        assert voices > 0 && voices <= MAX_VOICES :
+            "Error (VoicePool.java): Invalid number of voices '" + voices + "'.";
+
+        this.sourceIDs = new int[voices];
+        this.priorities = new int[voices];
+        this.generations = new int[voices];
+        this.free = new int[voices];
+        this.startOrder = new long[voices];
+        this.active = new boolean[voices];
+
+        // Pushed in reverse so that voice 0 is taken first.
+        for (int i = voices - 1; i >= 0; i--) {
+            this.sourceIDs[i] = Audio.backend().genSources();
+            this.free[this.freeCount++] = i;
+        }
+    }
+
+    /**
+     * Play a sound on a free voice, stealing one if none is free.
+     *
+     * @param sound    Sound to play.
+     * @param priority Priority of the sound; higher priorities steal voices from lower ones.
+     * @param gain     Volume of the sound, where 1 is unchanged.
+     * @param pitch    Pitch of the sound, where 1 is unchanged.
+     * @param loop     Whether the sound loops until stopped.
+     * @return Handle of the voice, or {@link #NO_VOICE} if every voice is playing a sound with a higher priority.
+     */
+    public int play(Sound sound, int priority, float gain, float pitch, boolean loop) {
+        final int index = this.allocate(priority);
+
+        if (index < 0) {
+            this.rejections++;
+            return NO_VOICE;
+        }
+
+        AudioBackend al = Audio.backend();
+        final int source = this.sourceIDs[index];
+
+        al.sourcei(source, AL10.AL_BUFFER, sound.bufferID());
+        al.sourcef(source, AL10.AL_GAIN, gain);
+        al.sourcef(source, AL10.AL_PITCH, pitch);
+        al.sourcei(source, AL10.AL_LOOPING, loop ? AL10.AL_TRUE : AL10.AL_FALSE);
+        al.sourcePlay(source);
+
+        this.priorities[index] = priority;
+        this.startOrder[index] = this.nextStart++;
+        this.active[index] = true;
+        this.activeCount++;
+        this.plays++;
+
+        return this.generations[index] << INDEX_BITS | index;
+    }
+
+    /**
+     * Stop the sound playing on a voice.
+     *
+     * @param handle Handle of the voice; stale handles are ignored.
+     */
+    public void stop(int handle) {
+        if (!this.playing(handle)) { return; }
+
+        final int index = handle & INDEX_MASK;
+        Audio.backend().sourceStop(this.sourceIDs[index]);
+        this.release(index);
+    }
+
+    /**
+     * Stop every voice.
+     */
+    public void stopAll() {
+        for (int i = 0; i < this.active.length; i++) {
+            if (!this.active[i]) { continue; }
+
+            Audio.backend().sourceStop(this.sourceIDs[i]);
+            this.release(i);
+        }
+    }
+
+    /**
+     * Set the volume of the sound playing on a voice.
+     *
+     * @param handle Handle of the voice; stale handles are ignored.
+     * @param gain   Volume of the sound, where 1 is unchanged.
+     */
+    public void setGain(int handle, float gain) {
+        if (this.playing(handle)) { Audio.backend().sourcef(this.sourceIDs[handle & INDEX_MASK], AL10.AL_GAIN, gain); }
+    }
+
+    /**
+     * Set the position of the sound playing on a voice. Only mono sounds are positioned.
+     *
+     * @param handle Handle of the voice; stale handles are ignored.
+     * @param x      x-coordinate of the sound.
+     * @param y      y-coordinate of the sound.
+     * @param z      z-coordinate of the sound.
+     */
+    public void setPosition(int handle, float x, float y, float z) {
+        if (this.playing(handle)) {
+            Audio.backend().source3f(this.sourceIDs[handle & INDEX_MASK], AL10.AL_POSITION, x, y, z);
+        }
+    }
+
+    /**
+     * @param handle Handle of a voice.
+     * @return Whether the handle's sound is still playing, as of the last {@link #update()}.
+     */
+    public boolean playing(int handle) {
+        if (handle < 0) { return false; }
+
+        final int index = handle & INDEX_MASK;
+        return index < this.active.length && this.active[index] && this.generations[index] == handle >>> INDEX_BITS;
+    }
+
+    /**
+     * Free every voice whose sound has finished. Called once per frame.
+     */
+    public void update() {
+        if (this.activeCount == 0) { return; }
+
+        AudioBackend al = Audio.backend();
+
+        for (int i = 0; i < this.active.length; i++) {
+            if (this.active[i] && al.getSourcei(this.sourceIDs[i], AL10.AL_SOURCE_STATE) == AL10.AL_STOPPED) {
+                this.release(i);
+            }
+        }
+    }
+
+    /**
+     * Stop every voice and delete the OpenAL sources. The pool must not be used afterwards.
+     */
+    public void delete() {
+        this.stopAll();
+        for (int source : this.sourceIDs) { Audio.backend().deleteSources(source); }
+    }
+
+    /**
+     * @return Number of voices.
+     */
+    public int capacity() { return this.sourceIDs.length; }
+
+    /**
+     * @return Number of voices playing a sound.
+     */
+    public int activeCount() { return this.activeCount; }
+
+    /**
+     * @return Number of sounds started.
+     */
+    public long plays() { return this.plays; }
+
+    /**
+     * @return Number of sounds cut off to free a voice for another.
+     */
+    public long steals() { return this.steals; }
+
+    /**
+     * @return Number of sounds not played because every voice had a higher priority.
+     */
+    public long rejections() { return this.rejections; }
+
+    /**
+     * Take a free voice, or steal the voice with the lowest priority, oldest first.
+     *
+     * @param priority Priority of the new sound.
+     * @return Index of the voice, or -1 if every voice has a higher priority.
+     */
+    private int allocate(int priority) {
+        if (this.freeCount > 0) { return this.free[--this.freeCount]; }
+
+        int victim = -1;
+
+        for (int i = 0; i < this.active.length; i++) {
+            if (victim < 0 || this.priorities[i] < this.priorities[victim] ||
+                this.priorities[i] == this.priorities[victim] && this.startOrder[i] < this.startOrder[victim]) {
+                victim = i;
+            }
+        }
+
+        if (victim < 0 || this.priorities[victim] > priority) { return -1; }
+
+        Audio.backend().sourceStop(this.sourceIDs[victim]);
+        this.release(victim);
+        this.steals++;
+        Profiler.count(ProfileCounter.VoicesStolen, 1L);
+
+        return this.free[--this.freeCount];
+    }
+
+    /**
+     * Return a voice to the free list and invalidate its handles.
+     */
+    private void release(int index) {
+        this.active[index] = false;
+        this.activeCount--;
+        this.generations[index] = (this.generations[index] + 1) & GENERATION_MASK;
+        this.free[this.freeCount++] = index;
+    }
+}
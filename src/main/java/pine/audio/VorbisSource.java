@@ -0,0 +1,94 @@
+package pine.audio;
+
+import org.lwjgl.stb.STBVorbis;
+import org.lwjgl.stb.STBVorbisInfo;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Source decoding an Ogg Vorbis file with stb_vorbis as it is read, so only the block being decoded is ever held as
+ * samples. Files are read from disk as they are decoded; files in memory stay in their encoded form.
+ */
+public class VorbisSource implements PcmSource {
+    private final long decoder;
+    private final int channels, sampleRate;
+    private ByteBuffer encoded;
+
+    /**
+     * Open an Ogg Vorbis file for decoding straight from disk.
+     *
+     * @param filePath Location of the sound file.
+     * @throws IOException If the file cannot be opened or is not an Ogg Vorbis file.
+     */
+    public VorbisSource(String filePath) throws IOException {
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer error = stack.mallocInt(1);
+            this.decoder = STBVorbis.stb_vorbis_open_filename(filePath, error, null);
+
+            if (this.decoder == MemoryUtil.NULL) {
+                throw new IOException("Could not open '" + filePath + "': stb_vorbis error " + error.get(0) + ".");
+            }
+
+            STBVorbisInfo info = STBVorbis.stb_vorbis_get_info(this.decoder, STBVorbisInfo.malloc(stack));
+            this.channels = info.channels();
+            this.sampleRate = info.sample_rate();
+        }
+    }
+
+    /**
+     * Open an Ogg Vorbis file held in memory for decoding.
+     *
+     * @param encoded Encoded file contents, in a direct buffer; owned by the source from now on and freed when it is
+     *                closed.
+     * @throws IOException If the contents are not an Ogg Vorbis file.
+     */
+    public VorbisSource(ByteBuffer encoded) throws IOException {
+        this.encoded = encoded;
+
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer error = stack.mallocInt(1);
+            this.decoder = STBVorbis.stb_vorbis_open_memory(encoded, error, null);
+
+            if (this.decoder == MemoryUtil.NULL) {
+                MemoryUtil.memFree(encoded);
+                throw new IOException("Could not open sound: stb_vorbis error " + error.get(0) + ".");
+            }
+
+            STBVorbisInfo info = STBVorbis.stb_vorbis_get_info(this.decoder, STBVorbisInfo.malloc(stack));
+            this.channels = info.channels();
+            this.sampleRate = info.sample_rate();
+        }
+    }
+
+    @Override
+    public int channels() { return this.channels; }
+
+    @Override
+    public int sampleRate() { return this.sampleRate; }
+
+    @Override
+    public int read(ShortBuffer buffer) {
+        final int frames = STBVorbis.stb_vorbis_get_samples_short_interleaved(this.decoder, this.channels, buffer);
+        buffer.position(buffer.position() + frames * this.channels);
+
+        return frames;
+    }
+
+    @Override
+    public void rewind() { STBVorbis.stb_vorbis_seek_start(this.decoder); }
+
+    @Override
+    public void close() {
+        STBVorbis.stb_vorbis_close(this.decoder);
+
+        if (this.encoded != null) {
+            MemoryUtil.memFree(this.encoded);
+            this.encoded = null;
+        }
+    }
+}
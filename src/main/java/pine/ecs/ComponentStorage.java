@@ -0,0 +1,190 @@
+package pine.ecs;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Dense storage for one component type, indexed by a sparse set. Components of every entity that has one are packed at
+ * the front of the subclass's arrays, so systems iterate them linearly; the sparse array maps an entity ID to its index
+ * in the dense arrays for O(1) lookup, insertion and removal. Removal swaps the last component into the hole.
+ */
+public abstract class ComponentStorage {
+    private int[] sparse;
+    private int[] entities;
+    private int size;
+
+    /**
+     * Create a new empty storage.
+     *
+     * @param capacity Initial number of components the storage can hold.
+     */
+    protected ComponentStorage(int capacity) {
+        this.sparse = new int[capacity];
+        this.entities = new int[capacity];
+        this.size = 0;
+
+        Arrays.fill(this.sparse, -1);
+    }
+
+    /**
+     * @param entity Entity ID.
+     * @return Whether the entity has this component.
+     */
+    public boolean has(int entity) {
+        return entity >= 0 && entity < this.sparse.length && this.sparse[entity] >= 0;
+    }
+
+    /**
+     * @param entity Entity ID.
+     * @return Index of the entity's component in the dense arrays, or -1 if it has none.
+     */
+    public int indexOf(int entity) {
+        return entity >= 0 && entity < this.sparse.length ? this.sparse[entity] : -1;
+    }
+
+    /**
+     * @param index Index in the dense arrays.
+     * @return Entity owning the component at the index.
+     */
+    public int entity(int index) { return this.entities[index]; }
+
+    /**
+     * @return Number of components in the storage.
+     */
+    public int size() { return this.size; }
+
+    /**
+     * Remove an entity's component, moving the last component into its place.
+     *
+     * @param entity Entity ID.
+     */
+    public void remove(int entity) {
+        final int index = this.indexOf(entity);
+        if (index < 0) { return; }
+
+        final int last = this.size - 1;
+        if (index != last) {
+            final int moved = this.entities[last];
+
+            this.entities[index] = moved;
+            this.sparse[moved] = index;
+            this.move(last, index);
+        }
+
+        this.sparse[entity] = -1;
+        this.size--;
+    }
+
+    /**
+     * Remove every component.
+     */
+    public void clear() {
+        for (int i = 0; i < this.size; i++) { this.sparse[this.entities[i]] = -1; }
+        this.size = 0;
+    }
+
+    /**
+     * Write the entity of every component, in dense order, into a buffer.
+     *
+     * @param out Buffer with room for {@link #size()} IDs.
+     */
+    public void copyEntities(IntBuffer out) {
+        out.put(this.entities, 0, this.size);
+    }
+
+    /**
+     * Replace every component with a packed table of entities read in bulk, for example from a level file. The
+     * component at dense index i belongs to entity i of the table; the subclass's arrays are grown to hold them but
+     * their values are left for the caller to fill.
+     *
+     * @param entities IDs of the entities, from the buffer's position to its limit.
+     * @param idCount  Number of entity IDs handed out; every ID must be below it.
+     * @return Whether every ID was in range and unique; if not, the storage is left empty.
+     */
+    public boolean loadEntities(IntBuffer entities, int idCount) {
+        this.clear();
+
+        final int count = entities.remaining();
+        if (count > this.entities.length) {
+            this.entities = new int[count];
+            this.grow(count);
+        }
+
+        entities.get(this.entities, 0, count);
+
+        int maxEntity = -1;
+        for (int i = 0; i < count; i++) { maxEntity = Math.max(maxEntity, this.entities[i]); }
+
+        if (maxEntity >= idCount) {
+            this.clear();
+            return false;
+        }
+
+        if (maxEntity >= this.sparse.length) {
+            final int oldLength = this.sparse.length;
+
+            this.sparse = Arrays.copyOf(this.sparse, Math.max(maxEntity + 1, oldLength * 2));
+            Arrays.fill(this.sparse, oldLength, this.sparse.length, -1);
+        }
+
+        for (int i = 0; i < count; i++) {
+            final int entity = this.entities[i];
+
+            if (entity < 0 || this.sparse[entity] >= 0) {
+                this.size = i;
+                this.clear();
+                return false;
+            }
+
+            this.sparse[entity] = i;
+        }
+
+        this.size = count;
+        return true;
+    }
+
+    /**
+     * Reserve a dense slot for an entity's component, or return its existing slot.
+     *
+     * @param entity Entity ID.
+     * @return Index of the slot in the dense arrays.
+     */
+    protected int insert(int entity) {
+        if (entity >= this.sparse.length) {
+            int oldLength = this.sparse.length;
+
+            this.sparse = Arrays.copyOf(this.sparse, Math.max(entity + 1, oldLength * 2));
+            Arrays.fill(this.sparse, oldLength, this.sparse.length, -1);
+        }
+
+        if (this.sparse[entity] >= 0) { return this.sparse[entity]; }
+
+        if (this.size == this.entities.length) {
+            final int capacity = Math.max(16, this.size * 2);
+
+            this.entities = Arrays.copyOf(this.entities, capacity);
+            this.grow(capacity);
+        }
+
+        final int index = this.size++;
+        this.entities[index] = entity;
+        this.sparse[entity] = index;
+
+        return index;
+    }
+
+    /**
+     * Copy the component at one dense index to another.
+     *
+     * @param from Index to copy from.
+     * @param to   Index to copy to.
+     */
+    protected abstract void move(int from, int to);
+
+    /**
+     * Grow the component arrays.
+     *
+     * @param capacity New number of components the arrays must hold.
+     */
+    protected abstract void grow(int capacity);
+}
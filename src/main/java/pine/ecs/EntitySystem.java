@@ -0,0 +1,37 @@
+package pine.ecs;
+
+import pine.utils.ComponentType;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * System that runs over the component storages of a world every update.
+ * <p>
+ * Systems declare the component types they read and write so that the {@link SystemScheduler} can run systems that
+ * do not conflict at the same time. The defaults claim every type, which makes a system run on its own.
+ */
+public interface EntitySystem {
+    /**
+     * Run the system once.
+     *
+     * @param world     World holding the entities and their components.
+     * @param deltaTime Time to advance by in seconds.
+     */
+    void update(World world, double deltaTime);
+
+    /**
+     * @return Component types the system reads without writing.
+     */
+    default Set<ComponentType> reads() { return EnumSet.allOf(ComponentType.class); }
+
+    /**
+     * @return Component types the system writes.
+     */
+    default Set<ComponentType> writes() { return EnumSet.allOf(ComponentType.class); }
+
+    /**
+     * @return Whether the system must run on the main thread, e.g. because it touches the OpenGL context.
+     */
+    default boolean mainThread() { return false; }
+}
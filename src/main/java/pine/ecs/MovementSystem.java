@@ -0,0 +1,62 @@
+package pine.ecs;
+
+import pine.utils.ComponentType;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Moves every entity that has both a transform and a velocity. The velocities are iterated in chunks spread across the
+ * world's scheduler; every entity has its own transform slot, so the chunks never write to the same element.
+ */
+public class MovementSystem implements EntitySystem {
+    private static final Set<ComponentType> READS = EnumSet.of(ComponentType.Velocity);
+    private static final Set<ComponentType> WRITES = EnumSet.of(ComponentType.Transform);
+
+    private final SystemScheduler.RangeBody body;
+    private TransformStorage transforms;
+    private VelocityStorage velocities;
+    private float dt;
+
+    /**
+     * Create a new movement system.
+     */
+    public MovementSystem() {
+        this.body = this::move;
+    }
+
+    @Override
+    public void update(World world, double deltaTime) {
+        this.transforms = world.transforms;
+        this.velocities = world.velocities;
+        this.dt = (float) deltaTime;
+
+        world.scheduler().parallelFor(this.velocities.size(), SystemScheduler.DEFAULT_GRAIN, this.body);
+    }
+
+    @Override
+    public Set<ComponentType> reads() { return MovementSystem.READS; }
+
+    @Override
+    public Set<ComponentType> writes() { return MovementSystem.WRITES; }
+
+    /**
+     * Move the entities owning a range of velocities.
+     *
+     * @param from First velocity index, inclusive.
+     * @param to   Last velocity index, exclusive.
+     */
+    private void move(int from, int to) {
+        final TransformStorage transforms = this.transforms;
+        final VelocityStorage velocities = this.velocities;
+        final float dt = this.dt;
+
+        for (int i = from; i < to; i++) {
+            final int transform = transforms.indexOf(velocities.entity(i));
+            if (transform < 0) { continue; }
+
+            transforms.x[transform] += velocities.x[i] * dt;
+            transforms.y[transform] += velocities.y[i] * dt;
+        }
+    }
+}
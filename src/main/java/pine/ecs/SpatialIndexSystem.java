@@ -0,0 +1,60 @@
+package pine.ecs;
+
+import pine.spatial.IntList;
+import pine.spatial.SpatialIndex;
+import pine.utils.ComponentType;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Keeps a spatial index in step with the transforms of a world: every transform is written into the index, which only
+ * relinks boxes that crossed into another cell or node, and entities that lost their transform are removed.
+ */
+public class SpatialIndexSystem implements EntitySystem {
+    private static final Set<ComponentType> READS = EnumSet.of(ComponentType.Transform);
+
+    private final SpatialIndex index;
+    private final IntList tracked;
+
+    /**
+     * Create a new spatial index system.
+     *
+     * @param index Index to keep in step with the world.
+     */
+    public SpatialIndexSystem(SpatialIndex index) {
+        this.index = index;
+        this.tracked = new IntList();
+    }
+
+    @Override
+    public void update(World world, double deltaTime) {
+        final TransformStorage transforms = world.transforms;
+
+        for (int i = 0; i < this.tracked.size(); i++) {
+            final int entity = this.tracked.get(i);
+            if (transforms.has(entity)) { continue; }
+
+            this.index.remove(entity);
+            this.tracked.swapRemove(i--);
+        }
+
+        for (int i = 0; i < transforms.size(); i++) {
+            final int entity = transforms.entity(i);
+            if (!this.index.contains(entity)) { this.tracked.add(entity); }
+
+            this.index.update(entity, transforms.x[i], transforms.y[i], transforms.width[i], transforms.height[i]);
+        }
+    }
+
+    @Override
+    public Set<ComponentType> reads() { return SpatialIndexSystem.READS; }
+
+    @Override
+    public Set<ComponentType> writes() { return EnumSet.noneOf(ComponentType.class); }
+
+    /**
+     * @return Index kept in step with the world.
+     */
+    public SpatialIndex index() { return this.index; }
+}
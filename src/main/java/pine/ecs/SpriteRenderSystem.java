@@ -0,0 +1,126 @@
+package pine.ecs;
+
+import org.joml.Vector4f;
+import pine.Camera;
+import pine.profiling.Profiler;
+import pine.renderer.Renderer;
+import pine.spatial.IntList;
+import pine.spatial.SpatialIndex;
+import pine.utils.ComponentType;
+import pine.utils.ProfileCounter;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Submits every entity that has both a transform and a sprite to a renderer, then flushes the renderer. Given a spatial
+ * index, only the entities overlapping the camera's visible bounds are submitted, and the visible and culled sprite
+ * counts are reported to the profiler.
+ */
+public class SpriteRenderSystem implements EntitySystem {
+    private static final Set<ComponentType> READS = EnumSet.of(ComponentType.Transform, ComponentType.Sprite);
+
+    private final Renderer renderer;
+    private final Camera camera;
+    private final SpatialIndex index;
+    private final Vector4f color, viewport;
+    private final IntList visible;
+    private int visibleCount, culledCount;
+
+    /**
+     * Create a new sprite render system that submits every sprite.
+     *
+     * @param renderer Renderer to submit the sprites to.
+     * @param camera   Camera to render with.
+     */
+    public SpriteRenderSystem(Renderer renderer, Camera camera) {
+        this(renderer, camera, null);
+    }
+
+    /**
+     * Create a new sprite render system that culls sprites outside the camera's view.
+     *
+     * @param renderer Renderer to submit the sprites to.
+     * @param camera   Camera to render with.
+     * @param index    Index kept in step with the world's transforms, e.g. by a {@link SpatialIndexSystem}, or null
+     *                 to submit every sprite.
+     */
+    public SpriteRenderSystem(Renderer renderer, Camera camera, SpatialIndex index) {
+        this.renderer = renderer;
+        this.camera = camera;
+        this.index = index;
+        this.color = new Vector4f();
+        this.viewport = new Vector4f();
+        this.visible = new IntList(1024);
+    }
+
+    @Override
+    public void update(World world, double alpha) {
+        final TransformStorage transforms = world.transforms;
+        final SpriteStorage sprites = world.sprites;
+        int submitted = 0;
+
+        if (this.index == null) {
+            for (int i = 0; i < sprites.size(); i++) {
+                if (this.submit(transforms, sprites, i)) { submitted++; }
+            }
+        }
+
+        else {
+            this.camera.visibleBounds(this.viewport);
+            this.visible.clear();
+            this.index.query(this.viewport.x, this.viewport.y, this.viewport.z, this.viewport.w, this.visible);
+
+            for (int i = 0; i < this.visible.size(); i++) {
+                final int sprite = sprites.indexOf(this.visible.get(i));
+                if (sprite >= 0 && this.submit(transforms, sprites, sprite)) { submitted++; }
+            }
+        }
+
+        this.visibleCount = submitted;
+        this.culledCount = sprites.size() - submitted;
+
+        Profiler.count(ProfileCounter.Visible, this.visibleCount);
+        Profiler.count(ProfileCounter.Culled, this.culledCount);
+
+        this.renderer.render(this.camera);
+    }
+
+    @Override
+    public Set<ComponentType> reads() { return SpriteRenderSystem.READS; }
+
+    @Override
+    public Set<ComponentType> writes() { return EnumSet.noneOf(ComponentType.class); }
+
+    @Override
+    public boolean mainThread() { return true; }
+
+    /**
+     * @return Number of sprites submitted by the last update.
+     */
+    public int visibleCount() { return this.visibleCount; }
+
+    /**
+     * @return Number of sprites skipped by the last update, including sprites without a transform.
+     */
+    public int culledCount() { return this.culledCount; }
+
+    /**
+     * Submit one sprite to the renderer.
+     *
+     * @param sprite Index of the sprite component.
+     * @return Whether the sprite was submitted; false if its entity has no transform or no sprite is set.
+     */
+    private boolean submit(TransformStorage transforms, SpriteStorage sprites, int sprite) {
+        final int transform = transforms.indexOf(sprites.entity(sprite));
+        if (transform < 0 || sprites.sprite[sprite] == null) { return false; }
+
+        this.color.set(sprites.r[sprite], sprites.g[sprite], sprites.b[sprite], sprites.a[sprite]);
+        this.renderer.drawSprite(
+            sprites.sprite[sprite], transforms.x[transform], transforms.y[transform],
+            transforms.width[transform], transforms.height[transform], this.color
+        );
+
+        return true;
+    }
+}
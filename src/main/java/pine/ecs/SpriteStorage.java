@@ -0,0 +1,70 @@
+package pine.ecs;
+
+import pine.renderer.Sprite;
+
+import java.util.Arrays;
+
+/**
+ * Sprite components stored as structure-of-arrays: the sprite and the RGBA colour it is tinted with.
+ */
+public class SpriteStorage extends ComponentStorage {
+    public Sprite[] sprite;
+    public float[] r, g, b, a;
+
+    /**
+     * Create a new empty storage.
+     *
+     * @param capacity Initial number of components the storage can hold.
+     */
+    public SpriteStorage(int capacity) {
+        super(capacity);
+        this.grow(capacity);
+    }
+
+    /**
+     * Add or replace an entity's sprite.
+     *
+     * @param entity Entity ID.
+     * @param sprite Sprite to draw.
+     * @param r      Red component of the tint.
+     * @param g      Green component of the tint.
+     * @param b      Blue component of the tint.
+     * @param a      Alpha component of the tint.
+     */
+    public void add(int entity, Sprite sprite, float r, float g, float b, float a) {
+        final int index = this.insert(entity);
+
+        this.sprite[index] = sprite;
+        this.r[index] = r;
+        this.g[index] = g;
+        this.b[index] = b;
+        this.a[index] = a;
+    }
+
+    @Override
+    public void remove(int entity) {
+        final int last = this.size() - 1;
+        super.remove(entity);
+
+        // Drop the reference left behind in the vacated slot.
+        if (last >= 0 && this.size() == last) { this.sprite[last] = null; }
+    }
+
+    @Override
+    protected void move(int from, int to) {
+        this.sprite[to] = this.sprite[from];
+        this.r[to] = this.r[from];
+        this.g[to] = this.g[from];
+        this.b[to] = this.b[from];
+        this.a[to] = this.a[from];
+    }
+
+    @Override
+    protected void grow(int capacity) {
+        this.sprite = this.sprite == null ? new Sprite[capacity] : Arrays.copyOf(this.sprite, capacity);
+        this.r = this.r == null ? new float[capacity] : Arrays.copyOf(this.r, capacity);
+        this.g = this.g == null ? new float[capacity] : Arrays.copyOf(this.g, capacity);
+        this.b = this.b == null ? new float[capacity] : Arrays.copyOf(this.b, capacity);
+        this.a = this.a == null ? new float[capacity] : Arrays.copyOf(this.a, capacity);
+    }
+}
@@ -0,0 +1,263 @@
+package pine.ecs;
+
+import pine.utils.ComponentType;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs the update systems of a world on a fork-join pool. Systems are grouped into waves from the component types they
+ * declare: a system goes into the wave after the last earlier system it conflicts with, i.e. one that writes a type it
+ * reads or writes, or reads a type it writes. Systems in the same wave run in parallel and waves run one after the
+ * other, so any two conflicting systems always run in the order they were added and the result does not depend on the
+ * number of threads.
+ * <p>
+ * Systems that must run on the main thread are run by the calling thread while the rest of their wave runs on the pool.
+ * Systems can also split their own iteration across the pool with {@link #parallelFor(int, int, RangeBody)}.
+ */
+public class SystemScheduler {
+    public static final int DEFAULT_GRAIN = 4096;
+
+    private final ForkJoinPool pool;
+    private final List<SystemTask> tasks;
+    private final List<SystemTask[]> waves;
+    private boolean dirty;
+
+    /**
+     * Body of a parallel loop over a range of indices.
+     */
+    @FunctionalInterface
+    public interface RangeBody {
+        /**
+         * Run the loop body over part of the range.
+         *
+         * @param from First index, inclusive.
+         * @param to   Last index, exclusive.
+         */
+        void run(int from, int to);
+    }
+
+    /**
+     * Create a new scheduler.
+     *
+     * @param pool Pool to run systems on, or null to run everything on the calling thread.
+     */
+    public SystemScheduler(ForkJoinPool pool) {
+        this.pool = pool;
+        this.tasks = new ArrayList<>();
+        this.waves = new ArrayList<>();
+        this.dirty = false;
+    }
+
+    /**
+     * Register a system. The waves are rebuilt before the next run.
+     *
+     * @param system System to add.
+     */
+    public void add(EntitySystem system) {
+        this.tasks.add(new SystemTask(system));
+        this.dirty = true;
+    }
+
+    /**
+     * Run every system once, wave by wave, returning when all of them have finished.
+     *
+     * @param world     World to run the systems over.
+     * @param deltaTime Time to advance by in seconds.
+     */
+    public void run(World world, double deltaTime) {
+        if (this.dirty) { this.buildWaves(); }
+
+        for (int i = 0; i < this.waves.size(); i++) { this.runWave(this.waves.get(i), world, deltaTime); }
+    }
+
+    /**
+     * Run a loop body over a range of indices, split into chunks spread across the pool. Falls back to a single call on
+     * the calling thread if there is no pool or the range is too small to be worth splitting. Chunks may run in any
+     * order and concurrently, so the body must only write to state owned by its own indices.
+     *
+     * @param count Number of indices; the range is [0, count).
+     * @param grain Smallest number of indices worth running as one chunk.
+     * @param body  Loop body.
+     */
+    public void parallelFor(int count, int grain, RangeBody body) {
+        if (this.pool == null || this.pool.getParallelism() <= 1 || count <= grain) {
+            body.run(0, count);
+            return;
+        }
+
+        // A few chunks per thread let faster threads steal work from slower ones.
+        final int chunk = Math.max(grain, count / (this.pool.getParallelism() * 4));
+        RangeTask task = new RangeTask(body, 0, count, chunk);
+
+        if (ForkJoinTask.getPool() == this.pool) { task.invoke(); }
+        else { this.pool.invoke(task); }
+    }
+
+    /**
+     * @return Number of threads systems can run on; 1 if there is no pool.
+     */
+    public int parallelism() { return this.pool == null ? 1 : this.pool.getParallelism(); }
+
+    /**
+     * @return Number of waves the systems are currently grouped into.
+     */
+    public int waveCount() {
+        if (this.dirty) { this.buildWaves(); }
+        return this.waves.size();
+    }
+
+    /**
+     * Run one wave, forking all but one of the pooled systems and running the rest on the calling thread.
+     */
+    private void runWave(SystemTask[] wave, World world, double deltaTime) {
+        if (this.pool == null || wave.length == 1) {
+            for (SystemTask task : wave) { task.system.update(world, deltaTime); }
+            return;
+        }
+
+        SystemTask inline = null;
+
+        for (SystemTask task : wave) {
+            task.prepare(world, deltaTime);
+
+            if (task.system.mainThread()) { continue; }
+            if (inline != null) { this.pool.execute(inline); }
+            inline = task;
+        }
+
+        // The calling thread runs one pooled system itself rather than idling while it waits.
+        for (SystemTask task : wave) {
+            if (task.system.mainThread()) { task.system.update(world, deltaTime); }
+        }
+        if (inline != null) { inline.invoke(); }
+
+        for (SystemTask task : wave) {
+            if (!task.system.mainThread() && task != inline) { task.join(); }
+        }
+    }
+
+    /**
+     * Group the systems into waves, keeping every system after the systems it conflicts with.
+     */
+    private void buildWaves() {
+        final int count = this.tasks.size();
+        int[] waveOf = new int[count];
+        int waveCount = 0;
+
+        for (int i = 0; i < count; i++) {
+            EntitySystem system = this.tasks.get(i).system;
+            int wave = 0;
+
+            for (int j = 0; j < i; j++) {
+                if (SystemScheduler.conflicts(system, this.tasks.get(j).system)) {
+                    wave = Math.max(wave, waveOf[j] + 1);
+                }
+            }
+
+            waveOf[i] = wave;
+            waveCount = Math.max(waveCount, wave + 1);
+        }
+
+        this.waves.clear();
+
+        for (int wave = 0; wave < waveCount; wave++) {
+            List<SystemTask> members = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                if (waveOf[i] == wave) { members.add(this.tasks.get(i)); }
+            }
+
+            this.waves.add(members.toArray(new SystemTask[0]));
+        }
+
+        this.dirty = false;
+    }
+
+    /**
+     * @return Whether two systems cannot safely run at the same time.
+     */
+    private static boolean conflicts(EntitySystem a, EntitySystem b) {
+        Set<ComponentType> aWrites = a.writes();
+        Set<ComponentType> bWrites = b.writes();
+
+        // Two main thread systems cannot run at the same time either.
+        if (a.mainThread() && b.mainThread()) { return true; }
+
+        return SystemScheduler.overlaps(aWrites, b.reads()) || SystemScheduler.overlaps(aWrites, bWrites)
+            || SystemScheduler.overlaps(bWrites, a.reads());
+    }
+
+    /**
+     * @return Whether two sets of component types share a type.
+     */
+    private static boolean overlaps(Set<ComponentType> a, Set<ComponentType> b) {
+        EnumSet<ComponentType> shared = EnumSet.noneOf(ComponentType.class);
+        shared.addAll(a);
+        shared.retainAll(b);
+
+        return !shared.isEmpty();
+    }
+
+    /**
+     * Reusable fork-join task running one system.
+     */
+    @SuppressWarnings("serial")
+    private static class SystemTask extends RecursiveAction {
+        private final EntitySystem system;
+        private World world;
+        private double deltaTime;
+
+        private SystemTask(EntitySystem system) {
+            this.system = system;
+        }
+
+        /**
+         * Set the arguments of the next run and reset the task so it can be forked again.
+         */
+        private void prepare(World world, double deltaTime) {
+            this.world = world;
+            this.deltaTime = deltaTime;
+            this.reinitialize();
+        }
+
+        @Override
+        protected void compute() {
+            this.system.update(this.world, this.deltaTime);
+        }
+    }
+
+    /**
+     * Fork-join task splitting a range in half until it is no larger than a chunk.
+     */
+    @SuppressWarnings("serial")
+    private static class RangeTask extends RecursiveAction {
+        private final RangeBody body;
+        private final int from, to, chunk;
+
+        private RangeTask(RangeBody body, int from, int to, int chunk) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= this.chunk) {
+                this.body.run(this.from, this.to);
+                return;
+            }
+
+            final int middle = (this.from + this.to) >>> 1;
+            ForkJoinTask.invokeAll(
+                new RangeTask(this.body, this.from, middle, this.chunk),
+                new RangeTask(this.body, middle, this.to, this.chunk)
+            );
+        }
+    }
+}
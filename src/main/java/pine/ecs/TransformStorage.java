@@ -0,0 +1,54 @@
+package pine.ecs;
+
+import java.util.Arrays;
+
+/**
+ * Axis-aligned transform components stored as structure-of-arrays: the bottom-left position and size of each entity.
+ */
+public class TransformStorage extends ComponentStorage {
+    public float[] x, y, width, height;
+
+    /**
+     * Create a new empty storage.
+     *
+     * @param capacity Initial number of components the storage can hold.
+     */
+    public TransformStorage(int capacity) {
+        super(capacity);
+        this.grow(capacity);
+    }
+
+    /**
+     * Add or replace an entity's transform.
+     *
+     * @param entity Entity ID.
+     * @param x      x-coordinate of the bottom-left corner.
+     * @param y      y-coordinate of the bottom-left corner.
+     * @param width  Width of the entity.
+     * @param height Height of the entity.
+     */
+    public void add(int entity, float x, float y, float width, float height) {
+        final int index = this.insert(entity);
+
+        this.x[index] = x;
+        this.y[index] = y;
+        this.width[index] = width;
+        this.height[index] = height;
+    }
+
+    @Override
+    protected void move(int from, int to) {
+        this.x[to] = this.x[from];
+        this.y[to] = this.y[from];
+        this.width[to] = this.width[from];
+        this.height[to] = this.height[from];
+    }
+
+    @Override
+    protected void grow(int capacity) {
+        this.x = this.x == null ? new float[capacity] : Arrays.copyOf(this.x, capacity);
+        this.y = this.y == null ? new float[capacity] : Arrays.copyOf(this.y, capacity);
+        this.width = this.width == null ? new float[capacity] : Arrays.copyOf(this.width, capacity);
+        this.height = this.height == null ? new float[capacity] : Arrays.copyOf(this.height, capacity);
+    }
+}
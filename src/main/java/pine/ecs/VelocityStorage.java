@@ -0,0 +1,46 @@
+package pine.ecs;
+
+import java.util.Arrays;
+
+/**
+ * Velocity components stored as structure-of-arrays, in world units per second.
+ */
+public class VelocityStorage extends ComponentStorage {
+    public float[] x, y;
+
+    /**
+     * Create a new empty storage.
+     *
+     * @param capacity Initial number of components the storage can hold.
+     */
+    public VelocityStorage(int capacity) {
+        super(capacity);
+        this.grow(capacity);
+    }
+
+    /**
+     * Add or replace an entity's velocity.
+     *
+     * @param entity Entity ID.
+     * @param x      Velocity along the x-axis.
+     * @param y      Velocity along the y-axis.
+     */
+    public void add(int entity, float x, float y) {
+        final int index = this.insert(entity);
+
+        this.x[index] = x;
+        this.y[index] = y;
+    }
+
+    @Override
+    protected void move(int from, int to) {
+        this.x[to] = this.x[from];
+        this.y[to] = this.y[from];
+    }
+
+    @Override
+    protected void grow(int capacity) {
+        this.x = this.x == null ? new float[capacity] : Arrays.copyOf(this.x, capacity);
+        this.y = this.y == null ? new float[capacity] : Arrays.copyOf(this.y, capacity);
+    }
+}
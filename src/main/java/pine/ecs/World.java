@@ -0,0 +1,219 @@
+package pine.ecs;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Registry of entities, their components and the systems that run over them. Entities are plain int IDs; destroyed IDs
+ * are recycled so that the sparse arrays of the storages stay small.
+ * <p>
+ * Update systems advance the simulation and are run by {@link #update(double)} through a {@link SystemScheduler}, in
+ * parallel where their declared component types allow; render systems submit the current state to a renderer and are
+ * run by {@link #render(double)} on the calling thread, once per frame regardless of the timestep.
+ */
+public class World {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    public final TransformStorage transforms;
+    public final VelocityStorage velocities;
+    public final SpriteStorage sprites;
+
+    private final ComponentStorage[] storages;
+    private final SystemScheduler scheduler;
+    private final List<EntitySystem> renderSystems;
+    private int[] freeIDs;
+    private boolean[] freed;
+    private int freeCount, nextID, entityCount;
+
+    /**
+     * Create a new empty world with the default capacity, running its systems on the common fork-join pool.
+     */
+    public World() {
+        this(World.DEFAULT_CAPACITY, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a new empty world.
+     *
+     * @param capacity Number of entities the storages can hold before growing.
+     * @param pool     Pool to run update systems on, or null to run them on the calling thread.
+     */
+    public World(int capacity, ForkJoinPool pool) {
+        this.transforms = new TransformStorage(capacity);
+        this.velocities = new VelocityStorage(capacity);
+        this.sprites = new SpriteStorage(capacity);
+        this.storages = new ComponentStorage[] { this.transforms, this.velocities, this.sprites };
+
+        this.scheduler = new SystemScheduler(pool);
+        this.renderSystems = new ArrayList<>();
+        this.freeIDs = new int[16];
+        this.freed = new boolean[16];
+    }
+
+    /**
+     * Create a new entity with no components.
+     *
+     * @return ID of the entity.
+     */
+    public int create() {
+        this.entityCount++;
+
+        if (this.freeCount == 0) { return this.nextID++; }
+
+        final int entity = this.freeIDs[--this.freeCount];
+        this.freed[entity] = false;
+
+        return entity;
+    }
+
+    /**
+     * Destroy an entity, removing all its components. Its ID may be handed out again by {@link #create()}. Destroying
+     * an entity that is not alive does nothing.
+     *
+     * @param entity ID of the entity.
+     */
+    public void destroy(int entity) {
+        if (!this.alive(entity)) {
+            assert false : "Error (World.java): Entity '" + entity + "' is not alive.";
+            return;
+        }
+
+        if (entity >= this.freed.length) {
+            this.freed = Arrays.copyOf(this.freed, Math.max(entity + 1, this.freed.length * 2));
+        }
+
+        this.freed[entity] = true;
+
+        for (ComponentStorage storage : this.storages) { storage.remove(entity); }
+
+        if (this.freeCount == this.freeIDs.length) { this.freeIDs = Arrays.copyOf(this.freeIDs, this.freeCount * 2); }
+        this.freeIDs[this.freeCount++] = entity;
+        this.entityCount--;
+    }
+
+    /**
+     * Destroy every entity and forget recycled IDs. Registered systems are kept.
+     */
+    public void clear() {
+        for (ComponentStorage storage : this.storages) { storage.clear(); }
+        Arrays.fill(this.freed, false);
+
+        this.freeCount = 0;
+        this.nextID = 0;
+        this.entityCount = 0;
+    }
+
+    /**
+     * @param entity ID of the entity.
+     * @return Whether the entity has been created and not destroyed since.
+     */
+    public boolean alive(int entity) {
+        return entity >= 0 && entity < this.nextID && (entity >= this.freed.length || !this.freed[entity]);
+    }
+
+    /**
+     * @return Number of live entities.
+     */
+    public int entityCount() { return this.entityCount; }
+
+    /**
+     * @return Number of entity IDs handed out so far, live or recycled; every ID is below it.
+     */
+    public int idCount() { return this.nextID; }
+
+    /**
+     * @return Number of destroyed IDs waiting to be handed out again.
+     */
+    public int freeCount() { return this.freeCount; }
+
+    /**
+     * Write the destroyed IDs waiting to be handed out again into a buffer, the next one to be handed out last.
+     *
+     * @param out Buffer with room for {@link #freeCount()} IDs.
+     */
+    public void copyFreeIDs(IntBuffer out) {
+        out.put(this.freeIDs, 0, this.freeCount);
+    }
+
+    /**
+     * Restore the ID allocator after the storages have been loaded in bulk, for example from a level file. Every ID
+     * below the ID count that is not free is live.
+     *
+     * @param idCount Number of entity IDs handed out so far.
+     * @param freeIDs Destroyed IDs waiting to be handed out again, from the buffer's position to its limit.
+     * @return Whether the free IDs were valid; false if one is out of range or repeated, in which case every entity
+     * is dead.
+     */
+    public boolean loadIDs(int idCount, IntBuffer freeIDs) {
+        final int count = freeIDs.remaining();
+        if (count > this.freeIDs.length) { this.freeIDs = new int[count]; }
+        freeIDs.get(this.freeIDs, 0, count);
+        Arrays.fill(this.freed, false);
+
+        this.freeCount = count;
+        this.nextID = idCount;
+        this.entityCount = idCount - count;
+
+        for (int i = 0; i < count; i++) {
+            final int entity = this.freeIDs[i];
+
+            if (!this.alive(entity)) {
+                this.clear();
+                return false;
+            }
+
+            if (entity >= this.freed.length) {
+                this.freed = Arrays.copyOf(this.freed, Math.max(entity + 1, this.freed.length * 2));
+            }
+
+            this.freed[entity] = true;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return Scheduler running the update systems.
+     */
+    public SystemScheduler scheduler() { return this.scheduler; }
+
+    /**
+     * Register a system that advances the simulation. Conflicting systems run in the order they were added.
+     *
+     * @param system System to add.
+     */
+    public void addSystem(EntitySystem system) {
+        this.scheduler.add(system);
+    }
+
+    /**
+     * Register a system that draws the world. Render systems run in the order they were added, after the update
+     * systems.
+     *
+     * @param system System to add.
+     */
+    public void addRenderSystem(EntitySystem system) {
+        this.renderSystems.add(system);
+    }
+
+    /**
+     * Run every update system.
+     *
+     * @param deltaTime Time to advance by in seconds.
+     */
+    public void update(double deltaTime) {
+        this.scheduler.run(this, deltaTime);
+    }
+
+    /**
+     * Run every render system.
+     *
+     * @param alpha Interpolation factor in [0, 1] between the previous and current simulation state.
+     */
+    public void render(double alpha) {
+        for (int i = 0; i < this.renderSystems.size(); i++) { this.renderSystems.get(i).update(this, alpha); }
+    }
+}
@@ -0,0 +1,514 @@
+package pine.level;
+
+import pine.ecs.World;
+import pine.renderer.Sprite;
+import pine.renderer.Texture;
+import pine.renderer.Tilemap;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Text form of a level for diffing and review. Entities are listed one per line in ID order, whatever the order of
+ * the storages' dense arrays, tiles one row per line and tile texture coordinates one tile ID per line, so a change to
+ * one entity or one tile changes one line. Floats are written in their shortest exact form and read back to the same
+ * bits.
+ * <p>
+ * Reading parses the whole document into maps and lists and adds each component one by one, which is how a level
+ * would be loaded without the binary format; it is kept as the baseline that {@link LevelLoader} is measured against.
+ */
+public class LevelJson {
+    /**
+     * Create a new level JSON converter - not to be used.
+     */
+    private LevelJson() { }
+
+    /**
+     * Write a world, and optionally a tilemap, as JSON.
+     *
+     * @param filePath Location of the JSON file.
+     * @param world    World whose entities are written.
+     * @param tilemap  Tilemap to write, or null for none.
+     * @throws IOException If the file could not be written.
+     */
+    public static void write(Path filePath, World world, Tilemap tilemap) throws IOException {
+        Path parent = filePath.toAbsolutePath().getParent();
+        if (parent != null) { Files.createDirectories(parent); }
+
+        Map<String, Integer> textures = new LinkedHashMap<>();
+        Map<Sprite, Integer> spriteIndices = new IdentityHashMap<>();
+        List<Sprite> sprites = new ArrayList<>();
+
+        for (int i = 0; i < world.sprites.size(); i++) {
+            Sprite sprite = world.sprites.sprite[i];
+            if (sprite == null) { continue; }
+
+            if (spriteIndices.putIfAbsent(sprite, sprites.size()) == null) {
+                sprites.add(sprite);
+                LevelJson.textureIndex(textures, sprite.texture());
+            }
+        }
+
+        if (tilemap != null) { LevelJson.textureIndex(textures, tilemap.texture()); }
+
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(Files.newBufferedWriter(filePath)))) {
+            int[] freeIDs = new int[world.freeCount()];
+            world.copyFreeIDs(IntBuffer.wrap(freeIDs));
+
+            out.printf(
+                "{\n  \"version\": %d,\n  \"idCount\": %d,\n  \"freeIDs\": [", LevelWriter.VERSION, world.idCount()
+            );
+            for (int i = 0; i < freeIDs.length; i++) {
+                out.print((i == 0 ? "" : i % 16 == 0 ? ",\n    " : ", ") + freeIDs[i]);
+            }
+            out.print("],\n  \"textures\": [");
+
+            int index = 0;
+            for (String path : textures.keySet()) { out.print((index++ > 0 ? ", " : "") + LevelJson.quote(path)); }
+            out.print("],\n  \"sprites\": [");
+
+            for (int i = 0; i < sprites.size(); i++) {
+                Sprite sprite = sprites.get(i);
+
+                out.printf(
+                    "%s\n    {\"texture\": %d, \"uv\": [%s, %s, %s, %s], \"size\": [%d, %d]}", i > 0 ? "," : "",
+                    LevelJson.textureIndex(textures, sprite.texture()), sprite.u0(), sprite.v0(), sprite.u1(),
+                    sprite.v1(), sprite.width(), sprite.height()
+                );
+            }
+
+            out.print(sprites.isEmpty() ? "],\n  \"entities\": [" : "\n  ],\n  \"entities\": [");
+            boolean first = true;
+
+            for (int entity = 0; entity < world.idCount(); entity++) {
+                final int transform = world.transforms.indexOf(entity);
+                final int velocity = world.velocities.indexOf(entity);
+                final int sprite = world.sprites.indexOf(entity);
+                if (transform < 0 && velocity < 0 && sprite < 0) { continue; }
+
+                out.printf("%s\n    {\"id\": %d", first ? "" : ",", entity);
+                first = false;
+
+                if (transform >= 0) {
+                    out.printf(
+                        ", \"transform\": [%s, %s, %s, %s]", world.transforms.x[transform],
+                        world.transforms.y[transform], world.transforms.width[transform],
+                        world.transforms.height[transform]
+                    );
+                }
+
+                if (velocity >= 0) {
+                    out.printf(", \"velocity\": [%s, %s]", world.velocities.x[velocity], world.velocities.y[velocity]);
+                }
+
+                if (sprite >= 0) {
+                    // Sprite components without a sprite are written with sprite index -1.
+                    Sprite component = world.sprites.sprite[sprite];
+
+                    out.printf(
+                        ", \"sprite\": %d, \"color\": [%s, %s, %s, %s]",
+                        component == null ? -1 : spriteIndices.get(component), world.sprites.r[sprite],
+                        world.sprites.g[sprite], world.sprites.b[sprite], world.sprites.a[sprite]
+                    );
+                }
+
+                out.print("}");
+            }
+
+            out.print(first ? "]" : "\n  ]");
+
+            if (tilemap != null) { LevelJson.writeTilemap(out, tilemap, textures); }
+            out.print("\n}\n");
+
+            if (out.checkError()) { throw new IOException("Could not write '" + filePath + "'."); }
+        }
+    }
+
+    /**
+     * Read a JSON level into a world, replacing all its entities.
+     *
+     * @param filePath Location of the JSON file.
+     * @param world    World to load the entities into; cleared first, its systems are kept.
+     * @param textures Function getting a texture from its file path, such as {@code AssetPool::texture}.
+     * @param release  Function giving back a texture obtained from the texture function, such as
+     *                 {@code AssetPool::release}; called for every texture obtained if the level is invalid.
+     * @return Tilemap and textures of the level.
+     * @throws IOException If the file could not be read or is not a valid JSON level.
+     */
+    @SuppressWarnings("unchecked")
+    public static LevelLoader.Result read(
+        Path filePath, World world, Function<String, Texture> textures, Consumer<Texture> release
+    ) throws IOException {
+        final Map<String, Object> root;
+
+        try {
+            root = (Map<String, Object>) new Parser(Files.readString(filePath)).value();
+
+            if (((Number) root.get("version")).intValue() != LevelWriter.VERSION) {
+                throw new IOException("Unsupported version in level '" + filePath + "'.");
+            }
+        }
+
+        catch (ClassCastException | NullPointerException | IndexOutOfBoundsException | NumberFormatException e) {
+            throw new IOException("'" + filePath + "' is not a JSON level.", e);
+        }
+
+        world.clear();
+        List<Texture> textureTable = new ArrayList<>();
+
+        try {
+            for (Object path : (List<Object>) root.get("textures")) {
+                textureTable.add(textures.apply((String) path));
+            }
+
+            List<Sprite> sprites = new ArrayList<>();
+
+            for (Object value : (List<Object>) root.get("sprites")) {
+                Map<String, Object> sprite = (Map<String, Object>) value;
+                List<Object> uv = (List<Object>) sprite.get("uv");
+                List<Object> size = (List<Object>) sprite.get("size");
+                final int texture = LevelJson.integer(sprite.get("texture"));
+
+                sprites.add(new Sprite(
+                    texture < 0 ? null : textureTable.get(texture), LevelJson.real(uv.get(0)),
+                    LevelJson.real(uv.get(1)), LevelJson.real(uv.get(2)), LevelJson.real(uv.get(3)),
+                    LevelJson.integer(size.get(0)), LevelJson.integer(size.get(1))
+                ));
+            }
+
+            for (Object value : (List<Object>) root.get("entities")) {
+                Map<String, Object> entity = (Map<String, Object>) value;
+                final int id = LevelJson.integer(entity.get("id"));
+
+                if (entity.get("transform") instanceof List<?> transform) {
+                    world.transforms.add(
+                        id, LevelJson.real(transform.get(0)), LevelJson.real(transform.get(1)),
+                        LevelJson.real(transform.get(2)), LevelJson.real(transform.get(3))
+                    );
+                }
+
+                if (entity.get("velocity") instanceof List<?> velocity) {
+                    world.velocities.add(id, LevelJson.real(velocity.get(0)), LevelJson.real(velocity.get(1)));
+                }
+
+                if (entity.get("sprite") != null) {
+                    List<Object> color = (List<Object>) entity.get("color");
+
+                    final int sprite = LevelJson.integer(entity.get("sprite"));
+
+                    world.sprites.add(
+                        id, sprite == -1 ? null : sprites.get(sprite), LevelJson.real(color.get(0)),
+                        LevelJson.real(color.get(1)), LevelJson.real(color.get(2)), LevelJson.real(color.get(3))
+                    );
+                }
+            }
+
+            List<Object> freeIDs = (List<Object>) root.get("freeIDs");
+            int[] ids = new int[freeIDs.size()];
+            for (int i = 0; i < ids.length; i++) { ids[i] = LevelJson.integer(freeIDs.get(i)); }
+            if (!world.loadIDs(LevelJson.integer(root.get("idCount")), IntBuffer.wrap(ids))) {
+                throw new IOException("Level '" + filePath + "' has invalid free entity IDs.");
+            }
+
+            Tilemap tilemap = null;
+
+            if (root.get("tilemap") instanceof Map<?, ?> map) {
+                List<Object> uvValues = (List<Object>) map.get("uvs");
+                float[] uvs = new float[uvValues.size()];
+                for (int i = 0; i < uvs.length; i++) { uvs[i] = LevelJson.real(uvValues.get(i)); }
+
+                final int texture = LevelJson.integer(map.get("texture"));
+                final int width = LevelJson.integer(map.get("width"));
+                final int height = LevelJson.integer(map.get("height"));
+
+                tilemap = new Tilemap(
+                    texture < 0 ? null : textureTable.get(texture), uvs, width, height,
+                    LevelJson.real(map.get("tileSize")), LevelJson.integer(map.get("chunkSize"))
+                );
+
+                List<Object> rows = (List<Object>) map.get("rows");
+                short[] tiles = new short[width * height];
+
+                for (int y = 0; y < height; y++) {
+                    List<Object> row = (List<Object>) rows.get(y);
+                    for (int x = 0; x < width; x++) { tiles[y * width + x] = (short) LevelJson.integer(row.get(x)); }
+                }
+
+                tilemap.loadTiles(ShortBuffer.wrap(tiles));
+            }
+
+            return new LevelLoader.Result(tilemap, textureTable);
+        }
+
+        catch (ClassCastException | NullPointerException | IndexOutOfBoundsException e) {
+            world.clear();
+            textureTable.forEach(release);
+            throw new IOException("Level '" + filePath + "' is corrupt.", e);
+        }
+
+        catch (IOException e) {
+            world.clear();
+            textureTable.forEach(release);
+            throw e;
+        }
+    }
+
+    /**
+     * Write the tilemap: its header, the texture coordinates of each tile ID and one row of tiles per line.
+     */
+    private static void writeTilemap(PrintWriter out, Tilemap tilemap, Map<String, Integer> textures) {
+        out.printf(
+            ",\n  \"tilemap\": {\n    \"width\": %d, \"height\": %d, \"chunkSize\": %d, \"tileSize\": %s, " +
+            "\"texture\": %d,\n    \"uvs\": [", tilemap.width(), tilemap.height(), tilemap.chunkSize(),
+            tilemap.tileSize(), LevelJson.textureIndex(textures, tilemap.texture())
+        );
+
+        float[] uvs = new float[tilemap.tileTypes() * 4];
+        tilemap.copyTileUVs(FloatBuffer.wrap(uvs));
+        for (int i = 0; i < uvs.length; i++) { out.print((i == 0 ? "" : i % 4 == 0 ? ",\n      " : ", ") + uvs[i]); }
+        out.print("],\n    \"rows\": [");
+
+        short[] tiles = new short[tilemap.width() * tilemap.height()];
+        tilemap.copyTiles(ShortBuffer.wrap(tiles));
+
+        for (int y = 0; y < tilemap.height(); y++) {
+            out.print(y > 0 ? ",\n      [" : "\n      [");
+            for (int x = 0; x < tilemap.width(); x++) {
+                out.print((x > 0 ? ", " : "") + tiles[y * tilemap.width() + x]);
+            }
+            out.print("]");
+        }
+
+        out.print("\n    ]\n  }");
+    }
+
+    /**
+     * @return Index of a texture in the string table, adding it if it is new, or -1 for no texture.
+     */
+    private static int textureIndex(Map<String, Integer> textures, Texture texture) {
+        if (texture == null) { return -1; }
+        return textures.computeIfAbsent(texture.filePath(), path -> textures.size());
+    }
+
+    /**
+     * @return Quoted and escaped JSON string.
+     */
+    private static String quote(String value) {
+        StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+
+            if (c == '"' || c == '\\') { builder.append('\\').append(c); }
+            else if (c < 0x20) { builder.append(String.format("\\u%04x", (int) c)); }
+            else { builder.append(c); }
+        }
+
+        return builder.append('"').toString();
+    }
+
+    /**
+     * @return JSON number as an int.
+     */
+    private static int integer(Object value) { return ((Number) value).intValue(); }
+
+    /**
+     * @return JSON number as a float.
+     */
+    private static float real(Object value) { return ((Number) value).floatValue(); }
+
+    /**
+     * Minimal JSON parser into maps, lists, strings, numbers, booleans and null. Numbers are read as {@link Double}.
+     */
+    private static class Parser {
+        private static final String NUMBER = "+-0123456789.eE";
+
+        private final String text;
+        private int position;
+
+        /**
+         * Create a new parser at the start of a text.
+         */
+        private Parser(String text) { this.text = text; }
+
+        /**
+         * @return Next value in the text.
+         */
+        private Object value() throws IOException {
+            this.skipWhitespace();
+            if (this.position >= this.text.length()) { throw new IOException("Unexpected end of JSON."); }
+
+            final char c = this.text.charAt(this.position);
+
+            return switch (c) {
+                case '{' -> this.object();
+                case '[' -> this.array();
+                case '"' -> this.string();
+                case 't' -> this.literal("true", Boolean.TRUE);
+                case 'f' -> this.literal("false", Boolean.FALSE);
+                case 'n' -> this.literal("null", null);
+                default -> this.number();
+            };
+        }
+
+        /**
+         * @return Object starting at the current position.
+         */
+        private Map<String, Object> object() throws IOException {
+            Map<String, Object> object = new LinkedHashMap<>();
+            this.position++;
+
+            if (this.peek() == '}') {
+                this.position++;
+                return object;
+            }
+
+            do {
+                this.skipWhitespace();
+                final String key = this.string();
+                this.expect(':');
+                object.put(key, this.value());
+            } while (this.next(','));
+
+            this.expect('}');
+            return object;
+        }
+
+        /**
+         * @return Array starting at the current position.
+         */
+        private List<Object> array() throws IOException {
+            List<Object> array = new ArrayList<>();
+            this.position++;
+
+            if (this.peek() == ']') {
+                this.position++;
+                return array;
+            }
+
+            do { array.add(this.value()); } while (this.next(','));
+
+            this.expect(']');
+            return array;
+        }
+
+        /**
+         * @return String starting at the current position.
+         */
+        private String string() throws IOException {
+            if (this.position >= this.text.length() || this.text.charAt(this.position) != '"') {
+                throw new IOException("Expected a string at " + this.position + ".");
+            }
+
+            StringBuilder builder = new StringBuilder();
+            this.position++;
+
+            while (this.position < this.text.length()) {
+                final char c = this.text.charAt(this.position++);
+
+                if (c == '"') { return builder.toString(); }
+                if (c != '\\') {
+                    builder.append(c);
+                    continue;
+                }
+
+                final char escaped = this.text.charAt(this.position++);
+
+                switch (escaped) {
+                    case 'n' -> builder.append('\n');
+                    case 't' -> builder.append('\t');
+                    case 'r' -> builder.append('\r');
+                    case 'b' -> builder.append('\b');
+                    case 'f' -> builder.append('\f');
+                    case 'u' -> {
+                        builder.append((char) Integer.parseInt(this.text, this.position, this.position + 4, 16));
+                        this.position += 4;
+                    }
+
+                    default -> builder.append(escaped);
+                }
+            }
+
+            throw new IOException("Unterminated string.");
+        }
+
+        /**
+         * @return Number starting at the current position.
+         */
+        private Number number() throws IOException {
+            final int start = this.position;
+
+            while (this.position < this.text.length() && NUMBER.indexOf(this.text.charAt(this.position)) >= 0) {
+                this.position++;
+            }
+
+            if (start == this.position) { throw new IOException("Unexpected character at " + start + "."); }
+
+            try { return Double.parseDouble(this.text.substring(start, this.position)); }
+            catch (NumberFormatException e) { throw new IOException("Invalid number at " + start + ".", e); }
+        }
+
+        /**
+         * @return Value of a literal, after checking its spelling.
+         */
+        private Object literal(String word, Object value) throws IOException {
+            if (!this.text.startsWith(word, this.position)) {
+                throw new IOException("Unexpected character at " + this.position + ".");
+            }
+
+            this.position += word.length();
+            return value;
+        }
+
+        /**
+         * Skip whitespace and consume a character if it is next.
+         *
+         * @return Whether the character was consumed.
+         */
+        private boolean next(char c) {
+            if (this.peek() != c) { return false; }
+
+            this.position++;
+            return true;
+        }
+
+        /**
+         * Skip whitespace and consume a character, which must be next.
+         */
+        private void expect(char c) throws IOException {
+            if (!this.next(c)) { throw new IOException("Expected '" + c + "' at " + this.position + "."); }
+        }
+
+        /**
+         * Skip whitespace.
+         *
+         * @return Next character, or 0 at the end of the text.
+         */
+        private char peek() {
+            this.skipWhitespace();
+            return this.position < this.text.length() ? this.text.charAt(this.position) : 0;
+        }
+
+        /**
+         * Move past any whitespace.
+         */
+        private void skipWhitespace() {
+            while (this.position < this.text.length() && Character.isWhitespace(this.text.charAt(this.position))) {
+                this.position++;
+            }
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package pine.level;
+
+import org.lwjgl.system.MemoryUtil;
+import pine.ecs.ComponentStorage;
+import pine.ecs.World;
+import pine.renderer.Sprite;
+import pine.renderer.Texture;
+import pine.renderer.Tilemap;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Loads level files written by {@link LevelWriter}. The file is read into native memory in one bulk read and closed,
+ * and each column of each table is copied straight from that buffer into the matching engine array in one bulk copy,
+ * so no per-entity parsing or allocation takes place; the only objects created are one per texture and one per
+ * distinct sprite. Loading is bound by the speed of reading and copying memory.
+ * <p>
+ * The file is not mapped: a mapping stays open until it is garbage collected, and on Windows a file with an open
+ * mapping cannot be replaced, so saving over the level that was just loaded would fail.
+ */
+public class LevelLoader {
+    /**
+     * Level read back from a file.
+     *
+     * @param tilemap  Tilemap of the level, or null if it has none.
+     * @param textures Every texture the level uses, as returned by the texture function; the caller releases them.
+     */
+    public record Result(Tilemap tilemap, List<Texture> textures) { }
+
+    /**
+     * Create a new level loader - not to be used.
+     */
+    private LevelLoader() { }
+
+    /**
+     * Load a level file into a world, replacing all its entities.
+     *
+     * @param filePath Location of the level file.
+     * @param world    World to load the entities into; cleared first, its systems are kept.
+     * @param textures Function getting a texture from its file path, such as {@code AssetPool::texture}.
+     * @param release  Function giving back a texture obtained from the texture function, such as
+     *                 {@code AssetPool::release}; called for every texture obtained if the level is invalid.
+     * @return Tilemap and textures of the level.
+     * @throws IOException If the file could not be read or is not a valid level file; the world is left empty.
+     */
+    public static Result load(Path filePath, World world, Function<String, Texture> textures, Consumer<Texture> release)
+        throws IOException {
+        final ByteBuffer data = LevelLoader.readFile(filePath);
+        List<Texture> textureTable = new ArrayList<>();
+
+        world.clear();
+
+        try {
+            return LevelLoader.read(data, world, textures, textureTable);
+        }
+
+        catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException |
+               NegativeArraySizeException e) {
+            world.clear();
+            textureTable.forEach(release);
+            throw new IOException("Level '" + filePath + "' is truncated or corrupt.", e);
+        }
+
+        catch (IOException e) {
+            world.clear();
+            textureTable.forEach(release);
+            throw new IOException("Level '" + filePath + "' is invalid: " + e.getMessage(), e);
+        }
+
+        finally {
+            MemoryUtil.memFree(data);
+        }
+    }
+
+    /**
+     * Read a whole level file into native memory, closing the file before returning.
+     *
+     * @return Contents of the file; freed by the caller with {@link MemoryUtil#memFree}.
+     */
+    private static ByteBuffer readFile(Path filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < LevelWriter.HEADER_BYTES) { throw new IOException("'" + filePath + "' is not a level file."); }
+            if (size > Integer.MAX_VALUE) { throw new IOException("Level '" + filePath + "' is larger than 2 GiB."); }
+
+            ByteBuffer data = MemoryUtil.memAlloc((int) size).order(ByteOrder.LITTLE_ENDIAN);
+
+            try {
+                while (data.hasRemaining()) {
+                    if (channel.read(data) < 0) { throw new IOException("Level '" + filePath + "' is truncated."); }
+                }
+            }
+
+            catch (IOException e) {
+                MemoryUtil.memFree(data);
+                throw e;
+            }
+
+            return data.flip();
+        }
+    }
+
+    /**
+     * Read every section of a level file, adding each texture obtained to the texture table as it is obtained.
+     */
+    private static Result read(
+        ByteBuffer data, World world, Function<String, Texture> textures, List<Texture> textureTable
+    ) throws IOException {
+        if (data.remaining() < LevelWriter.HEADER_BYTES || data.getInt() != LevelWriter.MAGIC) {
+            throw new IOException("not a level file");
+        }
+
+        final int version = data.getInt();
+        if (version != LevelWriter.VERSION) { throw new IOException("unsupported version '" + version + "'"); }
+
+        final int sectionCount = data.getInt();
+        data.getInt();
+
+        Sprite[] sprites = new Sprite[0];
+        Tilemap tilemap = null;
+        int idCount = -1;
+
+        for (int i = 0; i < sectionCount; i++) {
+            final int id = data.getInt();
+            data.getInt();
+            final long length = data.getLong();
+
+            if (length < 0L || length > data.remaining()) { throw new IOException("section " + id + " is truncated"); }
+
+            // Each section is read from its own view, so a reader can neither run past the section nor skip padding.
+            final int start = data.position();
+            ByteBuffer section = data.slice(start, (int) length).order(ByteOrder.LITTLE_ENDIAN);
+            data.position(Math.min(data.limit(), start + (int) ((length + Long.BYTES - 1) & -Long.BYTES)));
+
+            switch (id) {
+                case LevelWriter.IDS -> idCount = LevelLoader.readIDs(section, world);
+                case LevelWriter.TEXTURES -> LevelLoader.readTextures(section, textures, textureTable);
+                case LevelWriter.SPRITES -> sprites = LevelLoader.readSprites(section, textureTable);
+                case LevelWriter.TRANSFORMS -> {
+                    final int count = LevelLoader.readEntities(section, world.transforms, idCount);
+                    LevelLoader.readFloats(section, world.transforms.x, count);
+                    LevelLoader.readFloats(section, world.transforms.y, count);
+                    LevelLoader.readFloats(section, world.transforms.width, count);
+                    LevelLoader.readFloats(section, world.transforms.height, count);
+                }
+
+                case LevelWriter.VELOCITIES -> {
+                    final int count = LevelLoader.readEntities(section, world.velocities, idCount);
+                    LevelLoader.readFloats(section, world.velocities.x, count);
+                    LevelLoader.readFloats(section, world.velocities.y, count);
+                }
+
+                case LevelWriter.SPRITE_COMPONENTS ->
+                    LevelLoader.readSpriteComponents(section, world, sprites, idCount);
+                case LevelWriter.TILEMAP -> tilemap = LevelLoader.readTilemap(section, textureTable);
+                default -> { }
+            }
+        }
+
+        if (idCount < 0) { throw new IOException("missing entity IDs"); }
+        return new Result(tilemap, textureTable);
+    }
+
+    /**
+     * Read the ID allocator into the world.
+     *
+     * @return Number of entity IDs handed out.
+     */
+    private static int readIDs(ByteBuffer section, World world) throws IOException {
+        final int idCount = section.getInt();
+        final int free = section.getInt();
+        if (idCount < 0 || free < 0 || free > idCount) { throw new IOException("invalid entity IDs"); }
+
+        if (!world.loadIDs(idCount, section.asIntBuffer().limit(free))) {
+            throw new IOException("free entity ID out of range or repeated");
+        }
+
+        return idCount;
+    }
+
+    /**
+     * Read the texture string table, getting each texture through the texture function.
+     */
+    private static void readTextures(ByteBuffer section, Function<String, Texture> textures, List<Texture> table)
+        throws IOException {
+        final int count = section.getInt();
+        if (count < 0 || (long) count * Integer.BYTES > section.remaining()) {
+            throw new IOException("invalid textures");
+        }
+
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[section.getInt()];
+            section.get(bytes);
+            table.add(textures.apply(new String(bytes, StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * Read the sprite table, creating one sprite per entry.
+     */
+    private static Sprite[] readSprites(ByteBuffer section, List<Texture> textures) throws IOException {
+        final int count = section.getInt();
+        if (count < 0 || 7L * count * Integer.BYTES > section.remaining()) { throw new IOException("invalid sprites"); }
+
+        IntBuffer ints = section.asIntBuffer();
+        FloatBuffer floats = section.asFloatBuffer();
+        Sprite[] sprites = new Sprite[count];
+
+        for (int i = 0; i < count; i++) {
+            final int texture = ints.get(i);
+
+            sprites[i] = new Sprite(
+                texture < 0 ? null : textures.get(texture), floats.get(count + i), floats.get(2 * count + i),
+                floats.get(3 * count + i), floats.get(4 * count + i), ints.get(5 * count + i), ints.get(6 * count + i)
+            );
+        }
+
+        return sprites;
+    }
+
+    /**
+     * Read the sprite component table: entities, sprite indices resolved through the sprite table, and tints. Sprite
+     * index -1 stands for no sprite.
+     */
+    private static void readSpriteComponents(ByteBuffer section, World world, Sprite[] sprites, int idCount)
+        throws IOException {
+        final int count = LevelLoader.readEntities(section, world.sprites, idCount);
+
+        IntBuffer indices = section.asIntBuffer().limit(count);
+        Sprite[] target = world.sprites.sprite;
+
+        for (int i = 0; i < count; i++) {
+            final int index = indices.get(i);
+            if (index < -1 || index >= sprites.length) { throw new IOException("sprite index out of range"); }
+
+            target[i] = index < 0 ? null : sprites[index];
+        }
+
+        section.position(section.position() + count * Integer.BYTES);
+
+        LevelLoader.readFloats(section, world.sprites.r, count);
+        LevelLoader.readFloats(section, world.sprites.g, count);
+        LevelLoader.readFloats(section, world.sprites.b, count);
+        LevelLoader.readFloats(section, world.sprites.a, count);
+    }
+
+    /**
+     * Read a tilemap: its header, the texture coordinates of each tile ID and every tile.
+     */
+    private static Tilemap readTilemap(ByteBuffer section, List<Texture> textures) throws IOException {
+        final int width = section.getInt();
+        final int height = section.getInt();
+        final int chunkSize = section.getInt();
+        final float tileSize = section.getFloat();
+        final int texture = section.getInt();
+        final int uvCount = section.getInt();
+
+        if (width <= 0 || height <= 0 || chunkSize <= 0 || uvCount < 4 || uvCount % 4 != 0 ||
+            (long) width * height * Short.BYTES > section.remaining()) {
+            throw new IOException("invalid tilemap");
+        }
+
+        float[] uvs = new float[uvCount];
+        LevelLoader.readFloats(section, uvs, uvCount);
+
+        Tilemap tilemap = new Tilemap(
+            texture < 0 ? null : textures.get(texture), uvs, width, height, tileSize, chunkSize
+        );
+        tilemap.loadTiles(section.asShortBuffer());
+
+        return tilemap;
+    }
+
+    /**
+     * Read the count and entity column of a table into a storage, growing its arrays to fit.
+     *
+     * @return Number of components in the table.
+     */
+    private static int readEntities(ByteBuffer section, ComponentStorage storage, int idCount) throws IOException {
+        if (idCount < 0) { throw new IOException("components before entity IDs"); }
+
+        final int count = section.getInt();
+        if (!storage.loadEntities(section.asIntBuffer().limit(count), idCount)) {
+            throw new IOException("entity ID out of range or repeated");
+        }
+
+        section.position(section.position() + count * Integer.BYTES);
+
+        return count;
+    }
+
+    /**
+     * Copy a column of floats from a section into an array in bulk.
+     */
+    private static void readFloats(ByteBuffer section, float[] target, int count) {
+        section.asFloatBuffer().get(target, 0, count);
+        section.position(section.position() + count * Float.BYTES);
+    }
+}
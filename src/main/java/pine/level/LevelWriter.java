@@ -0,0 +1,415 @@
+package pine.level;
+
+import pine.ecs.ComponentStorage;
+import pine.ecs.World;
+import pine.renderer.Sprite;
+import pine.renderer.Texture;
+import pine.renderer.Tilemap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a world, and optionally a tilemap, to a binary level file that {@link LevelLoader} maps back into memory.
+ * <p>
+ * The file is little-endian: a header of the magic number, version and section count, followed by sections that each
+ * start with their ID, their payload length in bytes and padding to 8 bytes. Every table in a section is stored as
+ * structure-of-arrays, one column after the other in the layout of the engine's own arrays, so the loader copies each
+ * column in bulk instead of parsing objects. Textures are stored once in a string table and sprites once in a sprite
+ * table, and sprite components refer to them by index, or -1 for no sprite. Loaders skip sections they do not know.
+ */
+public class LevelWriter {
+    public static final int MAGIC = 0x4C56504C;
+    public static final int VERSION = 1;
+
+    public static final int IDS = 1;
+    public static final int TEXTURES = 2;
+    public static final int SPRITES = 3;
+    public static final int TRANSFORMS = 4;
+    public static final int VELOCITIES = 5;
+    public static final int SPRITE_COMPONENTS = 6;
+    public static final int TILEMAP = 7;
+
+    static final int HEADER_BYTES = 4 * Integer.BYTES;
+    static final int SECTION_HEADER_BYTES = 2 * Long.BYTES;
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private int sectionCount;
+
+    /**
+     * Create a new writer over an open channel.
+     */
+    private LevelWriter(FileChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Write a level file, replacing the file only once it has been written in full.
+     *
+     * @param filePath Location of the level file.
+     * @param world    World whose entities are saved.
+     * @param tilemap  Tilemap to save, or null for none.
+     * @throws IOException If the file could not be written.
+     */
+    public static void write(Path filePath, World world, Tilemap tilemap) throws IOException {
+        Path parent = filePath.toAbsolutePath().getParent();
+        if (parent != null) { Files.createDirectories(parent); }
+
+        // Textures and sprites are stored once each, in the order they are first used.
+        Map<String, Integer> textures = new LinkedHashMap<>();
+        Map<Sprite, Integer> spriteIndices = new IdentityHashMap<>();
+        List<Sprite> sprites = new ArrayList<>();
+
+        for (int i = 0; i < world.sprites.size(); i++) {
+            Sprite sprite = world.sprites.sprite[i];
+            if (sprite == null) { continue; }
+
+            if (spriteIndices.putIfAbsent(sprite, sprites.size()) == null) {
+                sprites.add(sprite);
+                LevelWriter.textureIndex(textures, sprite.texture());
+            }
+        }
+
+        if (tilemap != null) { LevelWriter.textureIndex(textures, tilemap.texture()); }
+
+        Path temporary = filePath.resolveSibling(filePath.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(
+            temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
+        )) {
+            LevelWriter writer = new LevelWriter(channel);
+
+            writer.putInt(MAGIC);
+            writer.putInt(VERSION);
+            writer.putInt(0);
+            writer.putInt(0);
+
+            writer.writeIDs(world);
+            writer.writeTextures(textures);
+            writer.writeSprites(sprites, textures);
+            writer.writeTransforms(world);
+            writer.writeVelocities(world);
+            writer.writeSpriteComponents(world, spriteIndices);
+            if (tilemap != null) { writer.writeTilemap(tilemap, textures); }
+
+            writer.flush();
+            writer.writeSectionCount();
+        }
+
+        Files.move(temporary, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Fill in the section count of the header with the number of sections written, once they have all been flushed.
+     */
+    private void writeSectionCount() throws IOException {
+        ByteBuffer count = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        count.putInt(this.sectionCount).flip();
+
+        while (count.hasRemaining()) { this.channel.write(count, 2L * Integer.BYTES + count.position()); }
+    }
+
+    /**
+     * Write the ID allocator: the ID count followed by the free IDs.
+     */
+    private void writeIDs(World world) throws IOException {
+        final int free = world.freeCount();
+        this.section(IDS, 2L * Integer.BYTES + (long) free * Integer.BYTES);
+
+        this.putInt(world.idCount());
+        this.putInt(free);
+
+        int[] ids = new int[free];
+        world.copyFreeIDs(IntBuffer.wrap(ids));
+        this.putInts(ids, free);
+        this.pad();
+    }
+
+    /**
+     * Write the texture string table: the count, then each path as its UTF-8 length and bytes.
+     */
+    private void writeTextures(Map<String, Integer> textures) throws IOException {
+        List<byte[]> paths = new ArrayList<>(textures.size());
+        long length = Integer.BYTES;
+
+        for (String path : textures.keySet()) {
+            byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+            paths.add(bytes);
+            length += Integer.BYTES + bytes.length;
+        }
+
+        this.section(TEXTURES, length);
+        this.putInt(paths.size());
+
+        for (byte[] bytes : paths) {
+            this.putInt(bytes.length);
+            this.putBytes(bytes);
+        }
+
+        this.pad();
+    }
+
+    /**
+     * Write the sprite table: the count, then columns of texture index, texture coordinates and size.
+     */
+    private void writeSprites(List<Sprite> sprites, Map<String, Integer> textures) throws IOException {
+        final int count = sprites.size();
+        this.section(SPRITES, Integer.BYTES + 7L * count * Integer.BYTES);
+        this.putInt(count);
+
+        int[] textureIndices = new int[count], widths = new int[count], heights = new int[count];
+        float[] u0 = new float[count], v0 = new float[count], u1 = new float[count], v1 = new float[count];
+
+        for (int i = 0; i < count; i++) {
+            Sprite sprite = sprites.get(i);
+
+            textureIndices[i] = LevelWriter.textureIndex(textures, sprite.texture());
+            u0[i] = sprite.u0();
+            v0[i] = sprite.v0();
+            u1[i] = sprite.u1();
+            v1[i] = sprite.v1();
+            widths[i] = sprite.width();
+            heights[i] = sprite.height();
+        }
+
+        this.putInts(textureIndices, count);
+        this.putFloats(u0, count);
+        this.putFloats(v0, count);
+        this.putFloats(u1, count);
+        this.putFloats(v1, count);
+        this.putInts(widths, count);
+        this.putInts(heights, count);
+        this.pad();
+    }
+
+    /**
+     * Write the transform table: the count, then columns of entity, x, y, width and height.
+     */
+    private void writeTransforms(World world) throws IOException {
+        final int count = world.transforms.size();
+        this.section(TRANSFORMS, Integer.BYTES + 5L * count * Integer.BYTES);
+        this.putInt(count);
+
+        this.putEntities(world.transforms);
+        this.putFloats(world.transforms.x, count);
+        this.putFloats(world.transforms.y, count);
+        this.putFloats(world.transforms.width, count);
+        this.putFloats(world.transforms.height, count);
+        this.pad();
+    }
+
+    /**
+     * Write the velocity table: the count, then columns of entity, x and y.
+     */
+    private void writeVelocities(World world) throws IOException {
+        final int count = world.velocities.size();
+        this.section(VELOCITIES, Integer.BYTES + 3L * count * Integer.BYTES);
+        this.putInt(count);
+
+        this.putEntities(world.velocities);
+        this.putFloats(world.velocities.x, count);
+        this.putFloats(world.velocities.y, count);
+        this.pad();
+    }
+
+    /**
+     * Write the sprite component table: the count, then columns of entity, sprite index and tint. Components without
+     * a sprite have sprite index -1.
+     */
+    private void writeSpriteComponents(World world, Map<Sprite, Integer> spriteIndices) throws IOException {
+        final int count = world.sprites.size();
+        this.section(SPRITE_COMPONENTS, Integer.BYTES + 6L * count * Integer.BYTES);
+        this.putInt(count);
+
+        int[] indices = new int[count];
+        for (int i = 0; i < count; i++) {
+            Sprite sprite = world.sprites.sprite[i];
+            indices[i] = sprite == null ? -1 : spriteIndices.get(sprite);
+        }
+
+        this.putEntities(world.sprites);
+        this.putInts(indices, count);
+        this.putFloats(world.sprites.r, count);
+        this.putFloats(world.sprites.g, count);
+        this.putFloats(world.sprites.b, count);
+        this.putFloats(world.sprites.a, count);
+        this.pad();
+    }
+
+    /**
+     * Write the tilemap: its size, chunk size, tile size and texture index, the texture coordinates of each tile ID,
+     * and then every tile.
+     */
+    private void writeTilemap(Tilemap tilemap, Map<String, Integer> textures) throws IOException {
+        final int uvCount = tilemap.tileTypes() * 4;
+        final int tileCount = tilemap.width() * tilemap.height();
+        this.section(TILEMAP, 6L * Integer.BYTES + (long) uvCount * Float.BYTES + (long) tileCount * Short.BYTES);
+
+        this.putInt(tilemap.width());
+        this.putInt(tilemap.height());
+        this.putInt(tilemap.chunkSize());
+        this.putFloat(tilemap.tileSize());
+        this.putInt(LevelWriter.textureIndex(textures, tilemap.texture()));
+        this.putInt(uvCount);
+
+        float[] uvs = new float[uvCount];
+        tilemap.copyTileUVs(FloatBuffer.wrap(uvs));
+        this.putFloats(uvs, uvCount);
+
+        short[] tiles = new short[tileCount];
+        tilemap.copyTiles(ShortBuffer.wrap(tiles));
+
+        for (int i = 0; i < tileCount; ) {
+            this.ensure(Short.BYTES);
+            final int n = Math.min(tileCount - i, this.buffer.remaining() / Short.BYTES);
+
+            this.buffer.asShortBuffer().put(tiles, i, n);
+            this.buffer.position(this.buffer.position() + n * Short.BYTES);
+            i += n;
+        }
+
+        this.pad();
+    }
+
+    /**
+     * Start a section.
+     *
+     * @param id     ID of the section.
+     * @param length Length of the payload in bytes, not counting the padding that follows it.
+     */
+    private void section(int id, long length) throws IOException {
+        this.sectionCount++;
+
+        this.putInt(id);
+        this.putInt(0);
+        this.putLong(length);
+    }
+
+    /**
+     * Write the entity column of a storage.
+     */
+    private void putEntities(ComponentStorage storage) throws IOException {
+        int[] entities = new int[storage.size()];
+        storage.copyEntities(IntBuffer.wrap(entities));
+        this.putInts(entities, entities.length);
+    }
+
+    /**
+     * Write the first values of an int array.
+     */
+    private void putInts(int[] values, int count) throws IOException {
+        for (int i = 0; i < count; ) {
+            this.ensure(Integer.BYTES);
+            final int n = Math.min(count - i, this.buffer.remaining() / Integer.BYTES);
+
+            this.buffer.asIntBuffer().put(values, i, n);
+            this.buffer.position(this.buffer.position() + n * Integer.BYTES);
+            i += n;
+        }
+    }
+
+    /**
+     * Write the first values of a float array.
+     */
+    private void putFloats(float[] values, int count) throws IOException {
+        for (int i = 0; i < count; ) {
+            this.ensure(Float.BYTES);
+            final int n = Math.min(count - i, this.buffer.remaining() / Float.BYTES);
+
+            this.buffer.asFloatBuffer().put(values, i, n);
+            this.buffer.position(this.buffer.position() + n * Float.BYTES);
+            i += n;
+        }
+    }
+
+    /**
+     * Write a byte array.
+     */
+    private void putBytes(byte[] values) throws IOException {
+        for (int i = 0; i < values.length; ) {
+            this.ensure(1);
+            final int n = Math.min(values.length - i, this.buffer.remaining());
+
+            this.buffer.put(values, i, n);
+            i += n;
+        }
+    }
+
+    /**
+     * Write an int.
+     */
+    private void putInt(int value) throws IOException {
+        this.ensure(Integer.BYTES);
+        this.buffer.putInt(value);
+    }
+
+    /**
+     * Write a float.
+     */
+    private void putFloat(float value) throws IOException {
+        this.ensure(Float.BYTES);
+        this.buffer.putFloat(value);
+    }
+
+    /**
+     * Write a long.
+     */
+    private void putLong(long value) throws IOException {
+        this.ensure(Long.BYTES);
+        this.buffer.putLong(value);
+    }
+
+    /**
+     * Pad the file with zeros to the next multiple of 8 bytes, so every section starts aligned.
+     */
+    private void pad() throws IOException {
+        final long position = this.channel.position() + this.buffer.position();
+        final int padding = (int) (-position & (Long.BYTES - 1));
+
+        this.ensure(padding);
+        for (int i = 0; i < padding; i++) { this.buffer.put((byte) 0); }
+    }
+
+    /**
+     * Flush the buffer if it has less room than needed.
+     */
+    private void ensure(int bytes) throws IOException {
+        if (this.buffer.remaining() < bytes) { this.flush(); }
+    }
+
+    /**
+     * Write the buffered bytes to the channel.
+     */
+    private void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) { this.channel.write(this.buffer); }
+        this.buffer.clear();
+    }
+
+    /**
+     * @return Index of a texture in the string table, adding it if it is new, or -1 for no texture.
+     */
+    private static int textureIndex(Map<String, Integer> textures, Texture texture) {
+        if (texture == null) { return -1; }
+        return textures.computeIfAbsent(texture.filePath(), path -> textures.size());
+    }
+}
@@ -0,0 +1,66 @@
+package pine.particles;
+
+/**
+ * Value that changes over the lifetime of a particle, given by keys at normalized ages between 0 and 1 with linear
+ * interpolation between them. The curve is baked into a table of {@link #RESOLUTION} samples when it is created, so
+ * evaluating it for a particle is a single array read.
+ */
+public class Curve {
+    public static final int RESOLUTION = 64;
+
+    final float[] samples;
+
+    /**
+     * Create a new curve from its keys. Before the first key and after the last, the curve holds the key's value.
+     *
+     * @param keys Pairs of normalized age and value, in increasing order of age, e.g. {@code 0F, 1F, 1F, 0F} for a
+     *             value fading from 1 to 0.
+     */
+    public Curve(float... keys) {
+        assert keys.length >= 2 && keys.length % 2 == 0 : "Error (Curve.java): Keys must be pairs of age and value.";
+
+        this.samples = new float[RESOLUTION];
+        int key = 0;
+
+        for (int i = 0; i < RESOLUTION; i++) {
+            final float age = i / (RESOLUTION - 1F);
+            while (key + 2 < keys.length && keys[key + 2] <= age) { key += 2; }
+
+            if (age <= keys[key] || key + 2 >= keys.length) {
+                this.samples[i] = keys[key + 1];
+                continue;
+            }
+
+            final float t = (age - keys[key]) / (keys[key + 2] - keys[key]);
+            this.samples[i] = keys[key + 1] + (keys[key + 3] - keys[key + 1]) * t;
+        }
+    }
+
+    /**
+     * Create a curve holding the same value over the whole lifetime.
+     *
+     * @param value Value of the curve.
+     * @return Constant curve.
+     */
+    public static Curve constant(float value) {
+        return new Curve(0F, value);
+    }
+
+    /**
+     * Evaluate the curve.
+     *
+     * @param age Normalized age, clamped to [0, 1].
+     * @return Value of the nearest sample.
+     */
+    public float sample(float age) {
+        return this.samples[Curve.index(age)];
+    }
+
+    /**
+     * @param age Normalized age.
+     * @return Index of the sample nearest to the age.
+     */
+    static int index(float age) {
+        return (int) (Math.min(Math.max(age, 0F), 1F) * (RESOLUTION - 1) + 0.5F);
+    }
+}
@@ -0,0 +1,132 @@
+package pine.particles;
+
+/**
+ * Emitter of a particle system: where particles are spawned, how many per second, and how they move and look over
+ * their lifetime. Each particle gets a random lifetime, speed and direction within the emitter's ranges when it is
+ * spawned; its size, speed and colour then follow the emitter's curves as it ages. Changes to an emitter apply to
+ * every live particle it spawned.
+ */
+public class Emitter {
+    float x, y, rate, pending;
+    float lifetimeMin, lifetimeMax, speedMin, speedMax, angleMin, angleMax;
+    float gravityX, gravityY;
+    Curve size, speed, red, green, blue, alpha;
+    boolean emitting;
+
+    /**
+     * Create a new emitter at (0, 0), spawning white 1-unit particles in every direction at a speed of 1.
+     *
+     * @param rate        Particles spawned per second.
+     * @param lifetimeMin Shortest lifetime of a particle in seconds.
+     * @param lifetimeMax Longest lifetime of a particle in seconds.
+     */
+    public Emitter(float rate, float lifetimeMin, float lifetimeMax) {
+        assert lifetimeMin > 0F && lifetimeMax >= lifetimeMin : "Error (Emitter.java): Invalid lifetime range.";
+
+        this.rate = rate;
+        this.lifetimeMin = lifetimeMin;
+        this.lifetimeMax = lifetimeMax;
+        this.speedMin = 1F;
+        this.speedMax = 1F;
+        this.angleMin = 0F;
+        this.angleMax = (float) (2D * Math.PI);
+        this.emitting = true;
+
+        this.size = Curve.constant(1F);
+        this.speed = Curve.constant(1F);
+        this.red = Curve.constant(1F);
+        this.green = Curve.constant(1F);
+        this.blue = Curve.constant(1F);
+        this.alpha = Curve.constant(1F);
+    }
+
+    /**
+     * Move the emitter. Particles already spawned are not moved.
+     *
+     * @param x x-coordinate particles are spawned at.
+     * @param y y-coordinate particles are spawned at.
+     */
+    public void setPosition(float x, float y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * @param rate Particles spawned per second.
+     */
+    public void setRate(float rate) { this.rate = rate; }
+
+    /**
+     * @param emitting Whether particles are spawned; live particles keep going either way.
+     */
+    public void setEmitting(boolean emitting) { this.emitting = emitting; }
+
+    /**
+     * Set the initial velocity range of spawned particles.
+     *
+     * @param speedMin Lowest initial speed in units per second.
+     * @param speedMax Highest initial speed in units per second.
+     * @param angleMin Smallest direction in radians, counter-clockwise from the positive x-axis.
+     * @param angleMax Largest direction in radians.
+     */
+    public void setVelocity(float speedMin, float speedMax, float angleMin, float angleMax) {
+        this.speedMin = speedMin;
+        this.speedMax = speedMax;
+        this.angleMin = angleMin;
+        this.angleMax = angleMax;
+    }
+
+    /**
+     * @param x Horizontal acceleration of every particle in units per second squared.
+     * @param y Vertical acceleration of every particle in units per second squared.
+     */
+    public void setGravity(float x, float y) {
+        this.gravityX = x;
+        this.gravityY = y;
+    }
+
+    /**
+     * @param size Width and height of a particle in units over its lifetime.
+     */
+    public void setSize(Curve size) { this.size = size; }
+
+    /**
+     * @param speed Factor the velocity of a particle is scaled by over its lifetime.
+     */
+    public void setSpeed(Curve speed) { this.speed = speed; }
+
+    /**
+     * Set the colour of a particle over its lifetime, each component between 0 and 1.
+     *
+     * @param red   Red component.
+     * @param green Green component.
+     * @param blue  Blue component.
+     * @param alpha Alpha component.
+     */
+    public void setColor(Curve red, Curve green, Curve blue, Curve alpha) {
+        this.red = red;
+        this.green = green;
+        this.blue = blue;
+        this.alpha = alpha;
+    }
+
+    /**
+     * @return x-coordinate particles are spawned at.
+     */
+    public float x() { return this.x; }
+
+    /**
+     * @return y-coordinate particles are spawned at.
+     */
+    public float y() { return this.y; }
+
+    /**
+     * @return Particles spawned per second.
+     */
+    public float rate() { return this.rate; }
+
+    /**
+     * @return Whether particles are spawned.
+     */
+    public boolean emitting() { return this.emitting; }
+}
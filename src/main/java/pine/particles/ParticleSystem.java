@@ -0,0 +1,324 @@
+package pine.particles;
+
+import pine.ecs.EntitySystem;
+import pine.ecs.SystemScheduler;
+import pine.ecs.World;
+import pine.profiling.Profiler;
+import pine.renderer.InstanceBatch;
+import pine.renderer.QuadWriter;
+import pine.renderer.RenderBatch;
+import pine.renderer.Renderer;
+import pine.renderer.Sprite;
+import pine.utils.ComponentType;
+import pine.utils.ProfileCounter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Pool of short-lived particles drawn with one sprite, spawned by any number of emitters. Particles are stored as a
+ * structure of arrays preallocated for the capacity of the pool, one array per field with live particles packed at
+ * the front, so spawning and killing particles never allocates: a dead particle is replaced by the last live one.
+ * <p>
+ * As an update system, the pool spawns particles and then simulates every live particle in fixed-size chunks spread
+ * across the world's scheduler. Each chunk moves and ages its particles, evaluates their size and colour curves, and
+ * records which of its particles died; the dead are then removed on the calling thread. It touches no components, so
+ * it runs alongside any other system. {@link #draw(Renderer)} then writes the particles straight into the renderer's
+ * batches as {@link RenderBatch} vertices or {@link InstanceBatch} instances.
+ */
+public class ParticleSystem implements EntitySystem, QuadWriter {
+    public static final int CHUNK_SIZE = 16384;
+
+    private static final Set<ComponentType> NONE = EnumSet.noneOf(ComponentType.class);
+
+    public final float[] x, y, vx, vy, age, inverseLifetime, size, r, g, b, a;
+
+    private final int capacity;
+    private final int[] emitterOf;
+    private final int[] dead, deadCounts;
+    private final List<Emitter> emitters;
+    private final Sprite sprite;
+    private final SystemScheduler.RangeBody body;
+    private Emitter[] emitterTable;
+    private int count, random;
+    private float dt;
+
+    /**
+     * Create a new particle pool with no emitters.
+     *
+     * @param capacity Largest number of live particles; emitters stop spawning while the pool is full.
+     * @param sprite   Sprite every particle is drawn with.
+     */
+    public ParticleSystem(int capacity, Sprite sprite) {
+        this.capacity = capacity;
+        this.sprite = sprite;
+
+        this.x = new float[capacity];
+        this.y = new float[capacity];
+        this.vx = new float[capacity];
+        this.vy = new float[capacity];
+        this.age = new float[capacity];
+        this.inverseLifetime = new float[capacity];
+        this.size = new float[capacity];
+        this.r = new float[capacity];
+        this.g = new float[capacity];
+        this.b = new float[capacity];
+        this.a = new float[capacity];
+        this.emitterOf = new int[capacity];
+
+        this.dead = new int[capacity];
+        this.deadCounts = new int[(capacity + CHUNK_SIZE - 1) / CHUNK_SIZE];
+        this.emitters = new ArrayList<>();
+        this.emitterTable = new Emitter[0];
+        this.body = this::simulate;
+        this.random = 0x2545F491;
+    }
+
+    /**
+     * Add an emitter to the pool.
+     *
+     * @param emitter Emitter to add.
+     */
+    public void addEmitter(Emitter emitter) {
+        this.emitters.add(emitter);
+        this.emitterTable = this.emitters.toArray(new Emitter[0]);
+    }
+
+    @Override
+    public void update(World world, double deltaTime) {
+        this.update((float) deltaTime, world.scheduler());
+    }
+
+    /**
+     * Spawn the particles each emitter is due, then advance every particle and remove the ones that died.
+     *
+     * @param deltaTime Time to advance by in seconds.
+     * @param scheduler Scheduler to spread the chunks across.
+     */
+    public void update(float deltaTime, SystemScheduler scheduler) {
+        for (int i = 0; i < this.emitterTable.length; i++) {
+            Emitter emitter = this.emitterTable[i];
+            if (!emitter.emitting) { continue; }
+
+            emitter.pending += emitter.rate * deltaTime;
+            final int due = (int) emitter.pending;
+
+            emitter.pending -= due;
+            this.spawn(i, due);
+        }
+
+        this.dt = deltaTime;
+        scheduler.parallelFor(this.chunkCount(), 1, this.body);
+
+        this.removeDead();
+    }
+
+    /**
+     * Spawn a number of particles from an emitter at once, e.g. for an explosion, as many as fit in the pool.
+     *
+     * @param emitter Emitter added to the pool.
+     * @param count   Number of particles.
+     */
+    public void burst(Emitter emitter, int count) {
+        final int index = this.emitters.indexOf(emitter);
+        assert index >= 0 : "Error (ParticleSystem.java): Emitter is not part of the particle system.";
+
+        this.spawn(index, count);
+    }
+
+    /**
+     * Submit every live particle to a renderer, to be drawn on its next render.
+     *
+     * @param renderer Renderer to write the particles into.
+     */
+    public void draw(Renderer renderer) {
+        Profiler.count(ProfileCounter.Particles, this.count);
+        if (this.count > 0) { renderer.drawQuads(this.sprite.texture(), this.count, this); }
+    }
+
+    /**
+     * Kill every live particle.
+     */
+    public void clear() {
+        this.count = 0;
+    }
+
+    @Override
+    public void writeVertices(float[] vertices, int offset, int from, int to) {
+        final float u0 = this.sprite.u0(), v0 = this.sprite.v0(), u1 = this.sprite.u1(), v1 = this.sprite.v1();
+        final int stride = RenderBatch.VERTICES_PER_QUAD * RenderBatch.VERTEX_SIZE;
+
+        for (int i = from; i < to; i++, offset += stride) {
+            final float half = this.size[i] * 0.5F;
+
+            RenderBatch.packQuad(
+                vertices, offset, this.x[i] - half, this.y[i] - half, this.size[i], this.size[i],
+                this.r[i], this.g[i], this.b[i], this.a[i], u0, v0, u1, v1
+            );
+        }
+    }
+
+    @Override
+    public void writeInstances(ByteBuffer buffer, int offset, int textureIndex, int from, int to) {
+        final float u0 = this.sprite.u0(), v0 = this.sprite.v0(), u1 = this.sprite.u1(), v1 = this.sprite.v1();
+
+        for (int i = from; i < to; i++, offset += InstanceBatch.INSTANCE_SIZE_BYTES) {
+            final float half = this.size[i] * 0.5F;
+
+            InstanceBatch.packInstance(
+                buffer, offset, this.x[i] - half, this.y[i] - half, this.size[i], this.size[i],
+                this.r[i], this.g[i], this.b[i], this.a[i], u0, v0, u1, v1, textureIndex
+            );
+        }
+    }
+
+    @Override
+    public Set<ComponentType> reads() { return ParticleSystem.NONE; }
+
+    @Override
+    public Set<ComponentType> writes() { return ParticleSystem.NONE; }
+
+    /**
+     * @return Number of live particles.
+     */
+    public int size() { return this.count; }
+
+    /**
+     * @return Largest number of live particles.
+     */
+    public int capacity() { return this.capacity; }
+
+    /**
+     * Spawn particles at the end of the live range with random lifetimes and velocities.
+     *
+     * @param emitter Index of the emitter.
+     * @param count   Number of particles; clamped to the room left in the pool.
+     */
+    private void spawn(int emitter, int count) {
+        Emitter definition = this.emitterTable[emitter];
+        final int end = Math.min(this.capacity, this.count + count);
+
+        for (int i = this.count; i < end; i++) {
+            final float lifetime = this.lerp(definition.lifetimeMin, definition.lifetimeMax);
+            final float speed = this.lerp(definition.speedMin, definition.speedMax);
+            final float angle = this.lerp(definition.angleMin, definition.angleMax);
+
+            this.x[i] = definition.x;
+            this.y[i] = definition.y;
+            this.vx[i] = (float) Math.cos(angle) * speed;
+            this.vy[i] = (float) Math.sin(angle) * speed;
+            this.age[i] = 0F;
+            this.inverseLifetime[i] = 1F / lifetime;
+            this.emitterOf[i] = emitter;
+
+            // Particles spawned by a burst may be drawn before they are first simulated.
+            this.size[i] = definition.size.samples[0];
+            this.r[i] = definition.red.samples[0];
+            this.g[i] = definition.green.samples[0];
+            this.b[i] = definition.blue.samples[0];
+            this.a[i] = definition.alpha.samples[0];
+        }
+
+        this.count = end;
+    }
+
+    /**
+     * Advance the particles of a range of chunks and record the ones that died. Each chunk only writes its own
+     * particles and its own part of the dead list, so chunks can run concurrently.
+     *
+     * @param from First chunk, inclusive.
+     * @param to   Last chunk, exclusive.
+     */
+    private void simulate(int from, int to) {
+        final float dt = this.dt;
+        final Emitter[] emitters = this.emitterTable;
+        final float[] x = this.x, y = this.y, vx = this.vx, vy = this.vy, age = this.age;
+        final float[] inverseLifetime = this.inverseLifetime, size = this.size;
+        final float[] r = this.r, g = this.g, b = this.b, a = this.a;
+        final int[] emitterOf = this.emitterOf, dead = this.dead;
+
+        for (int chunk = from; chunk < to; chunk++) {
+            final int start = chunk * CHUNK_SIZE;
+            final int end = Math.min(this.count, start + CHUNK_SIZE);
+            int deadCount = 0;
+
+            for (int i = start; i < end; i++) {
+                final float t = (age[i] += dt) * inverseLifetime[i];
+
+                if (t >= 1F) {
+                    dead[start + deadCount++] = i;
+                    continue;
+                }
+
+                Emitter emitter = emitters[emitterOf[i]];
+                final int sample = (int) (t * (Curve.RESOLUTION - 1) + 0.5F);
+                final float speed = emitter.speed.samples[sample] * dt;
+
+                vx[i] += emitter.gravityX * dt;
+                vy[i] += emitter.gravityY * dt;
+                x[i] += vx[i] * speed;
+                y[i] += vy[i] * speed;
+
+                size[i] = emitter.size.samples[sample];
+                r[i] = emitter.red.samples[sample];
+                g[i] = emitter.green.samples[sample];
+                b[i] = emitter.blue.samples[sample];
+                a[i] = emitter.alpha.samples[sample];
+            }
+
+            this.deadCounts[chunk] = deadCount;
+        }
+    }
+
+    /**
+     * Remove the particles that died in the last simulation, moving the last live particle into each hole. Dead
+     * particles are visited from the back, so the particle moved into a hole is always one that is alive.
+     */
+    private void removeDead() {
+        for (int chunk = this.chunkCount() - 1; chunk >= 0; chunk--) {
+            final int start = chunk * CHUNK_SIZE;
+
+            for (int k = this.deadCounts[chunk] - 1; k >= 0; k--) {
+                final int i = this.dead[start + k];
+                final int last = --this.count;
+                if (i == last) { continue; }
+
+                this.x[i] = this.x[last];
+                this.y[i] = this.y[last];
+                this.vx[i] = this.vx[last];
+                this.vy[i] = this.vy[last];
+                this.age[i] = this.age[last];
+                this.inverseLifetime[i] = this.inverseLifetime[last];
+                this.size[i] = this.size[last];
+                this.r[i] = this.r[last];
+                this.g[i] = this.g[last];
+                this.b[i] = this.b[last];
+                this.a[i] = this.a[last];
+                this.emitterOf[i] = this.emitterOf[last];
+            }
+
+            this.deadCounts[chunk] = 0;
+        }
+    }
+
+    /**
+     * @return Number of chunks covering the live particles.
+     */
+    private int chunkCount() {
+        return (this.count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    /**
+     * @return Random value between two bounds, from a xorshift generator.
+     */
+    private float lerp(float min, float max) {
+        this.random ^= this.random << 13;
+        this.random ^= this.random >>> 17;
+        this.random ^= this.random << 5;
+
+        return min + (max - min) * ((this.random >>> 8) * 0x1p-24F);
+    }
+}
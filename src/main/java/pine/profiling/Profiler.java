@@ -0,0 +1,288 @@
+package pine.profiling;
+
+import pine.utils.ProfileCounter;
+import pine.utils.ProfileEvent;
+import pine.utils.ProfileSection;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Per-frame profiler. Sections of the frame are timed with {@link #begin(ProfileSection)} and
+ * {@link #end(ProfileSection)}, the renderer bumps counters with {@link #count(ProfileCounter, long)}, and
+ * {@link #endFrame()} pushes the frame's totals into preallocated rolling buffers. Occasional events such as asset
+ * reloads are timed with {@link #record(ProfileEvent, long)}, one sample per event. Recording never allocates, and
+ * every call returns immediately while the profiler is disabled.
+ * <p>
+ * The profiler is enabled at startup with {@code -Dpine.profile=true}; the number of frames kept is set with
+ * {@code -Dpine.profile.frames}.
+ */
+public class Profiler {
+    public static final int DEFAULT_HISTORY = 1024;
+
+    private static final ProfileSection[] SECTIONS = ProfileSection.values();
+    private static final ProfileCounter[] COUNTERS = ProfileCounter.values();
+    private static final ProfileEvent[] EVENTS = ProfileEvent.values();
+
+    private static boolean enabled = false;
+    private static long[] sectionStart, sectionNanos, counterValues;
+    private static RollingStats[] sectionStats, counterStats, eventStats;
+    private static RollingStats gcStats;
+    private static List<GarbageCollectorMXBean> gcBeans;
+    private static long lastGcMillis, frameCount;
+
+    static {
+        if (Boolean.getBoolean("pine.profile")) {
+            Profiler.enable(Integer.getInteger("pine.profile.frames", Profiler.DEFAULT_HISTORY));
+        }
+    }
+
+    /**
+     * Create a new profiler - not to be used.
+     */
+    private Profiler() { }
+
+    /**
+     * Enable the profiler, allocating the rolling buffers.
+     *
+     * @param history Number of frames kept in the rolling buffers.
+     */
+    public static void enable(int history) {
+        Profiler.sectionStart = new long[SECTIONS.length];
+        Profiler.sectionNanos = new long[SECTIONS.length];
+        Profiler.counterValues = new long[COUNTERS.length];
+
+        Profiler.sectionStats = new RollingStats[SECTIONS.length];
+        for (int i = 0; i < SECTIONS.length; i++) { Profiler.sectionStats[i] = new RollingStats(history); }
+
+        Profiler.counterStats = new RollingStats[COUNTERS.length];
+        for (int i = 0; i < COUNTERS.length; i++) { Profiler.counterStats[i] = new RollingStats(history); }
+
+        Profiler.eventStats = new RollingStats[EVENTS.length];
+        for (int i = 0; i < EVENTS.length; i++) { Profiler.eventStats[i] = new RollingStats(history); }
+
+        Profiler.gcStats = new RollingStats(history);
+        Profiler.gcBeans = ManagementFactory.getGarbageCollectorMXBeans();
+        Profiler.lastGcMillis = Profiler.totalGcMillis();
+        Profiler.frameCount = 0L;
+
+        Profiler.enabled = true;
+    }
+
+    /**
+     * Disable the profiler. Recorded frames are kept until it is enabled again.
+     */
+    public static void disable() {
+        Profiler.enabled = false;
+    }
+
+    /**
+     * @return Whether the profiler is recording.
+     */
+    public static boolean enabled() { return Profiler.enabled; }
+
+    /**
+     * Start timing a section of the frame.
+     *
+     * @param section Section to start timing.
+     */
+    public static void begin(ProfileSection section) {
+        if (!Profiler.enabled) { return; }
+        Profiler.sectionStart[section.ordinal()] = System.nanoTime();
+    }
+
+    /**
+     * Stop timing a section of the frame. A section timed several times in one frame is summed.
+     *
+     * @param section Section to stop timing.
+     */
+    public static void end(ProfileSection section) {
+        if (!Profiler.enabled) { return; }
+
+        final int index = section.ordinal();
+        Profiler.sectionNanos[index] += System.nanoTime() - Profiler.sectionStart[index];
+    }
+
+    /**
+     * Add to a counter for the current frame.
+     *
+     * @param counter Counter to add to.
+     * @param amount  Amount to add.
+     */
+    public static void count(ProfileCounter counter, long amount) {
+        if (!Profiler.enabled) { return; }
+        Profiler.counterValues[counter.ordinal()] += amount;
+    }
+
+    /**
+     * Record how long an occasional event took. Unlike sections and counters, events are not tied to frames; each call
+     * adds one sample.
+     *
+     * @param event    Event that happened.
+     * @param duration Duration of the event in nanoseconds.
+     */
+    public static void record(ProfileEvent event, long duration) {
+        if (!Profiler.enabled) { return; }
+        Profiler.eventStats[event.ordinal()].record(duration);
+    }
+
+    /**
+     * Push the current frame's section times, counters and garbage collection time into the rolling buffers and reset
+     * them for the next frame.
+     */
+    public static void endFrame() {
+        if (!Profiler.enabled) { return; }
+
+        for (int i = 0; i < SECTIONS.length; i++) {
+            Profiler.sectionStats[i].record(Profiler.sectionNanos[i]);
+            Profiler.sectionNanos[i] = 0L;
+        }
+
+        for (int i = 0; i < COUNTERS.length; i++) {
+            Profiler.counterStats[i].record(Profiler.counterValues[i]);
+            Profiler.counterValues[i] = 0L;
+        }
+
+        final long gcMillis = Profiler.totalGcMillis();
+        Profiler.gcStats.record((gcMillis - Profiler.lastGcMillis) * 1_000_000L);
+        Profiler.lastGcMillis = gcMillis;
+
+        Profiler.frameCount++;
+    }
+
+    /**
+     * @param section Section of the frame.
+     * @return Rolling statistics of the section in nanoseconds.
+     */
+    public static RollingStats stats(ProfileSection section) { return Profiler.sectionStats[section.ordinal()]; }
+
+    /**
+     * @param counter Per-frame counter.
+     * @return Rolling statistics of the counter.
+     */
+    public static RollingStats stats(ProfileCounter counter) { return Profiler.counterStats[counter.ordinal()]; }
+
+    /**
+     * @param event Occasional event.
+     * @return Rolling statistics of the event's durations in nanoseconds, one sample per event.
+     */
+    public static RollingStats stats(ProfileEvent event) { return Profiler.eventStats[event.ordinal()]; }
+
+    /**
+     * @return Rolling statistics of the garbage collection time per frame in nanoseconds.
+     */
+    public static RollingStats gcStats() { return Profiler.gcStats; }
+
+    /**
+     * @return Number of frames recorded since the profiler was enabled.
+     */
+    public static long frameCount() { return Profiler.frameCount; }
+
+    /**
+     * Write the recorded frames to "frames.csv" and a p50/p99/max summary of the frames and events to "summary.json"
+     * in a directory.
+     *
+     * @param directory Directory to write the files to; created if it does not exist.
+     * @throws IOException If the files could not be written.
+     */
+    public static void dump(Path directory) throws IOException {
+        if (Profiler.sectionStats == null) { return; }
+
+        Files.createDirectories(directory);
+
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(directory.resolve("frames.csv")))) {
+            StringBuilder header = new StringBuilder("frame");
+            for (ProfileSection section : SECTIONS) { header.append(',').append(section).append("Ms"); }
+            header.append(",GcMs");
+            for (ProfileCounter counter : COUNTERS) { header.append(',').append(counter); }
+            writer.println(header);
+
+            final int frames = Profiler.gcStats.count();
+            final long firstFrame = Profiler.frameCount - frames;
+
+            for (int frame = 0; frame < frames; frame++) {
+                StringBuilder row = new StringBuilder().append(firstFrame + frame);
+                for (RollingStats stats : Profiler.sectionStats) {
+                    row.append(',').append(Profiler.millis(stats.get(frame)));
+                }
+
+                row.append(',').append(Profiler.millis(Profiler.gcStats.get(frame)));
+                for (RollingStats stats : Profiler.counterStats) { row.append(',').append(stats.get(frame)); }
+
+                writer.println(row);
+            }
+        }
+
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(directory.resolve("summary.json")))) {
+            writer.println("{");
+            writer.printf("  \"frames\": %d,%n", Profiler.frameCount);
+
+            for (ProfileSection section : SECTIONS) {
+                writer.printf("  %s,%n", Profiler.summary(section + "Ms", Profiler.stats(section), true));
+            }
+            writer.printf("  %s,%n", Profiler.summary("GcMs", Profiler.gcStats, true));
+
+            for (ProfileEvent event : EVENTS) {
+                writer.printf("  %s,%n", Profiler.summary(event + "Ms", Profiler.stats(event), true));
+                writer.printf("  \"%sCount\": %d,%n", event, Profiler.stats(event).count());
+            }
+
+            for (int i = 0; i < COUNTERS.length; i++) {
+                String member = Profiler.summary(COUNTERS[i].toString(), Profiler.counterStats[i], false);
+                writer.printf("  %s%s%n", member, i == COUNTERS.length - 1 ? "" : ",");
+            }
+
+            writer.println("}");
+        }
+    }
+
+    /**
+     * Format the p50/p99/max summary of a rolling buffer as a JSON member.
+     *
+     * @param name   Name of the member.
+     * @param stats  Rolling buffer to summarise.
+     * @param nanos  Whether the samples are in nanoseconds and should be written in milliseconds.
+     * @return JSON member.
+     */
+    private static String summary(String name, RollingStats stats, boolean nanos) {
+        if (nanos) {
+            return String.format(
+                Locale.ROOT, "\"%s\": { \"p50\": %s, \"p99\": %s, \"max\": %s }", name,
+                Profiler.millis(stats.percentile(50D)), Profiler.millis(stats.percentile(99D)),
+                Profiler.millis(stats.max())
+            );
+        }
+
+        return String.format(
+            Locale.ROOT, "\"%s\": { \"p50\": %d, \"p99\": %d, \"max\": %d }", name,
+            stats.percentile(50D), stats.percentile(99D), stats.max()
+        );
+    }
+
+    /**
+     * @return Nanoseconds formatted as milliseconds.
+     */
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.4f", nanos * 1E-6);
+    }
+
+    /**
+     * @return Total time spent in garbage collection since the JVM started, in milliseconds.
+     */
+    private static long totalGcMillis() {
+        long total = 0L;
+
+        for (int i = 0; i < Profiler.gcBeans.size(); i++) {
+            final long time = Profiler.gcBeans.get(i).getCollectionTime();
+            if (time > 0L) { total += time; }
+        }
+
+        return total;
+    }
+}
@@ -0,0 +1,99 @@
+package pine.profiling;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size ring buffer of samples with percentile queries. All storage is allocated up front, so recording never
+ * allocates.
+ */
+public class RollingStats {
+    private final long[] samples;
+    private final long[] sorted;
+    private int head, count;
+
+    /**
+     * Create a new ring buffer.
+     *
+     * @param capacity Maximum number of samples kept; older samples are overwritten.
+     */
+    public RollingStats(int capacity) {
+        this.samples = new long[capacity];
+        this.sorted = new long[capacity];
+        this.head = 0;
+        this.count = 0;
+    }
+
+    /**
+     * Record a sample, overwriting the oldest one if the buffer is full.
+     *
+     * @param sample Sample to record.
+     */
+    public void record(long sample) {
+        this.samples[this.head] = sample;
+        this.head = (this.head + 1) % this.samples.length;
+
+        if (this.count < this.samples.length) { this.count++; }
+    }
+
+    /**
+     * Compute a percentile of the samples currently in the buffer using the nearest-rank method.
+     *
+     * @param percentile Percentile in the range [0, 100].
+     * @return Value of the percentile, or zero if there are no samples.
+     */
+    public long percentile(double percentile) {
+        if (this.count == 0) { return 0L; }
+
+        System.arraycopy(this.samples, 0, this.sorted, 0, this.count);
+        Arrays.sort(this.sorted, 0, this.count);
+
+        int rank = (int) Math.ceil(percentile / 100D * this.count) - 1;
+        return this.sorted[Math.max(0, Math.min(rank, this.count - 1))];
+    }
+
+    /**
+     * @return Largest sample currently in the buffer, or zero if there are no samples.
+     */
+    public long max() {
+        long max = 0L;
+        for (int i = 0; i < this.count; i++) { max = Math.max(max, this.samples[i]); }
+
+        return max;
+    }
+
+    /**
+     * @return Mean of the samples currently in the buffer, or zero if there are no samples.
+     */
+    public double mean() {
+        if (this.count == 0) { return 0D; }
+
+        long sum = 0L;
+        for (int i = 0; i < this.count; i++) { sum += this.samples[i]; }
+
+        return (double) sum / this.count;
+    }
+
+    /**
+     * Get a sample by age.
+     *
+     * @param index Index of the sample, from zero (oldest) to {@link #count()} - 1 (newest).
+     * @return Sample at the index.
+     */
+    public long get(int index) {
+        int start = (this.head - this.count + this.samples.length) % this.samples.length;
+        return this.samples[(start + index) % this.samples.length];
+    }
+
+    /**
+     * @return Number of samples currently in the buffer.
+     */
+    public int count() { return this.count; }
+
+    /**
+     * Remove every sample.
+     */
+    public void clear() {
+        this.head = 0;
+        this.count = 0;
+    }
+}
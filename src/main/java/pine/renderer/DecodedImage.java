@@ -0,0 +1,58 @@
+package pine.renderer;
+
+import org.lwjgl.stb.STBImage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Image decoded by stb_image into off-heap memory, waiting to be uploaded into a texture.
+ */
+public class DecodedImage {
+    private final int width, height, channels;
+    private ByteBuffer pixels;
+
+    /**
+     * Create a new decoded image that takes ownership of the stb_image pixel buffer.
+     *
+     * @param width    Width of the image in pixels.
+     * @param height   Height of the image in pixels.
+     * @param channels Number of channels per pixel.
+     * @param pixels   Pixel data allocated by stb_image, bottom row first.
+     */
+    public DecodedImage(int width, int height, int channels, ByteBuffer pixels) {
+        this.width = width;
+        this.height = height;
+        this.channels = channels;
+        this.pixels = pixels;
+    }
+
+    /**
+     * @return Width of the image in pixels.
+     */
+    public int width() { return this.width; }
+
+    /**
+     * @return Height of the image in pixels.
+     */
+    public int height() { return this.height; }
+
+    /**
+     * @return Number of channels per pixel.
+     */
+    public int channels() { return this.channels; }
+
+    /**
+     * @return Pixel data, bottom row first; null once the image has been freed.
+     */
+    public ByteBuffer pixels() { return this.pixels; }
+
+    /**
+     * Release the pixel buffer back to stb_image. Safe to call more than once.
+     */
+    public void free() {
+        if (this.pixels != null) {
+            STBImage.stbi_image_free(this.pixels);
+            this.pixels = null;
+        }
+    }
+}
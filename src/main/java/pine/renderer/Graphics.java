@@ -0,0 +1,28 @@
+package pine.renderer;
+
+/**
+ * Holder of the graphics backend every renderer class draws through. Defaults to OpenGL; headless runs switch to a
+ * {@link RecordingBackend} before creating any graphics objects.
+ */
+public class Graphics {
+    private static GraphicsBackend backend = new OpenGLBackend();
+
+    /**
+     * Create a new graphics holder - not to be used.
+     */
+    private Graphics() { }
+
+    /**
+     * @return Backend the renderer draws through.
+     */
+    public static GraphicsBackend backend() { return Graphics.backend; }
+
+    /**
+     * Replace the backend. Objects created through the previous backend must not be used afterwards.
+     *
+     * @param backend New backend.
+     */
+    public static void setBackend(GraphicsBackend backend) {
+        Graphics.backend = backend;
+    }
+}
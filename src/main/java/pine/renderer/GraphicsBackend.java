@@ -0,0 +1,163 @@
+package pine.renderer;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * The OpenGL calls the engine makes, behind an interface so that they can be recorded or skipped when there is no
+ * display. Each method matches the OpenGL function of the same name without its "gl" prefix and takes the same
+ * arguments and constants, apart from the capability queries at the end.
+ */
+public interface GraphicsBackend {
+    // Textures.
+
+    int genTextures();
+
+    void bindTexture(int target, int texture);
+
+    void deleteTextures(int texture);
+
+    void activeTexture(int unit);
+
+    void texParameteri(int target, int name, int value);
+
+    void pixelStorei(int name, int value);
+
+    void texImage2D(
+        int target, int level, int internalFormat, int width, int height, int border, int format, int type,
+        ByteBuffer pixels
+    );
+
+    // Buffers and vertex arrays.
+
+    int genBuffers();
+
+    void bindBuffer(int target, int buffer);
+
+    void bufferData(int target, long size, int usage);
+
+    void bufferData(int target, FloatBuffer data, int usage);
+
+    void bufferData(int target, IntBuffer data, int usage);
+
+    void bufferSubData(int target, long offset, FloatBuffer data);
+
+    void bufferSubData(int target, long offset, ByteBuffer data);
+
+    void bufferStorage(int target, long size, int flags);
+
+    ByteBuffer mapBufferRange(int target, long offset, long length, int access);
+
+    boolean unmapBuffer(int target);
+
+    void deleteBuffers(int buffer);
+
+    int genVertexArrays();
+
+    void bindVertexArray(int array);
+
+    void deleteVertexArrays(int array);
+
+    void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long pointer);
+
+    void enableVertexAttribArray(int index);
+
+    void vertexAttribDivisor(int index, int divisor);
+
+    // Drawing.
+
+    void clearColor(float r, float g, float b, float a);
+
+    void clear(int mask);
+
+    void enable(int capability);
+
+    void disable(int capability);
+
+    void blendFunc(int source, int destination);
+
+    void drawElements(int mode, int count, int type, long indices);
+
+    void drawElementsInstanced(int mode, int count, int type, long indices, int instanceCount);
+
+    // Synchronisation.
+
+    long fenceSync(int condition, int flags);
+
+    int clientWaitSync(long sync, int flags, long timeout);
+
+    void deleteSync(long sync);
+
+    // Shaders.
+
+    int createShader(int type);
+
+    void shaderSource(int shader, CharSequence source);
+
+    void compileShader(int shader);
+
+    int getShaderi(int shader, int name);
+
+    String getShaderInfoLog(int shader, int maxLength);
+
+    void deleteShader(int shader);
+
+    int createProgram();
+
+    void attachShader(int program, int shader);
+
+    void linkProgram(int program);
+
+    int getProgrami(int program, int name);
+
+    String getProgramInfoLog(int program, int maxLength);
+
+    void programParameteri(int program, int name, int value);
+
+    void getProgramBinary(int program, IntBuffer length, IntBuffer binaryFormat, ByteBuffer binary);
+
+    void programBinary(int program, int binaryFormat, ByteBuffer binary);
+
+    String getActiveUniform(int program, int index, IntBuffer size, IntBuffer type);
+
+    int getUniformLocation(int program, CharSequence name);
+
+    void useProgram(int program);
+
+    void deleteProgram(int program);
+
+    void uniform1i(int location, int value);
+
+    void uniform1iv(int location, int[] values);
+
+    void uniform1f(int location, float value);
+
+    void uniform2f(int location, float x, float y);
+
+    void uniform3f(int location, float x, float y, float z);
+
+    void uniform4f(int location, float x, float y, float z, float w);
+
+    void uniformMatrix3fv(int location, boolean transpose, float[] values);
+
+    void uniformMatrix4fv(int location, boolean transpose, float[] values);
+
+    // Queries.
+
+    String getString(int name);
+
+    // Capabilities.
+
+    /**
+     * @return Whether buffers can be given immutable storage and mapped persistently, through OpenGL 4.4 or
+     * GL_ARB_buffer_storage.
+     */
+    boolean bufferStorageSupported();
+
+    /**
+     * @return Whether linked programs can be saved and reloaded as binaries, through OpenGL 4.1 or
+     * GL_ARB_get_program_binary, with at least one binary format.
+     */
+    boolean programBinarySupported();
+}
@@ -0,0 +1,372 @@
+package pine.renderer;
+
+import org.lwjgl.stb.STBImage;
+import org.lwjgl.system.MemoryUtil;
+import pine.profiling.Profiler;
+import pine.profiling.RollingStats;
+import pine.utils.AssetPool;
+import pine.utils.ProfileEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Hot reloader singleton for pooled shaders and textures. A watcher thread follows the watched directories and
+ * collects changed files until none has changed for the debounce period, so that an editor saving several files at
+ * once causes a single reload. Each frame, {@link #update()} hands the shaders and textures affected by the changes to
+ * a worker thread, which preprocesses the shader files or decodes the images; the results are then swapped in on the
+ * render thread between frames. A shader that fails to compile or link keeps its last good program.
+ */
+public class HotReloader {
+    public static final long DEFAULT_DEBOUNCE_NANOS = 100_000_000L;
+
+    private static HotReloader instance;
+    private final ConcurrentLinkedQueue<Batch> batches;
+    private final ConcurrentLinkedQueue<ShaderReload> shaders;
+    private final ConcurrentLinkedQueue<TextureReload> textures;
+    private final Map<WatchKey, Path> directories;
+    private final RollingStats latency;
+    private long reloadCount, failureCount;
+    private WatchService watchService;
+    private Thread watcher;
+    private ExecutorService worker;
+
+    /**
+     * Files changed together, and when the first of them changed.
+     */
+    private record Batch(Set<Path> paths, long eventNanos) { }
+
+    /**
+     * Preprocessed shader sources waiting to be compiled.
+     */
+    private record ShaderReload(Shader shader, ShaderPreprocessor.Result sources, long eventNanos) { }
+
+    /**
+     * Decoded image waiting to be uploaded into its texture.
+     */
+    private record TextureReload(Texture texture, DecodedImage image, long eventNanos) { }
+
+    /**
+     * Create a new hot reloader. Nothing is watched until {@link #start(List)}.
+     */
+    private HotReloader() {
+        this.batches = new ConcurrentLinkedQueue<>();
+        this.shaders = new ConcurrentLinkedQueue<>();
+        this.textures = new ConcurrentLinkedQueue<>();
+        this.directories = new HashMap<>();
+        this.latency = new RollingStats(256);
+    }
+
+    /**
+     * @return Hot reloader singleton instance.
+     */
+    public static HotReloader get() {
+        if (HotReloader.instance == null) { HotReloader.instance = new HotReloader(); }
+        return HotReloader.instance;
+    }
+
+    /**
+     * Start watching directories and every directory below them for changes.
+     *
+     * @param roots         Directories to watch.
+     * @param debounceNanos Time without changes after which changed files are reloaded, in nanoseconds.
+     * @throws IOException If a directory could not be watched.
+     */
+    public void start(List<Path> roots, long debounceNanos) throws IOException {
+        if (this.watcher != null) { throw new IllegalStateException("Hot reloader is already running."); }
+
+        this.watchService = FileSystems.getDefault().newWatchService();
+        for (Path root : roots) { this.register(root); }
+
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pine-hot-reload-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.watcher = new Thread(() -> this.watch(debounceNanos), "pine-hot-reload-watcher");
+        this.watcher.setDaemon(true);
+        this.watcher.start();
+    }
+
+    /**
+     * Start watching directories with the default debounce period.
+     *
+     * @param roots Directories to watch.
+     * @throws IOException If a directory could not be watched.
+     */
+    public void start(List<Path> roots) throws IOException {
+        this.start(roots, HotReloader.DEFAULT_DEBOUNCE_NANOS);
+    }
+
+    /**
+     * Send the assets affected by files changed since the last call to the worker, and swap in every asset the worker
+     * has finished. Must be called on the render thread, at the start of a frame.
+     *
+     * @return Number of assets reloaded.
+     */
+    public int update() {
+        if (this.watcher == null) { return 0; }
+
+        Batch batch;
+        while ((batch = this.batches.poll()) != null) { this.dispatch(batch); }
+
+        int reloaded = 0;
+
+        ShaderReload reload;
+        while ((reload = this.shaders.poll()) != null) {
+            Shader shader = reload.shader();
+            if (shader.deleted()) { continue; }
+
+            if (shader.reload(reload.sources())) {
+                this.finish(shader.filePath(), reload.eventNanos());
+                reloaded++;
+            }
+
+            else {
+                this.failureCount++;
+                System.err.printf("'%s': Reload failed, keeping the previous program.\n", shader.filePath());
+            }
+        }
+
+        TextureReload upload;
+        while ((upload = this.textures.poll()) != null) {
+            Texture texture = upload.texture();
+            DecodedImage image = upload.image();
+
+            if (!texture.deleted()) {
+                texture.upload(image.width(), image.height(), image.channels(), image.pixels());
+                this.finish(texture.filePath(), upload.eventNanos());
+                reloaded++;
+            }
+
+            image.free();
+        }
+
+        return reloaded;
+    }
+
+    /**
+     * @return Number of assets reloaded since startup.
+     */
+    public long reloadCount() { return this.reloadCount; }
+
+    /**
+     * @return Number of reloads that failed and kept the previous asset since startup.
+     */
+    public long failureCount() { return this.failureCount; }
+
+    /**
+     * @return Time from the first change of a file to its asset being swapped in, in nanoseconds, for recent reloads.
+     */
+    public RollingStats latency() { return this.latency; }
+
+    /**
+     * @return Whether directories are being watched.
+     */
+    public boolean running() { return this.watcher != null; }
+
+    /**
+     * Stop watching and free every result that has not been swapped in.
+     */
+    public void shutdown() {
+        if (this.watcher == null) { return; }
+
+        try { this.watchService.close(); }
+        catch (IOException e) { e.printStackTrace(); }
+
+        this.worker.shutdownNow();
+
+        try {
+            this.watcher.join(1000L);
+            this.worker.awaitTermination(1L, TimeUnit.SECONDS);
+        }
+
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        TextureReload texture;
+        while ((texture = this.textures.poll()) != null) { texture.image().free(); }
+
+        this.shaders.clear();
+        this.batches.clear();
+        this.directories.clear();
+        this.watcher = null;
+        this.worker = null;
+        this.watchService = null;
+    }
+
+    /**
+     * Find the pooled shaders and textures that use a changed file and queue them on the worker.
+     *
+     * @param batch Files changed together.
+     */
+    private void dispatch(Batch batch) {
+        for (Shader shader : AssetPool.shaders()) {
+            boolean changed = batch.paths().contains(HotReloader.canonical(Paths.get(shader.filePath())));
+            for (Path include : shader.includes()) {
+                changed |= batch.paths().contains(HotReloader.canonical(include));
+            }
+
+            if (changed) { this.worker.execute(() -> this.preprocess(shader, batch.eventNanos())); }
+        }
+
+        for (Texture texture : AssetPool.textures()) {
+            Path path = HotReloader.canonical(Paths.get(texture.filePath()));
+            if (batch.paths().contains(path)) {
+                this.worker.execute(() -> this.decode(texture, path, batch.eventNanos()));
+            }
+        }
+    }
+
+    /**
+     * Preprocess a shader file again on the worker thread.
+     */
+    private void preprocess(Shader shader, long eventNanos) {
+        try {
+            this.shaders.add(new ShaderReload(shader, shader.preprocess(), eventNanos));
+        }
+
+        catch (IOException e) {
+            System.err.printf("'%s': Could not reload shader: %s\n", shader.filePath(), e.getMessage());
+        }
+    }
+
+    /**
+     * Read and decode a texture file again on the worker thread.
+     */
+    private void decode(Texture texture, Path path, long eventNanos) {
+        ByteBuffer encoded = null;
+
+        try {
+            byte[] bytes = Files.readAllBytes(path);
+            encoded = MemoryUtil.memAlloc(bytes.length);
+            encoded.put(bytes).flip();
+
+            DecodedImage image = TextureLoader.decode(encoded);
+            if (image == null) {
+                System.err.printf("'%s': Could not reload texture: %s\n", path, STBImage.stbi_failure_reason());
+                return;
+            }
+
+            this.textures.add(new TextureReload(texture, image, eventNanos));
+        }
+
+        catch (IOException e) {
+            System.err.printf("'%s': Could not reload texture: %s\n", path, e.getMessage());
+        }
+
+        finally {
+            if (encoded != null) { MemoryUtil.memFree(encoded); }
+        }
+    }
+
+    /**
+     * Record the latency of a successful reload, also in the profiler's summary.
+     */
+    private void finish(String filePath, long eventNanos) {
+        final long nanos = System.nanoTime() - eventNanos;
+
+        this.latency.record(nanos);
+        Profiler.record(ProfileEvent.ReloadLatency, nanos);
+        this.reloadCount++;
+        System.out.printf("Reloaded '%s' in %.2f ms.\n", filePath, nanos / 1e6D);
+    }
+
+    /**
+     * Watch for changes on the watcher thread until the watch service is closed. Changed files are collected until
+     * none has changed for the debounce period, then queued as one batch.
+     */
+    private void watch(long debounceNanos) {
+        Set<Path> changed = new HashSet<>();
+        long firstEvent = 0L, lastEvent = 0L;
+
+        try {
+            while (true) {
+                // Block until something changes, or wait out the rest of the quiet period.
+                final long wait = debounceNanos - (System.nanoTime() - lastEvent);
+                WatchKey key = changed.isEmpty() ? this.watchService.take()
+                    : this.watchService.poll(Math.max(0L, wait), TimeUnit.NANOSECONDS);
+
+                if (key == null) {
+                    if (System.nanoTime() - lastEvent >= debounceNanos) {
+                        this.batches.add(new Batch(changed, firstEvent));
+                        changed = new HashSet<>();
+                    }
+
+                    continue;
+                }
+
+                Path directory;
+                synchronized (this.directories) { directory = this.directories.get(key); }
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (directory == null || event.kind() == StandardWatchEventKinds.OVERFLOW) { continue; }
+
+                    Path path = HotReloader.canonical(directory.resolve((Path) event.context()));
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                        try { this.register(path); }
+                        catch (IOException e) { e.printStackTrace(); }
+                    }
+
+                    if (changed.isEmpty()) { firstEvent = System.nanoTime(); }
+                    changed.add(path);
+                    lastEvent = System.nanoTime();
+                }
+
+                if (!key.reset()) {
+                    synchronized (this.directories) { this.directories.remove(key); }
+                }
+            }
+        }
+
+        catch (InterruptedException | ClosedWatchServiceException e) {
+            // The watch service was closed by shutdown().
+        }
+    }
+
+    /**
+     * Watch a directory and every directory below it.
+     *
+     * @param root Directory to watch.
+     * @throws IOException If a directory could not be watched.
+     */
+    private void register(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path directory : paths.filter(Files::isDirectory).toList()) {
+                WatchKey key = directory.register(
+                    this.watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY
+                );
+
+                synchronized (this.directories) { this.directories.put(key, HotReloader.canonical(directory)); }
+            }
+        }
+    }
+
+    /**
+     * @return Absolute, normalized form of a path, matching the form used for changed files.
+     */
+    private static Path canonical(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+}
@@ -0,0 +1,284 @@
+package pine.renderer;
+
+import org.joml.Vector4f;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+import pine.utils.BlendMode;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Batch of textured quads drawn as instances of one shared unit quad with a single instanced draw call. Each quad is a
+ * 32-byte instance instead of four 36-byte vertices:
+ * <pre>
+ *   x, y, width, height   4 floats
+ *   r, g, b, a            4 normalized unsigned bytes
+ *   u0, v0, u1, v1        4 normalized unsigned shorts
+ *   texture index         1 unsigned int
+ * </pre>
+ * Instances are written straight into a {@link StreamingBuffer}, and up to {@link #MAX_TEXTURES} textures are bound
+ * to consecutive units for the instanced shader to pick from by index.
+ */
+public class InstanceBatch {
+    public static final int MAX_TEXTURES = 8;
+
+    public static final int RECT_OFFSET = 0;
+    public static final int COLOR_OFFSET = RECT_OFFSET + 4 * Float.BYTES;
+    public static final int UV_OFFSET = COLOR_OFFSET + 4;
+    public static final int TEXTURE_OFFSET = UV_OFFSET + 4 * Short.BYTES;
+    public static final int INSTANCE_SIZE_BYTES = TEXTURE_OFFSET + Integer.BYTES;
+
+    private static final float[] UNIT_QUAD = { 1F, 0F, 0F, 1F, 1F, 1F, 0F, 0F };
+
+    private final int maxInstances;
+    private final TextureSet textures;
+    private int instanceCount;
+
+    private int vaoID, quadID, eboID;
+    private StreamingBuffer instances;
+    private ByteBuffer writer;
+
+    /**
+     * Create a new instance batch. No OpenGL objects are created until the batch is started.
+     *
+     * @param maxInstances Maximum number of quads the batch can hold.
+     */
+    public InstanceBatch(int maxInstances) {
+        this.maxInstances = maxInstances;
+        this.textures = new TextureSet(MAX_TEXTURES);
+    }
+
+    /**
+     * Create the VAO, the unit quad and its EBO, and the streaming instance buffer, and set up the per-vertex and
+     * per-instance attributes. The instance attribute pointers are set when the batch is submitted, since the region
+     * being drawn moves every frame.
+     */
+    public void start() {
+        GraphicsBackend gl = Graphics.backend();
+
+        this.vaoID = gl.genVertexArrays();
+        gl.bindVertexArray(this.vaoID);
+
+        FloatBuffer quad = BufferUtils.createFloatBuffer(UNIT_QUAD.length);
+        quad.put(UNIT_QUAD).flip();
+
+        this.quadID = gl.genBuffers();
+        gl.bindBuffer(GL15.GL_ARRAY_BUFFER, this.quadID);
+        gl.bufferData(GL15.GL_ARRAY_BUFFER, quad, GL15.GL_STATIC_DRAW);
+
+        gl.vertexAttribPointer(0, 2, GL11.GL_FLOAT, false, 2 * Float.BYTES, 0L);
+        gl.enableVertexAttribArray(0);
+
+        int[] indices = RenderBatch.generateIndices(1);
+        IntBuffer elementBuffer = BufferUtils.createIntBuffer(indices.length);
+        elementBuffer.put(indices).flip();
+
+        this.eboID = gl.genBuffers();
+        gl.bindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, this.eboID);
+        gl.bufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, elementBuffer, GL15.GL_STATIC_DRAW);
+
+        this.instances = new StreamingBuffer(GL15.GL_ARRAY_BUFFER, this.maxInstances * INSTANCE_SIZE_BYTES);
+
+        for (int attribute = 1; attribute <= 4; attribute++) {
+            gl.enableVertexAttribArray(attribute);
+            gl.vertexAttribDivisor(attribute, 1);
+        }
+
+        gl.bindVertexArray(0);
+    }
+
+    /**
+     * Add a quad to the batch.
+     *
+     * @param texture Texture of the quad, or null for none.
+     * @param x       x-coordinate of the bottom-left corner.
+     * @param y       y-coordinate of the bottom-left corner.
+     * @param width   Width of the quad.
+     * @param height  Height of the quad.
+     * @param color   Colour of the quad, each component between 0 and 1.
+     * @param u0      Left texture coordinate, between 0 and 1.
+     * @param v0      Bottom texture coordinate, between 0 and 1.
+     * @param u1      Right texture coordinate, between 0 and 1.
+     * @param v1      Top texture coordinate, between 0 and 1.
+     * @return Whether the quad was added; false if the batch is full or has no texture unit left for the texture.
+     */
+    public boolean addQuad(
+        Texture texture, float x, float y, float width, float height, Vector4f color,
+        float u0, float v0, float u1, float v1
+    ) {
+        if (this.writer == null) {
+            this.writer = this.instances.begin();
+            this.textures.clear();
+        }
+
+        if (this.instanceCount >= this.maxInstances) { return false; }
+
+        final int textureIndex = this.textures.add(texture);
+        if (textureIndex < 0) { return false; }
+
+        InstanceBatch.packInstance(
+            this.writer, this.instanceCount * INSTANCE_SIZE_BYTES,
+            x, y, width, height, color.x, color.y, color.z, color.w, u0, v0, u1, v1, textureIndex
+        );
+        this.instanceCount++;
+
+        return true;
+    }
+
+    /**
+     * Add as many quads of a range as fit, written by a quad writer straight into the instance buffer.
+     *
+     * @param texture Texture of the quads, or null for none.
+     * @param from    First quad of the writer to add, inclusive.
+     * @param to      Last quad of the writer to add, exclusive.
+     * @param writer  Writer of the quads.
+     * @return Number of quads added; zero if the batch is full or has no texture unit left for the texture.
+     */
+    public int addQuads(Texture texture, int from, int to, QuadWriter writer) {
+        if (this.writer == null) {
+            this.writer = this.instances.begin();
+            this.textures.clear();
+        }
+
+        final int count = Math.min(to - from, this.maxInstances - this.instanceCount);
+        if (count <= 0) { return 0; }
+
+        final int textureIndex = this.textures.add(texture);
+        if (textureIndex < 0) { return 0; }
+
+        writer.writeInstances(this.writer, this.instanceCount * INSTANCE_SIZE_BYTES, textureIndex, from, from + count);
+        this.instanceCount += count;
+
+        return count;
+    }
+
+    /**
+     * @param texture Texture of the next quad.
+     * @return Whether a quad with the texture can be added.
+     */
+    public boolean accepts(Texture texture) {
+        if (this.writer == null) { return true; }
+
+        return this.instanceCount < this.maxInstances &&
+            (!this.textures.isFull() || this.textures.indexOf(texture) >= 0);
+    }
+
+    /**
+     * Finish writing the instances and submit them to a render queue as a single instanced draw command, then empty
+     * the batch. The textures stay bound to the command until the next quad is added.
+     *
+     * @param queue  Queue to submit the batch to.
+     * @param shader Instanced shader to draw the batch with.
+     * @param layer  Layer of the draw command.
+     * @return Number of draw commands submitted; zero if the batch was empty.
+     */
+    public int submit(RenderQueue queue, Shader shader, int layer) {
+        if (this.writer == null) { return 0; }
+
+        this.writer.position(this.instanceCount * INSTANCE_SIZE_BYTES);
+        final long offset = this.instances.end();
+        this.writer = null;
+
+        if (this.instanceCount == 0) { return 0; }
+
+        GraphicsBackend gl = Graphics.backend();
+        gl.bindVertexArray(this.vaoID);
+        gl.bindBuffer(GL15.GL_ARRAY_BUFFER, this.instances.bufferID());
+
+        gl.vertexAttribPointer(1, 4, GL11.GL_FLOAT, false, INSTANCE_SIZE_BYTES, offset + RECT_OFFSET);
+        gl.vertexAttribPointer(2, 4, GL11.GL_UNSIGNED_BYTE, true, INSTANCE_SIZE_BYTES, offset + COLOR_OFFSET);
+        gl.vertexAttribPointer(3, 4, GL11.GL_UNSIGNED_SHORT, true, INSTANCE_SIZE_BYTES, offset + UV_OFFSET);
+        gl.vertexAttribPointer(4, 1, GL11.GL_UNSIGNED_INT, false, INSTANCE_SIZE_BYTES, offset + TEXTURE_OFFSET);
+
+        gl.bindVertexArray(0);
+
+        queue.submit(
+            layer, BlendMode.Opaque, shader, this.textures, this.vaoID, 0,
+            0, RenderBatch.INDICES_PER_QUAD, this.instanceCount
+        );
+
+        this.instanceCount = 0;
+        return 1;
+    }
+
+    /**
+     * Empty the batch without drawing it.
+     */
+    public void clear() {
+        this.instanceCount = 0;
+    }
+
+    /**
+     * Delete the OpenGL objects owned by the batch.
+     */
+    public void delete() {
+        this.instances.delete();
+        Graphics.backend().deleteBuffers(this.quadID);
+        Graphics.backend().deleteBuffers(this.eboID);
+        Graphics.backend().deleteVertexArrays(this.vaoID);
+    }
+
+    /**
+     * @return Number of quads currently in the batch.
+     */
+    public int quadCount() { return this.instanceCount; }
+
+    /**
+     * Write one instance into a buffer using the instance layout of the instanced shader.
+     *
+     * @param buffer       Buffer to write into, in native byte order.
+     * @param offset       Byte offset of the instance.
+     * @param x            x-coordinate of the bottom-left corner.
+     * @param y            y-coordinate of the bottom-left corner.
+     * @param width        Width of the quad.
+     * @param height       Height of the quad.
+     * @param r            Red component of the colour, clamped to [0, 1].
+     * @param g            Green component of the colour, clamped to [0, 1].
+     * @param b            Blue component of the colour, clamped to [0, 1].
+     * @param a            Alpha component of the colour, clamped to [0, 1].
+     * @param u0           Left texture coordinate, clamped to [0, 1].
+     * @param v0           Bottom texture coordinate, clamped to [0, 1].
+     * @param u1           Right texture coordinate, clamped to [0, 1].
+     * @param v1           Top texture coordinate, clamped to [0, 1].
+     * @param textureIndex Index of the texture in the batch's texture set.
+     */
+    public static void packInstance(
+        ByteBuffer buffer, int offset, float x, float y, float width, float height,
+        float r, float g, float b, float a, float u0, float v0, float u1, float v1, int textureIndex
+    ) {
+        buffer.putFloat(offset + RECT_OFFSET, x);
+        buffer.putFloat(offset + RECT_OFFSET + 4, y);
+        buffer.putFloat(offset + RECT_OFFSET + 8, width);
+        buffer.putFloat(offset + RECT_OFFSET + 12, height);
+
+        buffer.put(offset + COLOR_OFFSET, InstanceBatch.unorm8(r));
+        buffer.put(offset + COLOR_OFFSET + 1, InstanceBatch.unorm8(g));
+        buffer.put(offset + COLOR_OFFSET + 2, InstanceBatch.unorm8(b));
+        buffer.put(offset + COLOR_OFFSET + 3, InstanceBatch.unorm8(a));
+
+        buffer.putShort(offset + UV_OFFSET, InstanceBatch.unorm16(u0));
+        buffer.putShort(offset + UV_OFFSET + 2, InstanceBatch.unorm16(v0));
+        buffer.putShort(offset + UV_OFFSET + 4, InstanceBatch.unorm16(u1));
+        buffer.putShort(offset + UV_OFFSET + 6, InstanceBatch.unorm16(v1));
+
+        buffer.putInt(offset + TEXTURE_OFFSET, textureIndex);
+    }
+
+    /**
+     * @return Value clamped to [0, 1] and rounded to an unsigned normalized byte, so that values slightly out of range
+     * saturate instead of wrapping around.
+     */
+    private static byte unorm8(float value) {
+        return (byte) (Math.min(Math.max(value, 0F), 1F) * 255F + 0.5F);
+    }
+
+    /**
+     * @return Value clamped to [0, 1] and rounded to an unsigned normalized short.
+     */
+    private static short unorm16(float value) {
+        return (short) (Math.min(Math.max(value, 0F), 1F) * 65535F + 0.5F);
+    }
+}
@@ -0,0 +1,245 @@
+package pine.renderer;
+
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+import org.lwjgl.opengl.GL32;
+import org.lwjgl.opengl.GL33;
+import org.lwjgl.opengl.GL41;
+import org.lwjgl.opengl.GL44;
+import org.lwjgl.opengl.GLCapabilities;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Graphics backend forwarding every call to OpenGL through LWJGL. Requires a current OpenGL context.
+ */
+public class OpenGLBackend implements GraphicsBackend {
+    @Override
+    public int genTextures() { return GL11.glGenTextures(); }
+
+    @Override
+    public void bindTexture(int target, int texture) { GL11.glBindTexture(target, texture); }
+
+    @Override
+    public void deleteTextures(int texture) { GL11.glDeleteTextures(texture); }
+
+    @Override
+    public void activeTexture(int unit) { GL13.glActiveTexture(unit); }
+
+    @Override
+    public void texParameteri(int target, int name, int value) { GL11.glTexParameteri(target, name, value); }
+
+    @Override
+    public void pixelStorei(int name, int value) { GL11.glPixelStorei(name, value); }
+
+    @Override
+    public void texImage2D(
+        int target, int level, int internalFormat, int width, int height, int border, int format, int type,
+        ByteBuffer pixels
+    ) {
+        GL11.glTexImage2D(target, level, internalFormat, width, height, border, format, type, pixels);
+    }
+
+    @Override
+    public int genBuffers() { return GL15.glGenBuffers(); }
+
+    @Override
+    public void bindBuffer(int target, int buffer) { GL15.glBindBuffer(target, buffer); }
+
+    @Override
+    public void bufferData(int target, long size, int usage) { GL15.glBufferData(target, size, usage); }
+
+    @Override
+    public void bufferData(int target, FloatBuffer data, int usage) { GL15.glBufferData(target, data, usage); }
+
+    @Override
+    public void bufferData(int target, IntBuffer data, int usage) { GL15.glBufferData(target, data, usage); }
+
+    @Override
+    public void bufferSubData(int target, long offset, FloatBuffer data) { GL15.glBufferSubData(target, offset, data); }
+
+    @Override
+    public void bufferSubData(int target, long offset, ByteBuffer data) { GL15.glBufferSubData(target, offset, data); }
+
+    @Override
+    public void bufferStorage(int target, long size, int flags) { GL44.glBufferStorage(target, size, flags); }
+
+    @Override
+    public ByteBuffer mapBufferRange(int target, long offset, long length, int access) {
+        return GL30.glMapBufferRange(target, offset, length, access);
+    }
+
+    @Override
+    public boolean unmapBuffer(int target) { return GL15.glUnmapBuffer(target); }
+
+    @Override
+    public void deleteBuffers(int buffer) { GL15.glDeleteBuffers(buffer); }
+
+    @Override
+    public int genVertexArrays() { return GL30.glGenVertexArrays(); }
+
+    @Override
+    public void bindVertexArray(int array) { GL30.glBindVertexArray(array); }
+
+    @Override
+    public void deleteVertexArrays(int array) { GL30.glDeleteVertexArrays(array); }
+
+    @Override
+    public void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long pointer) {
+        GL20.glVertexAttribPointer(index, size, type, normalized, stride, pointer);
+    }
+
+    @Override
+    public void enableVertexAttribArray(int index) { GL20.glEnableVertexAttribArray(index); }
+
+    @Override
+    public void vertexAttribDivisor(int index, int divisor) { GL33.glVertexAttribDivisor(index, divisor); }
+
+    @Override
+    public void clearColor(float r, float g, float b, float a) { GL11.glClearColor(r, g, b, a); }
+
+    @Override
+    public void clear(int mask) { GL11.glClear(mask); }
+
+    @Override
+    public void enable(int capability) { GL11.glEnable(capability); }
+
+    @Override
+    public void disable(int capability) { GL11.glDisable(capability); }
+
+    @Override
+    public void blendFunc(int source, int destination) { GL11.glBlendFunc(source, destination); }
+
+    @Override
+    public void drawElements(int mode, int count, int type, long indices) {
+        GL11.glDrawElements(mode, count, type, indices);
+    }
+
+    @Override
+    public void drawElementsInstanced(int mode, int count, int type, long indices, int instanceCount) {
+        GL31.glDrawElementsInstanced(mode, count, type, indices, instanceCount);
+    }
+
+    @Override
+    public long fenceSync(int condition, int flags) { return GL32.glFenceSync(condition, flags); }
+
+    @Override
+    public int clientWaitSync(long sync, int flags, long timeout) {
+        return GL32.glClientWaitSync(sync, flags, timeout);
+    }
+
+    @Override
+    public void deleteSync(long sync) { GL32.glDeleteSync(sync); }
+
+    @Override
+    public int createShader(int type) { return GL20.glCreateShader(type); }
+
+    @Override
+    public void shaderSource(int shader, CharSequence source) { GL20.glShaderSource(shader, source); }
+
+    @Override
+    public void compileShader(int shader) { GL20.glCompileShader(shader); }
+
+    @Override
+    public int getShaderi(int shader, int name) { return GL20.glGetShaderi(shader, name); }
+
+    @Override
+    public String getShaderInfoLog(int shader, int maxLength) { return GL20.glGetShaderInfoLog(shader, maxLength); }
+
+    @Override
+    public void deleteShader(int shader) { GL20.glDeleteShader(shader); }
+
+    @Override
+    public int createProgram() { return GL20.glCreateProgram(); }
+
+    @Override
+    public void attachShader(int program, int shader) { GL20.glAttachShader(program, shader); }
+
+    @Override
+    public void linkProgram(int program) { GL20.glLinkProgram(program); }
+
+    @Override
+    public int getProgrami(int program, int name) { return GL20.glGetProgrami(program, name); }
+
+    @Override
+    public String getProgramInfoLog(int program, int maxLength) { return GL20.glGetProgramInfoLog(program, maxLength); }
+
+    @Override
+    public void programParameteri(int program, int name, int value) { GL41.glProgramParameteri(program, name, value); }
+
+    @Override
+    public void getProgramBinary(int program, IntBuffer length, IntBuffer binaryFormat, ByteBuffer binary) {
+        GL41.glGetProgramBinary(program, length, binaryFormat, binary);
+    }
+
+    @Override
+    public void programBinary(int program, int binaryFormat, ByteBuffer binary) {
+        GL41.glProgramBinary(program, binaryFormat, binary);
+    }
+
+    @Override
+    public String getActiveUniform(int program, int index, IntBuffer size, IntBuffer type) {
+        return GL20.glGetActiveUniform(program, index, size, type);
+    }
+
+    @Override
+    public int getUniformLocation(int program, CharSequence name) { return GL20.glGetUniformLocation(program, name); }
+
+    @Override
+    public void useProgram(int program) { GL20.glUseProgram(program); }
+
+    @Override
+    public void deleteProgram(int program) { GL20.glDeleteProgram(program); }
+
+    @Override
+    public void uniform1i(int location, int value) { GL20.glUniform1i(location, value); }
+
+    @Override
+    public void uniform1iv(int location, int[] values) { GL20.glUniform1iv(location, values); }
+
+    @Override
+    public void uniform1f(int location, float value) { GL20.glUniform1f(location, value); }
+
+    @Override
+    public void uniform2f(int location, float x, float y) { GL20.glUniform2f(location, x, y); }
+
+    @Override
+    public void uniform3f(int location, float x, float y, float z) { GL20.glUniform3f(location, x, y, z); }
+
+    @Override
+    public void uniform4f(int location, float x, float y, float z, float w) { GL20.glUniform4f(location, x, y, z, w); }
+
+    @Override
+    public void uniformMatrix3fv(int location, boolean transpose, float[] values) {
+        GL20.glUniformMatrix3fv(location, transpose, values);
+    }
+
+    @Override
+    public void uniformMatrix4fv(int location, boolean transpose, float[] values) {
+        GL20.glUniformMatrix4fv(location, transpose, values);
+    }
+
+    @Override
+    public String getString(int name) { return GL11.glGetString(name); }
+
+    @Override
+    public boolean bufferStorageSupported() {
+        GLCapabilities capabilities = GL.getCapabilities();
+        return capabilities.OpenGL44 || capabilities.GL_ARB_buffer_storage;
+    }
+
+    @Override
+    public boolean programBinarySupported() {
+        GLCapabilities capabilities = GL.getCapabilities();
+        boolean supported = capabilities.OpenGL41 || capabilities.GL_ARB_get_program_binary;
+
+        return supported && GL11.glGetInteger(GL41.GL_NUM_PROGRAM_BINARY_FORMATS) > 0;
+    }
+}
@@ -0,0 +1,252 @@
+package pine.renderer;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL41;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+import pine.utils.ShaderType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * On-disk cache of linked shader programs singleton. After a program is compiled and linked, its driver-specific
+ * binary is saved under a key hashing the driver (vendor, renderer and version) and the preprocessed source of every
+ * stage, so later runs load the binary instead of compiling. A binary the driver rejects, for example after a driver
+ * update, is deleted and the program is compiled again.
+ * <p>
+ * Each file holds the binary format as a native-order int followed by the binary. The directory is taken from the
+ * {@code pine.shader.cache} system property, and an empty value disables the cache.
+ */
+public class ProgramCache {
+    public static final String DEFAULT_DIRECTORY = "cache/shaders";
+
+    private static final String EXTENSION = ".bin";
+    private static ProgramCache instance;
+    private Path directory;
+    private long hits, misses, rejects, stores;
+
+    /**
+     * Create a new program cache in the configured directory.
+     */
+    private ProgramCache() {
+        this.setDirectory(System.getProperty("pine.shader.cache", DEFAULT_DIRECTORY));
+    }
+
+    /**
+     * @return Program cache singleton instance.
+     */
+    public static ProgramCache get() {
+        if (ProgramCache.instance == null) { ProgramCache.instance = new ProgramCache(); }
+        return ProgramCache.instance;
+    }
+
+    /**
+     * Set the directory the binaries are stored in.
+     *
+     * @param directory Location of the directory, or null or empty to disable the cache.
+     */
+    public void setDirectory(String directory) {
+        this.directory = directory == null || directory.isEmpty() ? null : Paths.get(directory);
+    }
+
+    /**
+     * @return Whether binaries are loaded and stored; requires a directory and program binary support.
+     */
+    public boolean enabled() { return this.directory != null && Graphics.backend().programBinarySupported(); }
+
+    /**
+     * Compute the cache key of a program.
+     *
+     * @param sources Preprocessed source of each stage of the program.
+     * @return Hexadecimal SHA-256 hash of the driver and the sources.
+     */
+    public String key(Map<ShaderType, String> sources) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            GraphicsBackend gl = Graphics.backend();
+
+            for (int name : new int[] { GL11.GL_VENDOR, GL11.GL_RENDERER, GL11.GL_VERSION }) {
+                digest.update(String.valueOf(gl.getString(name)).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+
+            for (Map.Entry<ShaderType, String> stage : sources.entrySet()) {
+                digest.update(stage.getKey().name().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(stage.getValue().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+
+            return HexFormat.of().formatHex(digest.digest());
+        }
+
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    /**
+     * Ask the driver to keep the binary of a program retrievable. Must be called before the program is linked.
+     *
+     * @param program ID of the shader program.
+     */
+    public void prepare(int program) {
+        if (!this.enabled()) { return; }
+        Graphics.backend().programParameteri(program, GL41.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL11.GL_TRUE);
+    }
+
+    /**
+     * Load a cached binary into a program.
+     *
+     * @param program ID of the shader program, with no shaders attached.
+     * @param key     Cache key of the program.
+     * @return Whether the program was loaded and linked; if false, it must be compiled and linked as usual.
+     */
+    public boolean load(int program, String key) {
+        if (!this.enabled()) { return false; }
+
+        Path file = this.directory.resolve(key + EXTENSION);
+        if (!Files.isRegularFile(file)) {
+            this.misses++;
+            return false;
+        }
+
+        try {
+            if (ProgramCache.loadBinary(program, file)) {
+                this.hits++;
+                return true;
+            }
+        }
+
+        catch (IOException e) {
+            e.printStackTrace();
+            this.misses++;
+            return false;
+        }
+
+        // The file is closed by now; on Windows an open file cannot be deleted.
+        return this.reject(file);
+    }
+
+    /**
+     * Save the binary of a linked program. The file is written under a temporary name and moved into place, so other
+     * processes never read a partly written binary.
+     *
+     * @param program ID of the linked shader program.
+     * @param key     Cache key of the program.
+     */
+    public void store(int program, String key) {
+        if (!this.enabled()) { return; }
+
+        GraphicsBackend gl = Graphics.backend();
+        final int length = gl.getProgrami(program, GL41.GL_PROGRAM_BINARY_LENGTH);
+        if (length <= 0) { return; }
+
+        ByteBuffer blob = MemoryUtil.memAlloc(Integer.BYTES + length).order(ByteOrder.nativeOrder());
+
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer written = stack.mallocInt(1);
+            IntBuffer format = stack.mallocInt(1);
+
+            gl.getProgramBinary(program, written, format, blob.slice(Integer.BYTES, length));
+            blob.putInt(0, format.get(0)).limit(Integer.BYTES + written.get(0));
+
+            Files.createDirectories(this.directory);
+            Path temporary = Files.createTempFile(this.directory, key, ".tmp");
+
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (blob.hasRemaining()) { channel.write(blob); }
+            }
+
+            Files.move(
+                temporary, this.directory.resolve(key + EXTENSION),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE
+            );
+            this.stores++;
+        }
+
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        finally {
+            MemoryUtil.memFree(blob);
+        }
+    }
+
+    /**
+     * @return Number of programs loaded from a cached binary.
+     */
+    public long hits() { return this.hits; }
+
+    /**
+     * @return Number of programs with no cached binary.
+     */
+    public long misses() { return this.misses; }
+
+    /**
+     * @return Number of cached binaries that were unreadable or rejected by the driver.
+     */
+    public long rejects() { return this.rejects; }
+
+    /**
+     * @return Number of binaries saved.
+     */
+    public long stores() { return this.stores; }
+
+    /**
+     * Read a cached binary into a program, closing the file before returning.
+     *
+     * @return Whether the binary was complete and the program linked from it.
+     */
+    private static boolean loadBinary(int program, Path file) throws IOException {
+        ByteBuffer blob = null;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size <= Integer.BYTES || size > Integer.MAX_VALUE) { return false; }
+
+            blob = MemoryUtil.memAlloc((int) size).order(ByteOrder.nativeOrder());
+            while (blob.hasRemaining() && channel.read(blob) >= 0) { }
+            if (blob.hasRemaining()) { return false; }
+
+            GraphicsBackend gl = Graphics.backend();
+            gl.programBinary(program, blob.getInt(0), blob.position(Integer.BYTES));
+
+            return gl.getProgrami(program, GL20.GL_LINK_STATUS) != GL11.GL_FALSE;
+        }
+
+        finally {
+            if (blob != null) { MemoryUtil.memFree(blob); }
+        }
+    }
+
+    /**
+     * Count and delete a cached binary that could not be used.
+     *
+     * @return Always false, for returning from {@link #load(int, String)}.
+     */
+    private boolean reject(Path file) {
+        this.rejects++;
+
+        try { Files.deleteIfExists(file); }
+        catch (IOException e) { e.printStackTrace(); }
+
+        return false;
+    }
+}
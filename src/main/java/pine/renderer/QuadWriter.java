@@ -0,0 +1,31 @@
+package pine.renderer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Source of many quads that writes them straight into the memory of the renderer's batches, in the layout of whichever
+ * render path the renderer is using, instead of submitting them one call at a time. See
+ * {@link Renderer#drawQuads(Texture, int, QuadWriter)}.
+ */
+public interface QuadWriter {
+    /**
+     * Write a range of quads as vertices of a {@link RenderBatch}, e.g. with {@link RenderBatch#packQuad}.
+     *
+     * @param vertices Vertex array of the batch.
+     * @param offset   Index of the first float of the first quad.
+     * @param from     First quad to write, inclusive.
+     * @param to       Last quad to write, exclusive.
+     */
+    void writeVertices(float[] vertices, int offset, int from, int to);
+
+    /**
+     * Write a range of quads as instances of an {@link InstanceBatch}, e.g. with {@link InstanceBatch#packInstance}.
+     *
+     * @param buffer       Instance buffer of the batch, in native byte order.
+     * @param offset       Byte offset of the first quad.
+     * @param textureIndex Index of the quads' texture in the batch's texture set.
+     * @param from         First quad to write, inclusive.
+     * @param to           Last quad to write, exclusive.
+     */
+    void writeInstances(ByteBuffer buffer, int offset, int textureIndex, int from, int to);
+}
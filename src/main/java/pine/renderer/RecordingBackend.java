@@ -0,0 +1,564 @@
+package pine.renderer;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL32;
+import org.lwjgl.opengl.GL41;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Graphics backend that draws nothing and needs no display or OpenGL context, but counts the calls made to it: draw
+ * calls, texture and program binds, bytes uploaded into buffers and textures, and uniform sets. Object names are
+ * handed out from a counter, every shader compiles and links unless its source has an {@code #error} directive, and
+ * the uniforms of a program are found by scanning its sources for uniform declarations, so shaders reflect and upload
+ * uniforms as they would on a real driver.
+ * <p>
+ * Mapped buffers are plain direct buffers. Fences complete after a configurable number of later fences, and waiting
+ * on a fence that has not completed counts as a stall, so buffer synchronisation can be checked without a GPU.
+ * Program binaries hold the names of the program's uniforms, so a program loaded from a binary reflects the same
+ * uniforms without any shader being compiled.
+ */
+public class RecordingBackend implements GraphicsBackend {
+    public static final String DRIVER = "Pine recording backend";
+    public static final int BINARY_FORMAT = 0x50494E45;
+
+    private static final Pattern UNIFORM = Pattern.compile("uniform\\s+\\w+\\s+(\\w+)\\s*(\\[[^]]*])?\\s*;");
+    private static final Pattern ERROR = Pattern.compile("^\\s*#\\s*error\\b(.*)$", Pattern.MULTILINE);
+
+    private final Map<Integer, String> shaderSources;
+    private final Map<Integer, List<Integer>> attachedShaders;
+    private final Map<Integer, List<String>> programUniforms;
+    private final Set<Integer> unlinkedPrograms;
+    private final Map<Integer, String> shaderErrors;
+    private int nextName, fenceLatency;
+    private boolean bufferStorageSupported, programBinarySupported;
+    private long lastFence;
+    private long calls, drawCalls, indices, instances, textureBinds, programBinds, vertexArrayBinds, uniformSets;
+    private long bufferBytes, textureBytes, fenceWaits, stalls, shaderCompiles;
+
+    /**
+     * Create a new recording backend with every counter at zero.
+     */
+    public RecordingBackend() {
+        this.shaderSources = new HashMap<>();
+        this.attachedShaders = new HashMap<>();
+        this.programUniforms = new HashMap<>();
+        this.unlinkedPrograms = new HashSet<>();
+        this.shaderErrors = new HashMap<>();
+        this.nextName = 1;
+        this.bufferStorageSupported = true;
+        this.programBinarySupported = true;
+    }
+
+    /**
+     * Set whether the backend reports support for persistently mapped buffer storage.
+     *
+     * @param supported Whether buffer storage is supported; true by default.
+     */
+    public void setBufferStorageSupported(boolean supported) {
+        this.bufferStorageSupported = supported;
+    }
+
+    /**
+     * Set whether the backend reports support for program binaries.
+     *
+     * @param supported Whether program binaries are supported; true by default.
+     */
+    public void setProgramBinarySupported(boolean supported) {
+        this.programBinarySupported = supported;
+    }
+
+    /**
+     * Set how far the simulated GPU lags behind: a fence completes once this many later fences have been created.
+     *
+     * @param fences Number of later fences needed; zero by default, so every fence is complete when waited on.
+     */
+    public void setFenceLatency(int fences) {
+        this.fenceLatency = fences;
+    }
+
+    @Override
+    public int genTextures() { return this.generate(); }
+
+    @Override
+    public void bindTexture(int target, int texture) {
+        this.calls++;
+        this.textureBinds++;
+    }
+
+    @Override
+    public void deleteTextures(int texture) { this.calls++; }
+
+    @Override
+    public void activeTexture(int unit) { this.calls++; }
+
+    @Override
+    public void texParameteri(int target, int name, int value) { this.calls++; }
+
+    @Override
+    public void pixelStorei(int name, int value) { this.calls++; }
+
+    @Override
+    public void texImage2D(
+        int target, int level, int internalFormat, int width, int height, int border, int format, int type,
+        ByteBuffer pixels
+    ) {
+        this.calls++;
+        this.textureBytes += (long) width * height * (format == GL11.GL_RGB ? 3 : 4);
+    }
+
+    @Override
+    public int genBuffers() { return this.generate(); }
+
+    @Override
+    public void bindBuffer(int target, int buffer) { this.calls++; }
+
+    @Override
+    public void bufferData(int target, long size, int usage) {
+        this.calls++;
+        this.bufferBytes += size;
+    }
+
+    @Override
+    public void bufferData(int target, FloatBuffer data, int usage) {
+        this.calls++;
+        this.bufferBytes += (long) data.remaining() * Float.BYTES;
+    }
+
+    @Override
+    public void bufferData(int target, IntBuffer data, int usage) {
+        this.calls++;
+        this.bufferBytes += (long) data.remaining() * Integer.BYTES;
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, FloatBuffer data) {
+        this.calls++;
+        this.bufferBytes += (long) data.remaining() * Float.BYTES;
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, ByteBuffer data) {
+        this.calls++;
+        this.bufferBytes += data.remaining();
+    }
+
+    @Override
+    public void bufferStorage(int target, long size, int flags) {
+        this.calls++;
+        this.bufferBytes += size;
+    }
+
+    @Override
+    public ByteBuffer mapBufferRange(int target, long offset, long length, int access) {
+        this.calls++;
+        return BufferUtils.createByteBuffer((int) length);
+    }
+
+    @Override
+    public boolean unmapBuffer(int target) {
+        this.calls++;
+        return true;
+    }
+
+    @Override
+    public void deleteBuffers(int buffer) { this.calls++; }
+
+    @Override
+    public int genVertexArrays() { return this.generate(); }
+
+    @Override
+    public void bindVertexArray(int array) {
+        this.calls++;
+        if (array != 0) { this.vertexArrayBinds++; }
+    }
+
+    @Override
+    public void deleteVertexArrays(int array) { this.calls++; }
+
+    @Override
+    public void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long pointer) {
+        this.calls++;
+    }
+
+    @Override
+    public void enableVertexAttribArray(int index) { this.calls++; }
+
+    @Override
+    public void vertexAttribDivisor(int index, int divisor) { this.calls++; }
+
+    @Override
+    public void clearColor(float r, float g, float b, float a) { this.calls++; }
+
+    @Override
+    public void clear(int mask) { this.calls++; }
+
+    @Override
+    public void enable(int capability) { this.calls++; }
+
+    @Override
+    public void disable(int capability) { this.calls++; }
+
+    @Override
+    public void blendFunc(int source, int destination) { this.calls++; }
+
+    @Override
+    public void drawElements(int mode, int count, int type, long indices) {
+        this.calls++;
+        this.drawCalls++;
+        this.indices += count;
+    }
+
+    @Override
+    public void drawElementsInstanced(int mode, int count, int type, long indices, int instanceCount) {
+        this.calls++;
+        this.drawCalls++;
+        this.instances += instanceCount;
+        this.indices += (long) count * instanceCount;
+    }
+
+    @Override
+    public long fenceSync(int condition, int flags) {
+        this.calls++;
+        return ++this.lastFence;
+    }
+
+    @Override
+    public int clientWaitSync(long sync, int flags, long timeout) {
+        this.calls++;
+        this.fenceWaits++;
+
+        if (sync > this.lastFence - this.fenceLatency) {
+            this.stalls++;
+            return GL32.GL_CONDITION_SATISFIED;
+        }
+
+        return GL32.GL_ALREADY_SIGNALED;
+    }
+
+    @Override
+    public void deleteSync(long sync) { this.calls++; }
+
+    @Override
+    public int createShader(int type) { return this.generate(); }
+
+    @Override
+    public void shaderSource(int shader, CharSequence source) {
+        this.calls++;
+        this.shaderSources.put(shader, source.toString());
+    }
+
+    @Override
+    public void compileShader(int shader) {
+        this.calls++;
+        this.shaderCompiles++;
+
+        Matcher matcher = ERROR.matcher(this.shaderSources.getOrDefault(shader, ""));
+        if (matcher.find()) { this.shaderErrors.put(shader, "ERROR: #error" + matcher.group(1)); }
+        else { this.shaderErrors.remove(shader); }
+    }
+
+    @Override
+    public int getShaderi(int shader, int name) {
+        this.calls++;
+
+        return switch (name) {
+            case GL20.GL_COMPILE_STATUS -> this.shaderErrors.containsKey(shader) ? GL11.GL_FALSE : GL11.GL_TRUE;
+            case GL20.GL_INFO_LOG_LENGTH -> this.shaderErrors.getOrDefault(shader, "").length() + 1;
+            default -> 0;
+        };
+    }
+
+    @Override
+    public String getShaderInfoLog(int shader, int maxLength) { return this.shaderErrors.getOrDefault(shader, ""); }
+
+    @Override
+    public void deleteShader(int shader) {
+        this.calls++;
+        this.shaderSources.remove(shader);
+        this.shaderErrors.remove(shader);
+    }
+
+    @Override
+    public int createProgram() { return this.generate(); }
+
+    @Override
+    public void attachShader(int program, int shader) {
+        this.calls++;
+        this.attachedShaders.computeIfAbsent(program, key -> new ArrayList<>()).add(shader);
+    }
+
+    @Override
+    public void linkProgram(int program) {
+        this.calls++;
+        List<String> uniforms = new ArrayList<>();
+
+        for (int shader : this.attachedShaders.getOrDefault(program, List.of())) {
+            Matcher matcher = UNIFORM.matcher(this.shaderSources.getOrDefault(shader, ""));
+
+            while (matcher.find()) {
+                String name = matcher.group(2) == null ? matcher.group(1) : matcher.group(1) + "[0]";
+                if (!uniforms.contains(name)) { uniforms.add(name); }
+            }
+        }
+
+        this.programUniforms.put(program, uniforms);
+
+        // A program with a stage that failed to compile does not link.
+        boolean linked = true;
+        for (int shader : this.attachedShaders.getOrDefault(program, List.of())) {
+            if (this.shaderErrors.containsKey(shader)) { linked = false; }
+        }
+
+        if (linked) { this.unlinkedPrograms.remove(program); }
+        else { this.unlinkedPrograms.add(program); }
+    }
+
+    @Override
+    public int getProgrami(int program, int name) {
+        this.calls++;
+
+        return switch (name) {
+            case GL20.GL_LINK_STATUS -> this.unlinkedPrograms.contains(program) ? GL11.GL_FALSE : GL11.GL_TRUE;
+            case GL20.GL_ACTIVE_UNIFORMS -> this.programUniforms.getOrDefault(program, List.of()).size();
+            case GL41.GL_PROGRAM_BINARY_LENGTH -> this.binary(program).length;
+            default -> 0;
+        };
+    }
+
+    @Override
+    public String getProgramInfoLog(int program, int maxLength) { return ""; }
+
+    @Override
+    public void programParameteri(int program, int name, int value) { this.calls++; }
+
+    @Override
+    public void getProgramBinary(int program, IntBuffer length, IntBuffer binaryFormat, ByteBuffer binary) {
+        this.calls++;
+        byte[] bytes = this.binary(program);
+
+        binary.put(binary.position(), bytes);
+        if (length != null) { length.put(length.position(), bytes.length); }
+        binaryFormat.put(binaryFormat.position(), BINARY_FORMAT);
+    }
+
+    @Override
+    public void programBinary(int program, int binaryFormat, ByteBuffer binary) {
+        this.calls++;
+
+        if (binaryFormat != BINARY_FORMAT) {
+            this.programUniforms.remove(program);
+            this.unlinkedPrograms.add(program);
+            return;
+        }
+
+        String names = StandardCharsets.UTF_8.decode(binary.duplicate()).toString();
+        List<String> uniforms = new ArrayList<>();
+        if (!names.isEmpty()) { uniforms.addAll(List.of(names.split("\n"))); }
+
+        this.programUniforms.put(program, uniforms);
+        this.unlinkedPrograms.remove(program);
+    }
+
+    @Override
+    public String getActiveUniform(int program, int index, IntBuffer size, IntBuffer type) {
+        this.calls++;
+        return this.programUniforms.get(program).get(index);
+    }
+
+    @Override
+    public int getUniformLocation(int program, CharSequence name) {
+        this.calls++;
+        return this.programUniforms.getOrDefault(program, List.of()).indexOf(name.toString());
+    }
+
+    @Override
+    public void useProgram(int program) {
+        this.calls++;
+        if (program != 0) { this.programBinds++; }
+    }
+
+    @Override
+    public void deleteProgram(int program) {
+        this.calls++;
+        this.attachedShaders.remove(program);
+        this.programUniforms.remove(program);
+        this.unlinkedPrograms.remove(program);
+    }
+
+    @Override
+    public void uniform1i(int location, int value) { this.uniformSet(); }
+
+    @Override
+    public void uniform1iv(int location, int[] values) { this.uniformSet(); }
+
+    @Override
+    public void uniform1f(int location, float value) { this.uniformSet(); }
+
+    @Override
+    public void uniform2f(int location, float x, float y) { this.uniformSet(); }
+
+    @Override
+    public void uniform3f(int location, float x, float y, float z) { this.uniformSet(); }
+
+    @Override
+    public void uniform4f(int location, float x, float y, float z, float w) { this.uniformSet(); }
+
+    @Override
+    public void uniformMatrix3fv(int location, boolean transpose, float[] values) { this.uniformSet(); }
+
+    @Override
+    public void uniformMatrix4fv(int location, boolean transpose, float[] values) { this.uniformSet(); }
+
+    @Override
+    public String getString(int name) {
+        this.calls++;
+
+        return switch (name) {
+            case GL11.GL_VENDOR, GL11.GL_RENDERER -> DRIVER;
+            case GL11.GL_VERSION -> "3.3.0";
+            default -> null;
+        };
+    }
+
+    @Override
+    public boolean bufferStorageSupported() { return this.bufferStorageSupported; }
+
+    @Override
+    public boolean programBinarySupported() { return this.programBinarySupported; }
+
+    /**
+     * @return Total number of calls made to the backend.
+     */
+    public long calls() { return this.calls; }
+
+    /**
+     * @return Number of draw calls.
+     */
+    public long drawCalls() { return this.drawCalls; }
+
+    /**
+     * @return Number of indices drawn.
+     */
+    public long indices() { return this.indices; }
+
+    /**
+     * @return Number of instances drawn by instanced draw calls.
+     */
+    public long instances() { return this.instances; }
+
+    /**
+     * @return Number of texture binds, including unbinds.
+     */
+    public long textureBinds() { return this.textureBinds; }
+
+    /**
+     * @return Number of times a shader program was put in use.
+     */
+    public long programBinds() { return this.programBinds; }
+
+    /**
+     * @return Number of times a vertex array was bound, not counting unbinds.
+     */
+    public long vertexArrayBinds() { return this.vertexArrayBinds; }
+
+    /**
+     * @return Number of uniform values set.
+     */
+    public long uniformSets() { return this.uniformSets; }
+
+    /**
+     * @return Number of bytes uploaded into buffers, or allocated for them when created without data.
+     */
+    public long bufferBytes() { return this.bufferBytes; }
+
+    /**
+     * @return Number of bytes uploaded into textures, assuming one byte per channel.
+     */
+    public long textureBytes() { return this.textureBytes; }
+
+    /**
+     * @return Number of times a fence was waited on.
+     */
+    public long fenceWaits() { return this.fenceWaits; }
+
+    /**
+     * @return Number of fence waits that found the fence not yet complete.
+     */
+    public long stalls() { return this.stalls; }
+
+    /**
+     * @return Number of shaders compiled.
+     */
+    public long shaderCompiles() { return this.shaderCompiles; }
+
+    /**
+     * Reset every counter to zero. Object names and shader state are kept.
+     */
+    public void reset() {
+        this.calls = 0L;
+        this.drawCalls = 0L;
+        this.indices = 0L;
+        this.instances = 0L;
+        this.textureBinds = 0L;
+        this.programBinds = 0L;
+        this.vertexArrayBinds = 0L;
+        this.uniformSets = 0L;
+        this.bufferBytes = 0L;
+        this.textureBytes = 0L;
+        this.fenceWaits = 0L;
+        this.stalls = 0L;
+        this.shaderCompiles = 0L;
+    }
+
+    /**
+     * @return One-line summary of every counter.
+     */
+    public String summary() {
+        return String.format(
+            "%d calls, %d draw calls, %d indices, %d instances, %d texture binds, %d program binds, " +
+            "%d vertex array binds, %d uniform sets, %d buffer bytes, %d texture bytes, %d fence waits, %d stalls, " +
+            "%d shader compiles",
+            this.calls, this.drawCalls, this.indices, this.instances, this.textureBinds, this.programBinds,
+            this.vertexArrayBinds, this.uniformSets, this.bufferBytes, this.textureBytes, this.fenceWaits, this.stalls,
+            this.shaderCompiles
+        );
+    }
+
+    /**
+     * @return Next unused object name.
+     */
+    private int generate() {
+        this.calls++;
+        return this.nextName++;
+    }
+
+    /**
+     * @return Binary of a program: the names of its uniforms, one per line.
+     */
+    private byte[] binary(int program) {
+        List<String> uniforms = this.programUniforms.getOrDefault(program, List.of());
+        return String.join("\n", uniforms).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Count a uniform value being set.
+     */
+    private void uniformSet() {
+        this.calls++;
+        this.uniformSets++;
+    }
+}
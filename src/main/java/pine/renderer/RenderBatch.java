@@ -0,0 +1,277 @@
+package pine.renderer;
+
+import org.joml.Vector4f;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+import pine.utils.BlendMode;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Batch of textured quads sharing a single texture, packed into one dynamic vertex buffer and drawn with a single draw
+ * call.
+ */
+public class RenderBatch {
+    public static final int POSITION_SIZE = 3;
+    public static final int COLOR_SIZE = 4;
+    public static final int UV_SIZE = 2;
+
+    public static final int POSITION_OFFSET = 0;
+    public static final int COLOR_OFFSET = POSITION_OFFSET + POSITION_SIZE * Float.BYTES;
+    public static final int UV_OFFSET = COLOR_OFFSET + COLOR_SIZE * Float.BYTES;
+
+    public static final int VERTEX_SIZE = POSITION_SIZE + COLOR_SIZE + UV_SIZE;
+    public static final int VERTEX_SIZE_BYTES = VERTEX_SIZE * Float.BYTES;
+
+    public static final int VERTICES_PER_QUAD = 4;
+    public static final int INDICES_PER_QUAD = 6;
+
+    private final int maxBatchSize;
+    private final float[] vertices;
+    private final Texture texture;
+    private int quadCount;
+
+    private int vaoID, vboID, eboID;
+    private FloatBuffer vertexBuffer;
+
+    /**
+     * Create a new render batch. No OpenGL objects are created until the batch is started.
+     *
+     * @param maxBatchSize Maximum number of quads the batch can hold.
+     * @param texture      Texture shared by every quad in the batch.
+     */
+    public RenderBatch(int maxBatchSize, Texture texture) {
+        this.maxBatchSize = maxBatchSize;
+        this.vertices = new float[maxBatchSize * VERTICES_PER_QUAD * VERTEX_SIZE];
+        this.texture = texture;
+        this.quadCount = 0;
+    }
+
+    /**
+     * Create the VAO, the dynamic VBO sized for the whole batch and the static EBO, and set up the vertex attributes.
+     */
+    public void start() {
+        GraphicsBackend gl = Graphics.backend();
+
+        this.vaoID = gl.genVertexArrays();
+        gl.bindVertexArray(this.vaoID);
+
+        this.vertexBuffer = BufferUtils.createFloatBuffer(this.vertices.length);
+
+        this.vboID = gl.genBuffers();
+        gl.bindBuffer(GL15.GL_ARRAY_BUFFER, this.vboID);
+        gl.bufferData(GL15.GL_ARRAY_BUFFER, (long) this.vertices.length * Float.BYTES, GL15.GL_DYNAMIC_DRAW);
+
+        int[] indices = RenderBatch.generateIndices(this.maxBatchSize);
+        IntBuffer elementBuffer = BufferUtils.createIntBuffer(indices.length);
+        elementBuffer.put(indices).flip();
+
+        this.eboID = gl.genBuffers();
+        gl.bindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, this.eboID);
+        gl.bufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, elementBuffer, GL15.GL_STATIC_DRAW);
+
+        gl.vertexAttribPointer(0, POSITION_SIZE, GL11.GL_FLOAT, false, VERTEX_SIZE_BYTES, POSITION_OFFSET);
+        gl.enableVertexAttribArray(0);
+
+        gl.vertexAttribPointer(1, COLOR_SIZE, GL11.GL_FLOAT, false, VERTEX_SIZE_BYTES, COLOR_OFFSET);
+        gl.enableVertexAttribArray(1);
+
+        gl.vertexAttribPointer(2, UV_SIZE, GL11.GL_FLOAT, false, VERTEX_SIZE_BYTES, UV_OFFSET);
+        gl.enableVertexAttribArray(2);
+
+        gl.bindVertexArray(0);
+    }
+
+    /**
+     * Add a quad to the batch.
+     *
+     * @param x      x-coordinate of the bottom-left corner.
+     * @param y      y-coordinate of the bottom-left corner.
+     * @param width  Width of the quad.
+     * @param height Height of the quad.
+     * @param color  Colour of the quad.
+     * @param u0     Left texture coordinate.
+     * @param v0     Bottom texture coordinate.
+     * @param u1     Right texture coordinate.
+     * @param v1     Top texture coordinate.
+     * @return Whether the quad was added; false if the batch is full.
+     */
+    public boolean addQuad(
+        float x, float y, float width, float height, Vector4f color, float u0, float v0, float u1, float v1
+    ) {
+        if (this.quadCount >= this.maxBatchSize) { return false; }
+
+        RenderBatch.packQuad(
+            this.vertices, this.quadCount * VERTICES_PER_QUAD * VERTEX_SIZE,
+            x, y, width, height, color.x, color.y, color.z, color.w, u0, v0, u1, v1
+        );
+        this.quadCount++;
+
+        return true;
+    }
+
+    /**
+     * Add as many quads of a range as fit, written by a quad writer straight into the vertex array.
+     *
+     * @param from   First quad of the writer to add, inclusive.
+     * @param to     Last quad of the writer to add, exclusive.
+     * @param writer Writer of the quads.
+     * @return Number of quads added; zero if the batch is full.
+     */
+    public int addQuads(int from, int to, QuadWriter writer) {
+        final int count = Math.min(to - from, this.maxBatchSize - this.quadCount);
+        if (count <= 0) { return 0; }
+
+        writer.writeVertices(this.vertices, this.quadCount * VERTICES_PER_QUAD * VERTEX_SIZE, from, from + count);
+        this.quadCount += count;
+
+        return count;
+    }
+
+    /**
+     * Upload the used part of the vertex array and submit every quad in the batch to a render queue as a single draw
+     * command, then empty the batch.
+     *
+     * @param queue  Queue to submit the batch to.
+     * @param shader Shader to draw the batch with.
+     * @param layer  Layer of the draw command.
+     * @return Number of draw commands submitted; zero if the batch was empty.
+     */
+    public int submit(RenderQueue queue, Shader shader, int layer) {
+        if (this.quadCount == 0) { return 0; }
+
+        this.vertexBuffer.clear();
+        this.vertexBuffer.put(this.vertices, 0, this.quadCount * VERTICES_PER_QUAD * VERTEX_SIZE).flip();
+
+        Graphics.backend().bindBuffer(GL15.GL_ARRAY_BUFFER, this.vboID);
+        Graphics.backend().bufferSubData(GL15.GL_ARRAY_BUFFER, 0, this.vertexBuffer);
+
+        queue.submit(
+            layer, BlendMode.Opaque, shader, this.texture, this.vaoID, 0, 0, this.quadCount * INDICES_PER_QUAD
+        );
+
+        this.quadCount = 0;
+        return 1;
+    }
+
+    /**
+     * Empty the batch without drawing it.
+     */
+    public void clear() {
+        this.quadCount = 0;
+    }
+
+    /**
+     * Delete the OpenGL objects owned by the batch.
+     */
+    public void delete() {
+        Graphics.backend().deleteBuffers(this.vboID);
+        Graphics.backend().deleteBuffers(this.eboID);
+        Graphics.backend().deleteVertexArrays(this.vaoID);
+    }
+
+    /**
+     * @return Texture shared by every quad in the batch.
+     */
+    public Texture texture() { return this.texture; }
+
+    /**
+     * @return Number of quads currently in the batch.
+     */
+    public int quadCount() { return this.quadCount; }
+
+    /**
+     * @return Whether the batch cannot hold any more quads.
+     */
+    public boolean isFull() { return this.quadCount >= this.maxBatchSize; }
+
+    /**
+     * @return CPU-side vertex array of the batch; only the first {@link #quadCount()} quads are valid.
+     */
+    public float[] vertices() { return this.vertices; }
+
+    /**
+     * Write the four vertices of a quad into a vertex array using the position, colour and UV layout of the default
+     * shader. The vertices are written bottom-right, top-left, top-right, bottom-left to match
+     * {@link #generateIndices(int)}.
+     *
+     * @param vertices Vertex array to write into.
+     * @param offset   Index of the first float to write.
+     * @param x        x-coordinate of the bottom-left corner.
+     * @param y        y-coordinate of the bottom-left corner.
+     * @param width    Width of the quad.
+     * @param height   Height of the quad.
+     * @param r        Red component of the colour.
+     * @param g        Green component of the colour.
+     * @param b        Blue component of the colour.
+     * @param a        Alpha component of the colour.
+     * @param u0       Left texture coordinate.
+     * @param v0       Bottom texture coordinate.
+     * @param u1       Right texture coordinate.
+     * @param v1       Top texture coordinate.
+     */
+    public static void packQuad(
+        float[] vertices, int offset, float x, float y, float width, float height,
+        float r, float g, float b, float a, float u0, float v0, float u1, float v1
+    ) {
+        final float right = x + width;
+        final float top = y + height;
+
+        offset = RenderBatch.packVertex(vertices, offset, right, y, r, g, b, a, u1, v0);  // Bottom-right.
+        offset = RenderBatch.packVertex(vertices, offset, x, top, r, g, b, a, u0, v1);    // Top-left.
+        offset = RenderBatch.packVertex(vertices, offset, right, top, r, g, b, a, u1, v1);  // Top-right.
+        RenderBatch.packVertex(vertices, offset, x, y, r, g, b, a, u0, v0);                // Bottom-left.
+    }
+
+    /**
+     * Generate the element indices for a number of quads; two triangles per quad.
+     *
+     * @param quadCount Number of quads to generate indices for.
+     * @return Element indices for the quads.
+     */
+    public static int[] generateIndices(int quadCount) {
+        int[] indices = new int[quadCount * INDICES_PER_QUAD];
+
+        for (int i = 0; i < quadCount; i++) {
+            final int index = i * INDICES_PER_QUAD;
+            final int vertex = i * VERTICES_PER_QUAD;
+
+            // Top-right triangle.
+            indices[index] = vertex + 2;
+            indices[index + 1] = vertex + 1;
+            indices[index + 2] = vertex;
+
+            // Bottom-left triangle.
+            indices[index + 3] = vertex;
+            indices[index + 4] = vertex + 1;
+            indices[index + 5] = vertex + 3;
+        }
+
+        return indices;
+    }
+
+    /**
+     * Write a single vertex into a vertex array.
+     *
+     * @return Index of the float after the written vertex.
+     */
+    private static int packVertex(
+        float[] vertices, int offset, float x, float y, float r, float g, float b, float a, float u, float v
+    ) {
+        vertices[offset] = x;
+        vertices[offset + 1] = y;
+        vertices[offset + 2] = 0F;
+
+        vertices[offset + 3] = r;
+        vertices[offset + 4] = g;
+        vertices[offset + 5] = b;
+        vertices[offset + 6] = a;
+
+        vertices[offset + 7] = u;
+        vertices[offset + 8] = v;
+
+        return offset + VERTEX_SIZE;
+    }
+}
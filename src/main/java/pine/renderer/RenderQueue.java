@@ -0,0 +1,458 @@
+package pine.renderer;
+
+import org.lwjgl.opengl.GL11;
+import pine.profiling.Profiler;
+import pine.utils.BlendMode;
+import pine.utils.ProfileCounter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Queue of draw commands, sorted each frame so that commands sharing state are drawn together. Every command is packed
+ * into a 64-bit sort key; from the most significant bits down:
+ * <pre>
+ *   layer (8) | blend (2) | shader (10) | texture (14) | vertex array (14) | depth (16)   opaque commands
+ *   layer (8) | blend (2) | depth (16) | shader (10) | texture (14) | vertex array (14)   blended commands
+ * </pre>
+ * Layers are drawn in ascending order and opaque commands before blended ones within a layer. Opaque commands are
+ * grouped by state, while blended commands are drawn in ascending depth so that they composite correctly. The keys are
+ * radix-sorted, and replaying them skips every bind that would not change the current state and merges commands that
+ * draw neighbouring index ranges with the same state into one draw call. Instanced commands are never merged.
+ * <p>
+ * Everything but {@link #execute()} is CPU-side, and execute only goes through {@link Graphics#backend()}, so the
+ * sorting and merging can be checked with a {@link RecordingBackend}.
+ */
+public class RenderQueue {
+    public static final int MAX_LAYER = (1 << 8) - 1;
+    public static final int MAX_DEPTH = (1 << 16) - 1;
+    public static final int MAX_SHADERS = 1 << 10;
+    public static final int MAX_TEXTURES = 1 << 14;
+
+    private static final int LAYER_SHIFT = 56;
+    private static final int BLEND_SHIFT = 54;
+    private static final int SHADER_SHIFT = 28;
+    private static final int TEXTURE_SHIFT = 14;
+    private static final int STATE_BITS = 38;
+    private static final long VERTEX_ARRAY_MASK = (1L << 14) - 1L;
+    private static final BlendMode[] BLEND_MODES = BlendMode.values();
+
+    private final Map<Shader, Integer> shaderSlots;
+    private final List<Shader> shaders;
+    private final Map<Object, Integer> textureSlots;
+    private final List<Object> textures;
+    private final int[] histograms;
+    private long[] keys, keyScratch;
+    private int[] order, orderScratch;
+    private int[] blendOf, shaderOf, textureOf, vertexArrayOf, firstOf, countOf, instancesOf;
+    private int count;
+    private boolean sorted;
+    private ShaderSetup shaderSetup;
+    private int drawCalls, mergedCommands, bindsIssued, bindsSaved;
+
+    /**
+     * Called whenever a command switches to a different shader, right after it is put in use.
+     */
+    @FunctionalInterface
+    public interface ShaderSetup {
+        /**
+         * Upload the per-frame uniforms of a shader.
+         *
+         * @param shader Shader that was just put in use.
+         */
+        void setup(Shader shader);
+    }
+
+    /**
+     * Create a new empty render queue.
+     *
+     * @param capacity Number of commands the queue holds before growing.
+     */
+    public RenderQueue(int capacity) {
+        this.shaderSlots = new IdentityHashMap<>();
+        this.shaders = new ArrayList<>();
+        this.textureSlots = new IdentityHashMap<>();
+        this.textures = new ArrayList<>();
+        this.histograms = new int[Long.BYTES * 256];
+
+        // Slot 0 is reserved for commands without a texture.
+        this.textures.add(null);
+
+        this.allocate(Math.max(1, capacity));
+    }
+
+    /**
+     * Set the callback run whenever a command switches shader, typically to upload the camera matrices.
+     *
+     * @param shaderSetup Callback, or null for none.
+     */
+    public void setShaderSetup(ShaderSetup shaderSetup) {
+        this.shaderSetup = shaderSetup;
+    }
+
+    /**
+     * Submit a draw command for a range of triangles from an element buffer of unsigned ints.
+     *
+     * @param layer       Layer of the command, from 0 to {@link #MAX_LAYER}; lower layers are drawn first.
+     * @param blend       Blend mode of the command.
+     * @param shader      Shader to draw with.
+     * @param texture     Texture bound to unit 0, or null for none.
+     * @param vertexArray Name of the vertex array object holding the vertices and element buffer.
+     * @param depth       Depth within the layer, from 0 to {@link #MAX_DEPTH}; lower depths are drawn first.
+     * @param firstIndex  Index of the first element to draw.
+     * @param indexCount  Number of elements to draw.
+     */
+    public void submit(
+        int layer, BlendMode blend, Shader shader, Texture texture, int vertexArray, int depth,
+        int firstIndex, int indexCount
+    ) {
+        this.push(layer, blend, shader, texture, vertexArray, depth, firstIndex, indexCount, 0);
+    }
+
+    /**
+     * Submit an instanced draw command for a range of triangles from an element buffer of unsigned ints, sampling
+     * from a set of textures bound to consecutive units.
+     *
+     * @param layer         Layer of the command, from 0 to {@link #MAX_LAYER}; lower layers are drawn first.
+     * @param blend         Blend mode of the command.
+     * @param shader        Shader to draw with.
+     * @param textures      Textures bound to units 0 and up; read when the queue is executed.
+     * @param vertexArray   Name of the vertex array object holding the vertices, instances and element buffer.
+     * @param depth         Depth within the layer, from 0 to {@link #MAX_DEPTH}; lower depths are drawn first.
+     * @param firstIndex    Index of the first element to draw.
+     * @param indexCount    Number of elements to draw per instance.
+     * @param instanceCount Number of instances to draw.
+     */
+    public void submit(
+        int layer, BlendMode blend, Shader shader, TextureSet textures, int vertexArray, int depth,
+        int firstIndex, int indexCount, int instanceCount
+    ) {
+        this.push(layer, blend, shader, textures, vertexArray, depth, firstIndex, indexCount, instanceCount);
+    }
+
+    /**
+     * Pack a command into its sort key and record its state.
+     *
+     * @param binding Texture or texture set of the command, or null for none.
+     */
+    private void push(
+        int layer, BlendMode blend, Shader shader, Object binding, int vertexArray, int depth,
+        int firstIndex, int indexCount, int instanceCount
+    ) {
+        assert layer >= 0 && layer <= MAX_LAYER : "Error (RenderQueue.java): Layer out of range '" + layer + "'.";
+        assert depth >= 0 && depth <= MAX_DEPTH : "Error (RenderQueue.java): Depth out of range '" + depth + "'.";
+
+        if (this.count == this.keys.length) { this.allocate(this.keys.length * 2); }
+
+        final int shaderSlot = this.shaderSlot(shader);
+        final int textureSlot = this.textureSlot(binding);
+        final long state = (long) shaderSlot << SHADER_SHIFT | (long) textureSlot << TEXTURE_SHIFT |
+            (vertexArray & VERTEX_ARRAY_MASK);
+
+        final long order = blend == BlendMode.Opaque ? state << 16 | depth : (long) depth << STATE_BITS | state;
+
+        final int command = this.count++;
+        this.sorted = false;
+        this.keys[command] = (long) layer << LAYER_SHIFT | (long) blend.ordinal() << BLEND_SHIFT | order;
+        this.blendOf[command] = blend.ordinal();
+        this.shaderOf[command] = shaderSlot;
+        this.textureOf[command] = textureSlot;
+        this.vertexArrayOf[command] = vertexArray;
+        this.firstOf[command] = firstIndex;
+        this.countOf[command] = indexCount;
+        this.instancesOf[command] = instanceCount;
+    }
+
+    /**
+     * Sort the submitted commands by their keys with a least-significant-byte radix sort. The sort is stable, so
+     * commands with equal keys keep their submission order, and byte positions shared by every key are skipped.
+     * Sorting an already sorted queue does nothing.
+     */
+    public void sort() {
+        if (this.sorted) { return; }
+        this.sorted = true;
+
+        final int count = this.count;
+        for (int i = 0; i < count; i++) { this.order[i] = i; }
+        if (count < 2) { return; }
+
+        final int[] histograms = this.histograms;
+        Arrays.fill(histograms, 0);
+
+        for (int i = 0; i < count; i++) {
+            final long key = this.keys[i];
+            for (int pass = 0; pass < Long.BYTES; pass++) {
+                histograms[pass << 8 | (int) (key >>> (pass << 3)) & 0xFF]++;
+            }
+        }
+
+        for (int pass = 0; pass < Long.BYTES; pass++) {
+            final int base = pass << 8;
+            final int shift = pass << 3;
+
+            // Every key has the same byte here, so this pass would not move anything.
+            if (histograms[base | (int) (this.keys[0] >>> shift) & 0xFF] == count) { continue; }
+
+            int offset = 0;
+            for (int digit = 0; digit < 256; digit++) {
+                final int digitCount = histograms[base | digit];
+                histograms[base | digit] = offset;
+                offset += digitCount;
+            }
+
+            for (int i = 0; i < count; i++) {
+                final long key = this.keys[i];
+                final int destination = histograms[base | (int) (key >>> shift) & 0xFF]++;
+
+                this.keyScratch[destination] = key;
+                this.orderScratch[destination] = this.order[i];
+            }
+
+            long[] keys = this.keys;
+            this.keys = this.keyScratch;
+            this.keyScratch = keys;
+
+            int[] order = this.order;
+            this.order = this.orderScratch;
+            this.orderScratch = order;
+        }
+    }
+
+    /**
+     * Sort and draw every submitted command, then empty the queue. The vertex array, the blend state and the shader
+     * in use are reset once every command has been drawn.
+     *
+     * @return Number of draw calls issued.
+     */
+    public int execute() {
+        this.sort();
+
+        GraphicsBackend gl = Graphics.backend();
+        int shader = -1, texture = -1, vertexArray = -1;
+        BlendMode blend = BlendMode.Opaque;
+
+        this.drawCalls = 0;
+        this.mergedCommands = 0;
+        this.bindsIssued = 0;
+        this.bindsSaved = 0;
+
+        for (int i = 0; i < this.count; i++) {
+            final int command = this.order[i];
+            final BlendMode commandBlend = BLEND_MODES[this.blendOf[command]];
+            final int first = this.firstOf[command];
+            int indexCount = this.countOf[command];
+
+            // Fold in the following commands that continue the same index range with the same state.
+            while (i + 1 < this.count && this.mergeable(command, this.order[i + 1], first + indexCount)) {
+                indexCount += this.countOf[this.order[++i]];
+                this.mergedCommands++;
+                this.bindsSaved += 4;
+            }
+
+            if (commandBlend != blend) {
+                RenderQueue.applyBlend(gl, commandBlend);
+                blend = commandBlend;
+                this.bindsIssued++;
+            }
+
+            else {
+                this.bindsSaved++;
+            }
+
+            if (this.shaderOf[command] != shader) {
+                shader = this.shaderOf[command];
+
+                Shader program = this.shaders.get(shader);
+                program.use();
+                if (this.shaderSetup != null) { this.shaderSetup.setup(program); }
+
+                this.bindsIssued++;
+            }
+
+            else {
+                this.bindsSaved++;
+            }
+
+            if (this.textureOf[command] != texture) {
+                texture = this.textureOf[command];
+
+                Object binding = this.textures.get(texture);
+
+                if (binding instanceof Texture single) { single.bind(); }
+                else if (binding instanceof TextureSet set) { set.bind(); }
+                else { gl.bindTexture(GL11.GL_TEXTURE_2D, 0); }
+
+                this.bindsIssued++;
+            }
+
+            else {
+                this.bindsSaved++;
+            }
+
+            if (this.vertexArrayOf[command] != vertexArray) {
+                vertexArray = this.vertexArrayOf[command];
+                gl.bindVertexArray(vertexArray);
+                this.bindsIssued++;
+            }
+
+            else {
+                this.bindsSaved++;
+            }
+
+            final long offset = (long) first * Integer.BYTES;
+            final int instances = this.instancesOf[command];
+
+            if (instances > 0) {
+                gl.drawElementsInstanced(GL11.GL_TRIANGLES, indexCount, GL11.GL_UNSIGNED_INT, offset, instances);
+            }
+
+            else {
+                gl.drawElements(GL11.GL_TRIANGLES, indexCount, GL11.GL_UNSIGNED_INT, offset);
+            }
+            this.drawCalls++;
+        }
+
+        if (vertexArray != -1) { gl.bindVertexArray(0); }
+        if (blend != BlendMode.Opaque) { RenderQueue.applyBlend(gl, BlendMode.Opaque); }
+        if (shader != -1) { this.shaders.get(shader).detach(); }
+
+        Profiler.count(ProfileCounter.BindsSaved, this.bindsSaved);
+
+        this.clear();
+        return this.drawCalls;
+    }
+
+    /**
+     * Empty the queue without drawing it, and forget every shader and texture it has seen, so that they can be garbage
+     * collected and the slot limits apply to each frame rather than to the lifetime of the queue.
+     */
+    public void clear() {
+        this.count = 0;
+
+        this.shaderSlots.clear();
+        this.shaders.clear();
+        this.textureSlots.clear();
+        this.textures.clear();
+        this.textures.add(null);
+    }
+
+    /**
+     * @return Number of commands submitted since the queue was last executed or cleared.
+     */
+    public int size() { return this.count; }
+
+    /**
+     * @param index Position in the sorted order.
+     * @return Sort key at the position; only valid after {@link #sort()}.
+     */
+    public long sortedKey(int index) { return this.keys[index]; }
+
+    /**
+     * @param index Position in the sorted order.
+     * @return Submission index of the command at the position; only valid after {@link #sort()}.
+     */
+    public int sortedCommand(int index) { return this.order[index]; }
+
+    /**
+     * @return Number of draw calls issued by the last call to {@link #execute()}.
+     */
+    public int drawCalls() { return this.drawCalls; }
+
+    /**
+     * @return Number of commands folded into the draw call of the command before them by the last execute.
+     */
+    public int mergedCommands() { return this.mergedCommands; }
+
+    /**
+     * @return Number of blend, shader, texture and vertex array binds issued by the last execute.
+     */
+    public int bindsIssued() { return this.bindsIssued; }
+
+    /**
+     * @return Number of blend, shader, texture and vertex array binds skipped by the last execute, compared to binding
+     * all four for every command.
+     */
+    public int bindsSaved() { return this.bindsSaved; }
+
+    /**
+     * @return Whether a command can be drawn in the same draw call as the command before it.
+     */
+    private boolean mergeable(int command, int next, int nextFirst) {
+        return this.instancesOf[command] == 0 && this.instancesOf[next] == 0 && this.firstOf[next] == nextFirst &&
+            this.shaderOf[next] == this.shaderOf[command] &&
+            this.textureOf[next] == this.textureOf[command] &&
+            this.vertexArrayOf[next] == this.vertexArrayOf[command] &&
+            this.blendOf[next] == this.blendOf[command];
+    }
+
+    /**
+     * @return Slot of a shader, registering it on first use.
+     */
+    private int shaderSlot(Shader shader) {
+        Integer slot = this.shaderSlots.get(shader);
+        if (slot != null) { return slot; }
+
+        assert this.shaders.size() < MAX_SHADERS :
+            "Error (RenderQueue.java): More than " + MAX_SHADERS + " shaders submitted in one frame.";
+
+        this.shaders.add(shader);
+        this.shaderSlots.put(shader, this.shaders.size() - 1);
+        return this.shaders.size() - 1;
+    }
+
+    /**
+     * @return Slot of a texture or texture set, registering it on first use; 0 for no texture.
+     */
+    private int textureSlot(Object binding) {
+        if (binding == null) { return 0; }
+
+        Integer slot = this.textureSlots.get(binding);
+        if (slot != null) { return slot; }
+
+        assert this.textures.size() < MAX_TEXTURES :
+            "Error (RenderQueue.java): More than " + (MAX_TEXTURES - 1) + " textures submitted in one frame.";
+
+        this.textures.add(binding);
+        this.textureSlots.put(binding, this.textures.size() - 1);
+        return this.textures.size() - 1;
+    }
+
+    /**
+     * Grow the command arrays, keeping the submitted commands.
+     */
+    private void allocate(int capacity) {
+        this.keys = this.keys == null ? new long[capacity] : Arrays.copyOf(this.keys, capacity);
+        this.keyScratch = new long[capacity];
+        this.order = new int[capacity];
+        this.orderScratch = new int[capacity];
+
+        this.blendOf = this.blendOf == null ? new int[capacity] : Arrays.copyOf(this.blendOf, capacity);
+        this.shaderOf = this.shaderOf == null ? new int[capacity] : Arrays.copyOf(this.shaderOf, capacity);
+        this.textureOf = this.textureOf == null ? new int[capacity] : Arrays.copyOf(this.textureOf, capacity);
+        this.vertexArrayOf = this.vertexArrayOf == null ?
+            new int[capacity] : Arrays.copyOf(this.vertexArrayOf, capacity);
+        this.firstOf = this.firstOf == null ? new int[capacity] : Arrays.copyOf(this.firstOf, capacity);
+        this.countOf = this.countOf == null ? new int[capacity] : Arrays.copyOf(this.countOf, capacity);
+        this.instancesOf = this.instancesOf == null ? new int[capacity] : Arrays.copyOf(this.instancesOf, capacity);
+    }
+
+    /**
+     * Set the blend state for a blend mode.
+     */
+    private static void applyBlend(GraphicsBackend gl, BlendMode blend) {
+        switch (blend) {
+            case Opaque -> gl.disable(GL11.GL_BLEND);
+            case Alpha -> {
+                gl.enable(GL11.GL_BLEND);
+                gl.blendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
+            }
+            case Additive -> {
+                gl.enable(GL11.GL_BLEND);
+                gl.blendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE);
+            }
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package pine.renderer;
+
+import org.joml.Vector4f;
+import org.lwjgl.opengl.GL13;
+import pine.Camera;
+import pine.profiling.Profiler;
+import pine.utils.ProfileCounter;
+import pine.utils.ProfileSection;
+import pine.utils.RenderPath;
+import pine.utils.Time;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batched quad renderer. Quads are grouped into render batches by texture and each batch is flushed with a single draw
+ * call. Tilemaps and batches are submitted to a {@link RenderQueue}, which orders the draw calls to avoid redundant
+ * binds.
+ * <p>
+ * Given an instanced shader, quads can instead be drawn as instances of a shared unit quad through
+ * {@link InstanceBatch}es, uploading 32 bytes per quad instead of 144. In {@link RenderPath#Auto} the path is chosen
+ * each frame from the previous frame's quad count: instancing pays off for many quads, while a handful of quads are
+ * cheaper to draw from a plain batch than to set up instance attributes for.
+ */
+public class Renderer {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int TILEMAP_LAYER = 0;
+    public static final int QUAD_LAYER = 1;
+    public static final int INSTANCING_THRESHOLD = 256;
+
+    private static final int[] SAMPLER_UNITS = { 0, 1, 2, 3, 4, 5, 6, 7 };
+
+    private final Shader shader;
+    private final int maxBatchSize;
+    private final List<RenderBatch> batches;
+    private final List<Tilemap> tilemaps;
+    private final List<InstanceBatch> instanceBatches;
+    private final RenderQueue queue;
+    private RenderBatch lastBatch;
+    private InstanceBatch lastInstanceBatch;
+    private Shader instancedShader;
+    private RenderPath renderPath;
+    private boolean instancing;
+    private Camera camera, lastCamera;
+    private int samplerLocation, projectionLocation, viewLocation, timeLocation, shaderVersion;
+    private int instancedSamplerLocation, instancedProjectionLocation, instancedViewLocation, instancedTimeLocation;
+    private int instancedShaderVersion;
+    private int lastProjectionVersion, lastViewVersion;
+    private int drawCalls, quadCount;
+
+    /**
+     * Create a new renderer with the default batch size.
+     *
+     * @param shader Shader used to draw every batch.
+     */
+    public Renderer(Shader shader) {
+        this(shader, Renderer.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Create a new renderer. The shader must already be linked so that its uniform locations can be looked up; they
+     * are only looked up again when the shader is reloaded.
+     *
+     * @param shader       Shader used to draw every batch.
+     * @param maxBatchSize Maximum number of quads in a single batch.
+     */
+    public Renderer(Shader shader, int maxBatchSize) {
+        this.shader = shader;
+        this.maxBatchSize = maxBatchSize;
+        this.batches = new ArrayList<>();
+        this.tilemaps = new ArrayList<>();
+        this.instanceBatches = new ArrayList<>();
+        this.queue = new RenderQueue(64);
+        this.lastBatch = null;
+        this.renderPath = RenderPath.Batched;
+
+        this.lookUpLocations();
+    }
+
+    /**
+     * Set how quads are drawn, starting from the next frame.
+     *
+     * @param instancedShader Linked instanced shader, or null if only the batched path is used.
+     * @param renderPath      Path to draw quads with; must be {@link RenderPath#Batched} without an instanced shader.
+     */
+    public void setRenderPath(Shader instancedShader, RenderPath renderPath) {
+        assert instancedShader != null || renderPath == RenderPath.Batched :
+            "Error (Renderer.java): The instanced render path needs an instanced shader.";
+
+        this.instancedShader = instancedShader;
+        this.renderPath = renderPath;
+        this.instancing = renderPath == RenderPath.Instanced;
+        this.queue.setShaderSetup(instancedShader == null ? null : this::setupInstanced);
+
+        if (instancedShader != null) { this.lookUpInstancedLocations(); }
+    }
+
+    /**
+     * Submit a textured quad to be drawn on the next call to {@link #render(Camera)}.
+     *
+     * @param texture Texture of the quad.
+     * @param x       x-coordinate of the bottom-left corner.
+     * @param y       y-coordinate of the bottom-left corner.
+     * @param width   Width of the quad.
+     * @param height  Height of the quad.
+     * @param color   Colour of the quad.
+     */
+    public void drawQuad(Texture texture, float x, float y, float width, float height, Vector4f color) {
+        this.drawQuad(texture, x, y, width, height, color, 0F, 0F, 1F, 1F);
+    }
+
+    /**
+     * Submit a quad showing part of a texture to be drawn on the next call to {@link #render(Camera)}.
+     *
+     * @param texture Texture of the quad.
+     * @param x       x-coordinate of the bottom-left corner.
+     * @param y       y-coordinate of the bottom-left corner.
+     * @param width   Width of the quad.
+     * @param height  Height of the quad.
+     * @param color   Colour of the quad.
+     * @param u0      Left texture coordinate.
+     * @param v0      Bottom texture coordinate.
+     * @param u1      Right texture coordinate.
+     * @param v1      Top texture coordinate.
+     */
+    public void drawQuad(
+        Texture texture, float x, float y, float width, float height, Vector4f color,
+        float u0, float v0, float u1, float v1
+    ) {
+        if (this.instancing) {
+            this.instanceBatchFor(texture).addQuad(texture, x, y, width, height, color, u0, v0, u1, v1);
+            return;
+        }
+
+        RenderBatch batch = this.batchFor(texture);
+        batch.addQuad(x, y, width, height, color, u0, v0, u1, v1);
+    }
+
+    /**
+     * Submit a sprite to be drawn on the next call to {@link #render(Camera)}.
+     *
+     * @param sprite Sprite to draw.
+     * @param x      x-coordinate of the bottom-left corner.
+     * @param y      y-coordinate of the bottom-left corner.
+     * @param width  Width of the quad.
+     * @param height Height of the quad.
+     * @param color  Colour the sprite is tinted with.
+     */
+    public void drawSprite(Sprite sprite, float x, float y, float width, float height, Vector4f color) {
+        this.drawQuad(
+            sprite.texture(), x, y, width, height, color, sprite.u0(), sprite.v0(), sprite.u1(), sprite.v1()
+        );
+    }
+
+    /**
+     * Submit many quads sharing a texture to be drawn on the next call to {@link #render(Camera)}. The quads are
+     * written by the writer straight into the vertex or instance memory of as many batches as they need, in the layout
+     * of the current render path.
+     *
+     * @param texture Texture of the quads, or null for none.
+     * @param count   Number of quads.
+     * @param writer  Writer of the quads.
+     */
+    public void drawQuads(Texture texture, int count, QuadWriter writer) {
+        int written = 0;
+
+        while (written < count) {
+            if (this.instancing) {
+                written += this.instanceBatchFor(texture).addQuads(texture, written, count, writer);
+            }
+
+            else {
+                written += this.batchFor(texture).addQuads(written, count, writer);
+            }
+        }
+    }
+
+    /**
+     * Submit a tilemap to be drawn on the next call to {@link #render(Camera)}, underneath the quads.
+     *
+     * @param tilemap Tilemap to draw.
+     */
+    public void drawTilemap(Tilemap tilemap) {
+        this.tilemaps.add(tilemap);
+    }
+
+    /**
+     * Upload the camera matrices and draw the submitted tilemaps and every batch through the render queue, tilemaps
+     * first. The view and projection matrices are only uploaded when the camera or their versions change; the shader
+     * skips any other upload whose value is unchanged.
+     *
+     * @param camera Camera to render the batches with.
+     */
+    public void render(Camera camera) {
+        Profiler.begin(ProfileSection.Render);
+        this.shader.use();
+
+        // A reloaded program has new uniform locations and none of the previous uniform values.
+        final boolean reloaded = this.shader.version() != this.shaderVersion;
+        if (reloaded) { this.lookUpLocations(); }
+
+        this.shader.uploadTexture(this.samplerLocation, 0);
+        Graphics.backend().activeTexture(GL13.GL_TEXTURE0);
+
+        final boolean cameraChanged = reloaded || camera != this.lastCamera;
+
+        if (cameraChanged || camera.projectionVersion() != this.lastProjectionVersion) {
+            this.shader.uploadMatrix(this.projectionLocation, camera.projectionMatrix());
+            this.lastProjectionVersion = camera.projectionVersion();
+        }
+
+        if (cameraChanged || camera.viewVersion() != this.lastViewVersion) {
+            this.shader.uploadMatrix(this.viewLocation, camera.viewMatrix());
+            this.lastViewVersion = camera.viewVersion();
+        }
+
+        this.lastCamera = camera;
+        this.camera = camera;
+        this.shader.uploadFloat(this.timeLocation, (float) Time.time());
+
+        this.drawCalls = 0;
+        this.quadCount = 0;
+
+        for (int i = 0; i < this.tilemaps.size(); i++) {
+            Tilemap tilemap = this.tilemaps.get(i);
+
+            tilemap.submit(this.queue, this.shader, TILEMAP_LAYER, camera);
+            this.quadCount += tilemap.drawnQuads();
+        }
+        this.tilemaps.clear();
+
+        int quads = 0;
+
+        for (int i = 0; i < this.batches.size(); i++) {
+            RenderBatch batch = this.batches.get(i);
+
+            quads += batch.quadCount();
+            batch.submit(this.queue, this.shader, QUAD_LAYER);
+        }
+
+        for (int i = 0; i < this.instanceBatches.size(); i++) {
+            InstanceBatch batch = this.instanceBatches.get(i);
+
+            quads += batch.quadCount();
+            batch.submit(this.queue, this.instancedShader, QUAD_LAYER);
+        }
+
+        this.quadCount += quads;
+        this.drawCalls = this.queue.execute();
+
+        this.instancing = switch (this.renderPath) {
+            case Batched -> false;
+            case Instanced -> true;
+            case Auto -> quads >= INSTANCING_THRESHOLD;
+        };
+
+        Profiler.count(ProfileCounter.DrawCalls, this.drawCalls);
+        Profiler.count(ProfileCounter.Vertices, (long) this.quadCount * RenderBatch.VERTICES_PER_QUAD);
+        Profiler.end(ProfileSection.Render);
+    }
+
+    /**
+     * Delete every batch owned by the renderer.
+     */
+    public void delete() {
+        for (RenderBatch batch : this.batches) { batch.delete(); }
+        for (InstanceBatch batch : this.instanceBatches) { batch.delete(); }
+
+        this.batches.clear();
+        this.instanceBatches.clear();
+        this.lastBatch = null;
+        this.lastInstanceBatch = null;
+    }
+
+    /**
+     * @return Number of draw calls issued by the last call to {@link #render(Camera)}.
+     */
+    public int drawCalls() { return this.drawCalls; }
+
+    /**
+     * @return Number of quads drawn by the last call to {@link #render(Camera)}.
+     */
+    public int quadCount() { return this.quadCount; }
+
+    /**
+     * @return Render queue the tilemaps and batches are drawn through.
+     */
+    public RenderQueue queue() { return this.queue; }
+
+    /**
+     * @return Number of batches currently allocated, batched and instanced.
+     */
+    public int batchCount() { return this.batches.size() + this.instanceBatches.size(); }
+
+    /**
+     * @return Whether quads submitted this frame are drawn as instances.
+     */
+    public boolean instancing() { return this.instancing; }
+
+    /**
+     * Find a batch using the texture with room for another quad, creating a new batch if none exists.
+     *
+     * @param texture Texture of the quad to be added.
+     * @return Batch to add the quad to.
+     */
+    private RenderBatch batchFor(Texture texture) {
+        if (this.lastBatch != null && this.lastBatch.texture() == texture && !this.lastBatch.isFull()) {
+            return this.lastBatch;
+        }
+
+        for (int i = 0; i < this.batches.size(); i++) {
+            RenderBatch batch = this.batches.get(i);
+
+            if (batch.texture() == texture && !batch.isFull()) {
+                this.lastBatch = batch;
+                return batch;
+            }
+        }
+
+        RenderBatch batch = new RenderBatch(this.maxBatchSize, texture);
+        batch.start();
+        this.batches.add(batch);
+
+        this.lastBatch = batch;
+        return batch;
+    }
+
+    /**
+     * Find an instance batch with room for a quad with the texture, creating a new batch if none exists.
+     *
+     * @param texture Texture of the quad to be added.
+     * @return Batch to add the quad to.
+     */
+    private InstanceBatch instanceBatchFor(Texture texture) {
+        InstanceBatch last = this.lastInstanceBatch;
+        if (last != null && last.accepts(texture)) { return last; }
+
+        for (int i = 0; i < this.instanceBatches.size(); i++) {
+            InstanceBatch batch = this.instanceBatches.get(i);
+
+            if (batch.accepts(texture)) {
+                this.lastInstanceBatch = batch;
+                return batch;
+            }
+        }
+
+        InstanceBatch batch = new InstanceBatch(this.maxBatchSize);
+        batch.start();
+        this.instanceBatches.add(batch);
+
+        this.lastInstanceBatch = batch;
+        return batch;
+    }
+
+    /**
+     * Upload the per-frame uniforms of the instanced shader when the render queue switches to it. Unchanged values are
+     * skipped by the shader.
+     *
+     * @param shader Shader that was just put in use.
+     */
+    private void setupInstanced(Shader shader) {
+        if (shader != this.instancedShader) { return; }
+        if (shader.version() != this.instancedShaderVersion) { this.lookUpInstancedLocations(); }
+
+        shader.uploadTextures(this.instancedSamplerLocation, SAMPLER_UNITS);
+        shader.uploadMatrix(this.instancedProjectionLocation, this.camera.projectionMatrix());
+        shader.uploadMatrix(this.instancedViewLocation, this.camera.viewMatrix());
+        shader.uploadFloat(this.instancedTimeLocation, (float) Time.time());
+    }
+
+    /**
+     * Look up the uniform locations of the batched shader.
+     */
+    private void lookUpLocations() {
+        this.samplerLocation = this.shader.uniform("TEXTURE_SAMPLER");
+        this.projectionLocation = this.shader.uniform("uniformProjection");
+        this.viewLocation = this.shader.uniform("uniformView");
+        this.timeLocation = this.shader.uniform("uniformTime");
+        this.shaderVersion = this.shader.version();
+    }
+
+    /**
+     * Look up the uniform locations of the instanced shader.
+     */
+    private void lookUpInstancedLocations() {
+        this.instancedSamplerLocation = this.instancedShader.uniform("TEXTURE_SAMPLERS");
+        this.instancedProjectionLocation = this.instancedShader.uniform("uniformProjection");
+        this.instancedViewLocation = this.instancedShader.uniform("uniformView");
+        this.instancedTimeLocation = this.instancedShader.uniform("uniformTime");
+        this.instancedShaderVersion = this.instancedShader.version();
+    }
+}
@@ -2,61 +2,77 @@ package pine.renderer;
 
 import org.jetbrains.annotations.NotNull;
 import org.joml.*;
-import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL32;
+import org.lwjgl.opengl.GL43;
+import org.lwjgl.system.MemoryStack;
+import pine.profiling.Profiler;
+import pine.utils.ProfileCounter;
 import pine.utils.ShaderType;
 
 import java.io.IOException;
-import java.nio.FloatBuffer;
-import java.nio.file.Files;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 /**
- * GLSL shader representation class.
+ * GLSL shader representation class. The program can be rebuilt in place with {@link #reload(ShaderPreprocessor.Result)}
+ * when its files change; the shader object stays the same, but its uniform locations may change, which is signalled by
+ * {@link #version()}.
  */
 public class Shader {
-    private final int shaderProgramID;
+    private static Shader inUse = null;
+    private int shaderProgramID, version;
+    private boolean deleted;
     private final String filePath;
-    private String vertexSource;
-    private String fragmentSource;
-    private boolean beingUsed = false;
+    private final SortedSet<String> features;
+    private final Map<String, Integer> uniformLocations = new HashMap<>();
+    private final float[] matrix3Scratch = new float[9];
+    private final float[] matrix4Scratch = new float[16];
+    private int[] slotByLocation = new int[0];
+    private int[] shadowValues = new int[0];
+    private boolean[] shadowValid = new boolean[0];
+    private long issuedUploads, skippedUploads;
+    private Map<ShaderType, String> sources = new EnumMap<>(ShaderType.class);
+    private List<Path> includes = List.of();
 
     /**
-     * Create a new shader by parsing the shader file to split it into the vertex and fragment shaders and create the
-     * OpenGL shader program.
+     * Create a new shader by preprocessing the shader file into the source of each stage and create the OpenGL shader
+     * program.
      *
      * @param filePath Location of the shader file.
      */
     public Shader(String filePath) {
+        this(filePath, List.of());
+    }
+
+    /**
+     * Create a new variant of a shader by preprocessing the shader file with feature flags defined, and create the
+     * OpenGL shader program.
+     *
+     * @param filePath Location of the shader file.
+     * @param features Feature flags to define, either "NAME" or "NAME=VALUE".
+     */
+    public Shader(String filePath, Collection<String> features) {
         this.filePath = filePath;
+        this.features = Collections.unmodifiableSortedSet(new TreeSet<>(features));
 
         try {
-            String source = new String(Files.readAllBytes(Paths.get(filePath)));
-            String[] splitString = source.split("(#type)( )+([a-zA-Z]+)");
-
-            int index = source.indexOf("#type") + 6;
-            int eol = source.indexOf("\r\n", index);
-            String shaderType_1 = source.substring(index, eol).trim();
-
-            index = source.indexOf("#type", eol) + 6;
-            eol = source.indexOf("\r\n", index);
-            String shaderType_2 = source.substring(index, eol).trim();
-
-            final String shaderSource_1 = splitString[1].trim();
-            final String shaderSource_2 = splitString[2].trim();
+            ShaderPreprocessor.Result result = ShaderPreprocessor.load(Paths.get(filePath), this.features);
 
-            switch (shaderType_1) {
-                case "vertex" -> this.vertexSource = shaderSource_1;
-                case "fragment" -> this.fragmentSource = shaderSource_1;
-                default -> throw new IOException("Unexpected token '" + shaderType_1 + "'.");
-            }
-
-            switch (shaderType_2) {
-                case "vertex" -> this.vertexSource = shaderSource_2;
-                case "fragment" -> this.fragmentSource = shaderSource_2;
-                default -> throw new IOException("Unexpected token '" + shaderType_2 + "'.");
-            }
+            this.sources = result.sources();
+            this.includes = result.includes();
         }
 
         catch (IOException e) {
@@ -64,28 +80,133 @@ public class Shader {
             assert false : "Error could not open shader file: '" + this.filePath + "'.";
         }
 
-        this.shaderProgramID = GL20.glCreateProgram();
+        this.shaderProgramID = Graphics.backend().createProgram();
     }
 
     /**
-     * Compile the vertex and fragment shaders.
+     * Split the source of a shader file into the source of each stage. Does not require an OpenGL context.
+     *
+     * @param source Contents of the shader file.
+     * @return Source of each shader in the file.
+     * @throws IOException If the file contains an unexpected shader type.
+     */
+    public static Map<ShaderType, String> parse(String source) throws IOException {
+        return ShaderPreprocessor.parse(source);
+    }
+
+    /**
+     * Compile every stage of the shader. When linking, a binary of the program saved by an earlier run is loaded
+     * instead if there is one, and the binary of a newly linked program is saved.
      *
      * @param link Whether to link the shaders to the shader program.
      */
     public void compileAll(boolean link) {
-        int vertexID = this.compile(ShaderType.Vertex);
-        int fragmentID = this.compile(ShaderType.Fragment);
+        ProgramCache cache = ProgramCache.get();
+        String key = null;
+
+        if (link && cache.enabled()) {
+            key = cache.key(this.sources);
+
+            if (cache.load(this.shaderProgramID, key)) {
+                this.reflectUniforms();
+                return;
+            }
+        }
+
+        List<Integer> shaderIDs = new ArrayList<>(this.sources.size());
+        for (ShaderType shaderType : this.sources.keySet()) {
+            final int shaderID = this.compile(shaderType, this.sources, this.includes);
+
+            assert shaderID != 0 : "";
+            shaderIDs.add(shaderID);
+        }
+
+        if (link) {
+            cache.prepare(this.shaderProgramID);
+            final boolean linked = this.link(this.shaderProgramID, shaderIDs);
+
+            assert linked : "";
+            this.reflectUniforms();
 
-        if (link) { this.link(vertexID, fragmentID); }
+            for (int shaderID : shaderIDs) { Graphics.backend().deleteShader(shaderID); }
+            if (key != null) { cache.store(this.shaderProgramID, key); }
+        }
+    }
+
+    /**
+     * Read and preprocess the shader file again, with the same feature flags. Does not require an OpenGL context, so it
+     * can run on any thread.
+     *
+     * @return Preprocessed source of each stage and every included file.
+     * @throws IOException If the file or one of its includes could not be read or is invalid.
+     */
+    public ShaderPreprocessor.Result preprocess() throws IOException {
+        return ShaderPreprocessor.load(Paths.get(this.filePath), this.features);
+    }
+
+    /**
+     * Replace the program with one built from freshly preprocessed sources, loading it from the program cache if it has
+     * been built before. If any stage fails to compile or the program fails to link, the new program is deleted and the
+     * shader keeps its last good program; a deleted shader is never reloaded. On success the uniform shadow state is
+     * reset and {@link #version()} goes up. Must be called on the render thread, between frames.
+     *
+     * @param result Sources from {@link #preprocess()}.
+     * @return Whether the new program is in place.
+     */
+    public boolean reload(ShaderPreprocessor.Result result) {
+        if (this.deleted) { return false; }
+
+        ProgramCache cache = ProgramCache.get();
+        final int programID = Graphics.backend().createProgram();
+        final String key = cache.enabled() ? cache.key(result.sources()) : null;
+        boolean built = key != null && cache.load(programID, key);
+
+        if (!built) {
+            List<Integer> shaderIDs = new ArrayList<>(result.sources().size());
+            boolean compiled = true;
+
+            for (ShaderType shaderType : result.sources().keySet()) {
+                final int shaderID = this.compile(shaderType, result.sources(), result.includes());
+
+                if (shaderID == 0) { compiled = false; }
+                else { shaderIDs.add(shaderID); }
+            }
+
+            if (compiled) {
+                cache.prepare(programID);
+                built = this.link(programID, shaderIDs);
+            }
+
+            for (int shaderID : shaderIDs) { Graphics.backend().deleteShader(shaderID); }
+            if (built && key != null) { cache.store(programID, key); }
+        }
+
+        if (!built) {
+            Graphics.backend().deleteProgram(programID);
+            return false;
+        }
+
+        // The old program may still be bound; the next use() binds the new one.
+        if (Shader.inUse == this) { this.detach(); }
+        Graphics.backend().deleteProgram(this.shaderProgramID);
+
+        this.shaderProgramID = programID;
+        this.sources = result.sources();
+        this.includes = result.includes();
+        this.reflectUniforms();
+        this.version++;
+
+        return true;
     }
 
     /**
-     * Use the current shader program if not already being used.
+     * Use the current shader program if not already being used. Putting a program in use replaces whichever program
+     * was in use before.
      */
     public void use() {
-        if (!this.beingUsed) {
-            GL20.glUseProgram(this.shaderProgramID);
-            this.beingUsed = true;
+        if (Shader.inUse != this) {
+            Graphics.backend().useProgram(this.shaderProgramID);
+            Shader.inUse = this;
         }
     }
 
@@ -93,10 +214,61 @@ public class Shader {
      * Stop using the current shader program.
      */
     public void detach() {
-        GL20.glUseProgram(0);
-        this.beingUsed = false;
+        Graphics.backend().useProgram(0);
+        Shader.inUse = null;
     }
 
+    /**
+     * @return Whether the shader program is the one currently in use.
+     */
+    public boolean inUse() { return Shader.inUse == this; }
+
+    /**
+     * Look up the location of an active uniform in the linked shader program. Locations are reflected once after
+     * linking, so this does not call into OpenGL.
+     *
+     * @param variableName Name of the uniform variable in the shader.
+     * @return Location of the uniform, or -1 if the program has no active uniform with that name.
+     */
+    public int uniform(String variableName) {
+        return this.uniformLocations.getOrDefault(variableName, -1);
+    }
+
+    /**
+     * Delete the OpenGL shader program. The shader must not be used afterwards.
+     */
+    public void delete() {
+        if (Shader.inUse == this) { this.detach(); }
+        Graphics.backend().deleteProgram(this.shaderProgramID);
+        this.deleted = true;
+    }
+
+    /**
+     * @return Location of the shader file.
+     */
+    public String filePath() { return this.filePath; }
+
+    /**
+     * @return Feature flags defined in this variant of the shader, sorted.
+     */
+    public SortedSet<String> features() { return this.features; }
+
+    /**
+     * @return Every file included by the shader file.
+     */
+    public List<Path> includes() { return this.includes; }
+
+    /**
+     * @return Number of times the program has been replaced by {@link #reload(ShaderPreprocessor.Result)}; uniform
+     * locations looked up before a reload must be looked up again.
+     */
+    public int version() { return this.version; }
+
+    /**
+     * @return Whether the shader program has been deleted.
+     */
+    boolean deleted() { return this.deleted; }
+
     /**
      * Upload an integer value to the shader.
      *
@@ -104,9 +276,21 @@ public class Shader {
      * @param value        Integer to be uploaded.
      */
     public void uploadInt(String variableName, int value) {
-        int variableLocation = GL20.glGetUniformLocation(this.shaderProgramID, variableName);
+        this.uploadInt(this.uniform(variableName), value);
+    }
+
+    /**
+     * Upload an integer value to the shader.
+     *
+     * @param location Location of the int variable in the shader.
+     * @param value    Integer to be uploaded.
+     */
+    public void uploadInt(int location, int value) {
+        int offset = this.shadowOffset(location);
+        if (offset < 0 || !this.shadowChanged(offset, value)) { return; }
+
         this.use();
-        GL20.glUniform1i(variableLocation, value);
+        Graphics.backend().uniform1i(location, value);
     }
 
     /**
@@ -116,9 +300,21 @@ public class Shader {
      * @param value        Float to be uploaded.
      */
     public void uploadFloat(String variableName, float value) {
-        int variableLocation = GL20.glGetUniformLocation(this.shaderProgramID, variableName);
+        this.uploadFloat(this.uniform(variableName), value);
+    }
+
+    /**
+     * Upload a floating-point value to the shader.
+     *
+     * @param location Location of the float variable in the shader.
+     * @param value    Float to be uploaded.
+     */
+    public void uploadFloat(int location, float value) {
+        int offset = this.shadowOffset(location);
+        if (offset < 0 || !this.shadowChanged(offset, Float.floatToRawIntBits(value))) { return; }
+
         this.use();
-        GL20.glUniform1f(variableLocation, value);
+        Graphics.backend().uniform1f(location, value);
     }
 
     /**
@@ -128,9 +324,21 @@ public class Shader {
      * @param vector       Vector to be uploaded.
      */
     public void uploadVector(String variableName, Vector2f vector) {
-        int variableLocation = GL20.glGetUniformLocation(this.shaderProgramID, variableName);
+        this.uploadVector(this.uniform(variableName), vector);
+    }
+
+    /**
+     * Upload a 2D vector to the shader.
+     *
+     * @param location Location of the vector variable in the shader.
+     * @param vector   Vector to be uploaded.
+     */
+    public void uploadVector(int location, Vector2f vector) {
+        int offset = this.shadowOffset(location);
+        if (offset < 0 || !this.shadowChanged(offset, vector.x, vector.y, 0F, 0F)) { return; }
+
         this.use();
-        GL20.glUniform2f(variableLocation, vector.x, vector.y);
+        Graphics.backend().uniform2f(location, vector.x, vector.y);
     }
 
     /**
@@ -140,9 +348,21 @@ public class Shader {
      * @param vector       Vector to be uploaded.
      */
     public void uploadVector(String variableName, Vector3f vector) {
-        int variableLocation = GL20.glGetUniformLocation(this.shaderProgramID, variableName);
+        this.uploadVector(this.uniform(variableName), vector);
+    }
+
+    /**
+     * Upload a 3D vector to the shader.
+     *
+     * @param location Location of the vector variable in the shader.
+     * @param vector   Vector to be uploaded.
+     */
+    public void uploadVector(int location, Vector3f vector) {
+        int offset = this.shadowOffset(location);
+        if (offset < 0 || !this.shadowChanged(offset, vector.x, vector.y, vector.z, 0F)) { return; }
+
         this.use();
-        GL20.glUniform3f(variableLocation, vector.x, vector.y, vector.z);
+        Graphics.backend().uniform3f(location, vector.x, vector.y, vector.z);
     }
 
     /**
@@ -152,9 +372,21 @@ public class Shader {
      * @param vector       Vector to be uploaded.
      */
     public void uploadVector(String variableName, Vector4f vector) {
-        int variableLocation = GL20.glGetUniformLocation(this.shaderProgramID, variableName);
+        this.uploadVector(this.uniform(variableName), vector);
+    }
+
+    /**
+     * Upload a 4D vector to the shader.
+     *
+     * @param location Location of the vector variable in the shader.
+     * @param vector   Vector to be uploaded.
+     */
+    public void uploadVector(int location, Vector4f vector) {
+        int offset = this.shadowOffset(location);
+        if (offset < 0 || !this.shadowChanged(offset, vector.x, vector.y, vector.z, vector.w)) { return; }
+
         this.use();
-        GL20.glUniform4f(variableLocation, vector.x, vector.y, vector.z, vector.w);
+        Graphics.backend().uniform4f(location, vector.x, vector.y, vector.z, vector.w);
     }
 
     /**
@@ -164,13 +396,25 @@ public class Shader {
      * @param matrix       Matrix to be uploaded.
      */
     public void uploadMatrix(String variableName, Matrix3f matrix) {
-        int variableLocation = GL20.glGetUniformLocation(this.shaderProgramID, variableName);
-        this.use();
+        this.uploadMatrix(this.uniform(variableName), matrix);
+    }
+
+    /**
+     * Upload a 3x3 matrix to the shader. The matrix is staged in a scratch array owned by the shader, so nothing is
+     * allocated.
+     *
+     * @param location Location of the matrix variable in the shader.
+     * @param matrix   Matrix to be uploaded.
+     */
+    public void uploadMatrix(int location, Matrix3f matrix) {
+        int offset = this.shadowOffset(location);
+        if (offset < 0) { return; }
 
-        FloatBuffer matrixBuffer = BufferUtils.createFloatBuffer(9);
-        matrix.get(matrixBuffer);
+        matrix.get(this.matrix3Scratch);
+        if (!this.shadowChanged(offset, this.matrix3Scratch, 9)) { return; }
 
-        GL20.glUniformMatrix3fv(variableLocation, false, matrixBuffer);
+        this.use();
+        Graphics.backend().uniformMatrix3fv(location, false, this.matrix3Scratch);
     }
 
     /**
@@ -180,13 +424,25 @@ public class Shader {
      * @param matrix       Matrix to be uploaded.
      */
     public void uploadMatrix(String variableName, Matrix4f matrix) {
-        int variableLocation = GL20.glGetUniformLocation(this.shaderProgramID, variableName);
-        this.use();
+        this.uploadMatrix(this.uniform(variableName), matrix);
+    }
+
+    /**
+     * Upload a 4x4 matrix to the shader. The matrix is staged in a scratch array owned by the shader, so nothing is
+     * allocated.
+     *
+     * @param location Location of the matrix variable in the shader.
+     * @param matrix   Matrix to be uploaded.
+     */
+    public void uploadMatrix(int location, Matrix4f matrix) {
+        int offset = this.shadowOffset(location);
+        if (offset < 0) { return; }
 
-        FloatBuffer matrixBuffer = BufferUtils.createFloatBuffer(16);
-        matrix.get(matrixBuffer);
+        matrix.get(this.matrix4Scratch);
+        if (!this.shadowChanged(offset, this.matrix4Scratch, 16)) { return; }
 
-        GL20.glUniformMatrix4fv(variableLocation, false, matrixBuffer);
+        this.use();
+        Graphics.backend().uniformMatrix4fv(location, false, this.matrix4Scratch);
     }
 
     /**
@@ -200,63 +456,281 @@ public class Shader {
     }
 
     /**
-     * Compile a specific shader.
+     * Upload a texture slot to the shader - saved as a sampler2D.
      *
-     * @param shaderType Type of shader to be compiled.
-     * @return Shader ID of the compiled shader.
+     * @param location    Location of the sampler2D variable in the shader.
+     * @param textureSlot Texture slot to be uploaded.
      */
-    private int compile(@NotNull ShaderType shaderType) {
-        int shaderID = -1;
-        String shader = "";
+    public void uploadTexture(int location, int textureSlot) {
+        this.uploadInt(location, textureSlot);
+    }
 
-        switch (shaderType) {
-            case Fragment -> {
-                shaderID = GL20.glCreateShader(GL20.GL_FRAGMENT_SHADER);
-                GL20.glShaderSource(shaderID, this.fragmentSource);
-                shader = "Fragment shader";
-            }
+    /**
+     * Upload texture slots to an array of samplers, starting at its first element.
+     *
+     * @param location     Location of the first element of the sampler2D array in the shader.
+     * @param textureSlots Texture slots to be uploaded; at most 16.
+     */
+    public void uploadTextures(int location, int[] textureSlots) {
+        int offset = this.shadowOffset(location);
+        if (offset < 0 || !this.shadowChanged(offset, textureSlots)) { return; }
 
-            case Vertex -> {
-                shaderID = GL20.glCreateShader(GL20.GL_VERTEX_SHADER);
-                GL20.glShaderSource(shaderID, this.vertexSource);
-                shader = "Vertex shader";
-            }
-        }
+        this.use();
+        Graphics.backend().uniform1iv(location, textureSlots);
+    }
+
+    /**
+     * @return Number of uniform uploads that reached OpenGL since the counters were last reset.
+     */
+    public long issuedUploads() { return this.issuedUploads; }
+
+    /**
+     * @return Number of uniform uploads skipped since the counters were last reset, either because the value was
+     * unchanged or because the uniform is not active.
+     */
+    public long skippedUploads() { return this.skippedUploads; }
 
-        GL20.glCompileShader(shaderID);
+    /**
+     * Reset the issued and skipped upload counters to zero.
+     */
+    public void resetUploadCounters() {
+        this.issuedUploads = 0L;
+        this.skippedUploads = 0L;
+    }
 
-        int success = GL20.glGetShaderi(shaderID, GL20.GL_COMPILE_STATUS);
+    /**
+     * Compile a specific shader, printing the compile log on failure.
+     *
+     * @param shaderType Type of shader to be compiled.
+     * @param sources    Preprocessed source of each stage.
+     * @param includes   Files included by the shader file, numbered as source strings in the log.
+     * @return Shader ID of the compiled shader, or 0 if it failed to compile.
+     */
+    private int compile(@NotNull ShaderType shaderType, Map<ShaderType, String> sources, List<Path> includes) {
+        final int type = switch (shaderType) {
+            case Vertex -> GL20.GL_VERTEX_SHADER;
+            case Fragment -> GL20.GL_FRAGMENT_SHADER;
+            case Geometry -> GL32.GL_GEOMETRY_SHADER;
+            case Compute -> GL43.GL_COMPUTE_SHADER;
+        };
+
+        int shaderID = Graphics.backend().createShader(type);
+        Graphics.backend().shaderSource(shaderID, sources.get(shaderType));
+
+        Graphics.backend().compileShader(shaderID);
+
+        int success = Graphics.backend().getShaderi(shaderID, GL20.GL_COMPILE_STATUS);
         if (success == GL11.GL_FALSE) {
-            int logLength = GL20.glGetShaderi(shaderID, GL20.GL_INFO_LOG_LENGTH);
+            int logLength = Graphics.backend().getShaderi(shaderID, GL20.GL_INFO_LOG_LENGTH);
 
-            System.err.printf("'%s': %s compilation failed.\n", this.filePath, shader);
-            System.err.println(GL20.glGetShaderInfoLog(shaderID, logLength));
+            System.err.printf("'%s': %s shader compilation failed.\n", this.filePath, shaderType);
+            for (int i = 0; i < includes.size(); i++) {
+                System.err.printf("Source string %d: '%s'.\n", i + 1, includes.get(i));
+            }
+            System.err.println(Graphics.backend().getShaderInfoLog(shaderID, logLength));
 
-            assert false : "";
+            Graphics.backend().deleteShader(shaderID);
+            return 0;
         }
 
         return shaderID;
     }
 
     /**
-     * Link the vertex and fragment shaders to the shader program.
+     * Link compiled shaders into a shader program, printing the link log on failure.
      *
-     * @param vertexID   ID of the compiled vertex shader.
-     * @param fragmentID ID of the compiled fragment shader.
+     * @param programID ID of the shader program.
+     * @param shaderIDs IDs of the compiled shader of every stage.
+     * @return Whether the program linked.
      */
-    private void link(int vertexID, int fragmentID) {
-        GL20.glAttachShader(this.shaderProgramID, vertexID);
-        GL20.glAttachShader(this.shaderProgramID, fragmentID);
-        GL20.glLinkProgram(this.shaderProgramID);
+    private boolean link(int programID, List<Integer> shaderIDs) {
+        for (int shaderID : shaderIDs) { Graphics.backend().attachShader(programID, shaderID); }
+        Graphics.backend().linkProgram(programID);
 
-        int success = GL20.glGetProgrami(this.shaderProgramID, GL20.GL_LINK_STATUS);
+        int success = Graphics.backend().getProgrami(programID, GL20.GL_LINK_STATUS);
         if (success == GL11.GL_FALSE) {
-            int logLength = GL20.glGetProgrami(this.shaderProgramID, GL20.GL_INFO_LOG_LENGTH);
+            int logLength = Graphics.backend().getProgrami(programID, GL20.GL_INFO_LOG_LENGTH);
 
             System.err.printf("'%s': Linking of shaders failed.\n", this.filePath);
-            System.err.println(GL20.glGetProgramInfoLog(this.shaderProgramID, logLength));
+            System.err.println(Graphics.backend().getProgramInfoLog(programID, logLength));
+
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Query every active uniform of the linked shader program once and store its location by name. Array uniforms are
+     * stored under both their reported name ("name[0]") and their base name.
+     */
+    private void reflectUniforms() {
+        this.uniformLocations.clear();
+
+        int uniformCount = Graphics.backend().getProgrami(this.shaderProgramID, GL20.GL_ACTIVE_UNIFORMS);
+        int maxLocation = -1;
+
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer size = stack.mallocInt(1);
+            IntBuffer type = stack.mallocInt(1);
 
-            assert false : "";
+            for (int i = 0; i < uniformCount; i++) {
+                String name = Graphics.backend().getActiveUniform(this.shaderProgramID, i, size, type);
+                int location = Graphics.backend().getUniformLocation(this.shaderProgramID, name);
+
+                this.uniformLocations.put(name, location);
+                if (name.endsWith("[0]")) {
+                    this.uniformLocations.put(name.substring(0, name.length() - 3), location);
+                }
+
+                maxLocation = java.lang.Math.max(maxLocation, location);
+            }
+        }
+
+        // Every uniform gets a slot of 16 values in the shadow state - enough for a 4x4 matrix.
+        this.slotByLocation = new int[maxLocation + 1];
+        Arrays.fill(this.slotByLocation, -1);
+
+        int slot = 0;
+        for (int location : this.uniformLocations.values()) {
+            if (location >= 0 && this.slotByLocation[location] < 0) { this.slotByLocation[location] = slot++; }
+        }
+
+        this.shadowValues = new int[slot * 16];
+        this.shadowValid = new boolean[slot];
+    }
+
+    /**
+     * Find the start of the shadow state for a uniform location. Uploads to inactive locations are counted as
+     * skipped.
+     *
+     * @param location Location of the uniform.
+     * @return Offset into the shadow values, or -1 if the location is not an active uniform.
+     */
+    private int shadowOffset(int location) {
+        if (location < 0 || location >= this.slotByLocation.length || this.slotByLocation[location] < 0) {
+            this.skippedUploads++;
+            return -1;
+        }
+
+        return this.slotByLocation[location] * 16;
+    }
+
+    /**
+     * Compare a scalar value against the shadow state and record it if it changed.
+     *
+     * @param offset Offset into the shadow values.
+     * @param bits   Raw bits of the new value.
+     * @return Whether the value changed and must be uploaded.
+     */
+    private boolean shadowChanged(int offset, int bits) {
+        final int slot = offset / 16;
+
+        if (this.shadowValid[slot] && this.shadowValues[offset] == bits) {
+            this.skippedUploads++;
+            return false;
         }
+
+        this.shadowValues[offset] = bits;
+        this.shadowValid[slot] = true;
+        this.issuedUploads++;
+        Profiler.count(ProfileCounter.UniformUploads, 1L);
+
+        return true;
+    }
+
+    /**
+     * Compare a vector value against the shadow state and record it if it changed.
+     *
+     * @param offset Offset into the shadow values.
+     * @return Whether the value changed and must be uploaded.
+     */
+    private boolean shadowChanged(int offset, float x, float y, float z, float w) {
+        final int slot = offset / 16;
+        final int xBits = Float.floatToRawIntBits(x);
+        final int yBits = Float.floatToRawIntBits(y);
+        final int zBits = Float.floatToRawIntBits(z);
+        final int wBits = Float.floatToRawIntBits(w);
+
+        if (
+            this.shadowValid[slot] && this.shadowValues[offset] == xBits && this.shadowValues[offset + 1] == yBits &&
+            this.shadowValues[offset + 2] == zBits && this.shadowValues[offset + 3] == wBits
+        ) {
+            this.skippedUploads++;
+            return false;
+        }
+
+        this.shadowValues[offset] = xBits;
+        this.shadowValues[offset + 1] = yBits;
+        this.shadowValues[offset + 2] = zBits;
+        this.shadowValues[offset + 3] = wBits;
+        this.shadowValid[slot] = true;
+        this.issuedUploads++;
+        Profiler.count(ProfileCounter.UniformUploads, 1L);
+
+        return true;
+    }
+
+    /**
+     * Compare an integer array against the shadow state and record it if it changed.
+     *
+     * @param offset Offset into the shadow values.
+     * @param values Integers in the array; at most 16.
+     * @return Whether the value changed and must be uploaded.
+     */
+    private boolean shadowChanged(int offset, int[] values) {
+        final int slot = offset / 16;
+        boolean changed = !this.shadowValid[slot];
+
+        for (int i = 0; i < values.length; i++) {
+            if (this.shadowValues[offset + i] != values[i]) {
+                this.shadowValues[offset + i] = values[i];
+                changed = true;
+            }
+        }
+
+        if (!changed) {
+            this.skippedUploads++;
+            return false;
+        }
+
+        this.shadowValid[slot] = true;
+        this.issuedUploads++;
+        Profiler.count(ProfileCounter.UniformUploads, 1L);
+
+        return true;
+    }
+
+    /**
+     * Compare a matrix value against the shadow state and record it if it changed.
+     *
+     * @param offset Offset into the shadow values.
+     * @param values Matrix values in column-major order.
+     * @param count  Number of values in the matrix.
+     * @return Whether the value changed and must be uploaded.
+     */
+    private boolean shadowChanged(int offset, float[] values, int count) {
+        final int slot = offset / 16;
+        boolean changed = !this.shadowValid[slot];
+
+        for (int i = 0; i < count; i++) {
+            final int bits = Float.floatToRawIntBits(values[i]);
+
+            if (this.shadowValues[offset + i] != bits) {
+                this.shadowValues[offset + i] = bits;
+                changed = true;
+            }
+        }
+
+        if (!changed) {
+            this.skippedUploads++;
+            return false;
+        }
+
+        this.shadowValid[slot] = true;
+        this.issuedUploads++;
+        Profiler.count(ProfileCounter.UniformUploads, 1L);
+
+        return true;
     }
 }
@@ -0,0 +1,361 @@
+package pine.renderer;
+
+import pine.utils.ShaderType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Preprocessor turning a shader file into the source of each of its stages. A shader file holds one section per
+ * stage, each starting with a {@code #type vertex}, {@code #type fragment}, {@code #type geometry} or
+ * {@code #type compute} line; a file has either a compute stage alone, or vertex and fragment stages and optionally a
+ * geometry stage. Lines may end in LF, CRLF or CR.
+ * <p>
+ * Within a section, {@code #include "path"} is replaced by the contents of the file, resolved relative to the file
+ * containing the directive, and each feature flag becomes a {@code #define} placed right after the {@code #version}
+ * line. {@code #line} directives keep the line numbers reported by the compiler pointing into the original files:
+ * source string 0 is the shader file and source string n is the n-th file in {@link Result#includes()}.
+ */
+public class ShaderPreprocessor {
+    static final int MAX_INCLUDE_DEPTH = 16;
+
+    private static final String TYPE_DIRECTIVE = "#type";
+    private static final String INCLUDE_DIRECTIVE = "#include";
+    private static final String VERSION_DIRECTIVE = "#version";
+
+    /**
+     * Preprocessed stages of a shader file.
+     *
+     * @param sources  Source of each stage, ready to compile.
+     * @param includes Every file included by the stages, in order of first inclusion.
+     */
+    public record Result(Map<ShaderType, String> sources, List<Path> includes) { }
+
+    /**
+     * Section of a shader file belonging to one stage.
+     */
+    private record Section(ShaderType type, String source, int firstLine) { }
+
+    /**
+     * Create a new shader preprocessor - not to be used.
+     */
+    private ShaderPreprocessor() { }
+
+    /**
+     * Read and preprocess a shader file.
+     *
+     * @param file     Location of the shader file.
+     * @param features Feature flags to define, either "NAME" or "NAME=VALUE".
+     * @return Preprocessed stages.
+     * @throws IOException If a file cannot be read or the shader file is malformed.
+     */
+    public static Result load(Path file, Collection<String> features) throws IOException {
+        String source = Files.readString(file, StandardCharsets.UTF_8);
+        return ShaderPreprocessor.process(source, file.toAbsolutePath().getParent(), features);
+    }
+
+    /**
+     * Preprocess the contents of a shader file.
+     *
+     * @param source    Contents of the shader file.
+     * @param directory Directory that includes in the shader file are resolved against.
+     * @param features  Feature flags to define, either "NAME" or "NAME=VALUE".
+     * @return Preprocessed stages.
+     * @throws IOException If an included file cannot be read or the shader file is malformed.
+     */
+    public static Result process(String source, Path directory, Collection<String> features) throws IOException {
+        String defines = ShaderPreprocessor.defines(features);
+        Map<ShaderType, String> sources = new EnumMap<>(ShaderType.class);
+        List<Path> includes = new ArrayList<>();
+
+        for (Section section : ShaderPreprocessor.split(source)) {
+            StringBuilder output = new StringBuilder(section.source().length() + defines.length() + 64);
+            ShaderPreprocessor.expand(
+                section.source(), section.firstLine(), 0, directory, output, includes, new ArrayDeque<>()
+            );
+
+            sources.put(section.type(), ShaderPreprocessor.inject(output, defines, section.firstLine()));
+        }
+
+        return new Result(sources, Collections.unmodifiableList(includes));
+    }
+
+    /**
+     * Split the contents of a shader file into the source of each stage, without expanding includes or adding
+     * defines.
+     *
+     * @param source Contents of the shader file.
+     * @return Source of each stage, trimmed and with LF line endings.
+     * @throws IOException If the file contains an unknown or repeated stage, or an invalid combination of stages.
+     */
+    public static Map<ShaderType, String> parse(String source) throws IOException {
+        Map<ShaderType, String> sources = new EnumMap<>(ShaderType.class);
+
+        for (Section section : ShaderPreprocessor.split(source)) {
+            sources.put(section.type(), section.source().trim());
+        }
+
+        return sources;
+    }
+
+    /**
+     * Split a shader file into its sections. Anything before the first {@code #type} line is ignored, and blank lines
+     * at the start of a section are dropped.
+     */
+    private static List<Section> split(String source) throws IOException {
+        List<Section> sections = new ArrayList<>(2);
+        ShaderType type = null;
+        StringBuilder body = null;
+        int firstLine = 0, lineNumber = 1, start = 0;
+        final int length = source.length();
+
+        while (start < length) {
+            final int end = ShaderPreprocessor.lineEnd(source, start);
+            final int directive = ShaderPreprocessor.directive(source, start, end, TYPE_DIRECTIVE);
+
+            if (directive >= 0) {
+                if (type != null) { sections.add(new Section(type, body.toString(), firstLine)); }
+
+                type = ShaderPreprocessor.type(source.substring(directive, end).trim());
+                for (Section section : sections) {
+                    if (section.type() == type) { throw new IOException("Repeated stage '" + type + "'."); }
+                }
+
+                body = new StringBuilder(length - end);
+                firstLine = lineNumber + 1;
+            }
+
+            else if (type != null) {
+                if (body.isEmpty() && ShaderPreprocessor.blank(source, start, end)) { firstLine++; }
+                else { body.append(source, start, end).append('\n'); }
+            }
+
+            start = ShaderPreprocessor.nextLine(source, end);
+            lineNumber++;
+        }
+
+        if (type != null) { sections.add(new Section(type, body.toString(), firstLine)); }
+        ShaderPreprocessor.validate(sections);
+
+        return sections;
+    }
+
+    /**
+     * Copy the lines of a source to the output, replacing include directives by the contents of the included file.
+     *
+     * @param source    Source to expand, with LF line endings or as read from disk.
+     * @param firstLine Line number of the first line of the source in its file.
+     * @param index     Source string number of the file the source belongs to.
+     * @param directory Directory that includes are resolved against.
+     * @param output    Output to append to.
+     * @param includes  Files included so far, indexed by source string number minus one.
+     * @param stack     Files currently being expanded, to detect circular includes.
+     */
+    private static void expand(
+        String source, int firstLine, int index, Path directory, StringBuilder output, List<Path> includes,
+        Deque<Path> stack
+    ) throws IOException {
+        int lineNumber = firstLine, start = 0;
+        final int length = source.length();
+
+        while (start < length) {
+            final int end = ShaderPreprocessor.lineEnd(source, start);
+            final int directive = ShaderPreprocessor.directive(source, start, end, INCLUDE_DIRECTIVE);
+
+            if (directive >= 0) {
+                Path file = directory.resolve(ShaderPreprocessor.includePath(source, directive, end)).normalize();
+
+                if (stack.contains(file)) { throw new IOException("Circular include of '" + file + "'."); }
+                if (stack.size() >= MAX_INCLUDE_DEPTH) { throw new IOException("Includes nested too deeply."); }
+
+                int includeIndex = includes.indexOf(file) + 1;
+                if (includeIndex == 0) {
+                    includes.add(file);
+                    includeIndex = includes.size();
+                }
+
+                String included = Files.readString(file, StandardCharsets.UTF_8);
+
+                output.append("#line 1 ").append(includeIndex).append('\n');
+                stack.push(file);
+                ShaderPreprocessor.expand(included, 1, includeIndex, file.getParent(), output, includes, stack);
+                stack.pop();
+                output.append("#line ").append(lineNumber + 1).append(' ').append(index).append('\n');
+            }
+
+            else {
+                output.append(source, start, end).append('\n');
+            }
+
+            start = ShaderPreprocessor.nextLine(source, end);
+            lineNumber++;
+        }
+    }
+
+    /**
+     * Insert the defines after the version directive of an expanded stage, followed by a line directive restoring the
+     * line numbers of the shader file. Without a version directive, both go at the start.
+     */
+    private static String inject(StringBuilder output, String defines, int firstLine) {
+        String expanded = output.toString();
+        int start = 0, lineNumber = firstLine;
+        final int length = expanded.length();
+
+        while (start < length) {
+            final int end = ShaderPreprocessor.lineEnd(expanded, start);
+
+            if (ShaderPreprocessor.directive(expanded, start, end, VERSION_DIRECTIVE) >= 0) {
+                return expanded.substring(0, end + 1) + defines + "#line " + (lineNumber + 1) + " 0\n" +
+                    expanded.substring(end + 1);
+            }
+
+            start = end + 1;
+            lineNumber++;
+        }
+
+        return defines + "#line " + firstLine + " 0\n" + expanded;
+    }
+
+    /**
+     * Turn feature flags into define directives.
+     */
+    private static String defines(Collection<String> features) throws IOException {
+        StringBuilder defines = new StringBuilder();
+
+        for (String feature : features) {
+            final int separator = feature.indexOf('=');
+            String name = separator < 0 ? feature : feature.substring(0, separator);
+            String value = separator < 0 ? "1" : feature.substring(separator + 1);
+
+            if (!ShaderPreprocessor.identifier(name) || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                throw new IOException("Invalid feature flag '" + feature + "'.");
+            }
+
+            defines.append("#define ").append(name).append(' ').append(value).append('\n');
+        }
+
+        return defines.toString();
+    }
+
+    /**
+     * Check that the stages of a shader file form a program: a compute stage alone, or vertex and fragment stages
+     * with an optional geometry stage.
+     */
+    private static void validate(List<Section> sections) throws IOException {
+        boolean vertex = false, fragment = false, compute = false;
+
+        for (Section section : sections) {
+            switch (section.type()) {
+                case Vertex -> vertex = true;
+                case Fragment -> fragment = true;
+                case Compute -> compute = true;
+                default -> { }
+            }
+        }
+
+        if (compute ? sections.size() != 1 : !(vertex && fragment)) {
+            throw new IOException("Expected vertex and fragment stages, or a compute stage only.");
+        }
+    }
+
+    /**
+     * @param name Name following a type directive.
+     * @return Stage with the name.
+     */
+    private static ShaderType type(String name) throws IOException {
+        return switch (name) {
+            case "vertex" -> ShaderType.Vertex;
+            case "fragment" -> ShaderType.Fragment;
+            case "geometry" -> ShaderType.Geometry;
+            case "compute" -> ShaderType.Compute;
+            default -> throw new IOException("Unexpected token '" + name + "'.");
+        };
+    }
+
+    /**
+     * Read the quoted or bracketed path of an include directive.
+     */
+    private static String includePath(String source, int start, int end) throws IOException {
+        String argument = source.substring(start, end).trim();
+        final int last = argument.length() - 1;
+
+        if (last > 0 && (argument.charAt(0) == '"' && argument.charAt(last) == '"' ||
+            argument.charAt(0) == '<' && argument.charAt(last) == '>')) {
+            return argument.substring(1, last);
+        }
+
+        throw new IOException("Malformed include '" + argument + "'.");
+    }
+
+    /**
+     * Check whether a line is a directive, allowing whitespace before it.
+     *
+     * @return Index just past the directive name, or -1 if the line is not the directive.
+     */
+    private static int directive(String source, int start, int end, String directive) {
+        while (start < end && Character.isWhitespace(source.charAt(start))) { start++; }
+        if (!source.startsWith(directive, start)) { return -1; }
+
+        final int after = start + directive.length();
+        return after == end || Character.isWhitespace(source.charAt(after)) ? after : -1;
+    }
+
+    /**
+     * @return Index of the line break ending the line that starts at the index, or the length of the source.
+     */
+    private static int lineEnd(String source, int start) {
+        final int length = source.length();
+
+        for (int i = start; i < length; i++) {
+            final char c = source.charAt(i);
+            if (c == '\n' || c == '\r') { return i; }
+        }
+
+        return length;
+    }
+
+    /**
+     * @return Index of the start of the line after the line break at the index.
+     */
+    private static int nextLine(String source, int end) {
+        if (end < source.length() && source.charAt(end) == '\r') { end++; }
+        if (end < source.length() && source.charAt(end) == '\n') { end++; }
+
+        return end;
+    }
+
+    /**
+     * @return Whether the characters between the indices are all whitespace.
+     */
+    private static boolean blank(String source, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(source.charAt(i))) { return false; }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return Whether the name is a valid GLSL identifier.
+     */
+    private static boolean identifier(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            final boolean letter = c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '_';
+
+            if (!letter && (i == 0 || c < '0' || c > '9')) { return false; }
+        }
+
+        return !name.isEmpty();
+    }
+}
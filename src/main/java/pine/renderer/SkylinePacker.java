@@ -0,0 +1,181 @@
+package pine.renderer;
+
+import java.util.Arrays;
+
+/**
+ * Rectangle packer using the skyline bottom-left heuristic. The skyline is the upper edge of the packed area, stored as
+ * a list of horizontal segments; each rectangle is placed where it rests lowest on the skyline, with ties broken by
+ * the narrowest segment. Works purely on integers and does not require an OpenGL context.
+ */
+public class SkylinePacker {
+    private final int width, height;
+    private int[] segmentX, segmentY, segmentWidth;
+    private int segmentCount;
+    private long usedArea;
+
+    /**
+     * Create a new empty packer.
+     *
+     * @param width  Width of the area to pack into.
+     * @param height Height of the area to pack into.
+     */
+    public SkylinePacker(int width, int height) {
+        this.width = width;
+        this.height = height;
+
+        this.segmentX = new int[16];
+        this.segmentY = new int[16];
+        this.segmentWidth = new int[16];
+
+        this.clear();
+    }
+
+    /**
+     * Remove every packed rectangle.
+     */
+    public void clear() {
+        this.segmentX[0] = 0;
+        this.segmentY[0] = 0;
+        this.segmentWidth[0] = this.width;
+        this.segmentCount = 1;
+        this.usedArea = 0L;
+    }
+
+    /**
+     * Find a position for a rectangle and add it to the packed area.
+     *
+     * @param rectangleWidth  Width of the rectangle.
+     * @param rectangleHeight Height of the rectangle.
+     * @param position        Array to store the x- and y-coordinate of the bottom-left corner of the rectangle in.
+     * @return Whether the rectangle fit; the packer is unchanged if it did not.
+     */
+    public boolean pack(int rectangleWidth, int rectangleHeight, int[] position) {
+        int bestSegment = -1;
+        int bestY = Integer.MAX_VALUE;
+        int bestWidth = Integer.MAX_VALUE;
+
+        for (int i = 0; i < this.segmentCount; i++) {
+            final int y = this.fit(i, rectangleWidth, rectangleHeight);
+            if (y < 0) { continue; }
+
+            if (y < bestY || (y == bestY && this.segmentWidth[i] < bestWidth)) {
+                bestSegment = i;
+                bestY = y;
+                bestWidth = this.segmentWidth[i];
+            }
+        }
+
+        if (bestSegment < 0) { return false; }
+
+        position[0] = this.segmentX[bestSegment];
+        position[1] = bestY;
+
+        this.place(bestSegment, position[0], bestY + rectangleHeight, rectangleWidth);
+        this.usedArea += (long) rectangleWidth * rectangleHeight;
+
+        return true;
+    }
+
+    /**
+     * @return Fraction of the area covered by packed rectangles.
+     */
+    public double occupancy() { return (double) this.usedArea / ((long) this.width * this.height); }
+
+    /**
+     * @return Width of the area to pack into.
+     */
+    public int width() { return this.width; }
+
+    /**
+     * @return Height of the area to pack into.
+     */
+    public int height() { return this.height; }
+
+    /**
+     * Find the height a rectangle would rest at if its left edge were placed at the start of a segment.
+     *
+     * @return y-coordinate of the bottom of the rectangle, or -1 if it does not fit there.
+     */
+    private int fit(int segment, int rectangleWidth, int rectangleHeight) {
+        final int x = this.segmentX[segment];
+        if (x + rectangleWidth > this.width) { return -1; }
+
+        int y = 0;
+        int remaining = rectangleWidth;
+
+        for (int i = segment; remaining > 0; i++) {
+            y = Math.max(y, this.segmentY[i]);
+            if (y + rectangleHeight > this.height) { return -1; }
+
+            remaining -= this.segmentWidth[i];
+        }
+
+        return y;
+    }
+
+    /**
+     * Raise the skyline under a newly placed rectangle and merge neighbouring segments of equal height.
+     */
+    private void place(int segment, int x, int top, int rectangleWidth) {
+        this.insertSegment(segment, x, top, rectangleWidth);
+
+        // Shrink or remove the segments now covered by the new one.
+        final int right = x + rectangleWidth;
+        int i = segment + 1;
+
+        while (i < this.segmentCount) {
+            final int segmentRight = this.segmentX[i] + this.segmentWidth[i];
+            if (this.segmentX[i] >= right) { break; }
+
+            if (segmentRight <= right) {
+                this.removeSegment(i);
+                continue;
+            }
+
+            this.segmentWidth[i] = segmentRight - right;
+            this.segmentX[i] = right;
+            break;
+        }
+
+        for (i = 0; i < this.segmentCount - 1; i++) {
+            if (this.segmentY[i] == this.segmentY[i + 1]) {
+                this.segmentWidth[i] += this.segmentWidth[i + 1];
+                this.removeSegment(i + 1);
+                i--;
+            }
+        }
+    }
+
+    /**
+     * Insert a segment, growing the segment arrays if needed.
+     */
+    private void insertSegment(int index, int x, int y, int segmentWidth) {
+        if (this.segmentCount == this.segmentX.length) {
+            this.segmentX = Arrays.copyOf(this.segmentX, this.segmentCount * 2);
+            this.segmentY = Arrays.copyOf(this.segmentY, this.segmentCount * 2);
+            this.segmentWidth = Arrays.copyOf(this.segmentWidth, this.segmentCount * 2);
+        }
+
+        final int moved = this.segmentCount - index;
+        System.arraycopy(this.segmentX, index, this.segmentX, index + 1, moved);
+        System.arraycopy(this.segmentY, index, this.segmentY, index + 1, moved);
+        System.arraycopy(this.segmentWidth, index, this.segmentWidth, index + 1, moved);
+
+        this.segmentX[index] = x;
+        this.segmentY[index] = y;
+        this.segmentWidth[index] = segmentWidth;
+        this.segmentCount++;
+    }
+
+    /**
+     * Remove a segment.
+     */
+    private void removeSegment(int index) {
+        final int moved = this.segmentCount - index - 1;
+        System.arraycopy(this.segmentX, index + 1, this.segmentX, index, moved);
+        System.arraycopy(this.segmentY, index + 1, this.segmentY, index, moved);
+        System.arraycopy(this.segmentWidth, index + 1, this.segmentWidth, index, moved);
+
+        this.segmentCount--;
+    }
+}
@@ -0,0 +1,75 @@
+package pine.renderer;
+
+/**
+ * Rectangular region of a texture, described by its texture coordinates.
+ */
+public class Sprite {
+    private final Texture texture;
+    private final float u0, v0, u1, v1;
+    private final int width, height;
+
+    /**
+     * Create a new sprite covering the whole texture.
+     *
+     * @param texture Texture of the sprite.
+     */
+    public Sprite(Texture texture) {
+        this(texture, 0F, 0F, 1F, 1F, texture.width(), texture.height());
+    }
+
+    /**
+     * Create a new sprite covering part of a texture.
+     *
+     * @param texture Texture of the sprite.
+     * @param u0      Left texture coordinate.
+     * @param v0      Bottom texture coordinate.
+     * @param u1      Right texture coordinate.
+     * @param v1      Top texture coordinate.
+     * @param width   Width of the region in pixels.
+     * @param height  Height of the region in pixels.
+     */
+    public Sprite(Texture texture, float u0, float v0, float u1, float v1, int width, int height) {
+        this.texture = texture;
+        this.u0 = u0;
+        this.v0 = v0;
+        this.u1 = u1;
+        this.v1 = v1;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * @return Texture of the sprite.
+     */
+    public Texture texture() { return this.texture; }
+
+    /**
+     * @return Left texture coordinate.
+     */
+    public float u0() { return this.u0; }
+
+    /**
+     * @return Bottom texture coordinate.
+     */
+    public float v0() { return this.v0; }
+
+    /**
+     * @return Right texture coordinate.
+     */
+    public float u1() { return this.u1; }
+
+    /**
+     * @return Top texture coordinate.
+     */
+    public float v1() { return this.v1; }
+
+    /**
+     * @return Width of the region in pixels.
+     */
+    public int width() { return this.width; }
+
+    /**
+     * @return Height of the region in pixels.
+     */
+    public int height() { return this.height; }
+}
@@ -0,0 +1,62 @@
+package pine.renderer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sprite sheet laid out as a fixed grid of equally sized cells, read left to right and top to bottom.
+ */
+public class SpriteSheet {
+    private final Texture texture;
+    private final List<Sprite> sprites;
+
+    /**
+     * Create a new sprite sheet by slicing a texture into cells.
+     *
+     * @param texture      Texture of the sprite sheet.
+     * @param spriteWidth  Width of a cell in pixels.
+     * @param spriteHeight Height of a cell in pixels.
+     * @param spriteCount  Number of cells in the sheet.
+     * @param spacing      Gap between neighbouring cells in pixels.
+     */
+    public SpriteSheet(Texture texture, int spriteWidth, int spriteHeight, int spriteCount, int spacing) {
+        this.texture = texture;
+        this.sprites = new ArrayList<>(spriteCount);
+
+        final float textureWidth = texture.width();
+        final float textureHeight = texture.height();
+
+        // Textures are loaded bottom row first, so the first row of cells sits at the top of the texture.
+        int x = 0;
+        int y = texture.height() - spriteHeight;
+
+        for (int i = 0; i < spriteCount; i++) {
+            this.sprites.add(new Sprite(
+                texture, x / textureWidth, y / textureHeight, (x + spriteWidth) / textureWidth,
+                (y + spriteHeight) / textureHeight, spriteWidth, spriteHeight
+            ));
+
+            x += spriteWidth + spacing;
+            if (x + spriteWidth > texture.width()) {
+                x = 0;
+                y -= spriteHeight + spacing;
+            }
+        }
+    }
+
+    /**
+     * @param index Index of the cell.
+     * @return Sprite of the cell.
+     */
+    public Sprite sprite(int index) { return this.sprites.get(index); }
+
+    /**
+     * @return Number of sprites in the sheet.
+     */
+    public int size() { return this.sprites.size(); }
+
+    /**
+     * @return Texture of the sprite sheet.
+     */
+    public Texture texture() { return this.texture; }
+}
@@ -0,0 +1,217 @@
+package pine.renderer;
+
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL32;
+import org.lwjgl.opengl.GL44;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Buffer for geometry rewritten every frame. Where buffer storage is supported, the buffer is split into three regions
+ * of one persistently and coherently mapped allocation, and writers fill the next region in place while the GPU may
+ * still be reading the other two; a fence placed after each region is drawn keeps the writer from overtaking the GPU.
+ * Otherwise the writer fills a reused staging buffer, which is uploaded after orphaning the previous contents.
+ * <p>
+ * Each frame, call {@link #begin()}, write the data, then call {@link #end()} and draw from the returned offset. Every
+ * draw reading a region must be issued before the next call to begin, which fences the region.
+ */
+public class StreamingBuffer {
+    public static final int REGIONS = 3;
+
+    private static final int STORAGE_FLAGS = GL30.GL_MAP_WRITE_BIT | GL44.GL_MAP_PERSISTENT_BIT |
+        GL44.GL_MAP_COHERENT_BIT;
+    private static final long WAIT_TIMEOUT_NANOS = 1_000_000L;
+
+    private final int target, regionSize, bufferID;
+    private final boolean persistent;
+    private final ByteBuffer[] regions;
+    private final long[] fences;
+    private ByteBuffer staging;
+    private int region;
+    private boolean writing, drawn;
+    private long bytesStreamed, waits, stalls;
+
+    /**
+     * Create a new streaming buffer, mapping it persistently if the graphics backend supports buffer storage.
+     *
+     * @param target     Buffer target, such as GL_ARRAY_BUFFER.
+     * @param regionSize Largest number of bytes written per frame.
+     */
+    public StreamingBuffer(int target, int regionSize) {
+        this(target, regionSize, Graphics.backend().bufferStorageSupported());
+    }
+
+    /**
+     * Create a new streaming buffer.
+     *
+     * @param target     Buffer target, such as GL_ARRAY_BUFFER.
+     * @param regionSize Largest number of bytes written per frame.
+     * @param persistent Whether to map the buffer persistently; requires buffer storage support.
+     */
+    public StreamingBuffer(int target, int regionSize, boolean persistent) {
+        GraphicsBackend gl = Graphics.backend();
+
+        this.target = target;
+        this.regionSize = regionSize;
+        this.persistent = persistent;
+        this.fences = new long[REGIONS];
+
+        this.bufferID = gl.genBuffers();
+        gl.bindBuffer(target, this.bufferID);
+
+        if (persistent) {
+            final long size = (long) REGIONS * regionSize;
+            gl.bufferStorage(target, size, STORAGE_FLAGS);
+
+            ByteBuffer mapped = gl.mapBufferRange(target, 0L, size, STORAGE_FLAGS);
+            this.regions = new ByteBuffer[REGIONS];
+
+            // Slices start out big-endian, whatever the order of the mapping.
+            for (int i = 0; i < REGIONS; i++) {
+                this.regions[i] = mapped.slice(i * regionSize, regionSize).order(ByteOrder.nativeOrder());
+            }
+        }
+
+        else {
+            gl.bufferData(target, regionSize, GL15.GL_STREAM_DRAW);
+            this.staging = MemoryUtil.memAlloc(regionSize);
+            this.regions = new ByteBuffer[] { this.staging };
+        }
+
+        // The first call to begin moves to region 0.
+        this.region = this.regions.length - 1;
+    }
+
+    /**
+     * Start writing the next frame's data, waiting for the GPU to finish reading the region if it is still in use.
+     *
+     * @return Buffer to write into, starting at position 0; in native byte order and only valid until {@link #end()}.
+     */
+    public ByteBuffer begin() {
+        assert !this.writing : "Error (StreamingBuffer.java): begin() called twice without end().";
+
+        if (this.persistent) {
+            GraphicsBackend gl = Graphics.backend();
+
+            if (this.drawn) { this.fences[this.region] = gl.fenceSync(GL32.GL_SYNC_GPU_COMMANDS_COMPLETE, 0); }
+            this.drawn = false;
+            this.region = (this.region + 1) % REGIONS;
+
+            if (this.fences[this.region] != 0L) {
+                this.await(gl, this.fences[this.region]);
+                gl.deleteSync(this.fences[this.region]);
+                this.fences[this.region] = 0L;
+            }
+        }
+
+        this.writing = true;
+        return this.regions[this.region].clear();
+    }
+
+    /**
+     * Finish writing the frame's data; everything before the buffer's position is made visible to the GPU.
+     *
+     * @return Offset of the written data in the buffer in bytes, to draw from.
+     */
+    public int end() {
+        assert this.writing : "Error (StreamingBuffer.java): end() called without begin().";
+
+        ByteBuffer buffer = this.regions[this.region];
+        this.bytesStreamed += buffer.position();
+        this.writing = false;
+        this.drawn = true;
+
+        if (this.persistent) { return this.region * this.regionSize; }
+
+        GraphicsBackend gl = Graphics.backend();
+        gl.bindBuffer(this.target, this.bufferID);
+
+        // Orphaning hands the driver a fresh allocation instead of waiting for draws still reading the old one.
+        gl.bufferData(this.target, this.regionSize, GL15.GL_STREAM_DRAW);
+        gl.bufferSubData(this.target, 0L, buffer.flip());
+
+        return 0;
+    }
+
+    /**
+     * Unmap and delete the buffer and its fences. The buffer must not be used afterwards.
+     */
+    public void delete() {
+        GraphicsBackend gl = Graphics.backend();
+
+        for (int i = 0; i < REGIONS; i++) {
+            if (this.fences[i] != 0L) { gl.deleteSync(this.fences[i]); }
+            this.fences[i] = 0L;
+        }
+
+        if (this.persistent) {
+            gl.bindBuffer(this.target, this.bufferID);
+            gl.unmapBuffer(this.target);
+        }
+
+        if (this.staging != null) {
+            MemoryUtil.memFree(this.staging);
+            this.staging = null;
+        }
+
+        gl.deleteBuffers(this.bufferID);
+    }
+
+    /**
+     * @return Name of the OpenGL buffer object.
+     */
+    public int bufferID() { return this.bufferID; }
+
+    /**
+     * @return Largest number of bytes written per frame.
+     */
+    public int regionSize() { return this.regionSize; }
+
+    /**
+     * @return Whether the buffer is persistently mapped rather than orphaned and re-uploaded.
+     */
+    public boolean persistent() { return this.persistent; }
+
+    /**
+     * @return Index of the region last returned by {@link #begin()}; always 0 when not persistently mapped.
+     */
+    public int region() { return this.region; }
+
+    /**
+     * @param region Index of the region.
+     * @return Fence guarding the region, or 0 if the GPU is not known to be reading it.
+     */
+    public long fence(int region) { return this.fences[region]; }
+
+    /**
+     * @return Total number of bytes written since the buffer was created.
+     */
+    public long bytesStreamed() { return this.bytesStreamed; }
+
+    /**
+     * @return Number of times a region's fence was waited on.
+     */
+    public long waits() { return this.waits; }
+
+    /**
+     * @return Number of fence waits that had to block because the GPU was still reading the region.
+     */
+    public long stalls() { return this.stalls; }
+
+    /**
+     * Block until a fence completes.
+     */
+    private void await(GraphicsBackend gl, long fence) {
+        this.waits++;
+        int result;
+
+        do { result = gl.clientWaitSync(fence, GL32.GL_SYNC_FLUSH_COMMANDS_BIT, WAIT_TIMEOUT_NANOS); }
+        while (result == GL32.GL_TIMEOUT_EXPIRED);
+
+        if (result != GL32.GL_ALREADY_SIGNALED) { this.stalls++; }
+        assert result != GL32.GL_WAIT_FAILED : "Error (StreamingBuffer.java): Waiting on a fence failed.";
+    }
+}
@@ -3,9 +3,12 @@ package pine.renderer;
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.stb.STBImage;
+import pine.profiling.Profiler;
+import pine.utils.ProfileCounter;
 
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
+import java.util.function.LongConsumer;
 
 /**
  * 2D Texture class.
@@ -13,6 +16,10 @@ import java.nio.IntBuffer;
 public class Texture {
     private final int ID;
     private final String filePath;
+    private int width, height, channels;
+    private boolean loaded, deleted;
+    private volatile boolean failed;
+    private LongConsumer resizeListener;
 
     /**
      * Create a new texture with default settings and upload to OpenGL.
@@ -21,16 +28,51 @@ public class Texture {
      */
     public Texture(String filePath) {
         this.filePath = filePath;
+        this.ID = Texture.create();
 
-        this.ID = GL11.glGenTextures();
-        this.bind();
+        if (!this.reload()) {
+            assert false : "Error (Texture.java): Could not load image + '" + this.filePath + "'.";
+        }
+    }
 
-        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL11.GL_REPEAT);
-        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL11.GL_REPEAT);
+    /**
+     * Create a new texture with default settings from pixels already in memory and upload to OpenGL.
+     *
+     * @param name     Name of the texture, used in place of a file path.
+     * @param width    Width of the image in pixels.
+     * @param height   Height of the image in pixels.
+     * @param channels Number of channels per pixel; 3 for RGB or 4 for RGBA.
+     * @param pixels   Pixel data, bottom row first.
+     */
+    public Texture(String name, int width, int height, int channels, ByteBuffer pixels) {
+        this.filePath = name;
+        this.ID = Texture.create();
 
-        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_NEAREST);
-        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_NEAREST);
+        this.upload(width, height, channels, pixels);
+    }
 
+    /**
+     * Create a texture holding a single white pixel, to stand in for a texture that is still loading.
+     *
+     * @param name Name of the texture, usually the location of the file being loaded.
+     * @return Placeholder texture; {@link #loaded()} stays false until the real image is uploaded.
+     */
+    public static Texture placeholder(String name) {
+        ByteBuffer pixel = BufferUtils.createByteBuffer(4);
+        pixel.put((byte) 0xFF).put((byte) 0xFF).put((byte) 0xFF).put((byte) 0xFF).flip();
+
+        Texture texture = new Texture(name, 1, 1, 4, pixel);
+        texture.loaded = false;
+
+        return texture;
+    }
+
+    /**
+     * Load the texture's file again and upload it on the calling thread, for example after loading it failed.
+     *
+     * @return Whether the image was loaded; if not, the texture keeps its contents and is marked as failed.
+     */
+    public boolean reload() {
         IntBuffer width = BufferUtils.createIntBuffer(1);
         IntBuffer height = BufferUtils.createIntBuffer(1);
         IntBuffer channels = BufferUtils.createIntBuffer(1);
@@ -38,42 +80,149 @@ public class Texture {
         STBImage.stbi_set_flip_vertically_on_load(true);
         ByteBuffer image = STBImage.stbi_load(this.filePath, width, height, channels, 0);
 
-        if (image != null) {
-            int format = -1;
-            int numChannels = channels.get(0);
-
-            switch (numChannels) {
-                case 3 -> format = GL11.GL_RGB;
-                case 4 -> format = GL11.GL_RGBA;
-                default -> {
-                    assert false : "Error (Texture.java): Unknown number of channels '" + numChannels + "'.";
-                }
-            }
-
-            GL11.glTexImage2D(
-                GL11.GL_TEXTURE_2D, 0, format, width.get(0), height.get(0), 0, format,
-                GL11.GL_UNSIGNED_BYTE, image
-            );
-        }
-
-        else {
-            assert false : "Error (Texture.java): Could not load image + '" + this.filePath + "'.";
+        if (image == null) {
+            this.failed = true;
+            return false;
         }
 
+        this.upload(width.get(0), height.get(0), channels.get(0), image);
         STBImage.stbi_image_free(image);
+
+        return true;
     }
 
     /**
      * Bind the texture to the texture target.
      */
     public void bind() {
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, this.ID);
+        Graphics.backend().bindTexture(GL11.GL_TEXTURE_2D, this.ID);
+        Profiler.count(ProfileCounter.TextureBinds, 1L);
     }
 
     /**
      * Unbind the texture.
      */
     public void unbind() {
-        GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+        Graphics.backend().bindTexture(GL11.GL_TEXTURE_2D, 0);
+    }
+
+    /**
+     * @return Location of the texture file, or the name of a texture created from memory.
+     */
+    public String filePath() { return this.filePath; }
+
+    /**
+     * @return Width of the texture in pixels.
+     */
+    public int width() { return this.width; }
+
+    /**
+     * @return Height of the texture in pixels.
+     */
+    public int height() { return this.height; }
+
+    /**
+     * @return Whether the texture holds its real image rather than a placeholder.
+     */
+    public boolean loaded() { return this.loaded; }
+
+    /**
+     * @return Whether the texture's image could not be read or decoded, so it shows a placeholder instead.
+     */
+    public boolean failed() { return this.failed; }
+
+    /**
+     * Mark the texture's image as impossible to read or decode. Safe to call from any thread.
+     */
+    void fail() { this.failed = true; }
+
+    /**
+     * Clear the failed mark before loading the texture's image again.
+     */
+    void retry() { this.failed = false; }
+
+    /**
+     * Set a function told the change in {@link #sizeBytes()} every time the contents of the texture are replaced,
+     * so that an owner can keep a running total without scanning its textures.
+     *
+     * @param listener Function taking the change in bytes, or null for none.
+     */
+    public void setResizeListener(LongConsumer listener) { this.resizeListener = listener; }
+
+    /**
+     * @return Estimated video memory used by the texture in bytes.
+     */
+    public long sizeBytes() { return (long) this.width * this.height * this.channels; }
+
+    /**
+     * @return Whether the OpenGL texture object has been deleted.
+     */
+    boolean deleted() { return this.deleted; }
+
+    /**
+     * Delete the OpenGL texture object. The texture must not be used afterwards, and any pending upload into it is
+     * dropped.
+     */
+    public void delete() {
+        Graphics.backend().deleteTextures(this.ID);
+        this.loaded = false;
+        this.deleted = true;
+    }
+
+    /**
+     * Replace the contents of the texture.
+     *
+     * @param width    Width of the image in pixels.
+     * @param height   Height of the image in pixels.
+     * @param channels Number of channels per pixel; 3 for RGB or 4 for RGBA.
+     * @param pixels   Pixel data, bottom row first.
+     */
+    void upload(int width, int height, int channels, ByteBuffer pixels) {
+        if (this.deleted) { return; }
+
+        int format = -1;
+
+        switch (channels) {
+            case 3 -> format = GL11.GL_RGB;
+            case 4 -> format = GL11.GL_RGBA;
+            default -> {
+                assert false : "Error (Texture.java): Unknown number of channels '" + channels + "'.";
+            }
+        }
+
+        this.bind();
+        final long previousBytes = this.sizeBytes();
+
+        // Rows of RGB images are not necessarily 4-byte aligned.
+        Graphics.backend().pixelStorei(GL11.GL_UNPACK_ALIGNMENT, 1);
+        Graphics.backend().texImage2D(
+            GL11.GL_TEXTURE_2D, 0, format, width, height, 0, format, GL11.GL_UNSIGNED_BYTE, pixels
+        );
+
+        this.width = width;
+        this.height = height;
+        this.channels = channels;
+        this.loaded = true;
+        this.failed = false;
+
+        if (this.resizeListener != null) { this.resizeListener.accept(this.sizeBytes() - previousBytes); }
+    }
+
+    /**
+     * Generate a new texture object with repeating wrap and nearest filtering, leaving it bound.
+     *
+     * @return ID of the texture object.
+     */
+    private static int create() {
+        int ID = Graphics.backend().genTextures();
+        Graphics.backend().bindTexture(GL11.GL_TEXTURE_2D, ID);
+
+        Graphics.backend().texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL11.GL_REPEAT);
+        Graphics.backend().texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL11.GL_REPEAT);
+
+        Graphics.backend().texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_NEAREST);
+        Graphics.backend().texParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_NEAREST);
+
+        return ID;
     }
 }
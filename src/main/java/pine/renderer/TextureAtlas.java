@@ -0,0 +1,294 @@
+package pine.renderer;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.stb.STBImage;
+import org.lwjgl.stb.STBImageWrite;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Texture atlas that packs many images into one RGBA texture and hands out a sprite for each. Images are packed on the
+ * CPU with a skyline packer and copied into the atlas pixels; nothing touches OpenGL until {@link #upload()}.
+ * <p>
+ * An atlas can also be baked offline with {@link #save(Path, Path)} (or {@link #main(String[])}) into an image and a
+ * metadata file, and later restored with {@link #load(Path, Path)} without repacking.
+ */
+public class TextureAtlas {
+    private static final String METADATA_HEADER = "pine-atlas";
+    private static final int CHANNELS = 4;
+
+    private final String name;
+    private final int width, height, padding;
+    private final SkylinePacker packer;
+    private final ByteBuffer pixels;
+    private final Map<String, int[]> regions;
+    private final Map<String, Sprite> sprites;
+    private final int[] position;
+    private boolean packable;
+    private Texture texture;
+
+    /**
+     * Create a new empty atlas.
+     *
+     * @param name    Name of the atlas texture.
+     * @param width   Width of the atlas in pixels.
+     * @param height  Height of the atlas in pixels.
+     * @param padding Gap left between neighbouring images in pixels.
+     */
+    public TextureAtlas(String name, int width, int height, int padding) {
+        this.name = name;
+        this.width = width;
+        this.height = height;
+        this.padding = padding;
+        this.packer = new SkylinePacker(width, height);
+        this.pixels = BufferUtils.createByteBuffer(width * height * CHANNELS);
+        this.regions = new LinkedHashMap<>();
+        this.sprites = new HashMap<>();
+        this.position = new int[2];
+        this.packable = true;
+    }
+
+    /**
+     * Pack an image held in memory into the atlas.
+     *
+     * @param regionName  Name of the sprite for the image.
+     * @param imageWidth  Width of the image in pixels.
+     * @param imageHeight Height of the image in pixels.
+     * @param channels    Number of channels per pixel; 3 for RGB or 4 for RGBA.
+     * @param image       Pixel data, bottom row first.
+     * @return Whether the image fit; false if the atlas is full and a new atlas should be started.
+     */
+    public boolean add(String regionName, int imageWidth, int imageHeight, int channels, ByteBuffer image) {
+        assert this.packable : "Error (TextureAtlas.java): Cannot add images to a loaded atlas.";
+        assert channels == 3 || channels == 4 : "Error (TextureAtlas.java): Unknown number of channels.";
+
+        if (!this.packer.pack(imageWidth + this.padding, imageHeight + this.padding, this.position)) { return false; }
+
+        final int x = this.position[0];
+        final int y = this.position[1];
+
+        for (int row = 0; row < imageHeight; row++) {
+            int source = row * imageWidth * channels;
+            int destination = ((y + row) * this.width + x) * CHANNELS;
+
+            for (int column = 0; column < imageWidth; column++) {
+                this.pixels.put(destination, image.get(source));
+                this.pixels.put(destination + 1, image.get(source + 1));
+                this.pixels.put(destination + 2, image.get(source + 2));
+                this.pixels.put(destination + 3, channels == 4 ? image.get(source + 3) : (byte) 0xFF);
+
+                source += channels;
+                destination += CHANNELS;
+            }
+        }
+
+        this.regions.put(regionName, new int[] { x, y, imageWidth, imageHeight });
+        return true;
+    }
+
+    /**
+     * Decode an image file and pack it into the atlas. The sprite is named after the file path.
+     *
+     * @param filePath Location of the image file.
+     * @return Whether the image fit; false if the atlas is full and a new atlas should be started.
+     */
+    public boolean addImage(String filePath) {
+        IntBuffer imageWidth = BufferUtils.createIntBuffer(1);
+        IntBuffer imageHeight = BufferUtils.createIntBuffer(1);
+        IntBuffer channels = BufferUtils.createIntBuffer(1);
+
+        STBImage.stbi_set_flip_vertically_on_load(true);
+        ByteBuffer image = STBImage.stbi_load(filePath, imageWidth, imageHeight, channels, CHANNELS);
+
+        if (image == null) {
+            assert false : "Error (TextureAtlas.java): Could not load image '" + filePath + "'.";
+            return false;
+        }
+
+        boolean added = this.add(filePath, imageWidth.get(0), imageHeight.get(0), CHANNELS, image);
+        STBImage.stbi_image_free(image);
+
+        return added;
+    }
+
+    /**
+     * Upload the atlas pixels into a texture and create a sprite for every packed image.
+     *
+     * @return Texture of the atlas.
+     */
+    public Texture upload() {
+        this.texture = new Texture(this.name, this.width, this.height, CHANNELS, this.pixels);
+        this.sprites.clear();
+
+        for (Map.Entry<String, int[]> region : this.regions.entrySet()) {
+            int[] bounds = region.getValue();
+
+            this.sprites.put(region.getKey(), new Sprite(
+                this.texture,
+                (float) bounds[0] / this.width, (float) bounds[1] / this.height,
+                (float) (bounds[0] + bounds[2]) / this.width, (float) (bounds[1] + bounds[3]) / this.height,
+                bounds[2], bounds[3]
+            ));
+        }
+
+        return this.texture;
+    }
+
+    /**
+     * @param regionName Name of the sprite.
+     * @return Sprite of the packed image, or null if there is no such image or the atlas has not been uploaded.
+     */
+    public Sprite sprite(String regionName) { return this.sprites.get(regionName); }
+
+    /**
+     * @param regionName Name of the sprite.
+     * @return x, y, width and height of the packed image in pixels, or null if there is no such image.
+     */
+    public int[] region(String regionName) { return this.regions.get(regionName); }
+
+    /**
+     * @return Names of every packed image, in the order they were added.
+     */
+    public Set<String> names() { return Collections.unmodifiableSet(this.regions.keySet()); }
+
+    /**
+     * @return Fraction of the atlas covered by packed images, including padding.
+     */
+    public double occupancy() { return this.packer.occupancy(); }
+
+    /**
+     * @return Texture of the atlas, or null if it has not been uploaded.
+     */
+    public Texture texture() { return this.texture; }
+
+    /**
+     * @return Pixels of the atlas, bottom row first.
+     */
+    public ByteBuffer pixels() { return this.pixels; }
+
+    /**
+     * Write the atlas pixels as a PNG and the packed regions as a metadata file, so that the atlas can be restored with
+     * {@link #load(Path, Path)} without repacking.
+     *
+     * @param imagePath    Location to write the PNG to.
+     * @param metadataPath Location to write the metadata to.
+     * @throws IOException If either file could not be written.
+     */
+    public void save(Path imagePath, Path metadataPath) throws IOException {
+        STBImageWrite.stbi_flip_vertically_on_write(true);
+        boolean written = STBImageWrite.stbi_write_png(
+            imagePath.toString(), this.width, this.height, CHANNELS, this.pixels, this.width * CHANNELS
+        );
+
+        if (!written) { throw new IOException("Could not write atlas image '" + imagePath + "'."); }
+
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(metadataPath))) {
+            writer.printf(
+                "%s %d %d %d %d%n", METADATA_HEADER, this.width, this.height, this.padding, this.regions.size()
+            );
+
+            for (Map.Entry<String, int[]> region : this.regions.entrySet()) {
+                int[] bounds = region.getValue();
+                writer.printf("%d %d %d %d %s%n", bounds[0], bounds[1], bounds[2], bounds[3], region.getKey());
+            }
+        }
+    }
+
+    /**
+     * Restore an atlas written by {@link #save(Path, Path)}. The restored atlas cannot have more images added.
+     *
+     * @param imagePath    Location of the atlas PNG.
+     * @param metadataPath Location of the atlas metadata.
+     * @return Restored atlas, ready to be uploaded.
+     * @throws IOException If either file could not be read or the metadata is malformed.
+     */
+    public static TextureAtlas load(Path imagePath, Path metadataPath) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(metadataPath)) {
+            String[] header = reader.readLine().split(" ");
+            if (!header[0].equals(METADATA_HEADER)) {
+                throw new IOException("Unexpected token '" + header[0] + "' in '" + metadataPath + "'.");
+            }
+
+            final int width = Integer.parseInt(header[1]);
+            final int height = Integer.parseInt(header[2]);
+            final int regionCount = Integer.parseInt(header[4]);
+
+            TextureAtlas atlas = new TextureAtlas(imagePath.toString(), width, height, Integer.parseInt(header[3]));
+            atlas.packable = false;
+
+            for (int i = 0; i < regionCount; i++) {
+                String[] line = reader.readLine().split(" ", 5);
+                atlas.regions.put(line[4], new int[] {
+                    Integer.parseInt(line[0]), Integer.parseInt(line[1]),
+                    Integer.parseInt(line[2]), Integer.parseInt(line[3])
+                });
+            }
+
+            IntBuffer imageWidth = BufferUtils.createIntBuffer(1);
+            IntBuffer imageHeight = BufferUtils.createIntBuffer(1);
+            IntBuffer channels = BufferUtils.createIntBuffer(1);
+
+            STBImage.stbi_set_flip_vertically_on_load(true);
+            ByteBuffer image = STBImage.stbi_load(imagePath.toString(), imageWidth, imageHeight, channels, CHANNELS);
+
+            if (image == null || imageWidth.get(0) != width || imageHeight.get(0) != height) {
+                if (image != null) { STBImage.stbi_image_free(image); }
+                throw new IOException("Could not load atlas image '" + imagePath + "'.");
+            }
+
+            atlas.pixels.put(image).flip();
+            STBImage.stbi_image_free(image);
+
+            return atlas;
+        }
+    }
+
+    /**
+     * Bake an atlas offline, largest images first.
+     *
+     * @param args Output PNG path, output metadata path, atlas size in pixels, padding in pixels, then image paths.
+     * @throws IOException If the atlas could not be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 5) {
+            System.err.println("Usage: TextureAtlas <output.png> <output.atlas> <size> <padding> <image>...");
+            return;
+        }
+
+        final int size = Integer.parseInt(args[2]);
+        TextureAtlas atlas = new TextureAtlas(args[0], size, size, Integer.parseInt(args[3]));
+
+        // Packing the largest images first leaves less wasted space under the skyline.
+        List<String> images = new ArrayList<>(Arrays.asList(args).subList(4, args.length));
+        Map<String, Integer> areas = new HashMap<>();
+
+        for (String image : images) {
+            IntBuffer imageWidth = BufferUtils.createIntBuffer(1);
+            IntBuffer imageHeight = BufferUtils.createIntBuffer(1);
+            IntBuffer channels = BufferUtils.createIntBuffer(1);
+
+            STBImage.stbi_info(image, imageWidth, imageHeight, channels);
+            areas.put(image, imageWidth.get(0) * imageHeight.get(0));
+        }
+
+        images.sort(Comparator.comparing(areas::get, Comparator.reverseOrder()));
+
+        for (String image : images) {
+            if (!atlas.addImage(image)) {
+                System.err.printf("'%s' does not fit in a %dx%d atlas.\n", image, size, size);
+                return;
+            }
+        }
+
+        atlas.save(Paths.get(args[0]), Paths.get(args[1]));
+        System.out.printf("Packed %d images at %.1f%% occupancy.\n", atlas.names().size(), atlas.occupancy() * 100D);
+    }
+}
@@ -0,0 +1,266 @@
+package pine.renderer;
+
+import org.lwjgl.stb.STBImage;
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+import pine.profiling.Profiler;
+import pine.utils.ProfileCounter;
+import pine.utils.ProfileSection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous texture loader singleton. Image files are read and decoded by stb_image on a pool of worker threads
+ * into off-heap buffers; the render thread then uploads finished images with {@link #processUploads(long)}, spending at
+ * most a fixed time budget per frame. Until its image is uploaded, each texture shows a 1x1 white placeholder. A
+ * texture whose file cannot be read or decoded keeps the placeholder and is marked {@link Texture#failed()}.
+ */
+public class TextureLoader {
+    public static final long DEFAULT_UPLOAD_BUDGET_NANOS = 2_000_000L;
+
+    private static TextureLoader instance;
+    private final ConcurrentLinkedQueue<PendingUpload> completed;
+    private final AtomicInteger pending;
+    private final AtomicLong decodedCount, failedCount, decodedBytes, decodeNanos;
+    private long uploadedCount, uploadNanos;
+    private ExecutorService workers;
+
+    /**
+     * Decoded image waiting to be uploaded into its texture.
+     */
+    private record PendingUpload(Texture texture, DecodedImage image) { }
+
+    /**
+     * Create a new texture loader. Worker threads are only started on the first load.
+     */
+    private TextureLoader() {
+        this.completed = new ConcurrentLinkedQueue<>();
+        this.pending = new AtomicInteger();
+        this.decodedCount = new AtomicLong();
+        this.failedCount = new AtomicLong();
+        this.decodedBytes = new AtomicLong();
+        this.decodeNanos = new AtomicLong();
+    }
+
+    /**
+     * @return Texture loader singleton instance.
+     */
+    public static TextureLoader get() {
+        if (TextureLoader.instance == null) { TextureLoader.instance = new TextureLoader(); }
+        return TextureLoader.instance;
+    }
+
+    /**
+     * Start loading a texture in the background. Must be called on the render thread, since the placeholder texture is
+     * created immediately.
+     *
+     * @param filePath Location of the texture file.
+     * @return Texture showing a placeholder until its image has been decoded and uploaded.
+     */
+    public Texture load(String filePath) {
+        Texture texture = Texture.placeholder(filePath);
+        this.submit(texture);
+
+        return texture;
+    }
+
+    /**
+     * Start loading the file of a texture whose loading failed again in the background. The texture keeps its
+     * placeholder until the new attempt has been decoded and uploaded.
+     *
+     * @param texture Texture marked as {@link Texture#failed()}.
+     */
+    public void retry(Texture texture) {
+        assert texture.failed() : "Error (TextureLoader.java): Texture '" + texture.filePath() + "' has not failed.";
+
+        texture.retry();
+        this.submit(texture);
+    }
+
+    /**
+     * Upload decoded images into their textures until the queue is empty or the time budget is used up. At least one
+     * image is uploaded per call if any are ready, so large images cannot stall the queue.
+     *
+     * @param budgetNanos Time budget for the uploads in nanoseconds.
+     * @return Number of textures uploaded.
+     */
+    public int processUploads(long budgetNanos) {
+        if (this.completed.isEmpty()) { return 0; }
+
+        Profiler.begin(ProfileSection.Upload);
+        final long start = System.nanoTime();
+        int uploaded = 0;
+
+        PendingUpload upload;
+        while ((upload = this.completed.poll()) != null) {
+            DecodedImage image = upload.image();
+
+            upload.texture().upload(image.width(), image.height(), image.channels(), image.pixels());
+            image.free();
+            uploaded++;
+
+            if (System.nanoTime() - start >= budgetNanos) { break; }
+        }
+
+        this.uploadedCount += uploaded;
+        this.uploadNanos += System.nanoTime() - start;
+
+        Profiler.count(ProfileCounter.TextureUploads, uploaded);
+        Profiler.end(ProfileSection.Upload);
+
+        return uploaded;
+    }
+
+    /**
+     * @return Number of textures still being decoded or waiting to be uploaded.
+     */
+    public int pending() { return this.pending.get() + this.completed.size(); }
+
+    /**
+     * @return Number of images decoded since startup.
+     */
+    public long decodedCount() { return this.decodedCount.get(); }
+
+    /**
+     * @return Number of textures whose file could not be read or decoded since startup.
+     */
+    public long failedCount() { return this.failedCount.get(); }
+
+    /**
+     * @return Total size of the decoded pixels since startup in bytes.
+     */
+    public long decodedBytes() { return this.decodedBytes.get(); }
+
+    /**
+     * @return Total time spent decoding since startup in nanoseconds, summed over every worker.
+     */
+    public long decodeNanos() { return this.decodeNanos.get(); }
+
+    /**
+     * @return Number of textures uploaded since startup.
+     */
+    public long uploadedCount() { return this.uploadedCount; }
+
+    /**
+     * @return Total time spent uploading on the render thread since startup in nanoseconds.
+     */
+    public long uploadNanos() { return this.uploadNanos; }
+
+    /**
+     * Stop the worker threads and free every decoded image that has not been uploaded.
+     */
+    public void shutdown() {
+        if (this.workers != null) {
+            this.workers.shutdownNow();
+
+            try { this.workers.awaitTermination(1L, TimeUnit.SECONDS); }
+            catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+
+            this.workers = null;
+        }
+
+        PendingUpload upload;
+        while ((upload = this.completed.poll()) != null) { upload.image().free(); }
+    }
+
+    /**
+     * Decode an encoded image held in memory with stb_image. Safe to call from any thread and does not require an
+     * OpenGL context.
+     *
+     * @param encoded Encoded image file contents.
+     * @return Decoded image, bottom row first, or null if the image could not be decoded.
+     */
+    public static DecodedImage decode(ByteBuffer encoded) {
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer width = stack.mallocInt(1);
+            IntBuffer height = stack.mallocInt(1);
+            IntBuffer channels = stack.mallocInt(1);
+
+            STBImage.stbi_set_flip_vertically_on_load_thread(1);
+            ByteBuffer pixels = STBImage.stbi_load_from_memory(encoded, width, height, channels, 0);
+
+            if (pixels == null) { return null; }
+            return new DecodedImage(width.get(0), height.get(0), channels.get(0), pixels);
+        }
+    }
+
+    /**
+     * Queue a texture's file to be decoded on a worker thread, starting the workers on first use.
+     *
+     * @param texture Texture to upload the image into.
+     */
+    private void submit(Texture texture) {
+        if (this.workers == null) {
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "pine-texture-decoder");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        this.pending.incrementAndGet();
+        this.workers.execute(() -> this.decodeFile(texture, texture.filePath()));
+    }
+
+    /**
+     * Read and decode a texture file on a worker thread and queue it for upload.
+     *
+     * @param texture  Texture to upload the image into.
+     * @param filePath Location of the texture file.
+     */
+    private void decodeFile(Texture texture, String filePath) {
+        ByteBuffer encoded = null;
+
+        try {
+            final long start = System.nanoTime();
+
+            byte[] bytes = Files.readAllBytes(Paths.get(filePath));
+            encoded = MemoryUtil.memAlloc(bytes.length);
+            encoded.put(bytes).flip();
+
+            DecodedImage image = TextureLoader.decode(encoded);
+            if (image == null) {
+                System.err.printf("'%s': %s\n", filePath, STBImage.stbi_failure_reason());
+                this.fail(texture);
+                return;
+            }
+
+            this.decodeNanos.addAndGet(System.nanoTime() - start);
+            this.decodedBytes.addAndGet((long) image.width() * image.height() * image.channels());
+            this.decodedCount.incrementAndGet();
+
+            this.completed.add(new PendingUpload(texture, image));
+        }
+
+        catch (IOException e) {
+            e.printStackTrace();
+            this.fail(texture);
+        }
+
+        finally {
+            if (encoded != null) { MemoryUtil.memFree(encoded); }
+            this.pending.decrementAndGet();
+        }
+    }
+
+    /**
+     * Mark a texture as failed and count the failure.
+     *
+     * @param texture Texture whose file could not be read or decoded.
+     */
+    private void fail(Texture texture) {
+        texture.fail();
+        this.failedCount.incrementAndGet();
+    }
+}
@@ -0,0 +1,84 @@
+package pine.renderer;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+
+/**
+ * Small set of textures bound to consecutive texture units, so that one draw call can sample from several textures by
+ * index.
+ */
+public class TextureSet {
+    private final Texture[] textures;
+    private int size;
+
+    /**
+     * Create a new empty texture set.
+     *
+     * @param capacity Number of textures, and so texture units, the set can hold.
+     */
+    public TextureSet(int capacity) {
+        this.textures = new Texture[capacity];
+    }
+
+    /**
+     * Find a texture in the set, adding it if there is room.
+     *
+     * @param texture Texture to find; null stands for no texture.
+     * @return Index of the texture, which is also its texture unit, or -1 if it is not in the set and the set is full.
+     */
+    public int add(Texture texture) {
+        final int index = this.indexOf(texture);
+        if (index >= 0 || this.size == this.textures.length) { return index; }
+
+        this.textures[this.size] = texture;
+        return this.size++;
+    }
+
+    /**
+     * @param texture Texture to find.
+     * @return Index of the texture, or -1 if it is not in the set.
+     */
+    public int indexOf(Texture texture) {
+        for (int i = 0; i < this.size; i++) {
+            if (this.textures[i] == texture) { return i; }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @param index Index of the texture.
+     * @return Texture at the index; null for no texture.
+     */
+    public Texture get(int index) { return this.textures[index]; }
+
+    /**
+     * @return Number of textures in the set.
+     */
+    public int size() { return this.size; }
+
+    /**
+     * @return Whether no more textures can be added.
+     */
+    public boolean isFull() { return this.size == this.textures.length; }
+
+    /**
+     * Remove every texture from the set.
+     */
+    public void clear() {
+        for (int i = 0; i < this.size; i++) { this.textures[i] = null; }
+        this.size = 0;
+    }
+
+    /**
+     * Bind every texture to the texture unit matching its index, leaving unit 0 active.
+     */
+    public void bind() {
+        for (int i = this.size - 1; i >= 0; i--) {
+            Graphics.backend().activeTexture(GL13.GL_TEXTURE0 + i);
+
+            if (this.textures[i] != null) { this.textures[i].bind(); }
+            else { Graphics.backend().bindTexture(GL11.GL_TEXTURE_2D, 0); }
+        }
+    }
+}
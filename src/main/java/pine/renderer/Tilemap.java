@@ -0,0 +1,428 @@
+package pine.renderer;
+
+import org.joml.Vector4f;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+import pine.Camera;
+import pine.utils.BlendMode;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Grid of tiles drawn from a sprite sheet, split into square chunks that each own a static vertex buffer. A chunk is
+ * only meshed and uploaded when it is first seen or after one of its tiles changes, and only chunks overlapping the
+ * camera's view are drawn, with one draw call each. A chunk left out of view for {@link #IDLE_FRAMES} frames frees its
+ * buffers and is meshed again when it comes back into view, so panning across a large map does not keep every chunk
+ * it has passed in video memory.
+ * <p>
+ * Tile 0 is empty; tile n shows sprite n - 1 of the tileset. Meshing is plain CPU work in {@link #mesh(int, int,
+ * float[])}, and no OpenGL objects are created until the map is first rendered.
+ */
+public class Tilemap {
+    public static final int DEFAULT_CHUNK_SIZE = 32;
+    public static final int IDLE_FRAMES = 120;
+
+    private final int width, height, chunkSize, chunksX, chunksY;
+    private final float tileSize;
+    private final Texture texture;
+    private final float[] uvs;
+    private final short[] tiles;
+    private final Chunk[] chunks;
+    private final Chunk[] resident;
+    private final Vector4f viewBounds;
+    private float[] meshVertices;
+    private FloatBuffer meshBuffer;
+    private int eboID;
+    private int frame, residentCount;
+    private int rebuildCount, evictionCount, drawnChunks, drawnQuads;
+
+    /**
+     * Chunk of the map and its OpenGL objects, created on first upload and freed once the chunk has been out of view
+     * for too long.
+     */
+    private static class Chunk {
+        private int vaoID, vboID, quadCount, lastSeen;
+        private boolean dirty = true;
+    }
+
+    /**
+     * Create a new empty tilemap with the default chunk size.
+     *
+     * @param tileset  Sprite sheet of the tiles, or null to draw untextured tiles.
+     * @param width    Width of the map in tiles.
+     * @param height   Height of the map in tiles.
+     * @param tileSize Width and height of a tile in world units.
+     */
+    public Tilemap(SpriteSheet tileset, int width, int height, float tileSize) {
+        this(tileset, width, height, tileSize, Tilemap.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Create a new empty tilemap.
+     *
+     * @param tileset   Sprite sheet of the tiles, or null to draw untextured tiles.
+     * @param width     Width of the map in tiles.
+     * @param height    Height of the map in tiles.
+     * @param tileSize  Width and height of a tile in world units.
+     * @param chunkSize Width and height of a chunk in tiles.
+     */
+    public Tilemap(SpriteSheet tileset, int width, int height, float tileSize, int chunkSize) {
+        this(tileset == null ? null : tileset.texture(), Tilemap.tileUVs(tileset), width, height, tileSize, chunkSize);
+    }
+
+    /**
+     * Create a new empty tilemap from a texture and the texture coordinates of each tile, for example as read back from
+     * a level file.
+     *
+     * @param texture   Texture of the tiles, or null to draw untextured tiles.
+     * @param tileUVs   Left, bottom, right and top texture coordinates of each tile, starting with empty tile 0.
+     * @param width     Width of the map in tiles.
+     * @param height    Height of the map in tiles.
+     * @param tileSize  Width and height of a tile in world units.
+     * @param chunkSize Width and height of a chunk in tiles.
+     */
+    public Tilemap(Texture texture, float[] tileUVs, int width, int height, float tileSize, int chunkSize) {
+        assert tileUVs.length >= 4 && tileUVs.length % 4 == 0
+            : "Error (Tilemap.java): Invalid tile texture coordinates.";
+
+        this.width = width;
+        this.height = height;
+        this.tileSize = tileSize;
+        this.chunkSize = chunkSize;
+        this.chunksX = (width + chunkSize - 1) / chunkSize;
+        this.chunksY = (height + chunkSize - 1) / chunkSize;
+        this.texture = texture;
+        this.uvs = tileUVs;
+        this.tiles = new short[width * height];
+        this.viewBounds = new Vector4f();
+
+        this.chunks = new Chunk[this.chunksX * this.chunksY];
+        for (int i = 0; i < this.chunks.length; i++) { this.chunks[i] = new Chunk(); }
+        this.resident = new Chunk[this.chunks.length];
+    }
+
+    /**
+     * Change a tile, marking its chunk for rebuilding.
+     *
+     * @param x    Column of the tile.
+     * @param y    Row of the tile, counted from the bottom.
+     * @param tile ID of the new tile; 0 for empty.
+     */
+    public void set(int x, int y, int tile) {
+        assert tile >= 0 && tile * 4 < this.uvs.length || this.texture == null
+            : "Error (Tilemap.java): Unknown tile '" + tile + "'.";
+
+        final int index = y * this.width + x;
+        if (this.tiles[index] == tile) { return; }
+
+        this.tiles[index] = (short) tile;
+        this.chunks[(y / this.chunkSize) * this.chunksX + x / this.chunkSize].dirty = true;
+    }
+
+    /**
+     * @param x Column of the tile.
+     * @param y Row of the tile, counted from the bottom.
+     * @return ID of the tile; 0 for empty.
+     */
+    public int get(int x, int y) { return this.tiles[y * this.width + x]; }
+
+    /**
+     * Write every tile, row by row from the bottom, into a buffer.
+     *
+     * @param out Buffer with room for width * height tiles.
+     */
+    public void copyTiles(ShortBuffer out) {
+        out.put(this.tiles);
+    }
+
+    /**
+     * Replace every tile with tiles read in bulk, for example from a level file, marking every chunk for rebuilding.
+     *
+     * @param tiles Tiles row by row from the bottom, from the buffer's position; width * height tiles are read.
+     */
+    public void loadTiles(ShortBuffer tiles) {
+        tiles.get(this.tiles);
+        for (Chunk chunk : this.chunks) { chunk.dirty = true; }
+    }
+
+    /**
+     * Write the quads of every non-empty tile in a chunk into a vertex array, in the layout of {@link RenderBatch}.
+     *
+     * @param chunkX   Column of the chunk.
+     * @param chunkY   Row of the chunk, counted from the bottom.
+     * @param vertices Vertex array with room for a full chunk of quads.
+     * @return Number of quads written.
+     */
+    public int mesh(int chunkX, int chunkY, float[] vertices) {
+        final int startX = chunkX * this.chunkSize;
+        final int startY = chunkY * this.chunkSize;
+        final int endX = Math.min(startX + this.chunkSize, this.width);
+        final int endY = Math.min(startY + this.chunkSize, this.height);
+        final boolean textured = this.texture != null;
+        int quads = 0;
+
+        for (int y = startY; y < endY; y++) {
+            int index = y * this.width + startX;
+
+            for (int x = startX; x < endX; x++, index++) {
+                final int tile = this.tiles[index];
+                if (tile == 0) { continue; }
+
+                final int uv = textured ? tile * 4 : 0;
+                RenderBatch.packQuad(
+                    vertices, quads * RenderBatch.VERTICES_PER_QUAD * RenderBatch.VERTEX_SIZE,
+                    x * this.tileSize, y * this.tileSize, this.tileSize, this.tileSize, 1F, 1F, 1F, 1F,
+                    textured ? this.uvs[uv] : 0F, textured ? this.uvs[uv + 1] : 0F,
+                    textured ? this.uvs[uv + 2] : 1F, textured ? this.uvs[uv + 3] : 1F
+                );
+
+                quads++;
+            }
+        }
+
+        return quads;
+    }
+
+    /**
+     * Submit every chunk overlapping the camera's view to a render queue, rebuilding the dirty ones first, then free
+     * the buffers of chunks that have been out of view for {@link #IDLE_FRAMES} submissions.
+     *
+     * @param queue  Queue to submit the chunks to.
+     * @param shader Shader to draw the chunks with.
+     * @param layer  Layer of the draw commands.
+     * @param camera Camera the map is viewed through.
+     * @return Number of draw commands submitted.
+     */
+    public int submit(RenderQueue queue, Shader shader, int layer, Camera camera) {
+        camera.visibleBounds(this.viewBounds);
+
+        final float chunkWorldSize = this.chunkSize * this.tileSize;
+        final int minX = Math.max(0, (int) Math.floor(this.viewBounds.x / chunkWorldSize));
+        final int minY = Math.max(0, (int) Math.floor(this.viewBounds.y / chunkWorldSize));
+        final int maxX = Math.min(this.chunksX - 1, (int) Math.floor(this.viewBounds.z / chunkWorldSize));
+        final int maxY = Math.min(this.chunksY - 1, (int) Math.floor(this.viewBounds.w / chunkWorldSize));
+
+        this.drawnChunks = 0;
+        this.drawnQuads = 0;
+        this.frame++;
+
+        for (int chunkY = minY; chunkY <= maxY; chunkY++) {
+            for (int chunkX = minX; chunkX <= maxX; chunkX++) {
+                Chunk chunk = this.chunks[chunkY * this.chunksX + chunkX];
+                chunk.lastSeen = this.frame;
+
+                if (chunk.dirty) { this.rebuild(chunk, chunkX, chunkY); }
+                if (chunk.quadCount == 0) { continue; }
+
+                queue.submit(
+                    layer, BlendMode.Opaque, shader, this.texture, chunk.vaoID, 0,
+                    0, chunk.quadCount * RenderBatch.INDICES_PER_QUAD
+                );
+
+                this.drawnChunks++;
+                this.drawnQuads += chunk.quadCount;
+            }
+        }
+
+        this.evictIdle();
+        return this.drawnChunks;
+    }
+
+    /**
+     * Delete every OpenGL object owned by the map. The chunks are rebuilt if the map is rendered again.
+     */
+    public void delete() {
+        for (int i = 0; i < this.residentCount; i++) {
+            this.free(this.resident[i]);
+            this.resident[i] = null;
+        }
+
+        this.residentCount = 0;
+
+        if (this.eboID != 0) { Graphics.backend().deleteBuffers(this.eboID); }
+        this.eboID = 0;
+    }
+
+    /**
+     * @return Width of the map in tiles.
+     */
+    public int width() { return this.width; }
+
+    /**
+     * @return Height of the map in tiles.
+     */
+    public int height() { return this.height; }
+
+    /**
+     * @return Width and height of a chunk in tiles.
+     */
+    public int chunkSize() { return this.chunkSize; }
+
+    /**
+     * @return Width and height of a tile in world units.
+     */
+    public float tileSize() { return this.tileSize; }
+
+    /**
+     * @return Texture of the tiles, or null if they are untextured.
+     */
+    public Texture texture() { return this.texture; }
+
+    /**
+     * @return Number of tile IDs, including empty tile 0.
+     */
+    public int tileTypes() { return this.uvs.length / 4; }
+
+    /**
+     * Write the left, bottom, right and top texture coordinates of every tile ID, starting with empty tile 0, into a
+     * buffer.
+     *
+     * @param out Buffer with room for 4 * {@link #tileTypes()} floats.
+     */
+    public void copyTileUVs(FloatBuffer out) {
+        out.put(this.uvs);
+    }
+
+    /**
+     * @return Number of chunks rebuilt since the map was created.
+     */
+    public int rebuildCount() { return this.rebuildCount; }
+
+    /**
+     * @return Number of chunks whose buffers were freed after being out of view, since the map was created.
+     */
+    public int evictionCount() { return this.evictionCount; }
+
+    /**
+     * @return Number of chunks currently holding OpenGL objects.
+     */
+    public int residentChunks() { return this.residentCount; }
+
+    /**
+     * @return Number of chunks submitted by the last call to {@link #submit(RenderQueue, Shader, int, Camera)}.
+     */
+    public int drawnChunks() { return this.drawnChunks; }
+
+    /**
+     * @return Number of quads submitted by the last call to {@link #submit(RenderQueue, Shader, int, Camera)}.
+     */
+    public int drawnQuads() { return this.drawnQuads; }
+
+    /**
+     * @return Texture coordinates of every tile ID of a sprite sheet, starting with empty tile 0.
+     */
+    private static float[] tileUVs(SpriteSheet tileset) {
+        final int spriteCount = tileset == null ? 0 : tileset.size();
+        float[] uvs = new float[(spriteCount + 1) * 4];
+
+        for (int i = 0; i < spriteCount; i++) {
+            Sprite sprite = tileset.sprite(i);
+            final int offset = (i + 1) * 4;
+
+            uvs[offset] = sprite.u0();
+            uvs[offset + 1] = sprite.v0();
+            uvs[offset + 2] = sprite.u1();
+            uvs[offset + 3] = sprite.v1();
+        }
+
+        return uvs;
+    }
+
+    /**
+     * Mesh a chunk and upload it into its static vertex buffer, creating its OpenGL objects on first use.
+     */
+    private void rebuild(Chunk chunk, int chunkX, int chunkY) {
+        final int maxQuads = this.chunkSize * this.chunkSize;
+
+        if (this.meshVertices == null) {
+            this.meshVertices = new float[maxQuads * RenderBatch.VERTICES_PER_QUAD * RenderBatch.VERTEX_SIZE];
+            this.meshBuffer = BufferUtils.createFloatBuffer(this.meshVertices.length);
+        }
+
+        if (this.eboID == 0) {
+            int[] indices = RenderBatch.generateIndices(maxQuads);
+            IntBuffer elementBuffer = BufferUtils.createIntBuffer(indices.length);
+            elementBuffer.put(indices).flip();
+
+            this.eboID = Graphics.backend().genBuffers();
+            Graphics.backend().bindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, this.eboID);
+            Graphics.backend().bufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, elementBuffer, GL15.GL_STATIC_DRAW);
+        }
+
+        if (chunk.vaoID == 0) {
+            chunk.vaoID = Graphics.backend().genVertexArrays();
+            Graphics.backend().bindVertexArray(chunk.vaoID);
+
+            chunk.vboID = Graphics.backend().genBuffers();
+            Graphics.backend().bindBuffer(GL15.GL_ARRAY_BUFFER, chunk.vboID);
+
+            // Every chunk shares one element buffer sized for a full chunk.
+            Graphics.backend().bindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, this.eboID);
+
+            Graphics.backend().vertexAttribPointer(
+                0, RenderBatch.POSITION_SIZE, GL11.GL_FLOAT, false, RenderBatch.VERTEX_SIZE_BYTES,
+                RenderBatch.POSITION_OFFSET
+            );
+            Graphics.backend().enableVertexAttribArray(0);
+
+            Graphics.backend().vertexAttribPointer(
+                1, RenderBatch.COLOR_SIZE, GL11.GL_FLOAT, false, RenderBatch.VERTEX_SIZE_BYTES,
+                RenderBatch.COLOR_OFFSET
+            );
+            Graphics.backend().enableVertexAttribArray(1);
+
+            Graphics.backend().vertexAttribPointer(
+                2, RenderBatch.UV_SIZE, GL11.GL_FLOAT, false, RenderBatch.VERTEX_SIZE_BYTES, RenderBatch.UV_OFFSET
+            );
+            Graphics.backend().enableVertexAttribArray(2);
+
+            Graphics.backend().bindVertexArray(0);
+            this.resident[this.residentCount++] = chunk;
+        }
+
+        chunk.quadCount = this.mesh(chunkX, chunkY, this.meshVertices);
+        chunk.dirty = false;
+        this.rebuildCount++;
+
+        this.meshBuffer.clear();
+        this.meshBuffer.put(
+            this.meshVertices, 0, chunk.quadCount * RenderBatch.VERTICES_PER_QUAD * RenderBatch.VERTEX_SIZE
+        ).flip();
+
+        Graphics.backend().bindBuffer(GL15.GL_ARRAY_BUFFER, chunk.vboID);
+        Graphics.backend().bufferData(GL15.GL_ARRAY_BUFFER, this.meshBuffer, GL15.GL_STATIC_DRAW);
+    }
+
+    /**
+     * Free the chunks that have been out of view for more than {@link #IDLE_FRAMES} submissions. Only chunks holding
+     * OpenGL objects are visited, so the cost does not grow with the size of the map.
+     */
+    private void evictIdle() {
+        for (int i = this.residentCount - 1; i >= 0; i--) {
+            Chunk chunk = this.resident[i];
+            if (this.frame - chunk.lastSeen <= IDLE_FRAMES) { continue; }
+
+            this.free(chunk);
+            this.evictionCount++;
+
+            this.resident[i] = this.resident[--this.residentCount];
+            this.resident[this.residentCount] = null;
+        }
+    }
+
+    /**
+     * Delete the OpenGL objects of a chunk and mark it for rebuilding.
+     */
+    private void free(Chunk chunk) {
+        Graphics.backend().deleteBuffers(chunk.vboID);
+        Graphics.backend().deleteVertexArrays(chunk.vaoID);
+
+        chunk.vaoID = 0;
+        chunk.vboID = 0;
+        chunk.quadCount = 0;
+        chunk.dirty = true;
+    }
+}
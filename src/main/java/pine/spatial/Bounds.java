@@ -0,0 +1,88 @@
+package pine.spatial;
+
+import java.util.Arrays;
+
+/**
+ * Boxes stored as structure-of-arrays indexed by ID, shared by the spatial index implementations.
+ */
+class Bounds {
+    float[] minX, minY, maxX, maxY;
+    boolean[] present;
+    int size;
+
+    /**
+     * Create new empty bounds storage.
+     *
+     * @param capacity Number of IDs the storage can hold before growing.
+     */
+    Bounds(int capacity) {
+        this.minX = new float[capacity];
+        this.minY = new float[capacity];
+        this.maxX = new float[capacity];
+        this.maxY = new float[capacity];
+        this.present = new boolean[capacity];
+    }
+
+    /**
+     * Make room for an ID.
+     *
+     * @param id ID about to be stored.
+     */
+    void ensure(int id) {
+        if (id < this.present.length) { return; }
+
+        final int capacity = Math.max(id + 1, this.present.length * 2);
+        this.minX = Arrays.copyOf(this.minX, capacity);
+        this.minY = Arrays.copyOf(this.minY, capacity);
+        this.maxX = Arrays.copyOf(this.maxX, capacity);
+        this.maxY = Arrays.copyOf(this.maxY, capacity);
+        this.present = Arrays.copyOf(this.present, capacity);
+    }
+
+    /**
+     * @return Whether the ID has a box.
+     */
+    boolean contains(int id) {
+        return id >= 0 && id < this.present.length && this.present[id];
+    }
+
+    /**
+     * Store the box of an ID.
+     */
+    void set(int id, float x, float y, float width, float height) {
+        this.ensure(id);
+
+        if (!this.present[id]) {
+            this.present[id] = true;
+            this.size++;
+        }
+
+        this.minX[id] = x;
+        this.minY[id] = y;
+        this.maxX[id] = x + width;
+        this.maxY[id] = y + height;
+    }
+
+    /**
+     * Forget the box of an ID.
+     */
+    void remove(int id) {
+        this.present[id] = false;
+        this.size--;
+    }
+
+    /**
+     * @return Whether the box of an ID overlaps an area, edges included.
+     */
+    boolean overlaps(int id, float minX, float minY, float maxX, float maxY) {
+        return this.minX[id] <= maxX && this.maxX[id] >= minX && this.minY[id] <= maxY && this.maxY[id] >= minY;
+    }
+
+    /**
+     * Forget every box.
+     */
+    void clear() {
+        Arrays.fill(this.present, false);
+        this.size = 0;
+    }
+}
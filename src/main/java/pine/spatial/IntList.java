@@ -0,0 +1,80 @@
+package pine.spatial;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of ints, reused between queries so that collecting results does not allocate.
+ */
+public class IntList {
+    private int[] values;
+    private int size;
+
+    /**
+     * Create a new empty list with a default capacity.
+     */
+    public IntList() {
+        this(16);
+    }
+
+    /**
+     * Create a new empty list.
+     *
+     * @param capacity Number of values the list can hold before growing.
+     */
+    public IntList(int capacity) {
+        this.values = new int[Math.max(1, capacity)];
+        this.size = 0;
+    }
+
+    /**
+     * Append a value.
+     *
+     * @param value Value to append.
+     */
+    public void add(int value) {
+        if (this.size == this.values.length) { this.values = Arrays.copyOf(this.values, this.size * 2); }
+        this.values[this.size++] = value;
+    }
+
+    /**
+     * @param index Index of the value.
+     * @return Value at the index.
+     */
+    public int get(int index) { return this.values[index]; }
+
+    /**
+     * Replace the value at an index.
+     *
+     * @param index Index of the value.
+     * @param value New value.
+     */
+    public void set(int index, int value) {
+        this.values[index] = value;
+    }
+
+    /**
+     * Remove the value at an index by moving the last value into its place.
+     *
+     * @param index Index of the value.
+     * @return Value moved into the index, or -1 if the removed value was the last one.
+     */
+    public int swapRemove(int index) {
+        final int last = --this.size;
+        if (index == last) { return -1; }
+
+        this.values[index] = this.values[last];
+        return this.values[index];
+    }
+
+    /**
+     * @return Number of values in the list.
+     */
+    public int size() { return this.size; }
+
+    /**
+     * Remove every value, keeping the capacity.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+}
@@ -0,0 +1,228 @@
+package pine.spatial;
+
+import java.util.Arrays;
+
+/**
+ * Loose quadtree spatial index over a square region of the world. Each node's bounds are enlarged by half its size on
+ * every side, so a box only ever lives in one node: the deepest node no smaller than the box whose cell contains the
+ * box's centre. Placing a box is therefore a direct calculation rather than a descent, and moving a box relinks it
+ * only when it changes node. Boxes whose centre falls outside the region are kept in the root.
+ * <p>
+ * The tree is complete and stored implicitly in arrays, with node lists created on first use; a per-node count of the
+ * boxes in its subtree lets queries skip empty branches.
+ */
+public class LooseQuadtree implements SpatialIndex {
+    public static final int DEFAULT_MAX_DEPTH = 8;
+
+    private final float originX, originY, size;
+    private final int maxDepth;
+    private final int[] depthOffsets;
+    private final IntList[] nodes;
+    private final int[] subtreeCounts;
+    private final Bounds bounds;
+    private int[] nodeOf, slotOf;
+
+    /**
+     * Create a new empty quadtree with the default depth.
+     *
+     * @param originX x-coordinate of the bottom-left corner of the region.
+     * @param originY y-coordinate of the bottom-left corner of the region.
+     * @param size    Width and height of the region in world units.
+     */
+    public LooseQuadtree(float originX, float originY, float size) {
+        this(originX, originY, size, LooseQuadtree.DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * Create a new empty quadtree.
+     *
+     * @param originX  x-coordinate of the bottom-left corner of the region.
+     * @param originY  y-coordinate of the bottom-left corner of the region.
+     * @param size     Width and height of the region in world units.
+     * @param maxDepth Depth of the deepest nodes; the root is at depth 0.
+     */
+    public LooseQuadtree(float originX, float originY, float size, int maxDepth) {
+        this.originX = originX;
+        this.originY = originY;
+        this.size = size;
+        this.maxDepth = maxDepth;
+
+        this.depthOffsets = new int[maxDepth + 2];
+        for (int depth = 1; depth < this.depthOffsets.length; depth++) {
+            this.depthOffsets[depth] = this.depthOffsets[depth - 1] + (1 << (2 * (depth - 1)));
+        }
+
+        this.nodes = new IntList[this.depthOffsets[maxDepth + 1]];
+        this.subtreeCounts = new int[this.nodes.length];
+        this.bounds = new Bounds(1024);
+        this.nodeOf = new int[1024];
+        this.slotOf = new int[1024];
+    }
+
+    @Override
+    public void update(int id, float x, float y, float width, float height) {
+        final int node = this.nodeFor(x, y, width, height);
+        final boolean present = this.bounds.contains(id);
+
+        this.bounds.set(id, x, y, width, height);
+        if (present && this.nodeOf[id] == node) { return; }
+
+        if (present) { this.unlink(id); }
+        this.link(id, node);
+    }
+
+    @Override
+    public void remove(int id) {
+        if (!this.bounds.contains(id)) { return; }
+
+        this.unlink(id);
+        this.bounds.remove(id);
+    }
+
+    @Override
+    public boolean contains(int id) { return this.bounds.contains(id); }
+
+    @Override
+    public int query(float minX, float minY, float maxX, float maxY, IntList results) {
+        return this.query(0, 0, 0, minX, minY, maxX, maxY, results);
+    }
+
+    @Override
+    public int size() { return this.bounds.size; }
+
+    @Override
+    public void clear() {
+        this.bounds.clear();
+        Arrays.fill(this.subtreeCounts, 0);
+
+        for (IntList node : this.nodes) {
+            if (node != null) { node.clear(); }
+        }
+    }
+
+    /**
+     * @return Depth of the deepest nodes.
+     */
+    public int maxDepth() { return this.maxDepth; }
+
+    /**
+     * Collect the boxes of a subtree overlapping an area.
+     *
+     * @return Number of IDs appended.
+     */
+    private int query(
+        int depth, int cellX, int cellY, float minX, float minY, float maxX, float maxY, IntList results
+    ) {
+        final int node = this.depthOffsets[depth] + (cellY << depth) + cellX;
+        if (this.subtreeCounts[node] == 0) { return 0; }
+
+        // The root also holds boxes outside the region, so its bounds are never tested.
+        if (depth > 0) {
+            final float cellSize = this.size / (1 << depth);
+            final float looseMinX = this.originX + (cellX - 0.5F) * cellSize;
+            final float looseMinY = this.originY + (cellY - 0.5F) * cellSize;
+            final float looseMaxX = looseMinX + 2F * cellSize;
+            final float looseMaxY = looseMinY + 2F * cellSize;
+
+            if (looseMinX > maxX || looseMaxX < minX || looseMinY > maxY || looseMaxY < minY) { return 0; }
+        }
+
+        int found = 0;
+        IntList ids = this.nodes[node];
+
+        if (ids != null) {
+            for (int i = 0; i < ids.size(); i++) {
+                final int id = ids.get(i);
+
+                if (this.bounds.overlaps(id, minX, minY, maxX, maxY)) {
+                    results.add(id);
+                    found++;
+                }
+            }
+        }
+
+        if (depth < this.maxDepth) {
+            final int childX = cellX << 1;
+            final int childY = cellY << 1;
+
+            found += this.query(depth + 1, childX, childY, minX, minY, maxX, maxY, results);
+            found += this.query(depth + 1, childX + 1, childY, minX, minY, maxX, maxY, results);
+            found += this.query(depth + 1, childX, childY + 1, minX, minY, maxX, maxY, results);
+            found += this.query(depth + 1, childX + 1, childY + 1, minX, minY, maxX, maxY, results);
+        }
+
+        return found;
+    }
+
+    /**
+     * Find the node a box belongs in: the deepest node whose cell is at least as large as the box and contains its
+     * centre, or the root if the centre is outside the region.
+     *
+     * @return Index of the node.
+     */
+    private int nodeFor(float x, float y, float width, float height) {
+        final float centerX = (x + width * 0.5F - this.originX) / this.size;
+        final float centerY = (y + height * 0.5F - this.originY) / this.size;
+
+        if (centerX < 0F || centerX >= 1F || centerY < 0F || centerY >= 1F) { return 0; }
+
+        final float extent = Math.max(width, height) / this.size;
+        int depth = 0;
+        while (depth < this.maxDepth && extent <= 1F / (1 << (depth + 1))) { depth++; }
+
+        final int cells = 1 << depth;
+        final int cellX = Math.min(cells - 1, (int) (centerX * cells));
+        final int cellY = Math.min(cells - 1, (int) (centerY * cells));
+
+        return this.depthOffsets[depth] + (cellY << depth) + cellX;
+    }
+
+    /**
+     * Add a box to a node and count it in the node's ancestors.
+     */
+    private void link(int id, int node) {
+        if (id >= this.nodeOf.length) {
+            final int capacity = Math.max(id + 1, this.nodeOf.length * 2);
+            this.nodeOf = Arrays.copyOf(this.nodeOf, capacity);
+            this.slotOf = Arrays.copyOf(this.slotOf, capacity);
+        }
+
+        if (this.nodes[node] == null) { this.nodes[node] = new IntList(4); }
+
+        this.nodeOf[id] = node;
+        this.slotOf[id] = this.nodes[node].size();
+        this.nodes[node].add(id);
+
+        this.countSubtree(node, 1);
+    }
+
+    /**
+     * Remove a box from its node and uncount it in the node's ancestors.
+     */
+    private void unlink(int id) {
+        final int node = this.nodeOf[id];
+        final int moved = this.nodes[node].swapRemove(this.slotOf[id]);
+        if (moved >= 0) { this.slotOf[moved] = this.slotOf[id]; }
+
+        this.countSubtree(node, -1);
+    }
+
+    /**
+     * Add to the subtree counts of a node and every ancestor.
+     */
+    private void countSubtree(int node, int amount) {
+        int depth = 0;
+        while (node >= this.depthOffsets[depth + 1]) { depth++; }
+
+        final int local = node - this.depthOffsets[depth];
+        int cellX = local & ((1 << depth) - 1);
+        int cellY = local >> depth;
+
+        for (; depth >= 0; depth--) {
+            this.subtreeCounts[this.depthOffsets[depth] + (cellY << depth) + cellX] += amount;
+
+            cellX >>= 1;
+            cellY >>= 1;
+        }
+    }
+}
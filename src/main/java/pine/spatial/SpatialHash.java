@@ -0,0 +1,272 @@
+package pine.spatial;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid spatial index over an unbounded world. Boxes are added to every cell they overlap, and cells are kept
+ * in an open-addressing hash table keyed by their grid coordinates, so only occupied cells use memory. Works best when
+ * boxes are around the size of a cell or smaller.
+ * <p>
+ * Moving a box only touches the grid if it crosses into a different set of cells.
+ */
+public class SpatialHash implements SpatialIndex {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final float cellSize, inverseCellSize;
+    private final Bounds bounds;
+    private int[] cellMinX, cellMinY, cellMaxX, cellMaxY;
+    private int[] stamps;
+    private int stamp;
+
+    private long[] keys;
+    private IntList[] cells;
+    private int cellCount;
+
+    /**
+     * Create a new empty spatial hash.
+     *
+     * @param cellSize Width and height of a cell in world units.
+     */
+    public SpatialHash(float cellSize) {
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1F / cellSize;
+        this.bounds = new Bounds(1024);
+        this.cellMinX = new int[1024];
+        this.cellMinY = new int[1024];
+        this.cellMaxX = new int[1024];
+        this.cellMaxY = new int[1024];
+        this.stamps = new int[1024];
+
+        this.keys = new long[1024];
+        this.cells = new IntList[1024];
+        Arrays.fill(this.keys, EMPTY);
+    }
+
+    @Override
+    public void update(int id, float x, float y, float width, float height) {
+        final int minX = this.cell(x);
+        final int minY = this.cell(y);
+        final int maxX = this.cell(x + width);
+        final int maxY = this.cell(y + height);
+
+        if (this.bounds.contains(id)) {
+            if (minX == this.cellMinX[id] && minY == this.cellMinY[id]
+                && maxX == this.cellMaxX[id] && maxY == this.cellMaxY[id]) {
+                this.bounds.set(id, x, y, width, height);
+                return;
+            }
+
+            this.unlink(id);
+        }
+
+        this.bounds.set(id, x, y, width, height);
+        this.ensure(id);
+
+        this.cellMinX[id] = minX;
+        this.cellMinY[id] = minY;
+        this.cellMaxX[id] = maxX;
+        this.cellMaxY[id] = maxY;
+
+        for (int cy = minY; cy <= maxY; cy++) {
+            for (int cx = minX; cx <= maxX; cx++) { this.findCell(cx, cy, true).add(id); }
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        if (!this.bounds.contains(id)) { return; }
+
+        this.unlink(id);
+        this.bounds.remove(id);
+    }
+
+    @Override
+    public boolean contains(int id) { return this.bounds.contains(id); }
+
+    @Override
+    public int query(float minX, float minY, float maxX, float maxY, IntList results) {
+        final int cellMinX = this.cell(minX);
+        final int cellMinY = this.cell(minY);
+        final int cellMaxX = this.cell(maxX);
+        final int cellMaxY = this.cell(maxY);
+        final int stamp = this.nextStamp();
+        int found = 0;
+
+        // Areas covering more cells than the table holds are cheaper to answer by walking the table itself.
+        if ((long) (cellMaxX - cellMinX + 1) * (cellMaxY - cellMinY + 1) > this.keys.length) {
+            for (int slot = 0; slot < this.keys.length; slot++) {
+                if (this.keys[slot] == EMPTY) { continue; }
+                found += this.collect(this.cells[slot], stamp, minX, minY, maxX, maxY, results);
+            }
+
+            return found;
+        }
+
+        for (int cy = cellMinY; cy <= cellMaxY; cy++) {
+            for (int cx = cellMinX; cx <= cellMaxX; cx++) {
+                IntList cell = this.findCell(cx, cy, false);
+                if (cell != null) { found += this.collect(cell, stamp, minX, minY, maxX, maxY, results); }
+            }
+        }
+
+        return found;
+    }
+
+    @Override
+    public int size() { return this.bounds.size; }
+
+    @Override
+    public void clear() {
+        this.bounds.clear();
+
+        for (IntList cell : this.cells) {
+            if (cell != null) { cell.clear(); }
+        }
+    }
+
+    /**
+     * @return Width and height of a cell in world units.
+     */
+    public float cellSize() { return this.cellSize; }
+
+    /**
+     * @return Number of grid cells that have held a box.
+     */
+    public int cellCount() { return this.cellCount; }
+
+    /**
+     * @return Grid coordinate of a world coordinate.
+     */
+    private int cell(float coordinate) {
+        return (int) Math.floor(coordinate * this.inverseCellSize);
+    }
+
+    /**
+     * Append the IDs of a cell overlapping an area, skipping IDs already tested by the current query.
+     *
+     * @return Number of IDs appended.
+     */
+    private int collect(IntList cell, int stamp, float minX, float minY, float maxX, float maxY, IntList results) {
+        int found = 0;
+
+        for (int i = 0; i < cell.size(); i++) {
+            final int id = cell.get(i);
+
+            // Boxes spanning several cells are only tested once.
+            if (this.stamps[id] == stamp) { continue; }
+            this.stamps[id] = stamp;
+
+            if (this.bounds.overlaps(id, minX, minY, maxX, maxY)) {
+                results.add(id);
+                found++;
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Remove a box from every cell it is linked into.
+     */
+    private void unlink(int id) {
+        for (int cy = this.cellMinY[id]; cy <= this.cellMaxY[id]; cy++) {
+            for (int cx = this.cellMinX[id]; cx <= this.cellMaxX[id]; cx++) {
+                IntList cell = this.findCell(cx, cy, false);
+
+                for (int i = 0; i < cell.size(); i++) {
+                    if (cell.get(i) == id) {
+                        cell.swapRemove(i);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the list of a cell in the hash table.
+     *
+     * @param create Whether to create the cell if it does not exist.
+     * @return List of IDs in the cell, or null if it does not exist and was not created.
+     */
+    private IntList findCell(int cx, int cy, boolean create) {
+        final long key = ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+        final int mask = this.keys.length - 1;
+        int slot = SpatialHash.hash(key) & mask;
+
+        while (this.keys[slot] != EMPTY) {
+            if (this.keys[slot] == key) { return this.cells[slot]; }
+            slot = (slot + 1) & mask;
+        }
+
+        if (!create) { return null; }
+
+        if ((this.cellCount + 1) * 2 > this.keys.length) {
+            this.rehash();
+            return this.findCell(cx, cy, true);
+        }
+
+        this.keys[slot] = key;
+        this.cells[slot] = new IntList(4);
+        this.cellCount++;
+
+        return this.cells[slot];
+    }
+
+    /**
+     * Double the size of the hash table.
+     */
+    private void rehash() {
+        long[] oldKeys = this.keys;
+        IntList[] oldCells = this.cells;
+
+        this.keys = new long[oldKeys.length * 2];
+        this.cells = new IntList[oldKeys.length * 2];
+        Arrays.fill(this.keys, EMPTY);
+
+        final int mask = this.keys.length - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) { continue; }
+
+            int slot = SpatialHash.hash(oldKeys[i]) & mask;
+            while (this.keys[slot] != EMPTY) { slot = (slot + 1) & mask; }
+
+            this.keys[slot] = oldKeys[i];
+            this.cells[slot] = oldCells[i];
+        }
+    }
+
+    /**
+     * Make room for an ID in the per-ID arrays.
+     */
+    private void ensure(int id) {
+        if (id < this.stamps.length) { return; }
+
+        final int capacity = Math.max(id + 1, this.stamps.length * 2);
+        this.cellMinX = Arrays.copyOf(this.cellMinX, capacity);
+        this.cellMinY = Arrays.copyOf(this.cellMinY, capacity);
+        this.cellMaxX = Arrays.copyOf(this.cellMaxX, capacity);
+        this.cellMaxY = Arrays.copyOf(this.cellMaxY, capacity);
+        this.stamps = Arrays.copyOf(this.stamps, capacity);
+    }
+
+    /**
+     * @return Stamp marking the IDs seen by a new query.
+     */
+    private int nextStamp() {
+        if (++this.stamp == 0) {
+            Arrays.fill(this.stamps, 0);
+            this.stamp = 1;
+        }
+
+        return this.stamp;
+    }
+
+    /**
+     * @return Well-mixed hash of a cell key.
+     */
+    private static int hash(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+}
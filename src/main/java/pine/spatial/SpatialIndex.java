@@ -0,0 +1,65 @@
+package pine.spatial;
+
+/**
+ * Index of axis-aligned boxes identified by non-negative int IDs, typically entity IDs, supporting area and point
+ * queries. Boxes are given by their bottom-left corner and size in world units.
+ */
+public interface SpatialIndex {
+    /**
+     * Add a box, or move it if the ID is already in the index.
+     *
+     * @param id     ID of the box.
+     * @param x      x-coordinate of the bottom-left corner.
+     * @param y      y-coordinate of the bottom-left corner.
+     * @param width  Width of the box.
+     * @param height Height of the box.
+     */
+    void update(int id, float x, float y, float width, float height);
+
+    /**
+     * Remove a box. Does nothing if the ID is not in the index.
+     *
+     * @param id ID of the box.
+     */
+    void remove(int id);
+
+    /**
+     * @param id ID of the box.
+     * @return Whether the box is in the index.
+     */
+    boolean contains(int id);
+
+    /**
+     * Collect every box overlapping an area. Each ID is reported once.
+     *
+     * @param minX    Left edge of the area.
+     * @param minY    Bottom edge of the area.
+     * @param maxX    Right edge of the area.
+     * @param maxY    Top edge of the area.
+     * @param results List to append the IDs to; not cleared first.
+     * @return Number of IDs appended.
+     */
+    int query(float minX, float minY, float maxX, float maxY, IntList results);
+
+    /**
+     * Collect every box containing a point, e.g. for mouse picking.
+     *
+     * @param x       x-coordinate of the point.
+     * @param y       y-coordinate of the point.
+     * @param results List to append the IDs to; not cleared first.
+     * @return Number of IDs appended.
+     */
+    default int queryPoint(float x, float y, IntList results) {
+        return this.query(x, y, x, y, results);
+    }
+
+    /**
+     * @return Number of boxes in the index.
+     */
+    int size();
+
+    /**
+     * Remove every box.
+     */
+    void clear();
+}
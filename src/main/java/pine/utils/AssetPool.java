@@ -0,0 +1,280 @@
+package pine.utils;
+
+import pine.renderer.Shader;
+import pine.renderer.Texture;
+import pine.renderer.TextureLoader;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Central cache for shaders and textures. Assets are deduplicated by canonical path, plus feature flags for shader
+ * variants, and reference counted: every {@code shader}/{@code texture} call must be matched by a {@code release}
+ * call. Shaders are deleted as soon as they are no longer referenced. Unreferenced textures stay cached so that a
+ * later scene can reuse them, and are evicted least recently used first once the estimated video memory of all cached
+ * textures exceeds the budget. The video memory is kept as a running total, updated as textures are added, uploaded
+ * and deleted, so no request scans the cache.
+ * <p>
+ * A texture whose file could not be loaded stays cached as a placeholder, marked {@link Texture#failed()}; it can be
+ * evicted once unreferenced, and the next request for it tries to load the file again.
+ */
+public class AssetPool {
+    public static final long DEFAULT_TEXTURE_BUDGET_BYTES = 256L * 1024L * 1024L;
+
+    private static final Map<String, Entry<Shader>> shaders = new HashMap<>();
+    private static final LinkedHashMap<String, Entry<Texture>> textures = new LinkedHashMap<>(16, 0.75F, true);
+    private static long textureBudgetBytes = AssetPool.DEFAULT_TEXTURE_BUDGET_BYTES;
+    private static long textureBytes;
+    private static long hits, misses, evictions;
+
+    /**
+     * Cached asset and the number of live references to it.
+     */
+    private static class Entry<T> {
+        private final T asset;
+        private int references;
+
+        private Entry(T asset) { this.asset = asset; }
+    }
+
+    /**
+     * Create a new asset pool - not to be used.
+     */
+    private AssetPool() { }
+
+    /**
+     * Get a compiled and linked variant of a shader, loading it if it is not cached.
+     *
+     * @param filePath Location of the shader file.
+     * @param features Feature flags defined in the variant, either "NAME" or "NAME=VALUE"; none for the base shader.
+     * @return Shared shader.
+     */
+    public static Shader shader(String filePath, String... features) {
+        String key = AssetPool.variant(filePath, new TreeSet<>(Arrays.asList(features)));
+        Entry<Shader> entry = AssetPool.shaders.get(key);
+
+        if (entry == null) {
+            Shader shader = new Shader(filePath, Arrays.asList(features));
+            shader.compileAll(true);
+
+            entry = new Entry<>(shader);
+            AssetPool.shaders.put(key, entry);
+            AssetPool.misses++;
+        }
+
+        else {
+            AssetPool.hits++;
+        }
+
+        entry.references++;
+        return entry.asset;
+    }
+
+    /**
+     * Get a texture, loading it synchronously if it is not cached.
+     *
+     * @param filePath Location of the texture file.
+     * @return Shared texture.
+     */
+    public static Texture texture(String filePath) {
+        return AssetPool.texture(filePath, false);
+    }
+
+    /**
+     * Get a texture, loading it in the background with the texture loader if it is not cached. The texture shows a
+     * placeholder until it has loaded.
+     *
+     * @param filePath Location of the texture file.
+     * @return Shared texture.
+     */
+    public static Texture textureAsync(String filePath) {
+        return AssetPool.texture(filePath, true);
+    }
+
+    /**
+     * Release a reference to a shader, deleting it if it was the last one.
+     *
+     * @param shader Shader obtained from {@link #shader(String)}.
+     */
+    public static void release(Shader shader) {
+        String key = AssetPool.variant(shader.filePath(), shader.features());
+        Entry<Shader> entry = AssetPool.shaders.get(key);
+
+        assert entry != null && entry.asset == shader : "Error (AssetPool.java): Shader is not pooled.";
+        if (entry == null || --entry.references > 0) { return; }
+
+        shader.delete();
+        AssetPool.shaders.remove(key);
+    }
+
+    /**
+     * Release a reference to a texture. Unreferenced textures stay cached until evicted.
+     *
+     * @param texture Texture obtained from {@link #texture(String)} or {@link #textureAsync(String)}.
+     */
+    public static void release(Texture texture) {
+        Entry<Texture> entry = AssetPool.textures.get(AssetPool.canonical(texture.filePath()));
+
+        assert entry != null && entry.asset == texture : "Error (AssetPool.java): Texture is not pooled.";
+        if (entry == null || --entry.references > 0) { return; }
+
+        AssetPool.evict();
+    }
+
+    /**
+     * Set the video memory budget for cached textures and evict unreferenced textures until it is met.
+     *
+     * @param bytes Budget in bytes.
+     */
+    public static void setTextureBudget(long bytes) {
+        AssetPool.textureBudgetBytes = bytes;
+        AssetPool.evict();
+    }
+
+    /**
+     * @return Estimated video memory used by every cached texture in bytes.
+     */
+    public static long textureBytes() { return AssetPool.textureBytes; }
+
+    /**
+     * @return Every cached shader variant.
+     */
+    public static List<Shader> shaders() {
+        List<Shader> shaders = new ArrayList<>(AssetPool.shaders.size());
+        for (Entry<Shader> entry : AssetPool.shaders.values()) { shaders.add(entry.asset); }
+
+        return shaders;
+    }
+
+    /**
+     * @return Every cached texture, whether referenced or not.
+     */
+    public static List<Texture> textures() {
+        List<Texture> textures = new ArrayList<>(AssetPool.textures.size());
+        for (Entry<Texture> entry : AssetPool.textures.values()) { textures.add(entry.asset); }
+
+        return textures;
+    }
+
+    /**
+     * @return Number of requests served from the cache.
+     */
+    public static long hits() { return AssetPool.hits; }
+
+    /**
+     * @return Number of requests that had to load the asset.
+     */
+    public static long misses() { return AssetPool.misses; }
+
+    /**
+     * @return Number of textures evicted to stay within the budget.
+     */
+    public static long evictions() { return AssetPool.evictions; }
+
+    /**
+     * Delete every cached asset, whether referenced or not. Meant for shutdown.
+     */
+    public static void clear() {
+        for (Entry<Shader> entry : AssetPool.shaders.values()) { entry.asset.delete(); }
+        for (Entry<Texture> entry : AssetPool.textures.values()) { AssetPool.delete(entry.asset); }
+
+        AssetPool.shaders.clear();
+        AssetPool.textures.clear();
+    }
+
+    /**
+     * Look up a texture, loading it on a miss.
+     *
+     * @param filePath Location of the texture file.
+     * @param async    Whether to load the texture in the background.
+     * @return Shared texture.
+     */
+    private static Texture texture(String filePath, boolean async) {
+        String key = AssetPool.canonical(filePath);
+        Entry<Texture> entry = AssetPool.textures.get(key);
+
+        if (entry == null) {
+            Texture texture = async ? TextureLoader.get().load(filePath) : new Texture(filePath);
+
+            entry = new Entry<>(texture);
+            AssetPool.textures.put(key, entry);
+            AssetPool.textureBytes += texture.sizeBytes();
+            texture.setResizeListener(AssetPool::resized);
+            AssetPool.misses++;
+        }
+
+        else if (entry.asset.failed()) {
+            // Loading the file again, in place, reaches every holder of the texture.
+            if (async) { TextureLoader.get().retry(entry.asset); }
+            else { entry.asset.reload(); }
+
+            AssetPool.misses++;
+        }
+
+        else {
+            AssetPool.hits++;
+        }
+
+        entry.references++;
+        AssetPool.evict();
+
+        return entry.asset;
+    }
+
+    /**
+     * Delete unreferenced textures, least recently used first, until the cached textures fit the budget. Textures that
+     * are still loading are skipped; textures that failed to load are not.
+     */
+    private static void evict() {
+        Iterator<Entry<Texture>> iterator = AssetPool.textures.values().iterator();
+
+        while (AssetPool.textureBytes > AssetPool.textureBudgetBytes && iterator.hasNext()) {
+            Entry<Texture> entry = iterator.next();
+            if (entry.references > 0 || !entry.asset.loaded() && !entry.asset.failed()) { continue; }
+
+            AssetPool.delete(entry.asset);
+            iterator.remove();
+
+            AssetPool.evictions++;
+        }
+    }
+
+    /**
+     * Delete a cached texture, removing it from the running total.
+     */
+    private static void delete(Texture texture) {
+        AssetPool.textureBytes -= texture.sizeBytes();
+        texture.setResizeListener(null);
+        texture.delete();
+    }
+
+    /**
+     * Update the running total when the contents of a cached texture are replaced.
+     */
+    private static void resized(long bytes) {
+        AssetPool.textureBytes += bytes;
+    }
+
+    /**
+     * @return Absolute, normalized form of a path, so that different spellings of the same file share an entry.
+     */
+    private static String canonical(String filePath) {
+        return Paths.get(filePath).toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * @return Canonical path of a shader file followed by the sorted feature flags of a variant.
+     */
+    private static String variant(String filePath, SortedSet<String> features) {
+        String path = AssetPool.canonical(filePath);
+        return features.isEmpty() ? path : path + "#" + String.join(",", features);
+    }
+}
@@ -0,0 +1,8 @@
+package pine.utils;
+
+/**
+ * Enumeration for the blend modes a draw command can use, in the order they are drawn within a layer.
+ */
+public enum BlendMode {
+    Opaque, Alpha, Additive
+}
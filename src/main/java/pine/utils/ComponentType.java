@@ -0,0 +1,8 @@
+package pine.utils;
+
+/**
+ * Enumeration for the component types stored by a world, used by systems to declare what they read and write.
+ */
+public enum ComponentType {
+    Transform, Velocity, Sprite
+}
@@ -0,0 +1,118 @@
+package pine.utils;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Frame timer with a fixed-timestep accumulator. Each frame the time since the previous frame is added to the
+ * accumulator and drained in whole simulation steps; the remainder gives the interpolation factor for rendering. The
+ * number of steps per frame is clamped so that a slow frame cannot cause ever more steps on the following frames.
+ * <p>
+ * The timer reads time from a supplied clock, so it can be driven by a fake clock instead of {@link Time#time()}.
+ */
+public class FixedTimestep {
+    private final DoubleSupplier clock;
+    private final double step;
+    private final int maxStepsPerFrame;
+    private double lastTime, frameTime, accumulator;
+    private long droppedSteps;
+
+    /**
+     * Create a new timer using the application clock.
+     *
+     * @param stepsPerSecond   Number of fixed simulation steps per second.
+     * @param maxStepsPerFrame Maximum number of steps run in a single frame.
+     */
+    public FixedTimestep(double stepsPerSecond, int maxStepsPerFrame) {
+        this(stepsPerSecond, maxStepsPerFrame, Time::time);
+    }
+
+    /**
+     * Create a new timer.
+     *
+     * @param stepsPerSecond   Number of fixed simulation steps per second.
+     * @param maxStepsPerFrame Maximum number of steps run in a single frame.
+     * @param clock            Clock returning the current time in seconds.
+     */
+    public FixedTimestep(double stepsPerSecond, int maxStepsPerFrame, DoubleSupplier clock) {
+        this.clock = clock;
+        this.step = 1D / stepsPerSecond;
+        this.maxStepsPerFrame = maxStepsPerFrame;
+        this.reset();
+    }
+
+    /**
+     * Restart the timer from the current time with an empty accumulator.
+     */
+    public void reset() {
+        this.lastTime = this.clock.getAsDouble();
+        this.frameTime = 0D;
+        this.accumulator = 0D;
+        this.droppedSteps = 0L;
+    }
+
+    /**
+     * Measure the time since the previous frame without touching the accumulator.
+     *
+     * @return Time between the current and previous frame in seconds.
+     */
+    public double tick() {
+        final double now = this.clock.getAsDouble();
+
+        this.frameTime = now - this.lastTime;
+        this.lastTime = now;
+
+        return this.frameTime;
+    }
+
+    /**
+     * Measure the time since the previous frame, add it to the accumulator and drain it in whole steps. If more than
+     * the maximum number of steps are due, the excess is dropped rather than carried into later frames.
+     *
+     * @return Number of fixed steps to run this frame.
+     */
+    public int advance() {
+        return this.advance(this.tick());
+    }
+
+    /**
+     * Add a given frame time to the accumulator instead of measuring it, e.g. when replaying a recorded run, and drain
+     * it in whole steps as {@link #advance()} does.
+     *
+     * @param frameTime Time between the current and previous frame in seconds.
+     * @return Number of fixed steps to run this frame.
+     */
+    public int advance(double frameTime) {
+        this.frameTime = frameTime;
+        this.accumulator += frameTime;
+
+        int steps = (int) (this.accumulator / this.step);
+        this.accumulator -= steps * this.step;
+
+        if (steps > this.maxStepsPerFrame) {
+            this.droppedSteps += steps - this.maxStepsPerFrame;
+            steps = this.maxStepsPerFrame;
+        }
+
+        return steps;
+    }
+
+    /**
+     * @return Interpolation factor in [0, 1) between the previous and current simulation state.
+     */
+    public double alpha() { return this.accumulator / this.step; }
+
+    /**
+     * @return Length of a fixed step in seconds.
+     */
+    public double step() { return this.step; }
+
+    /**
+     * @return Time between the current and previous frame in seconds.
+     */
+    public double frameTime() { return this.frameTime; }
+
+    /**
+     * @return Number of steps dropped by the spiral-of-death clamp since the timer was reset.
+     */
+    public long droppedSteps() { return this.droppedSteps; }
+}
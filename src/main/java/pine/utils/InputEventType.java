@@ -0,0 +1,8 @@
+package pine.utils;
+
+/**
+ * Enumeration for the kinds of input event queued by the GLFW callbacks.
+ */
+public enum InputEventType {
+    Key, MouseButton, MouseMove, Scroll
+}
@@ -0,0 +1,8 @@
+package pine.utils;
+
+/**
+ * Enumeration for the ways the window main loop can step the current scene.
+ */
+public enum LoopMode {
+    Variable, Fixed
+}
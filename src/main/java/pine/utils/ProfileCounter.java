@@ -0,0 +1,9 @@
+package pine.utils;
+
+/**
+ * Enumeration for the per-frame counters bumped by the engine.
+ */
+public enum ProfileCounter {
+    DrawCalls, Vertices, TextureBinds, TextureUploads, UniformUploads, Visible, Culled, BindsSaved, VoicesStolen,
+    Particles
+}
@@ -0,0 +1,9 @@
+package pine.utils;
+
+/**
+ * Enumeration for the timed events that happen now and then rather than every frame, such as asset reloads. Each
+ * occurrence is recorded as one sample, so the percentiles describe the events themselves.
+ */
+public enum ProfileEvent {
+    ReloadLatency
+}
@@ -0,0 +1,9 @@
+package pine.utils;
+
+/**
+ * Enumeration for the timed sections of a frame. Sections may nest - the renderer's Render section is timed inside the
+ * scene's Update section.
+ */
+public enum ProfileSection {
+    Frame, Poll, Upload, Update, Render, Swap, Audio
+}
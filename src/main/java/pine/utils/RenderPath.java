@@ -0,0 +1,9 @@
+package pine.utils;
+
+/**
+ * Enumeration for the ways the renderer can draw quads: four vertices each in a batch, one instance each of a shared
+ * quad, or whichever suits the workload.
+ */
+public enum RenderPath {
+    Batched, Instanced, Auto
+}
@@ -4,5 +4,5 @@ package pine.utils;
  * Enumeration for the supported shader types.
  */
 public enum ShaderType {
-    Fragment, Vertex
+    Fragment, Vertex, Geometry, Compute
 }
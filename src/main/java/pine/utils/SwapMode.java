@@ -0,0 +1,8 @@
+package pine.utils;
+
+/**
+ * Enumeration for the supported frame pacing modes.
+ */
+public enum SwapMode {
+    VSync, AdaptiveVSync, Uncapped
+}
@@ -5,8 +5,7 @@ layout (location = 0) in vec3 attributePosition;
 layout (location = 1) in vec4 attributeColor;
 layout (location = 2) in vec2 attributeTextureCoordinates;
 
-uniform mat4 uniformProjection;
-uniform mat4 uniformView;
+#include "include/camera.glsl"
 
 out vec4 fragmentColor;
 out vec2 fragmentTextureCoordinates;
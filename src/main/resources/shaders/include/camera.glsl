@@ -0,0 +1,2 @@
+uniform mat4 uniformProjection;
+uniform mat4 uniformView;
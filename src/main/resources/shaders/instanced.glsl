@@ -0,0 +1,49 @@
+#type vertex
+#version 330 core
+
+layout (location = 0) in vec2 attributeCorner;
+layout (location = 1) in vec4 instanceRectangle;
+layout (location = 2) in vec4 instanceColor;
+layout (location = 3) in vec4 instanceTextureRectangle;
+layout (location = 4) in float instanceTextureIndex;
+
+#include "include/camera.glsl"
+
+out vec4 fragmentColor;
+out vec2 fragmentTextureCoordinates;
+flat out int fragmentTextureIndex;
+
+void main(void) {
+    vec2 position = instanceRectangle.xy + attributeCorner * instanceRectangle.zw;
+
+    fragmentColor = instanceColor;
+    fragmentTextureCoordinates = mix(instanceTextureRectangle.xy, instanceTextureRectangle.zw, attributeCorner);
+    fragmentTextureIndex = int(instanceTextureIndex);
+    gl_Position = uniformProjection * uniformView * vec4(position, 0.0, 1.0);
+}
+
+#type fragment
+#version 330 core
+
+uniform float uniformTime;
+uniform sampler2D TEXTURE_SAMPLERS[8];
+
+in vec4 fragmentColor;
+in vec2 fragmentTextureCoordinates;
+flat in int fragmentTextureIndex;
+
+out vec4 color;
+
+void main(void) {
+    // GLSL 3.30 only allows sampler arrays to be indexed by constant expressions.
+    switch (fragmentTextureIndex) {
+        case 0: color = texture(TEXTURE_SAMPLERS[0], fragmentTextureCoordinates); break;
+        case 1: color = texture(TEXTURE_SAMPLERS[1], fragmentTextureCoordinates); break;
+        case 2: color = texture(TEXTURE_SAMPLERS[2], fragmentTextureCoordinates); break;
+        case 3: color = texture(TEXTURE_SAMPLERS[3], fragmentTextureCoordinates); break;
+        case 4: color = texture(TEXTURE_SAMPLERS[4], fragmentTextureCoordinates); break;
+        case 5: color = texture(TEXTURE_SAMPLERS[5], fragmentTextureCoordinates); break;
+        case 6: color = texture(TEXTURE_SAMPLERS[6], fragmentTextureCoordinates); break;
+        default: color = texture(TEXTURE_SAMPLERS[7], fragmentTextureCoordinates); break;
+    }
+}
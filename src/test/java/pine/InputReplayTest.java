@@ -0,0 +1,93 @@
+package pine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lwjgl.glfw.GLFW;
+import pine.utils.InputEventType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Tests of playing back recordings written by {@link InputRecorder} with {@link InputReplay}.
+ */
+public class InputReplayTest {
+    /**
+     * A recording plays back the frames and events it was written with.
+     *
+     * @param directory Temporary directory for the recording.
+     */
+    @Test
+    public void replaysRecordedFrames(@TempDir Path directory) throws IOException {
+        Path filePath = InputReplayTest.record(directory.resolve("input.bin"));
+        InputReplay replay = new InputReplay(filePath);
+        InputQueue queue = new InputQueue(64);
+
+        Assertions.assertTrue(replay.hasNext());
+        Assertions.assertEquals(0.25D, replay.nextFrame(queue));
+        Assertions.assertEquals(2, queue.size());
+
+        Assertions.assertTrue(replay.hasNext());
+        Assertions.assertEquals(0.5D, replay.nextFrame(queue));
+        Assertions.assertEquals(1, replay.frame());
+
+        Assertions.assertTrue(replay.hasNext());
+        Assertions.assertEquals(0.125D, replay.nextFrame(queue));
+        Assertions.assertEquals(5, queue.size());
+        Assertions.assertFalse(replay.hasNext());
+    }
+
+    /**
+     * A recording cut off at any byte plays back every whole frame before the cut and then ends, without reading
+     * past the end of the data.
+     *
+     * @param directory Temporary directory for the recordings.
+     */
+    @Test
+    public void partialTrailingFrameEndsReplay(@TempDir Path directory) throws IOException {
+        final byte[] bytes = Files.readAllBytes(InputReplayTest.record(directory.resolve("input.bin")));
+        final int[] frameEnds = {8 + 14 + 5 + 17, 8 + 14 + 5 + 17 + 14, bytes.length};
+        Path cut = directory.resolve("cut.bin");
+
+        for (int length = 8; length <= bytes.length; length++) {
+            Files.write(cut, Arrays.copyOf(bytes, length));
+            InputReplay replay = new InputReplay(cut);
+            InputQueue queue = new InputQueue(64);
+            int frames = 0;
+
+            while (replay.hasNext()) {
+                replay.nextFrame(queue);
+                frames++;
+            }
+
+            int expected = 0;
+            for (int end : frameEnds) { expected += length >= end ? 1 : 0; }
+            Assertions.assertEquals(expected, frames, "Length " + length);
+        }
+    }
+
+    /**
+     * Write a recording of three frames: a key press and a mouse move, nothing, then a release, a scroll and a click.
+     *
+     * @return Location of the recording.
+     */
+    private static Path record(Path filePath) throws IOException {
+        try (InputRecorder recorder = new InputRecorder(filePath)) {
+            recorder.event(InputEventType.Key.ordinal(), GLFW.GLFW_KEY_W, GLFW.GLFW_PRESS, 0, 0D, 0D);
+            recorder.event(InputEventType.MouseMove.ordinal(), 0, 0, 0, 10D, 20D);
+            recorder.endFrame(0.25D);
+            recorder.endFrame(0.5D);
+            recorder.event(InputEventType.Key.ordinal(), GLFW.GLFW_KEY_W, GLFW.GLFW_RELEASE, 0, 0D, 0D);
+            recorder.event(InputEventType.Scroll.ordinal(), 0, 0, 0, 0D, -1D);
+            recorder.event(
+                InputEventType.MouseButton.ordinal(), GLFW.GLFW_MOUSE_BUTTON_LEFT, GLFW.GLFW_PRESS, 0, 0D, 0D
+            );
+            recorder.endFrame(0.125D);
+        }
+
+        return filePath;
+    }
+}
@@ -0,0 +1,135 @@
+package pine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.glfw.GLFW;
+
+/**
+ * Tests of {@link InputSnapshot} fed with synthetic GLFW callbacks through the {@link InputQueue}.
+ */
+public class InputSnapshotTest {
+    private InputSnapshot snapshot;
+
+    /**
+     * Start every test with an empty queue and a new snapshot.
+     */
+    @BeforeEach
+    public void setUp() {
+        InputQueue.get().clear();
+        this.snapshot = new InputSnapshot();
+    }
+
+    /**
+     * A key pressed and released within one frame reports both edges for that frame and is up at its end; the edges
+     * are gone the frame after.
+     */
+    @Test
+    public void pressAndReleaseInOneFrameGivesBothEdges() {
+        KeyListener.keyCallback(0L, GLFW.GLFW_KEY_SPACE, 0, GLFW.GLFW_PRESS, 0);
+        KeyListener.keyCallback(0L, GLFW.GLFW_KEY_SPACE, 0, GLFW.GLFW_RELEASE, 0);
+        MouseListener.mouseButtonCallback(0L, GLFW.GLFW_MOUSE_BUTTON_LEFT, GLFW.GLFW_PRESS, 0);
+        MouseListener.mouseButtonCallback(0L, GLFW.GLFW_MOUSE_BUTTON_LEFT, GLFW.GLFW_RELEASE, 0);
+        this.snapshot.update(InputQueue.get());
+
+        Assertions.assertTrue(this.snapshot.keyPressed(GLFW.GLFW_KEY_SPACE));
+        Assertions.assertTrue(this.snapshot.keyReleased(GLFW.GLFW_KEY_SPACE));
+        Assertions.assertFalse(this.snapshot.keyDown(GLFW.GLFW_KEY_SPACE));
+        Assertions.assertTrue(this.snapshot.buttonPressed(GLFW.GLFW_MOUSE_BUTTON_LEFT));
+        Assertions.assertTrue(this.snapshot.buttonReleased(GLFW.GLFW_MOUSE_BUTTON_LEFT));
+        Assertions.assertFalse(this.snapshot.buttonDown(GLFW.GLFW_MOUSE_BUTTON_LEFT));
+
+        this.snapshot.update(InputQueue.get());
+        Assertions.assertFalse(this.snapshot.keyPressed(GLFW.GLFW_KEY_SPACE));
+        Assertions.assertFalse(this.snapshot.keyReleased(GLFW.GLFW_KEY_SPACE));
+        Assertions.assertFalse(this.snapshot.buttonPressed(GLFW.GLFW_MOUSE_BUTTON_LEFT));
+    }
+
+    /**
+     * Repeat events keep a held key down without reporting another press.
+     */
+    @Test
+    public void repeatsGiveNoEdge() {
+        KeyListener.keyCallback(0L, GLFW.GLFW_KEY_A, 0, GLFW.GLFW_PRESS, 0);
+        this.snapshot.update(InputQueue.get());
+        Assertions.assertTrue(this.snapshot.keyPressed(GLFW.GLFW_KEY_A));
+
+        KeyListener.keyCallback(0L, GLFW.GLFW_KEY_A, 0, GLFW.GLFW_REPEAT, 0);
+        KeyListener.keyCallback(0L, GLFW.GLFW_KEY_A, 0, GLFW.GLFW_REPEAT, 0);
+        this.snapshot.update(InputQueue.get());
+
+        Assertions.assertTrue(this.snapshot.keyDown(GLFW.GLFW_KEY_A));
+        Assertions.assertFalse(this.snapshot.keyPressed(GLFW.GLFW_KEY_A));
+        Assertions.assertFalse(this.snapshot.keyReleased(GLFW.GLFW_KEY_A));
+
+        // A repeat of a key that is not down does not press it either.
+        KeyListener.keyCallback(0L, GLFW.GLFW_KEY_B, 0, GLFW.GLFW_REPEAT, 0);
+        this.snapshot.update(InputQueue.get());
+        Assertions.assertFalse(this.snapshot.keyPressed(GLFW.GLFW_KEY_B));
+    }
+
+    /**
+     * The first mouse position only places the cursor; later moves give the displacement over the whole frame, and a
+     * frame without moves gives none.
+     */
+    @Test
+    public void mouseDeltaStartsAtZero() {
+        MouseListener.mousePositionCallback(0L, 300D, 200D);
+        this.snapshot.update(InputQueue.get());
+
+        Assertions.assertEquals(300D, this.snapshot.mouseX());
+        Assertions.assertEquals(200D, this.snapshot.mouseY());
+        Assertions.assertEquals(0D, this.snapshot.deltaX());
+        Assertions.assertEquals(0D, this.snapshot.deltaY());
+
+        MouseListener.mousePositionCallback(0L, 305D, 190D);
+        MouseListener.mousePositionCallback(0L, 310D, 215D);
+        this.snapshot.update(InputQueue.get());
+        Assertions.assertEquals(10D, this.snapshot.deltaX());
+        Assertions.assertEquals(15D, this.snapshot.deltaY());
+
+        this.snapshot.update(InputQueue.get());
+        Assertions.assertEquals(0D, this.snapshot.deltaX());
+        Assertions.assertEquals(0D, this.snapshot.deltaY());
+    }
+
+    /**
+     * Scroll offsets add up over a frame and start again from zero the frame after.
+     */
+    @Test
+    public void scrollAccumulatesOverFrame() {
+        MouseListener.mouseScrollCallback(0L, 0D, 1D);
+        MouseListener.mouseScrollCallback(0L, 0.5D, 2D);
+        MouseListener.mouseScrollCallback(0L, -1D, -0.5D);
+        this.snapshot.update(InputQueue.get());
+
+        Assertions.assertEquals(-0.5D, this.snapshot.scrollX());
+        Assertions.assertEquals(2.5D, this.snapshot.scrollY());
+
+        this.snapshot.update(InputQueue.get());
+        Assertions.assertEquals(0D, this.snapshot.scrollX());
+        Assertions.assertEquals(0D, this.snapshot.scrollY());
+    }
+
+    /**
+     * Events pushed into a full queue are dropped and counted, and the events that fit are still applied in order.
+     */
+    @Test
+    public void fullQueueCountsDroppedEvents() {
+        InputQueue queue = new InputQueue(8);
+
+        for (int i = 0; i < 11; i++) { queue.pushScroll(0D, 1D); }
+        Assertions.assertEquals(8, queue.size());
+        Assertions.assertEquals(3L, queue.dropped());
+
+        this.snapshot.update(queue);
+        Assertions.assertEquals(8D, this.snapshot.scrollY());
+        Assertions.assertEquals(0, queue.size());
+
+        // Draining makes room again.
+        queue.pushKey(GLFW.GLFW_KEY_A, GLFW.GLFW_PRESS, 0);
+        this.snapshot.update(queue);
+        Assertions.assertTrue(this.snapshot.keyPressed(GLFW.GLFW_KEY_A));
+        Assertions.assertEquals(3L, queue.dropped());
+    }
+}
@@ -0,0 +1,225 @@
+package pine.audio;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ShortBuffer;
+
+/**
+ * Tests of streaming tracks through {@link MusicStream}, played through a {@link StubAudioBackend} that records every
+ * sample uploaded.
+ */
+public class MusicStreamTest {
+    private static final int SAMPLE_RATE = 8000;
+    private static final int BLOCK = MusicStream.BUFFER_FRAMES;
+
+    private RecordingAudioBackend backend;
+
+    /**
+     * Audio backend that keeps a copy of every sample uploaded into a buffer, in upload order.
+     */
+    private static class RecordingAudioBackend extends StubAudioBackend {
+        private final ShortBuffer samples = ShortBuffer.allocate(1 << 20);
+
+        @Override
+        public void bufferData(int buffer, int format, ShortBuffer data, int frequency) {
+            this.samples.put(data.duplicate());
+            super.bufferData(buffer, format, data, frequency);
+        }
+    }
+
+    /**
+     * Source that only lets a given number of frames be read, blocking the decoder thread until more are allowed.
+     */
+    private static class GatedSource implements PcmSource {
+        private final PcmSource source;
+        private long allowed, read;
+        private volatile boolean closed;
+
+        private GatedSource(PcmSource source) { this.source = source; }
+
+        /**
+         * @param frames Total number of frames that may be read, counting every frame read so far.
+         */
+        private synchronized void allow(long frames) {
+            this.allowed = frames;
+            this.notifyAll();
+        }
+
+        @Override
+        public int channels() { return this.source.channels(); }
+
+        @Override
+        public int sampleRate() { return this.source.sampleRate(); }
+
+        @Override
+        public synchronized int read(ShortBuffer buffer) {
+            try {
+                while (this.read >= this.allowed) { this.wait(); }
+            }
+
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return 0;
+            }
+
+            final int limit = buffer.limit();
+            final long frames = Math.min(buffer.remaining() / this.channels(), this.allowed - this.read);
+
+            buffer.limit(buffer.position() + (int) frames * this.channels());
+            final int count = this.source.read(buffer);
+            buffer.limit(limit);
+            this.read += count;
+
+            return count;
+        }
+
+        @Override
+        public void rewind() { this.source.rewind(); }
+
+        @Override
+        public void close() {
+            this.source.close();
+            this.closed = true;
+        }
+    }
+
+    /**
+     * Play every test through a new recording backend.
+     */
+    @BeforeEach
+    public void setUp() {
+        this.backend = new RecordingAudioBackend();
+        Audio.setBackend(this.backend);
+    }
+
+    /**
+     * Every frame of a track, ending part way through a block, is uploaded exactly once and in order, and the stream
+     * stops playing once the source has played the last buffer.
+     */
+    @Test
+    public void queuesEveryFrameOnce() throws InterruptedException {
+        final int length = 3 * BLOCK + BLOCK / 2;
+        MusicStream stream = new MusicStream(MusicStreamTest.track(length));
+
+        stream.play();
+        MusicStreamTest.queue(stream, length);
+        Assertions.assertEquals(MusicStream.BUFFERS, this.backend.uploads());
+
+        MusicStreamTest.playToEnd(this.backend, stream);
+        Assertions.assertEquals(length, stream.framesQueued());
+        Assertions.assertEquals(length, stream.decodedFrames());
+        Assertions.assertEquals(0L, stream.underruns());
+        MusicStreamTest.assertRecorded(this.backend, length, length);
+
+        // An ended stream stays stopped.
+        this.backend.advance(1D);
+        stream.update();
+        Assertions.assertFalse(stream.playing());
+        Assertions.assertEquals(1L, this.backend.plays());
+
+        stream.delete();
+    }
+
+    /**
+     * A looping track shorter than a block starts over without a gap, filling every block, until the stream is
+     * deleted, which closes the track's source.
+     */
+    @Test
+    public void loopsWithoutGaps() throws InterruptedException {
+        final int length = 5000;
+        GatedSource source = new GatedSource(MusicStreamTest.track(length));
+
+        // The decoder starts at once, so it must not read the end of the track before looping is set.
+        MusicStream stream = new MusicStream(source);
+        stream.setLooping(true);
+        source.allow(Long.MAX_VALUE);
+
+        stream.play();
+        while (stream.framesQueued() < 2L * MusicStream.BUFFERS * BLOCK) {
+            this.backend.advance(0.25D);
+            stream.update();
+            Thread.sleep(1L);
+        }
+
+        Assertions.assertTrue(stream.playing());
+        Assertions.assertEquals(0L, stream.framesQueued() % BLOCK);
+        MusicStreamTest.assertRecorded(this.backend, (int) stream.framesQueued(), length);
+
+        stream.delete();
+        Assertions.assertTrue(source.closed);
+    }
+
+    /**
+     * A source that runs out of buffers while the decoder is behind is restarted, and counted as an underrun, once
+     * the next block is ready; no frame is lost or repeated.
+     */
+    @Test
+    public void restartsAfterUnderrun() throws InterruptedException {
+        final int length = 6 * BLOCK;
+        GatedSource source = new GatedSource(MusicStreamTest.track(length));
+        source.allow(2L * BLOCK);
+
+        MusicStream stream = new MusicStream(source);
+        stream.play();
+        MusicStreamTest.queue(stream, 2L * BLOCK);
+
+        // Both blocks last just over a second, and the decoder is stuck on the third.
+        this.backend.advance(3D);
+        stream.update();
+        Assertions.assertTrue(stream.playing());
+        Assertions.assertEquals(0L, stream.underruns());
+
+        source.allow(Long.MAX_VALUE);
+        MusicStreamTest.queue(stream, 3L * BLOCK);
+        Assertions.assertEquals(1L, stream.underruns());
+        Assertions.assertEquals(2L, this.backend.plays());
+
+        MusicStreamTest.playToEnd(this.backend, stream);
+        Assertions.assertEquals(1L, stream.underruns());
+        Assertions.assertEquals(length, stream.framesQueued());
+        MusicStreamTest.assertRecorded(this.backend, length, length);
+
+        stream.delete();
+    }
+
+    /**
+     * @return Mono track whose every sample holds its frame index.
+     */
+    private static MemorySource track(int frames) {
+        ShortBuffer samples = ShortBuffer.allocate(frames);
+        for (int i = 0; i < frames; i++) { samples.put((short) i); }
+
+        return new MemorySource(1, SAMPLE_RATE, samples.flip());
+    }
+
+    /**
+     * Update a playing stream without letting time pass until it has queued a number of frames.
+     */
+    private static void queue(MusicStream stream, long frames) throws InterruptedException {
+        while (stream.framesQueued() < frames) {
+            stream.update();
+            Thread.sleep(1L);
+        }
+    }
+
+    /**
+     * Play a stream a quarter of a second at a time until it stops.
+     */
+    private static void playToEnd(StubAudioBackend backend, MusicStream stream) throws InterruptedException {
+        while (stream.playing()) {
+            backend.advance(0.25D);
+            stream.update();
+            Thread.sleep(1L);
+        }
+    }
+
+    /**
+     * Check that the samples uploaded are a track of a given length, repeated, and nothing else.
+     */
+    private static void assertRecorded(RecordingAudioBackend backend, int frames, int length) {
+        Assertions.assertEquals(frames, backend.samples.position());
+        for (int i = 0; i < frames; i++) { Assertions.assertEquals((short) (i % length), backend.samples.get(i)); }
+    }
+}
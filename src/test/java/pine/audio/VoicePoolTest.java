@@ -0,0 +1,131 @@
+package pine.audio;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ShortBuffer;
+
+/**
+ * Tests of voice allocation, stealing and handles of {@link VoicePool}, played through a {@link StubAudioBackend}.
+ */
+public class VoicePoolTest {
+    private static final int SAMPLE_RATE = 1000;
+
+    private StubAudioBackend backend;
+    private Sound sound;
+
+    /**
+     * Play every test through a new stub backend, with a sound lasting one second.
+     */
+    @BeforeEach
+    public void setUp() {
+        this.backend = new StubAudioBackend();
+        Audio.setBackend(this.backend);
+        this.sound = new Sound("tone", 1, SAMPLE_RATE, ShortBuffer.allocate(SAMPLE_RATE));
+    }
+
+    /**
+     * Once every voice is busy, the voice with the lowest priority is stolen, the oldest first among equal priorities;
+     * a sound may steal from a sound of the same priority.
+     */
+    @Test
+    public void stealsLowestPriorityOldestFirst() {
+        VoicePool pool = new VoicePool(3);
+
+        final int high = pool.play(this.sound, 1, 1F, 1F, false);
+        final int oldest = pool.play(this.sound, 0, 1F, 1F, false);
+        final int older = pool.play(this.sound, 0, 1F, 1F, false);
+        Assertions.assertEquals(3, pool.activeCount());
+        Assertions.assertEquals(0L, pool.steals());
+
+        final int newest = pool.play(this.sound, 0, 1F, 1F, false);
+        Assertions.assertNotEquals(VoicePool.NO_VOICE, newest);
+        Assertions.assertFalse(pool.playing(oldest));
+        Assertions.assertTrue(pool.playing(high));
+        Assertions.assertTrue(pool.playing(older));
+        Assertions.assertEquals(oldest & (VoicePool.MAX_VOICES - 1), newest & (VoicePool.MAX_VOICES - 1));
+
+        final int urgent = pool.play(this.sound, 5, 1F, 1F, false);
+        Assertions.assertFalse(pool.playing(older));
+        Assertions.assertTrue(pool.playing(high));
+        Assertions.assertTrue(pool.playing(newest));
+        Assertions.assertTrue(pool.playing(urgent));
+
+        // Priority comes before age: the newest sound is stolen while the older sound with priority 1 is kept.
+        final int second = pool.play(this.sound, 2, 1F, 1F, false);
+        Assertions.assertFalse(pool.playing(newest));
+        Assertions.assertTrue(pool.playing(high));
+
+        pool.play(this.sound, 1, 1F, 1F, false);
+        Assertions.assertFalse(pool.playing(high));
+        Assertions.assertTrue(pool.playing(urgent));
+        Assertions.assertTrue(pool.playing(second));
+
+        Assertions.assertEquals(3, pool.activeCount());
+        Assertions.assertEquals(4L, pool.steals());
+        Assertions.assertEquals(7L, pool.plays());
+    }
+
+    /**
+     * A sound is not played when every voice is playing a sound with a higher priority, and no voice is cut off.
+     */
+    @Test
+    public void rejectsWhenEveryVoiceIsMoreImportant() {
+        VoicePool pool = new VoicePool(2);
+        final int first = pool.play(this.sound, 5, 1F, 1F, false);
+        final int second = pool.play(this.sound, 7, 1F, 1F, false);
+
+        Assertions.assertEquals(VoicePool.NO_VOICE, pool.play(this.sound, 4, 1F, 1F, false));
+        Assertions.assertEquals(1L, pool.rejections());
+        Assertions.assertEquals(0L, pool.steals());
+        Assertions.assertTrue(pool.playing(first));
+        Assertions.assertTrue(pool.playing(second));
+        Assertions.assertEquals(2L, this.backend.plays());
+    }
+
+    /**
+     * Handles go stale once their voice is freed, whether by {@link VoicePool#update()} after the sound finished or by
+     * a steal, and a stale handle does not control the voice's next sound.
+     */
+    @Test
+    public void staleHandlesAreIgnored() {
+        VoicePool pool = new VoicePool(1);
+
+        final int finished = pool.play(this.sound, 0, 1F, 1F, false);
+        this.backend.advance(0.5D);
+        pool.update();
+        Assertions.assertTrue(pool.playing(finished));
+
+        // Finished sounds are only noticed by the next update.
+        this.backend.advance(1D);
+        Assertions.assertTrue(pool.playing(finished));
+        pool.update();
+        Assertions.assertFalse(pool.playing(finished));
+        Assertions.assertEquals(0, pool.activeCount());
+
+        final int looping = pool.play(this.sound, 0, 1F, 1F, true);
+        Assertions.assertNotEquals(finished, looping);
+        pool.stop(finished);
+        Assertions.assertTrue(pool.playing(looping));
+
+        // A looping sound never finishes on its own.
+        this.backend.advance(10D);
+        pool.update();
+        Assertions.assertTrue(pool.playing(looping));
+
+        final int stealer = pool.play(this.sound, 0, 1F, 1F, false);
+        Assertions.assertFalse(pool.playing(looping));
+
+        this.backend.reset();
+        pool.setGain(looping, 0.5F);
+        pool.setPosition(looping, 1F, 2F, 3F);
+        pool.stop(looping);
+        Assertions.assertEquals(0L, this.backend.calls());
+        Assertions.assertTrue(pool.playing(stealer));
+
+        pool.stop(stealer);
+        Assertions.assertFalse(pool.playing(stealer));
+        Assertions.assertFalse(pool.playing(VoicePool.NO_VOICE));
+    }
+}
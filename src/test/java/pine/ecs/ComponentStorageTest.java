@@ -0,0 +1,30 @@
+package pine.ecs;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the sparse set lookups of {@link ComponentStorage}, through a {@link VelocityStorage}.
+ */
+public class ComponentStorageTest {
+    /**
+     * IDs outside the sparse array, negative ones included, have no component rather than failing the lookup, and
+     * removing their component does nothing.
+     */
+    @Test
+    public void outOfRangeIDsHaveNoComponent() {
+        VelocityStorage storage = new VelocityStorage(4);
+        storage.add(2, 1F, 2F);
+
+        Assertions.assertTrue(storage.has(2));
+        Assertions.assertEquals(0, storage.indexOf(2));
+
+        for (int entity : new int[] {-1, Integer.MIN_VALUE, 0, 4, Integer.MAX_VALUE}) {
+            Assertions.assertFalse(storage.has(entity), "Entity " + entity);
+            Assertions.assertEquals(-1, storage.indexOf(entity), "Entity " + entity);
+
+            storage.remove(entity);
+            Assertions.assertEquals(1, storage.size());
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package pine.ecs;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pine.utils.ComponentType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests of the wave grouping and parallel execution of {@link SystemScheduler}.
+ */
+public class SystemSchedulerTest {
+    private static final Set<ComponentType> NONE = EnumSet.noneOf(ComponentType.class);
+
+    /**
+     * Systems go into the wave after the last earlier system they conflict with, and systems that only share reads
+     * share a wave.
+     */
+    @Test
+    public void buildsWavesFromConflicts() {
+        SystemScheduler readers = new SystemScheduler(null);
+        for (int i = 0; i < 3; i++) {
+            readers.add(SystemSchedulerTest.system(EnumSet.of(ComponentType.Transform), NONE, false, () -> { }));
+        }
+        Assertions.assertEquals(1, readers.waveCount());
+
+        SystemScheduler chain = new SystemScheduler(null);
+        chain.add(SystemSchedulerTest.system(EnumSet.of(ComponentType.Velocity), EnumSet.of(ComponentType.Transform),
+            false, () -> { }));
+        chain.add(SystemSchedulerTest.system(EnumSet.of(ComponentType.Transform), NONE, false, () -> { }));
+        chain.add(SystemSchedulerTest.system(NONE, EnumSet.of(ComponentType.Sprite), false, () -> { }));
+        chain.add(SystemSchedulerTest.system(NONE, EnumSet.of(ComponentType.Velocity), false, () -> { }));
+        chain.add(SystemSchedulerTest.system(EnumSet.of(ComponentType.Sprite), NONE, false, () -> { }));
+        Assertions.assertEquals(2, chain.waveCount());
+
+        // A writer of Transform after the reader has to wait for it, one wave later.
+        chain.add(SystemSchedulerTest.system(NONE, EnumSet.of(ComponentType.Transform), false, () -> { }));
+        Assertions.assertEquals(3, chain.waveCount());
+
+        SystemScheduler mainThread = new SystemScheduler(null);
+        mainThread.add(SystemSchedulerTest.system(NONE, NONE, true, () -> { }));
+        mainThread.add(SystemSchedulerTest.system(NONE, NONE, true, () -> { }));
+        mainThread.add(SystemSchedulerTest.system(NONE, NONE, false, () -> { }));
+        Assertions.assertEquals(2, mainThread.waveCount());
+
+        SystemScheduler defaults = new SystemScheduler(null);
+        for (int i = 0; i < 4; i++) {
+            defaults.add((world, deltaTime) -> { });
+        }
+        Assertions.assertEquals(4, defaults.waveCount());
+    }
+
+    /**
+     * Conflicting systems run in the order they were added, whatever the number of threads, while systems that
+     * conflict with nothing run alongside them.
+     */
+    @Test
+    public void conflictingSystemsRunInOrder() {
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool eight = new ForkJoinPool(8);
+
+        try {
+            SystemSchedulerTest.assertRunsInOrder(single);
+            SystemSchedulerTest.assertRunsInOrder(eight);
+            SystemSchedulerTest.assertRunsInOrder(null);
+        }
+        finally {
+            single.shutdown();
+            eight.shutdown();
+        }
+    }
+
+    /**
+     * Systems that must run on the main thread are run by the thread calling the scheduler, even when the rest of
+     * their wave runs on the pool.
+     */
+    @Test
+    public void mainThreadSystemsRunOnCallingThread() {
+        ForkJoinPool pool = new ForkJoinPool(8);
+        AtomicReference<Thread> thread = new AtomicReference<>();
+
+        try {
+            SystemScheduler scheduler = new SystemScheduler(pool);
+            for (int i = 0; i < 4; i++) { scheduler.add(SystemSchedulerTest.system(NONE, NONE, false, () -> { })); }
+            scheduler.add(SystemSchedulerTest.system(NONE, NONE, true, () -> thread.set(Thread.currentThread())));
+            Assertions.assertEquals(1, scheduler.waveCount());
+
+            for (int run = 0; run < 20; run++) {
+                thread.set(null);
+                scheduler.run(null, 0D);
+                Assertions.assertSame(Thread.currentThread(), thread.get());
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * A parallel loop visits every index of its range exactly once, with and without a pool.
+     */
+    @Test
+    public void parallelForCoversRangeOnce() {
+        ForkJoinPool pool = new ForkJoinPool(8);
+
+        try {
+            SystemSchedulerTest.assertCoversRange(new SystemScheduler(pool), 100003, 64);
+            SystemSchedulerTest.assertCoversRange(new SystemScheduler(pool), 4096, 4096);
+            SystemSchedulerTest.assertCoversRange(new SystemScheduler(pool), 0, 64);
+            SystemSchedulerTest.assertCoversRange(new SystemScheduler(null), 100003, 64);
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Check that a chain of systems writing the same type runs in the order it was added, over many runs.
+     *
+     * @param pool Pool to run the systems on, or null.
+     */
+    private static void assertRunsInOrder(ForkJoinPool pool) {
+        SystemScheduler scheduler = new SystemScheduler(pool);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        final int count = 12;
+
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            scheduler.add(SystemSchedulerTest.system(NONE, EnumSet.of(ComponentType.Transform), false,
+                () -> order.add(index)));
+            scheduler.add(SystemSchedulerTest.system(EnumSet.of(ComponentType.Sprite), NONE, false, Thread::yield));
+        }
+
+        Assertions.assertEquals(count, scheduler.waveCount());
+
+        for (int run = 0; run < 50; run++) {
+            order.clear();
+            scheduler.run(null, 0D);
+
+            Assertions.assertEquals(count, order.size());
+            for (int i = 0; i < count; i++) { Assertions.assertEquals(i, order.get(i)); }
+        }
+    }
+
+    /**
+     * Check that a parallel loop calls its body exactly once for every index.
+     *
+     * @param scheduler Scheduler to run the loop on.
+     * @param count     Number of indices.
+     * @param grain     Smallest chunk.
+     */
+    private static void assertCoversRange(SystemScheduler scheduler, int count, int grain) {
+        AtomicIntegerArray visits = new AtomicIntegerArray(count);
+
+        scheduler.parallelFor(count, grain, (from, to) -> {
+            Assertions.assertTrue(from >= 0 && from <= to && to <= count);
+            for (int i = from; i < to; i++) { visits.incrementAndGet(i); }
+        });
+
+        for (int i = 0; i < count; i++) { Assertions.assertEquals(1, visits.get(i), "Index " + i); }
+    }
+
+    /**
+     * @return System declaring the given types and running a body on every update.
+     */
+    private static EntitySystem system(Set<ComponentType> reads, Set<ComponentType> writes, boolean mainThread,
+        Runnable body) {
+        return new EntitySystem() {
+            @Override
+            public void update(World world, double deltaTime) { body.run(); }
+
+            @Override
+            public Set<ComponentType> reads() { return reads; }
+
+            @Override
+            public Set<ComponentType> writes() { return writes; }
+
+            @Override
+            public boolean mainThread() { return mainThread; }
+        };
+    }
+}
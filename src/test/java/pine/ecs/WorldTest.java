@@ -0,0 +1,58 @@
+package pine.ecs;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.IntBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tests of the entity ID allocator of {@link World}.
+ */
+public class WorldTest {
+    /**
+     * Destroying an entity twice, or one that was never created, is rejected and leaves the allocator intact, so no
+     * ID is ever handed to two live entities.
+     */
+    @Test
+    public void destroyingDeadEntitiesIsRejected() {
+        World world = new World(4, null);
+        final int a = world.create();
+        final int b = world.create();
+
+        world.destroy(a);
+        Assertions.assertFalse(world.alive(a));
+        Assertions.assertThrows(AssertionError.class, () -> world.destroy(a));
+        Assertions.assertThrows(AssertionError.class, () -> world.destroy(100));
+        Assertions.assertThrows(AssertionError.class, () -> world.destroy(-1));
+
+        Assertions.assertEquals(1, world.entityCount());
+        Assertions.assertEquals(1, world.freeCount());
+
+        Set<Integer> live = new HashSet<>();
+        live.add(b);
+        for (int i = 0; i < 10; i++) { Assertions.assertTrue(live.add(world.create()), "ID handed out twice"); }
+        Assertions.assertEquals(11, world.entityCount());
+    }
+
+    /**
+     * Loading the allocator marks every ID that is not free as alive, and rejects repeated free IDs.
+     */
+    @Test
+    public void loadIDsRestoresLiveEntities() {
+        World world = new World(4, null);
+
+        Assertions.assertTrue(world.loadIDs(40, IntBuffer.wrap(new int[] { 3, 7 })));
+        Assertions.assertEquals(38, world.entityCount());
+        Assertions.assertTrue(world.alive(39));
+        Assertions.assertFalse(world.alive(3));
+        Assertions.assertFalse(world.alive(40));
+        Assertions.assertEquals(7, world.create());
+
+        Assertions.assertFalse(world.loadIDs(10, IntBuffer.wrap(new int[] { 3, 3 })));
+        Assertions.assertEquals(0, world.entityCount());
+        Assertions.assertFalse(world.loadIDs(10, IntBuffer.wrap(new int[] { 10 })));
+        Assertions.assertFalse(world.alive(0));
+    }
+}
@@ -0,0 +1,178 @@
+package pine.level;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pine.ecs.World;
+import pine.renderer.Graphics;
+import pine.renderer.RecordingBackend;
+import pine.renderer.Sprite;
+import pine.renderer.Texture;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Tests of saving worlds with {@link LevelWriter} and {@link LevelJson} and loading them back.
+ */
+public class LevelWriterTest {
+    private final Map<String, Texture> textures = new HashMap<>();
+    private final Function<String, Texture> textureLookup = path -> this.textures.get(path);
+
+    /**
+     * Load textures from a table of placeholders, drawn through a recording backend.
+     */
+    @BeforeEach
+    public void setUp() {
+        Graphics.setBackend(new RecordingBackend());
+        this.textures.put("a.png", Texture.placeholder("a.png"));
+    }
+
+    /**
+     * Sprite components without a sprite are saved with sprite index -1 and load back without a sprite, in both the
+     * binary and the JSON format.
+     *
+     * @param directory Temporary directory for the level files.
+     */
+    @Test
+    public void nullSpritesRoundTrip(@TempDir Path directory) throws IOException {
+        World world = LevelWriterTest.world(this.textures.get("a.png"));
+
+        LevelWriter.write(directory.resolve("level.bin"), world, null);
+        World binary = new World(4, null);
+        LevelLoader.load(directory.resolve("level.bin"), binary, this.textureLookup, texture -> { });
+        LevelWriterTest.assertSprites(binary);
+
+        LevelJson.write(directory.resolve("level.json"), world, null);
+        World json = new World(4, null);
+        LevelJson.read(directory.resolve("level.json"), json, this.textureLookup, texture -> { });
+        LevelWriterTest.assertSprites(json);
+    }
+
+    /**
+     * The header counts the sections actually written.
+     *
+     * @param directory Temporary directory for the level file.
+     */
+    @Test
+    public void headerCountsWrittenSections(@TempDir Path directory) throws IOException {
+        Path filePath = directory.resolve("level.bin");
+        LevelWriter.write(filePath, LevelWriterTest.world(this.textures.get("a.png")), null);
+
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(filePath)).order(ByteOrder.LITTLE_ENDIAN);
+        final int sectionCount = data.getInt(2 * Integer.BYTES);
+        data.position(LevelWriter.HEADER_BYTES);
+
+        int sections = 0;
+        while (data.hasRemaining()) {
+            data.getLong();
+            final long length = data.getLong();
+
+            data.position(data.position() + (int) ((length + Long.BYTES - 1) & -Long.BYTES));
+            sections++;
+        }
+
+        Assertions.assertEquals(sections, sectionCount);
+        Assertions.assertEquals(LevelWriter.TILEMAP - 1, sectionCount);
+    }
+
+    /**
+     * A level can be saved over the file it was just loaded from, and loaded again; the loader keeps no mapping of
+     * the file open that would stop it being replaced.
+     *
+     * @param directory Temporary directory for the level file.
+     */
+    @Test
+    public void saveOverLoadedLevel(@TempDir Path directory) throws IOException {
+        Path filePath = directory.resolve("level.bin");
+        LevelWriter.write(filePath, LevelWriterTest.world(this.textures.get("a.png")), null);
+
+        for (int i = 0; i < 3; i++) {
+            World world = new World(4, null);
+            LevelLoader.load(filePath, world, this.textureLookup, texture -> { });
+            LevelWriterTest.assertSprites(world);
+
+            world.transforms.x[world.transforms.indexOf(2)] = i;
+            LevelWriter.write(filePath, world, null);
+        }
+
+        World world = new World(4, null);
+        LevelLoader.load(filePath, world, this.textureLookup, texture -> { });
+        Assertions.assertEquals(2F, world.transforms.x[world.transforms.indexOf(2)]);
+    }
+
+    /**
+     * Every texture obtained while loading a level that turns out to be corrupt is given back, in both formats.
+     *
+     * @param directory Temporary directory for the level files.
+     */
+    @Test
+    public void corruptLevelReleasesTextures(@TempDir Path directory) throws IOException {
+        World world = LevelWriterTest.world(this.textures.get("a.png"));
+        Path binaryPath = directory.resolve("level.bin");
+        Path jsonPath = directory.resolve("level.json");
+
+        // Cut the binary file inside its last section, after the texture table, and break the JSON entities.
+        LevelWriter.write(binaryPath, world, null);
+        byte[] bytes = Files.readAllBytes(binaryPath);
+        Files.write(binaryPath, Arrays.copyOf(bytes, bytes.length - Long.BYTES));
+
+        LevelJson.write(jsonPath, world, null);
+        Files.writeString(jsonPath, Files.readString(jsonPath).replace("\"entities\": [", "\"entities\": [1, "));
+
+        // The texture must have been obtained for its count to be present, and given back for it to be 0.
+        Map<String, Integer> references = new HashMap<>();
+        Function<String, Texture> acquire = path -> {
+            references.merge(path, 1, Integer::sum);
+            return this.textures.get(path);
+        };
+        Consumer<Texture> release = texture -> references.merge(texture.filePath(), -1, Integer::sum);
+
+        Assertions.assertThrows(IOException.class, () -> LevelLoader.load(binaryPath, world, acquire, release));
+        Assertions.assertEquals(Map.of("a.png", 0), references);
+        Assertions.assertEquals(0, world.entityCount());
+
+        references.clear();
+        Assertions.assertThrows(IOException.class, () -> LevelJson.read(jsonPath, world, acquire, release));
+        Assertions.assertEquals(Map.of("a.png", 0), references);
+    }
+
+    /**
+     * @return World with one sprite shared by two entities, and one entity with a sprite component but no sprite.
+     */
+    private static World world(Texture texture) {
+        World world = new World(4, null);
+        Sprite sprite = new Sprite(texture);
+
+        for (int i = 0; i < 3; i++) {
+            final int entity = world.create();
+            world.transforms.add(entity, i, 0F, 1F, 1F);
+            world.sprites.add(entity, i == 1 ? null : sprite, 1F, 1F, 1F, 0.5F);
+        }
+
+        return world;
+    }
+
+    /**
+     * Check the sprites of a world loaded from {@link #world(Texture)}.
+     */
+    private static void assertSprites(World world) {
+        Assertions.assertEquals(3, world.sprites.size());
+        Assertions.assertNull(world.sprites.sprite[world.sprites.indexOf(1)]);
+
+        Sprite first = world.sprites.sprite[world.sprites.indexOf(0)];
+        Assertions.assertNotNull(first);
+        Assertions.assertSame(first, world.sprites.sprite[world.sprites.indexOf(2)]);
+        Assertions.assertEquals("a.png", first.texture().filePath());
+        Assertions.assertEquals(0.5F, world.sprites.a[world.sprites.indexOf(1)]);
+    }
+}
@@ -0,0 +1,112 @@
+package pine.particles;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pine.ecs.SystemScheduler;
+import pine.renderer.Graphics;
+import pine.renderer.RecordingBackend;
+import pine.renderer.Sprite;
+import pine.renderer.Texture;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests of spawning, simulating and removing particles in a {@link ParticleSystem}.
+ */
+public class ParticleSystemTest {
+    /**
+     * Particles from a burst start with the size and colour at the beginning of their emitter's curves, so they are
+     * drawn correctly before they are first simulated.
+     */
+    @Test
+    public void burstStartsAtFirstCurveSample() {
+        Graphics.setBackend(new RecordingBackend());
+        ParticleSystem particles = new ParticleSystem(8, new Sprite(Texture.placeholder("a")));
+
+        Emitter emitter = new Emitter(0F, 1F, 2F);
+        emitter.setSize(new Curve(0F, 4F, 1F, 0F));
+        emitter.setColor(Curve.constant(0.25F), new Curve(0F, 0.5F, 1F, 1F), Curve.constant(0.75F), Curve.constant(1F));
+        particles.addEmitter(emitter);
+
+        particles.burst(emitter, 12);
+        Assertions.assertEquals(8, particles.size());
+
+        for (int i = 0; i < particles.size(); i++) {
+            Assertions.assertEquals(4F, particles.size[i]);
+            Assertions.assertEquals(0.25F, particles.r[i]);
+            Assertions.assertEquals(0.5F, particles.g[i]);
+            Assertions.assertEquals(0.75F, particles.b[i]);
+            Assertions.assertEquals(1F, particles.a[i]);
+        }
+    }
+
+    /**
+     * Particles that die in any chunk are removed, and the particles moved into their places keep every field. The
+     * particles span three chunks and die in scattered ones, in long runs and at the very end of the pool.
+     */
+    @Test
+    public void removesDeadAcrossChunks() {
+        Graphics.setBackend(new RecordingBackend());
+        final int count = 2 * ParticleSystem.CHUNK_SIZE + 5000;
+        ParticleSystem particles = new ParticleSystem(
+            3 * ParticleSystem.CHUNK_SIZE, new Sprite(Texture.placeholder("a"))
+        );
+
+        // Short-lived particles die in the first step, long-lived ones move right by 1 unit per second.
+        Emitter shortLived = new Emitter(0F, 0.5F, 0.5F);
+        Emitter longLived = new Emitter(0F, 10F, 10F);
+        longLived.setVelocity(1F, 1F, 0F, 0F);
+        longLived.setSize(Curve.constant(3F));
+        longLived.setColor(Curve.constant(0.25F), Curve.constant(0.5F), Curve.constant(0.75F), Curve.constant(0.125F));
+        particles.addEmitter(shortLived);
+        particles.addEmitter(longLived);
+
+        // Each particle is spawned at its own position, so survivors can be told apart wherever they are moved.
+        boolean[] dies = new boolean[count];
+        int alive = 0;
+
+        for (int i = 0; i < count; i++) {
+            dies[i] = i % 5 < 2 || (i >= 20000 && i < 26000) || i >= count - 10;
+            if (!dies[i]) { alive++; }
+
+            Emitter emitter = dies[i] ? shortLived : longLived;
+            emitter.setPosition(i, -i);
+            particles.burst(emitter, 1);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            SystemScheduler scheduler = new SystemScheduler(pool);
+            particles.update(1F, scheduler);
+            Assertions.assertEquals(alive, particles.size());
+
+            boolean[] seen = new boolean[count];
+
+            for (int i = 0; i < particles.size(); i++) {
+                final int spawned = (int) particles.x[i] - 1;
+                Assertions.assertFalse(dies[spawned], "Dead particle " + spawned + " remains.");
+                Assertions.assertFalse(seen[spawned], "Particle " + spawned + " is duplicated.");
+                seen[spawned] = true;
+
+                Assertions.assertEquals(-spawned, particles.y[i]);
+                Assertions.assertEquals(1F, particles.vx[i]);
+                Assertions.assertEquals(0F, particles.vy[i]);
+                Assertions.assertEquals(1F, particles.age[i]);
+                Assertions.assertEquals(0.1F, particles.inverseLifetime[i]);
+                Assertions.assertEquals(3F, particles.size[i]);
+                Assertions.assertEquals(0.25F, particles.r[i]);
+                Assertions.assertEquals(0.5F, particles.g[i]);
+                Assertions.assertEquals(0.75F, particles.b[i]);
+                Assertions.assertEquals(0.125F, particles.a[i]);
+            }
+
+            // Every particle dies at once, whichever chunk it is in.
+            particles.update(10F, scheduler);
+            Assertions.assertEquals(0, particles.size());
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+}
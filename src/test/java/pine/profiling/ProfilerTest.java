@@ -0,0 +1,54 @@
+package pine.profiling;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pine.utils.ProfileEvent;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Tests of the event statistics of {@link Profiler} and their place in the summary it writes.
+ */
+public class ProfilerTest {
+    /**
+     * Each recorded event is one sample, whatever the number of frames, and its percentiles and count are written to
+     * the summary.
+     *
+     * @param directory Temporary directory for the profiling output.
+     */
+    @Test
+    public void eventsAppearInSummary(@TempDir Path directory) throws IOException {
+        Profiler.enable(16);
+
+        try {
+            Profiler.record(ProfileEvent.ReloadLatency, 2_000_000L);
+            Profiler.record(ProfileEvent.ReloadLatency, 8_000_000L);
+            Profiler.record(ProfileEvent.ReloadLatency, 4_000_000L);
+            for (int frame = 0; frame < 10; frame++) { Profiler.endFrame(); }
+
+            RollingStats latency = Profiler.stats(ProfileEvent.ReloadLatency);
+            Assertions.assertEquals(3, latency.count());
+            Assertions.assertEquals(4_000_000L, latency.percentile(50D));
+            Assertions.assertEquals(8_000_000L, latency.max());
+
+            Profiler.dump(directory);
+            final String summary = Files.readString(directory.resolve("summary.json"));
+
+            Assertions.assertTrue(
+                summary.contains("\"ReloadLatencyMs\": { \"p50\": 4.0000, \"p99\": 8.0000, \"max\": 8.0000 }")
+            );
+            Assertions.assertTrue(summary.contains("\"ReloadLatencyCount\": 3,"));
+        }
+
+        finally {
+            Profiler.disable();
+        }
+
+        // A disabled profiler ignores events.
+        Profiler.record(ProfileEvent.ReloadLatency, 1L);
+        Assertions.assertEquals(3, Profiler.stats(ProfileEvent.ReloadLatency).count());
+    }
+}
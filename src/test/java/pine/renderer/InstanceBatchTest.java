@@ -0,0 +1,68 @@
+package pine.renderer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Tests of the instance layout written by {@link InstanceBatch#packInstance}.
+ */
+public class InstanceBatchTest {
+    /**
+     * The rectangle, colour, texture coordinates and texture index land at their offsets, with the colour and
+     * texture coordinates rounded to unsigned normalized integers.
+     */
+    @Test
+    public void packsInstanceLayout() {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * InstanceBatch.INSTANCE_SIZE_BYTES).order(ByteOrder.nativeOrder());
+        final int offset = InstanceBatch.INSTANCE_SIZE_BYTES;
+
+        InstanceBatch.packInstance(
+            buffer, offset, 1F, 2F, 3F, 4F, 1F, 0.5F, 0F, 0.25F, 0F, 0.5F, 1F, 0.75F, 7
+        );
+
+        Assertions.assertEquals(1F, buffer.getFloat(offset + InstanceBatch.RECT_OFFSET));
+        Assertions.assertEquals(4F, buffer.getFloat(offset + InstanceBatch.RECT_OFFSET + 12));
+        Assertions.assertArrayEquals(new int[] {255, 128, 0, 64}, InstanceBatchTest.color(buffer, offset));
+        Assertions.assertArrayEquals(new int[] {0, 32768, 65535, 49151}, InstanceBatchTest.uvs(buffer, offset));
+        Assertions.assertEquals(7, buffer.getInt(offset + InstanceBatch.TEXTURE_OFFSET));
+    }
+
+    /**
+     * Colours and texture coordinates outside [0, 1], such as an overshooting curve or a rounding error just past
+     * the edge of an atlas, saturate rather than wrap around.
+     */
+    @Test
+    public void clampsColorAndUVs() {
+        ByteBuffer buffer = ByteBuffer.allocate(InstanceBatch.INSTANCE_SIZE_BYTES).order(ByteOrder.nativeOrder());
+
+        InstanceBatch.packInstance(
+            buffer, 0, 0F, 0F, 1F, 1F, 1.2F, -0.1F, 1.0001F, 300F, -1E-6F, 1.00001F, -5F, 2F, 0
+        );
+
+        Assertions.assertArrayEquals(new int[] {255, 0, 255, 255}, InstanceBatchTest.color(buffer, 0));
+        Assertions.assertArrayEquals(new int[] {0, 65535, 0, 65535}, InstanceBatchTest.uvs(buffer, 0));
+    }
+
+    /**
+     * @return Colour components of an instance as unsigned bytes.
+     */
+    private static int[] color(ByteBuffer buffer, int offset) {
+        int[] color = new int[4];
+        for (int i = 0; i < 4; i++) { color[i] = buffer.get(offset + InstanceBatch.COLOR_OFFSET + i) & 0xFF; }
+
+        return color;
+    }
+
+    /**
+     * @return Texture coordinates of an instance as unsigned shorts.
+     */
+    private static int[] uvs(ByteBuffer buffer, int offset) {
+        int[] uvs = new int[4];
+        for (int i = 0; i < 4; i++) { uvs[i] = buffer.getShort(offset + InstanceBatch.UV_OFFSET + 2 * i) & 0xFFFF; }
+
+        return uvs;
+    }
+}
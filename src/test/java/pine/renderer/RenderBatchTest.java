@@ -0,0 +1,110 @@
+package pine.renderer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the CPU-side vertex packing and index generation of {@link RenderBatch}.
+ */
+public class RenderBatchTest {
+    private static final float X = 10F, Y = 20F, WIDTH = 30F, HEIGHT = 40F;
+    private static final float U0 = 0.25F, V0 = 0.5F, U1 = 0.75F, V1 = 1F;
+
+    /**
+     * Vertices are packed bottom-right, top-left, top-right, bottom-left, with position, colour and texture
+     * coordinates in each vertex of 9 floats.
+     */
+    @Test
+    public void packQuadWritesVerticesInOrder() {
+        final int offset = 5;
+        float[] vertices = new float[offset + RenderBatch.VERTICES_PER_QUAD * RenderBatch.VERTEX_SIZE + 1];
+
+        RenderBatch.packQuad(vertices, offset, X, Y, WIDTH, HEIGHT, 0.1F, 0.2F, 0.3F, 0.4F, U0, V0, U1, V1);
+
+        float[][] expected = {
+            { X + WIDTH, Y, U1, V0 },
+            { X, Y + HEIGHT, U0, V1 },
+            { X + WIDTH, Y + HEIGHT, U1, V1 },
+            { X, Y, U0, V0 }
+        };
+
+        Assertions.assertEquals(9, RenderBatch.VERTEX_SIZE);
+
+        for (int i = 0; i < expected.length; i++) {
+            final int vertex = offset + i * RenderBatch.VERTEX_SIZE;
+
+            Assertions.assertEquals(expected[i][0], vertices[vertex], "x of vertex " + i);
+            Assertions.assertEquals(expected[i][1], vertices[vertex + 1], "y of vertex " + i);
+            Assertions.assertEquals(0F, vertices[vertex + 2], "z of vertex " + i);
+            Assertions.assertArrayEquals(
+                new float[] { 0.1F, 0.2F, 0.3F, 0.4F }, RenderBatchTest.slice(vertices, vertex + 3, 4), "colour " + i
+            );
+            Assertions.assertEquals(expected[i][2], vertices[vertex + 7], "u of vertex " + i);
+            Assertions.assertEquals(expected[i][3], vertices[vertex + 8], "v of vertex " + i);
+        }
+
+        // Nothing outside the quad is touched.
+        Assertions.assertEquals(0F, vertices[offset - 1]);
+        Assertions.assertEquals(0F, vertices[vertices.length - 1]);
+    }
+
+    /**
+     * The two triangles of every quad wind counter-clockwise, share the quad's diagonal and cover exactly its area.
+     */
+    @Test
+    public void indicesCoverEachQuadWithTwoTriangles() {
+        final int quadCount = 3;
+        float[] vertices = new float[quadCount * RenderBatch.VERTICES_PER_QUAD * RenderBatch.VERTEX_SIZE];
+        for (int i = 0; i < quadCount; i++) {
+            RenderBatch.packQuad(
+                vertices, i * RenderBatch.VERTICES_PER_QUAD * RenderBatch.VERTEX_SIZE,
+                X + i * 100F, Y, WIDTH, HEIGHT, 1F, 1F, 1F, 1F, U0, V0, U1, V1
+            );
+        }
+
+        int[] indices = RenderBatch.generateIndices(quadCount);
+        Assertions.assertEquals(quadCount * RenderBatch.INDICES_PER_QUAD, indices.length);
+
+        for (int quad = 0; quad < quadCount; quad++) {
+            float area = 0F;
+
+            for (int triangle = 0; triangle < 2; triangle++) {
+                final int first = quad * RenderBatch.INDICES_PER_QUAD + triangle * 3;
+
+                for (int k = 0; k < 3; k++) {
+                    final int index = indices[first + k];
+                    Assertions.assertTrue(index / RenderBatch.VERTICES_PER_QUAD == quad, "index outside its quad");
+                }
+
+                final float doubleArea =
+                    RenderBatchTest.cross(vertices, indices[first], indices[first + 1], indices[first + 2]);
+                Assertions.assertTrue(doubleArea > 0F, "triangle is not counter-clockwise");
+                area += doubleArea / 2F;
+            }
+
+            Assertions.assertEquals(WIDTH * HEIGHT, area, 1e-3F);
+        }
+    }
+
+    /**
+     * @return Twice the signed area of a triangle; positive when its vertices are counter-clockwise.
+     */
+    private static float cross(float[] vertices, int a, int b, int c) {
+        final int stride = RenderBatch.VERTEX_SIZE;
+        final float ax = vertices[a * stride], ay = vertices[a * stride + 1];
+        final float bx = vertices[b * stride], by = vertices[b * stride + 1];
+        final float cx = vertices[c * stride], cy = vertices[c * stride + 1];
+
+        return (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+    }
+
+    /**
+     * @return Copy of part of an array.
+     */
+    private static float[] slice(float[] array, int from, int length) {
+        float[] slice = new float[length];
+        System.arraycopy(array, from, slice, 0, length);
+
+        return slice;
+    }
+}
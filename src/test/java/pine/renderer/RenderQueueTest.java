@@ -0,0 +1,222 @@
+package pine.renderer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pine.utils.BlendMode;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests of the sorting, merging and bind elision of {@link RenderQueue}, drawn through a {@link RecordingBackend}.
+ */
+public class RenderQueueTest {
+    private static final String SHADER = "src/main/resources/shaders/default.glsl";
+
+    private RecordingBackend backend;
+
+    /**
+     * Draw every test through a new recording backend.
+     */
+    @BeforeEach
+    public void setUp() {
+        this.backend = new RecordingBackend();
+        Graphics.setBackend(this.backend);
+    }
+
+    /**
+     * Sorted commands are in layer order, opaque before blended within a layer, opaque commands grouped by state and
+     * blended commands in depth order, with ties in submission order.
+     */
+    @Test
+    public void sortsByLayerThenStateOrDepth() {
+        Random random = new Random(42L);
+        RenderQueue queue = new RenderQueue(4);
+        Shader[] shaders = {new Shader(SHADER), new Shader(SHADER), new Shader(SHADER)};
+        Texture[] textures = {null, Texture.placeholder("a"), Texture.placeholder("b"), Texture.placeholder("c")};
+
+        final int count = 2000;
+        int[] layers = new int[count], blends = new int[count], depths = new int[count], states = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            layers[i] = random.nextInt(4);
+            blends[i] = random.nextInt(3);
+            depths[i] = random.nextInt(50);
+
+            final int shader = random.nextInt(shaders.length);
+            final int texture = random.nextInt(textures.length);
+            final int vertexArray = 1 + random.nextInt(2);
+            states[i] = (shader * textures.length + texture) * 4 + vertexArray;
+
+            queue.submit(
+                layers[i], BlendMode.values()[blends[i]], shaders[shader], textures[texture], vertexArray, depths[i],
+                i * 6, 6
+            );
+        }
+
+        queue.sort();
+        Set<Long> finishedStates = new HashSet<>();
+
+        for (int i = 1; i < count; i++) {
+            final int previous = queue.sortedCommand(i - 1);
+            final int command = queue.sortedCommand(i);
+
+            Assertions.assertTrue(queue.sortedKey(i - 1) <= queue.sortedKey(i));
+            Assertions.assertTrue(layers[previous] <= layers[command]);
+            if (layers[previous] != layers[command]) { continue; }
+
+            Assertions.assertTrue(blends[previous] <= blends[command]);
+            if (blends[previous] != blends[command]) { continue; }
+
+            if (blends[command] == BlendMode.Opaque.ordinal()) {
+                // Once a state's run ends, the state never comes back within the layer.
+                final long run = (long) layers[command] << 32 | states[command];
+                if (states[previous] != states[command]) {
+                    Assertions.assertTrue(finishedStates.add((long) layers[previous] << 32 | states[previous]));
+                    Assertions.assertFalse(finishedStates.contains(run));
+                }
+
+                else if (depths[previous] == depths[command]) {
+                    Assertions.assertTrue(previous < command);
+                }
+            }
+
+            else {
+                Assertions.assertTrue(depths[previous] <= depths[command]);
+                if (depths[previous] == depths[command] && states[previous] == states[command]) {
+                    Assertions.assertTrue(previous < command);
+                }
+            }
+        }
+    }
+
+    /**
+     * Commands with equal keys are drawn in the order they were submitted.
+     */
+    @Test
+    public void equalKeysKeepSubmissionOrder() {
+        RenderQueue queue = new RenderQueue(4);
+        Shader shader = new Shader(SHADER);
+        Texture texture = Texture.placeholder("a");
+
+        for (int i = 0; i < 300; i++) {
+            BlendMode blend = i % 2 == 0 ? BlendMode.Alpha : BlendMode.Opaque;
+            queue.submit(1, blend, shader, texture, 3, 7, i * 12, 6);
+        }
+
+        queue.sort();
+
+        // Every opaque command comes first, then every blended one, each in submission order.
+        for (int i = 0; i < 150; i++) {
+            Assertions.assertEquals(2 * i + 1, queue.sortedCommand(i));
+            Assertions.assertEquals(2 * i, queue.sortedCommand(150 + i));
+        }
+    }
+
+    /**
+     * Commands drawing neighbouring index ranges with the same state are merged into one draw call, while gaps, state
+     * changes and instanced commands are not.
+     */
+    @Test
+    public void mergesAdjacentRanges() {
+        RenderQueue queue = new RenderQueue(4);
+        Shader shader = new Shader(SHADER);
+        Texture texture = Texture.placeholder("a");
+
+        queue.submit(0, BlendMode.Opaque, shader, texture, 1, 0, 0, 6);
+        queue.submit(0, BlendMode.Opaque, shader, texture, 1, 0, 6, 6);
+        queue.submit(0, BlendMode.Opaque, shader, texture, 1, 0, 12, 12);
+        Assertions.assertEquals(1, queue.execute());
+        Assertions.assertEquals(2, queue.mergedCommands());
+        Assertions.assertEquals(24L, this.backend.indices());
+        Assertions.assertEquals(0, queue.size());
+
+        queue.submit(0, BlendMode.Opaque, shader, texture, 1, 0, 0, 6);
+        queue.submit(0, BlendMode.Opaque, shader, texture, 1, 0, 12, 6);
+        queue.submit(0, BlendMode.Opaque, shader, null, 1, 0, 18, 6);
+        queue.submit(0, BlendMode.Opaque, shader, texture, 2, 0, 6, 6);
+        Assertions.assertEquals(4, queue.execute());
+        Assertions.assertEquals(0, queue.mergedCommands());
+
+        TextureSet set = new TextureSet(2);
+        set.add(texture);
+        queue.submit(0, BlendMode.Alpha, shader, set, 1, 0, 0, 6, 10);
+        queue.submit(0, BlendMode.Alpha, shader, set, 1, 0, 6, 6, 10);
+        Assertions.assertEquals(2, queue.execute());
+        Assertions.assertEquals(0, queue.mergedCommands());
+        Assertions.assertEquals(20L, this.backend.instances());
+    }
+
+    /**
+     * Binds are only issued when the state changes, and every skipped bind is counted as saved.
+     */
+    @Test
+    public void countsIssuedAndSavedBinds() {
+        RenderQueue queue = new RenderQueue(4);
+        Shader first = new Shader(SHADER);
+        Shader second = new Shader(SHADER);
+        Texture a = Texture.placeholder("a");
+        Texture b = Texture.placeholder("b");
+
+        // Shaders and textures get slots in order of first use, so this sorts as (first, a), (first, b), (second, b),
+        // then the blended command.
+        queue.submit(0, BlendMode.Opaque, first, a, 1, 0, 100, 6);
+        queue.submit(0, BlendMode.Opaque, first, b, 1, 0, 200, 6);
+        queue.submit(0, BlendMode.Opaque, second, b, 1, 0, 0, 6);
+        queue.submit(0, BlendMode.Alpha, second, b, 1, 0, 300, 6);
+
+        this.backend.reset();
+        Assertions.assertEquals(4, queue.execute());
+
+        // The first command binds shader, texture and vertex array; the next two bind a texture and a shader, and the
+        // blended command only changes the blend state.
+        Assertions.assertEquals(6, queue.bindsIssued());
+        Assertions.assertEquals(4 * 4 - 6, queue.bindsSaved());
+        Assertions.assertEquals(2L, this.backend.textureBinds());
+        Assertions.assertEquals(2L, this.backend.programBinds());
+        Assertions.assertEquals(1L, this.backend.vertexArrayBinds());
+    }
+
+    /**
+     * A frame may use up to {@link RenderQueue#MAX_SHADERS} shaders and {@link RenderQueue#MAX_TEXTURES} slots, one
+     * of them for no texture; going past either is an error, and the limits start again every frame.
+     */
+    @Test
+    public void limitsShadersAndTexturesPerFrame() {
+        RenderQueue queue = new RenderQueue(4);
+        Shader shader = new Shader(SHADER);
+
+        for (int frame = 0; frame < 2; frame++) {
+            for (int i = 0; i < RenderQueue.MAX_SHADERS; i++) {
+                queue.submit(0, BlendMode.Opaque, new Shader(SHADER), null, 1, 0, 0, 6);
+            }
+
+            Assertions.assertThrows(
+                AssertionError.class, () -> queue.submit(0, BlendMode.Opaque, shader, null, 1, 0, 0, 6)
+            );
+            queue.clear();
+        }
+
+        for (int frame = 0; frame < 2; frame++) {
+            for (int i = 1; i < RenderQueue.MAX_TEXTURES; i++) {
+                queue.submit(0, BlendMode.Opaque, shader, Texture.placeholder("t" + i), 1, 0, 0, 6);
+            }
+
+            Texture extra = Texture.placeholder("extra");
+            Assertions.assertThrows(
+                AssertionError.class, () -> queue.submit(0, BlendMode.Opaque, shader, extra, 1, 0, 0, 6)
+            );
+            queue.clear();
+        }
+
+        // Executing a frame also starts the limits again.
+        for (int i = 1; i < RenderQueue.MAX_TEXTURES; i++) {
+            queue.submit(0, BlendMode.Opaque, shader, Texture.placeholder("t" + i), 1, 0, i * 6, 6);
+        }
+        queue.execute();
+        queue.submit(0, BlendMode.Opaque, shader, Texture.placeholder("next"), 1, 0, 0, 6);
+        Assertions.assertEquals(1, queue.execute());
+    }
+}
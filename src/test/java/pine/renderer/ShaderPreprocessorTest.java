@@ -0,0 +1,210 @@
+package pine.renderer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pine.utils.ShaderType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests of splitting shader files into stages, expanding includes and injecting feature flags with
+ * {@link ShaderPreprocessor}.
+ */
+public class ShaderPreprocessorTest {
+    private static final String SHADER = String.join(
+        "\n", "#type vertex", "#version 330 core", "void main() { }", "#type fragment", "#version 330 core",
+        "void main() { }", ""
+    );
+
+    /**
+     * A file with LF, CRLF or CR line endings preprocesses to the same stages, with LF line endings and line
+     * directives pointing at the lines after each version directive.
+     */
+    @Test
+    public void lineEndingsAreEquivalent() throws IOException {
+        for (String lineEnding : List.of("\n", "\r\n", "\r")) {
+            ShaderPreprocessor.Result result = ShaderPreprocessor.process(
+                SHADER.replace("\n", lineEnding), Path.of("."), List.of()
+            );
+
+            Assertions.assertEquals(
+                Map.of(
+                    ShaderType.Vertex, "#version 330 core\n#line 3 0\nvoid main() { }\n",
+                    ShaderType.Fragment, "#version 330 core\n#line 6 0\nvoid main() { }\n"
+                ),
+                result.sources()
+            );
+            Assertions.assertTrue(result.includes().isEmpty());
+
+            Map<ShaderType, String> parsed = ShaderPreprocessor.parse(SHADER.replace("\n", lineEnding));
+            Assertions.assertEquals("#version 330 core\nvoid main() { }", parsed.get(ShaderType.Vertex));
+        }
+    }
+
+    /**
+     * Includes are expanded in place, resolved relative to the including file, and surrounded by line directives
+     * naming the included file's source string and then restoring the including file's line numbers. A file included
+     * twice keeps its source string number.
+     *
+     * @param directory Temporary directory for the included files.
+     */
+    @Test
+    public void includesMapToSourceStrings(@TempDir Path directory) throws IOException {
+        Files.createDirectories(directory.resolve("nested"));
+        Files.writeString(
+            directory.resolve("common.glsl"), "float a;\r\n#include \"nested/more.glsl\"\r\nfloat b;\r\n"
+        );
+        Files.writeString(directory.resolve("nested/more.glsl"), "float c;\n");
+
+        String source = String.join(
+            "\n", "#type vertex", "#version 330 core", "#include \"common.glsl\"", "void main() { }",
+            "#type fragment", "#version 330 core", "  #include <nested/more.glsl>", "void main() { }"
+        );
+        ShaderPreprocessor.Result result = ShaderPreprocessor.process(source, directory, List.of());
+
+        Assertions.assertEquals(
+            List.of(directory.resolve("common.glsl"), directory.resolve("nested/more.glsl")), result.includes()
+        );
+        Assertions.assertEquals(
+            "#version 330 core\n#line 3 0\n#line 1 1\nfloat a;\n#line 1 2\nfloat c;\n#line 3 1\nfloat b;\n" +
+            "#line 4 0\nvoid main() { }\n",
+            result.sources().get(ShaderType.Vertex)
+        );
+        Assertions.assertEquals(
+            "#version 330 core\n#line 7 0\n#line 1 2\nfloat c;\n#line 8 0\nvoid main() { }\n",
+            result.sources().get(ShaderType.Fragment)
+        );
+    }
+
+    /**
+     * A file that includes itself, directly or through another file, is an error rather than endless recursion.
+     *
+     * @param directory Temporary directory for the included files.
+     */
+    @Test
+    public void circularIncludesAreRejected(@TempDir Path directory) throws IOException {
+        Files.writeString(directory.resolve("self.glsl"), "#include \"self.glsl\"\n");
+        Files.writeString(directory.resolve("a.glsl"), "float a;\n#include \"b.glsl\"\n");
+        Files.writeString(directory.resolve("b.glsl"), "#include \"a.glsl\"\n");
+
+        for (String file : List.of("self.glsl", "a.glsl")) {
+            IOException e = Assertions.assertThrows(
+                IOException.class, () -> ShaderPreprocessor.process(
+                    ShaderPreprocessorTest.shaderIncluding(file), directory, List.of()
+                )
+            );
+            Assertions.assertTrue(e.getMessage().startsWith("Circular include"), e.getMessage());
+        }
+    }
+
+    /**
+     * Includes may nest up to {@link ShaderPreprocessor#MAX_INCLUDE_DEPTH} files deep, and no deeper.
+     *
+     * @param directory Temporary directory for the included files.
+     */
+    @Test
+    public void includeDepthIsLimited(@TempDir Path directory) throws IOException {
+        final int depth = ShaderPreprocessor.MAX_INCLUDE_DEPTH;
+
+        // File i includes file i + 1; the last file includes nothing.
+        for (int i = 0; i <= depth; i++) {
+            String next = i < depth ? "#include \"" + (i + 1) + ".glsl\"\n" : "";
+            Files.writeString(directory.resolve(i + ".glsl"), "float f" + i + ";\n" + next);
+        }
+
+        ShaderPreprocessor.Result result = ShaderPreprocessor.process(
+            ShaderPreprocessorTest.shaderIncluding("1.glsl"), directory, List.of()
+        );
+        Assertions.assertEquals(depth, result.includes().size());
+
+        IOException e = Assertions.assertThrows(
+            IOException.class, () -> ShaderPreprocessor.process(
+                ShaderPreprocessorTest.shaderIncluding("0.glsl"), directory, List.of()
+            )
+        );
+        Assertions.assertEquals("Includes nested too deeply.", e.getMessage());
+    }
+
+    /**
+     * Feature flags become defines right after the version directive, followed by a line directive restoring the
+     * shader file's line numbers; without a version directive they go first.
+     */
+    @Test
+    public void definesFollowVersion() throws IOException {
+        String source = String.join(
+            "\n", "#type vertex", "// Vertex stage.", "  #version 330 core", "void main() { }", "#type fragment",
+            "void main() { }"
+        );
+        Map<ShaderType, String> sources = ShaderPreprocessor.process(
+            source, Path.of("."), List.of("SHADOWS", "LIGHTS=4", "_Mode2=a b")
+        ).sources();
+
+        final String defines = "#define SHADOWS 1\n#define LIGHTS 4\n#define _Mode2 a b\n";
+        Assertions.assertEquals(
+            "// Vertex stage.\n  #version 330 core\n" + defines + "#line 4 0\nvoid main() { }\n",
+            sources.get(ShaderType.Vertex)
+        );
+        Assertions.assertEquals(defines + "#line 6 0\nvoid main() { }\n", sources.get(ShaderType.Fragment));
+    }
+
+    /**
+     * Feature flags that are not a valid identifier, optionally followed by a value on the same line, are rejected
+     * so that a flag cannot inject directives of its own.
+     */
+    @Test
+    public void invalidFeatureFlagsAreRejected() {
+        for (String feature : List.of("", "=1", "1ABC", "A-B", "A B", "A\n#define B", "A=1\n#error", "A=1\r")) {
+            Assertions.assertThrows(
+                IOException.class, () -> ShaderPreprocessor.process(SHADER, Path.of("."), List.of(feature)), feature
+            );
+        }
+    }
+
+    /**
+     * A file holds a compute stage alone, or vertex and fragment stages with an optional geometry stage, each at
+     * most once.
+     */
+    @Test
+    public void stageCombinations() throws IOException {
+        Assertions.assertEquals(
+            List.of(ShaderType.Fragment, ShaderType.Vertex, ShaderType.Geometry),
+            List.copyOf(ShaderPreprocessorTest.stages("vertex", "geometry", "fragment").keySet())
+        );
+        Assertions.assertEquals(2, ShaderPreprocessorTest.stages("fragment", "vertex").size());
+        Assertions.assertEquals(1, ShaderPreprocessorTest.stages("compute").size());
+
+        List<String[]> invalid = List.of(
+            new String[] {}, new String[] {"vertex"}, new String[] {"geometry", "fragment"},
+            new String[] {"compute", "vertex"}, new String[] {"compute", "compute"},
+            new String[] {"vertex", "fragment", "vertex"}, new String[] {"vertex", "fragment", "tessellation"}
+        );
+
+        for (String[] stages : invalid) {
+            Assertions.assertThrows(
+                IOException.class, () -> ShaderPreprocessorTest.stages(stages), String.join(", ", stages)
+            );
+        }
+    }
+
+    /**
+     * @return Shader file whose vertex stage includes a file.
+     */
+    private static String shaderIncluding(String file) {
+        return "#type vertex\n#version 330 core\n#include \"" + file + "\"\n#type fragment\nvoid main() { }\n";
+    }
+
+    /**
+     * @return Stages parsed from a shader file with one section per stage name.
+     */
+    private static Map<ShaderType, String> stages(String... names) throws IOException {
+        StringBuilder source = new StringBuilder("// Shader.\n");
+        for (String name : names) { source.append("#type ").append(name).append("\nvoid main() { }\n"); }
+
+        return ShaderPreprocessor.parse(source.toString());
+    }
+}
@@ -0,0 +1,95 @@
+package pine.renderer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests of the skyline rectangle packer.
+ */
+public class SkylinePackerTest {
+    /**
+     * Randomly sized rectangles, padded the way {@link TextureAtlas} pads images, never overlap and stay inside the
+     * area, and the images inside them keep at least the padding between each other.
+     */
+    @Test
+    public void packedRectanglesNeitherOverlapNorLeaveTheArea() {
+        final int size = 512, padding = 2;
+        SkylinePacker packer = new SkylinePacker(size, size);
+        Random random = new Random(42L);
+        List<int[]> packed = new ArrayList<>();
+        int[] position = new int[2];
+
+        for (int i = 0; i < 2000; i++) {
+            final int width = 1 + random.nextInt(40), height = 1 + random.nextInt(40);
+            if (!packer.pack(width + padding, height + padding, position)) { continue; }
+
+            int[] rectangle = { position[0], position[1], width + padding, height + padding };
+            Assertions.assertTrue(rectangle[0] >= 0 && rectangle[1] >= 0, "rectangle below or left of the area");
+            Assertions.assertTrue(rectangle[0] + rectangle[2] <= size, "rectangle right of the area");
+            Assertions.assertTrue(rectangle[1] + rectangle[3] <= size, "rectangle above the area");
+
+            for (int[] other : packed) {
+                Assertions.assertFalse(SkylinePackerTest.overlaps(rectangle, other), "rectangles overlap");
+            }
+
+            packed.add(rectangle);
+        }
+
+        Assertions.assertTrue(packed.size() > 100, "too few rectangles packed");
+    }
+
+    /**
+     * Once the area is full, packing fails without changing the packer, and smaller rectangles can still be packed
+     * into the gaps that are left.
+     */
+    @Test
+    public void failsWhenFull() {
+        SkylinePacker packer = new SkylinePacker(64, 64);
+        int[] position = new int[2];
+
+        for (int i = 0; i < 4; i++) { Assertions.assertTrue(packer.pack(32, 32, position)); }
+
+        Assertions.assertFalse(packer.pack(1, 1, position));
+        Assertions.assertEquals(1D, packer.occupancy());
+
+        packer.clear();
+        Assertions.assertTrue(packer.pack(64, 48, position));
+        Assertions.assertFalse(packer.pack(32, 32, position));
+        Assertions.assertTrue(packer.pack(32, 16, position));
+        Assertions.assertArrayEquals(new int[] { 0, 48 }, position);
+
+        Assertions.assertFalse(packer.pack(65, 1, position));
+        Assertions.assertFalse(packer.pack(1, 65, position));
+    }
+
+    /**
+     * Occupancy is the packed area over the whole area, and clearing empties the packer.
+     */
+    @Test
+    public void reportsOccupancy() {
+        SkylinePacker packer = new SkylinePacker(100, 50);
+        int[] position = new int[2];
+
+        Assertions.assertEquals(0D, packer.occupancy());
+        Assertions.assertTrue(packer.pack(10, 20, position));
+        Assertions.assertTrue(packer.pack(30, 5, position));
+        Assertions.assertEquals((10D * 20D + 30D * 5D) / (100D * 50D), packer.occupancy(), 1e-12D);
+
+        Assertions.assertFalse(packer.pack(200, 1, position));
+        Assertions.assertEquals((10D * 20D + 30D * 5D) / (100D * 50D), packer.occupancy(), 1e-12D);
+
+        packer.clear();
+        Assertions.assertEquals(0D, packer.occupancy());
+    }
+
+    /**
+     * @return Whether two rectangles given as x, y, width and height share any area.
+     */
+    private static boolean overlaps(int[] a, int[] b) {
+        return a[0] < b[0] + b[2] && b[0] < a[0] + a[2] && a[1] < b[1] + b[3] && b[1] < a[1] + a[3];
+    }
+}
@@ -0,0 +1,177 @@
+package pine.renderer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.opengl.GL15;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests of the region rotation, fencing and fallback upload of {@link StreamingBuffer}, run through a
+ * {@link RecordingBackend} that logs the buffer and fence calls.
+ */
+public class StreamingBufferTest {
+    private static final int REGION_SIZE = 256;
+
+    /**
+     * A persistently mapped buffer hands out its three regions in turn, each at its own offset.
+     */
+    @Test
+    public void regionsRotate() {
+        Graphics.setBackend(new LoggingBackend());
+        StreamingBuffer buffer = new StreamingBuffer(GL15.GL_ARRAY_BUFFER, REGION_SIZE);
+        Assertions.assertTrue(buffer.persistent());
+
+        for (int frame = 0; frame < 3 * StreamingBuffer.REGIONS; frame++) {
+            ByteBuffer data = buffer.begin();
+            Assertions.assertEquals(frame % StreamingBuffer.REGIONS, buffer.region());
+            Assertions.assertEquals(0, data.position());
+            Assertions.assertEquals(REGION_SIZE, data.remaining());
+
+            data.putInt(frame);
+            Assertions.assertEquals(buffer.region() * REGION_SIZE, buffer.end());
+        }
+
+        Assertions.assertEquals(3L * StreamingBuffer.REGIONS * Integer.BYTES, buffer.bytesStreamed());
+        buffer.delete();
+    }
+
+    /**
+     * The fourth frame returns to region 0, so it waits on the fence placed after the first frame and then deletes
+     * it; the wait only stalls if the GPU is still behind.
+     */
+    @Test
+    public void fourthBeginWaitsOnFirstFence() {
+        for (int latency = 0; latency <= 3; latency += 3) {
+            LoggingBackend backend = new LoggingBackend();
+            backend.setFenceLatency(latency);
+            Graphics.setBackend(backend);
+
+            StreamingBuffer buffer = new StreamingBuffer(GL15.GL_ARRAY_BUFFER, REGION_SIZE);
+
+            for (int frame = 0; frame < 3; frame++) {
+                buffer.begin();
+                buffer.end();
+            }
+
+            Assertions.assertEquals(List.of(1L, 2L), backend.fences);
+            Assertions.assertEquals(1L, buffer.fence(0));
+            Assertions.assertTrue(backend.waited.isEmpty());
+
+            buffer.begin();
+            Assertions.assertEquals(0, buffer.region());
+            Assertions.assertEquals(List.of(1L), backend.waited);
+            Assertions.assertEquals(List.of(1L), backend.deleted);
+            Assertions.assertEquals(0L, buffer.fence(0));
+            Assertions.assertEquals(3L, buffer.fence(2));
+            Assertions.assertEquals(1L, buffer.waits());
+            Assertions.assertEquals(latency == 0 ? 0L : 1L, buffer.stalls());
+
+            buffer.end();
+            buffer.delete();
+        }
+    }
+
+    /**
+     * Every fence created is deleted exactly once, either when its region is reused or when the buffer is deleted.
+     */
+    @Test
+    public void fencesAreDeleted() {
+        LoggingBackend backend = new LoggingBackend();
+        Graphics.setBackend(backend);
+        StreamingBuffer buffer = new StreamingBuffer(GL15.GL_ARRAY_BUFFER, REGION_SIZE);
+
+        for (int frame = 0; frame < 11; frame++) {
+            buffer.begin();
+            buffer.end();
+        }
+
+        // Each begin after the first fences the region drawn before it; the last region drawn is never fenced.
+        buffer.delete();
+
+        Assertions.assertEquals(10, backend.fences.size());
+        Assertions.assertEquals(backend.fences, backend.deleted.stream().sorted().toList());
+        for (int i = 0; i < StreamingBuffer.REGIONS; i++) { Assertions.assertEquals(0L, buffer.fence(i)); }
+    }
+
+    /**
+     * Without buffer storage, every frame is written to a staging buffer, then uploaded after orphaning the buffer's
+     * previous contents with a null data store of the same size.
+     */
+    @Test
+    public void fallbackOrphansThenUploads() {
+        LoggingBackend backend = new LoggingBackend();
+        backend.setBufferStorageSupported(false);
+        Graphics.setBackend(backend);
+
+        StreamingBuffer buffer = new StreamingBuffer(GL15.GL_ARRAY_BUFFER, REGION_SIZE);
+        Assertions.assertFalse(buffer.persistent());
+
+        for (int frame = 0; frame < 4; frame++) {
+            backend.calls.clear();
+
+            ByteBuffer data = buffer.begin();
+            Assertions.assertEquals(0, buffer.region());
+            data.putLong(frame).putInt(frame);
+
+            Assertions.assertEquals(0, buffer.end());
+            Assertions.assertEquals(
+                List.of("bindBuffer " + buffer.bufferID(), "bufferData null " + REGION_SIZE, "bufferSubData 0 12"),
+                backend.calls
+            );
+        }
+
+        Assertions.assertTrue(backend.fences.isEmpty());
+        buffer.delete();
+    }
+
+    /**
+     * Recording backend that also logs the buffer and fence calls made to it.
+     */
+    private static class LoggingBackend extends RecordingBackend {
+        private final List<String> calls = new ArrayList<>();
+        private final List<Long> fences = new ArrayList<>();
+        private final List<Long> waited = new ArrayList<>();
+        private final List<Long> deleted = new ArrayList<>();
+
+        @Override
+        public void bindBuffer(int target, int buffer) {
+            super.bindBuffer(target, buffer);
+            this.calls.add("bindBuffer " + buffer);
+        }
+
+        @Override
+        public void bufferData(int target, long size, int usage) {
+            super.bufferData(target, size, usage);
+            this.calls.add("bufferData null " + size);
+        }
+
+        @Override
+        public void bufferSubData(int target, long offset, ByteBuffer data) {
+            super.bufferSubData(target, offset, data);
+            this.calls.add("bufferSubData " + offset + " " + data.remaining());
+        }
+
+        @Override
+        public long fenceSync(int condition, int flags) {
+            final long fence = super.fenceSync(condition, flags);
+            this.fences.add(fence);
+
+            return fence;
+        }
+
+        @Override
+        public int clientWaitSync(long sync, int flags, long timeout) {
+            this.waited.add(sync);
+            return super.clientWaitSync(sync, flags, timeout);
+        }
+
+        @Override
+        public void deleteSync(long sync) {
+            super.deleteSync(sync);
+            this.deleted.add(sync);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package pine.renderer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Tests of loading textures in the background with {@link TextureLoader}, uploaded through a
+ * {@link RecordingBackend}.
+ */
+public class TextureLoaderTest {
+    private static final String IMAGE = "src/main/resources/images/testImage.jpg";
+
+    /**
+     * Upload every test through a new recording backend.
+     */
+    @BeforeEach
+    public void setUp() {
+        Graphics.setBackend(new RecordingBackend());
+    }
+
+    /**
+     * A decoded image replaces the placeholder once it is uploaded.
+     */
+    @Test
+    public void loadsImage() throws InterruptedException {
+        TextureLoader loader = TextureLoader.get();
+        final long decoded = loader.decodedCount();
+
+        Texture texture = loader.load(IMAGE);
+        Assertions.assertFalse(texture.loaded());
+
+        TextureLoaderTest.finish(loader);
+        Assertions.assertTrue(texture.loaded());
+        Assertions.assertFalse(texture.failed());
+        Assertions.assertEquals(decoded + 1L, loader.decodedCount());
+        Assertions.assertTrue(texture.width() > 1);
+    }
+
+    /**
+     * A missing file and a file that is not an image both leave the texture as a placeholder marked as failed, and
+     * are counted as failures rather than decodes.
+     *
+     * @param directory Temporary directory for the broken image.
+     */
+    @Test
+    public void failedDecodesAreMarked(@TempDir Path directory) throws IOException, InterruptedException {
+        Path broken = directory.resolve("broken.png");
+        Files.writeString(broken, "not an image");
+
+        TextureLoader loader = TextureLoader.get();
+        final long decoded = loader.decodedCount();
+        final long failed = loader.failedCount();
+
+        Texture missing = loader.load(directory.resolve("missing.png").toString());
+        Texture corrupt = loader.load(broken.toString());
+        TextureLoaderTest.finish(loader);
+
+        for (Texture texture : new Texture[] {missing, corrupt}) {
+            Assertions.assertTrue(texture.failed());
+            Assertions.assertFalse(texture.loaded());
+            Assertions.assertEquals(1, texture.width());
+        }
+
+        Assertions.assertEquals(failed + 2L, loader.failedCount());
+        Assertions.assertEquals(decoded, loader.decodedCount());
+    }
+
+    /**
+     * Wait for every pending texture to be decoded, then upload them.
+     */
+    private static void finish(TextureLoader loader) throws InterruptedException {
+        while (loader.pending() > 0) {
+            loader.processUploads(Long.MAX_VALUE);
+            Thread.sleep(1L);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package pine.renderer;
+
+import org.joml.Vector2f;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pine.Camera;
+
+/**
+ * Tests of the CPU-side meshing, chunk rebuilding and chunk eviction of {@link Tilemap}, drawn through a
+ * {@link RecordingBackend}.
+ */
+public class TilemapTest {
+    private static final String SHADER = "src/main/resources/shaders/default.glsl";
+    private static final float TILE_SIZE = 32F;
+    private static final int CHUNK_SIZE = 4;
+    private static final int QUAD_FLOATS = RenderBatch.VERTICES_PER_QUAD * RenderBatch.VERTEX_SIZE;
+
+    // Left, bottom, right and top texture coordinates of empty tile 0 and tiles 1 and 2.
+    private static final float[] UVS = {0F, 0F, 0F, 0F, 0F, 0F, 0.5F, 1F, 0.5F, 0.25F, 1F, 0.75F};
+
+    /**
+     * Draw every test through a new recording backend.
+     */
+    @BeforeEach
+    public void setUp() {
+        Graphics.setBackend(new RecordingBackend());
+    }
+
+    /**
+     * Empty tiles are skipped, so a chunk emits one quad per non-empty tile and an empty chunk emits none.
+     */
+    @Test
+    public void emptyTilesEmitNoQuads() {
+        Tilemap tilemap = TilemapTest.tilemap(8, 8);
+        float[] vertices = new float[CHUNK_SIZE * CHUNK_SIZE * QUAD_FLOATS];
+
+        Assertions.assertEquals(0, tilemap.mesh(0, 0, vertices));
+
+        tilemap.set(1, 2, 1);
+        tilemap.set(3, 3, 2);
+        tilemap.set(5, 1, 1);
+        Assertions.assertEquals(2, tilemap.mesh(0, 0, vertices));
+        Assertions.assertEquals(1, tilemap.mesh(1, 0, vertices));
+        Assertions.assertEquals(0, tilemap.mesh(1, 1, vertices));
+
+        tilemap.set(1, 2, 0);
+        Assertions.assertEquals(1, tilemap.mesh(0, 0, vertices));
+    }
+
+    /**
+     * Each quad covers its tile's cell of the grid, in world units, with the texture coordinates of its tile ID.
+     * Quads are written row by row from the bottom of the chunk.
+     */
+    @Test
+    public void quadsMatchTileGrid() {
+        Tilemap tilemap = TilemapTest.tilemap(8, 8);
+        float[] vertices = new float[CHUNK_SIZE * CHUNK_SIZE * QUAD_FLOATS];
+
+        tilemap.set(6, 7, 2);
+        tilemap.set(5, 4, 1);
+        Assertions.assertEquals(2, tilemap.mesh(1, 1, vertices));
+
+        TilemapTest.assertQuad(vertices, 0, 5, 4, 1);
+        TilemapTest.assertQuad(vertices, 1, 6, 7, 2);
+    }
+
+    /**
+     * Chunks on the right and top edges of a map whose size is not a multiple of the chunk size only mesh the tiles
+     * inside the map.
+     */
+    @Test
+    public void partialEdgeChunks() {
+        final int width = 10, height = 7;
+        Tilemap tilemap = TilemapTest.tilemap(width, height);
+        float[] vertices = new float[CHUNK_SIZE * CHUNK_SIZE * QUAD_FLOATS];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) { tilemap.set(x, y, 1); }
+        }
+
+        Assertions.assertEquals(16, tilemap.mesh(0, 0, vertices));
+        Assertions.assertEquals(2 * 4, tilemap.mesh(2, 0, vertices));
+        Assertions.assertEquals(4 * 3, tilemap.mesh(1, 1, vertices));
+
+        final int quads = tilemap.mesh(2, 1, vertices);
+        Assertions.assertEquals(2 * 3, quads);
+        for (int i = 0; i < quads; i++) { TilemapTest.assertQuad(vertices, i, 8 + i % 2, 4 + i / 2, 1); }
+    }
+
+    /**
+     * Changing a tile rebuilds only the chunk holding it on the next submission, and setting a tile to its current
+     * value rebuilds nothing.
+     */
+    @Test
+    public void setMarksOnlyItsChunkDirty() {
+        Tilemap tilemap = TilemapTest.tilemap(10, 7);
+        RenderQueue queue = new RenderQueue(16);
+        Shader shader = new Shader(SHADER);
+        Camera camera = new Camera(new Vector2f());
+
+        tilemap.set(0, 0, 1);
+        tilemap.set(9, 6, 2);
+        TilemapTest.submit(tilemap, queue, shader, camera);
+        Assertions.assertEquals(3 * 2, tilemap.rebuildCount());
+        Assertions.assertEquals(2, tilemap.drawnChunks());
+
+        TilemapTest.submit(tilemap, queue, shader, camera);
+        Assertions.assertEquals(3 * 2, tilemap.rebuildCount());
+
+        tilemap.set(5, 5, 1);
+        TilemapTest.submit(tilemap, queue, shader, camera);
+        Assertions.assertEquals(3 * 2 + 1, tilemap.rebuildCount());
+        Assertions.assertEquals(3, tilemap.drawnChunks());
+        Assertions.assertEquals(3, tilemap.drawnQuads());
+
+        tilemap.set(5, 5, 1);
+        TilemapTest.submit(tilemap, queue, shader, camera);
+        Assertions.assertEquals(3 * 2 + 1, tilemap.rebuildCount());
+    }
+
+    /**
+     * Chunks left out of view for {@link Tilemap#IDLE_FRAMES} submissions free their buffers, and are meshed again
+     * when they come back into view.
+     */
+    @Test
+    public void idleChunksAreEvicted() {
+        // 25 by 3 chunks of 128 world units; the camera sees 1280 by 672 units.
+        Tilemap tilemap = TilemapTest.tilemap(100, 10);
+        RenderQueue queue = new RenderQueue(16);
+        Shader shader = new Shader(SHADER);
+        Camera camera = new Camera(new Vector2f());
+
+        for (int x = 0; x < 100; x++) { tilemap.set(x, 0, 1); }
+
+        TilemapTest.submit(tilemap, queue, shader, camera);
+        Assertions.assertEquals(11 * 3, tilemap.residentChunks());
+
+        camera.setPosition(2000F, 0F);
+        TilemapTest.submit(tilemap, queue, shader, camera);
+        Assertions.assertEquals(21 * 3, tilemap.residentChunks());
+
+        for (int frame = 1; frame < Tilemap.IDLE_FRAMES; frame++) {
+            TilemapTest.submit(tilemap, queue, shader, camera);
+        }
+
+        Assertions.assertEquals(21 * 3, tilemap.residentChunks());
+        Assertions.assertEquals(0, tilemap.evictionCount());
+
+        TilemapTest.submit(tilemap, queue, shader, camera);
+        Assertions.assertEquals(10 * 3, tilemap.residentChunks());
+        Assertions.assertEquals(11 * 3, tilemap.evictionCount());
+
+        camera.setPosition(0F, 0F);
+        final int rebuilds = tilemap.rebuildCount();
+        Assertions.assertEquals(11, TilemapTest.submit(tilemap, queue, shader, camera));
+        Assertions.assertEquals(rebuilds + 11 * 3, tilemap.rebuildCount());
+        Assertions.assertEquals(11, tilemap.drawnQuads() / CHUNK_SIZE);
+
+        tilemap.delete();
+        Assertions.assertEquals(0, tilemap.residentChunks());
+    }
+
+    /**
+     * @return Empty tilemap with tiles 1 and 2, drawn from a placeholder texture.
+     */
+    private static Tilemap tilemap(int width, int height) {
+        return new Tilemap(Texture.placeholder("tiles"), UVS, width, height, TILE_SIZE, CHUNK_SIZE);
+    }
+
+    /**
+     * Submit a tilemap for one frame and clear the queue again.
+     *
+     * @return Number of chunks submitted.
+     */
+    private static int submit(Tilemap tilemap, RenderQueue queue, Shader shader, Camera camera) {
+        final int chunks = tilemap.submit(queue, shader, 0, camera);
+        queue.clear();
+
+        return chunks;
+    }
+
+    /**
+     * Check that a quad of a meshed chunk covers a tile and shows its tile ID.
+     */
+    private static void assertQuad(float[] vertices, int quad, int x, int y, int tile) {
+        // The fourth vertex is the bottom-left corner and the third the top-right, as packed by RenderBatch.
+        final int bottomLeft = quad * QUAD_FLOATS + 3 * RenderBatch.VERTEX_SIZE;
+        final int topRight = quad * QUAD_FLOATS + 2 * RenderBatch.VERTEX_SIZE;
+
+        Assertions.assertEquals(x * TILE_SIZE, vertices[bottomLeft]);
+        Assertions.assertEquals(y * TILE_SIZE, vertices[bottomLeft + 1]);
+        Assertions.assertEquals((x + 1) * TILE_SIZE, vertices[topRight]);
+        Assertions.assertEquals((y + 1) * TILE_SIZE, vertices[topRight + 1]);
+
+        Assertions.assertEquals(UVS[tile * 4], vertices[bottomLeft + 7]);
+        Assertions.assertEquals(UVS[tile * 4 + 1], vertices[bottomLeft + 8]);
+        Assertions.assertEquals(UVS[tile * 4 + 2], vertices[topRight + 7]);
+        Assertions.assertEquals(UVS[tile * 4 + 3], vertices[topRight + 8]);
+    }
+}
@@ -0,0 +1,130 @@
+package pine.spatial;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * Tests of {@link LooseQuadtree} against a brute-force scan over every box.
+ */
+public class LooseQuadtreeTest {
+    /**
+     * Area and point queries return exactly the boxes a scan finds, while boxes inside and outside the region are
+     * added, moved, resized and removed.
+     */
+    @Test
+    public void queriesMatchBruteForce() {
+        Random random = new Random(42L);
+        LooseQuadtree tree = new LooseQuadtree(0F, 0F, 1024F, 6);
+        float[][] boxes = new float[600][];
+
+        for (int step = 0; step < 4000; step++) {
+            final int id = random.nextInt(boxes.length);
+
+            if (random.nextInt(5) == 0) {
+                tree.remove(id);
+                boxes[id] = null;
+            }
+            else {
+                // Mostly small boxes, some as large as the region, centred up to 300 units past its edges.
+                boxes[id] = SpatialHashTest.randomBox(random, 812F, random.nextInt(10) == 0 ? 1024F : 24F);
+                boxes[id][0] += 512F;
+                boxes[id][1] += 512F;
+                tree.update(id, boxes[id][0], boxes[id][1], boxes[id][2], boxes[id][3]);
+            }
+
+            if (step % 20 == 0) {
+                final float x = random.nextFloat() * 1800F - 400F;
+                final float y = random.nextFloat() * 1800F - 400F;
+                final float width = random.nextFloat() * 200F;
+                final float height = random.nextFloat() * 200F;
+
+                SpatialHashTest.assertQuery(tree, boxes, x, y, x + width, y + height);
+                SpatialHashTest.assertPoint(tree, boxes, x, y);
+            }
+        }
+
+        Assertions.assertEquals(SpatialHashTest.countPresent(boxes), tree.size());
+    }
+
+    /**
+     * A box whose centre moves into another node, or which grows past the size of its node, is found at its new
+     * place only.
+     */
+    @Test
+    public void updateMovesBoxAcrossNodes() {
+        LooseQuadtree tree = new LooseQuadtree(0F, 0F, 1024F, 6);
+        IntList results = new IntList();
+
+        // Deepest cells are 16 units wide, so the centre moves from the cell at 96 to the one at 112.
+        tree.update(5, 110F, 100F, 2F, 2F);
+        Assertions.assertEquals(1, tree.queryPoint(111F, 101F, results));
+
+        tree.update(5, 113F, 100F, 2F, 2F);
+        results.clear();
+        Assertions.assertEquals(0, tree.queryPoint(111F, 101F, results));
+        Assertions.assertEquals(1, tree.queryPoint(114F, 101F, results));
+        Assertions.assertEquals(5, results.get(0));
+
+        tree.update(5, 113F, 100F, 300F, 300F);
+        results.clear();
+        Assertions.assertEquals(1, tree.queryPoint(400F, 380F, results));
+        Assertions.assertEquals(1, tree.query(0F, 0F, 1024F, 1024F, results));
+        Assertions.assertEquals(1, tree.size());
+    }
+
+    /**
+     * A removed box is no longer found or counted, and removing it again does nothing.
+     */
+    @Test
+    public void removeForgetsBox() {
+        LooseQuadtree tree = new LooseQuadtree(0F, 0F, 1024F, 6);
+        IntList results = new IntList();
+
+        tree.update(1, 10F, 10F, 4F, 4F);
+        tree.update(2, 12F, 12F, 4F, 4F);
+        tree.update(3, 11F, 11F, 4F, 4F);
+        tree.remove(1);
+
+        Assertions.assertFalse(tree.contains(1));
+        Assertions.assertEquals(2, tree.size());
+        Assertions.assertEquals(2, tree.query(0F, 0F, 20F, 20F, results));
+        Assertions.assertEquals(5, results.get(0) + results.get(1));
+
+        tree.remove(1);
+        tree.remove(2);
+        tree.remove(3);
+        results.clear();
+        Assertions.assertEquals(0, tree.query(-1E6F, -1E6F, 1E6F, 1E6F, results));
+        Assertions.assertEquals(0, tree.size());
+    }
+
+    /**
+     * Boxes whose centre is outside the region are kept in the root and still found, wherever they are.
+     */
+    @Test
+    public void boxesOutsideRegionAreKeptInRoot() {
+        LooseQuadtree tree = new LooseQuadtree(0F, 0F, 1024F, 6);
+        IntList results = new IntList();
+
+        tree.update(1, -5000F, 40F, 10F, 10F);
+        tree.update(2, -10F, 500F, 12F, 4F);
+        tree.update(3, 1020F, 1020F, 10F, 10F);
+
+        Assertions.assertEquals(1, tree.queryPoint(-4995F, 45F, results));
+        Assertions.assertEquals(1, results.get(0));
+
+        // Box 2 reaches into the region though its centre is outside it.
+        results.clear();
+        Assertions.assertEquals(1, tree.query(1F, 500F, 1.5F, 501F, results));
+        Assertions.assertEquals(2, results.get(0));
+
+        results.clear();
+        Assertions.assertEquals(1, tree.queryPoint(1028F, 1028F, results));
+        Assertions.assertEquals(3, results.get(0));
+
+        results.clear();
+        Assertions.assertEquals(3, tree.query(-1E4F, -1E4F, 1E4F, 1E4F, results));
+    }
+}
@@ -0,0 +1,209 @@
+package pine.spatial;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests of {@link SpatialHash} against a brute-force scan over every box. The scan helpers are shared with
+ * {@link LooseQuadtreeTest}.
+ */
+public class SpatialHashTest {
+    /**
+     * Area and point queries return exactly the boxes a scan finds, while boxes are added, moved and removed.
+     */
+    @Test
+    public void queriesMatchBruteForce() {
+        Random random = new Random(42L);
+        SpatialHash hash = new SpatialHash(16F);
+        float[][] boxes = new float[600][];
+
+        for (int step = 0; step < 4000; step++) {
+            final int id = random.nextInt(boxes.length);
+
+            if (random.nextInt(5) == 0) {
+                hash.remove(id);
+                boxes[id] = null;
+            }
+            else {
+                boxes[id] = SpatialHashTest.randomBox(random, 500F, 40F);
+                hash.update(id, boxes[id][0], boxes[id][1], boxes[id][2], boxes[id][3]);
+            }
+
+            if (step % 20 == 0) {
+                final float x = random.nextFloat() * 1200F - 600F;
+                final float y = random.nextFloat() * 1200F - 600F;
+                final float width = random.nextFloat() * 200F;
+                final float height = random.nextFloat() * 200F;
+
+                SpatialHashTest.assertQuery(hash, boxes, x, y, x + width, y + height);
+                SpatialHashTest.assertPoint(hash, boxes, x, y);
+            }
+        }
+
+        Assertions.assertEquals(SpatialHashTest.countPresent(boxes), hash.size());
+    }
+
+    /**
+     * A box moved into another cell is found in its new cell only, and its old cell no longer reports it.
+     */
+    @Test
+    public void updateMovesBoxAcrossCells() {
+        SpatialHash hash = new SpatialHash(16F);
+        IntList results = new IntList();
+
+        hash.update(7, 14F, 2F, 1F, 1F);
+        Assertions.assertEquals(1, hash.query(0F, 0F, 15.5F, 15.5F, results));
+
+        hash.update(7, 17F, 2F, 1F, 1F);
+        results.clear();
+        Assertions.assertEquals(0, hash.query(0F, 0F, 15.5F, 15.5F, results));
+        Assertions.assertEquals(1, hash.query(16.5F, 0F, 31F, 15F, results));
+        Assertions.assertEquals(7, results.get(0));
+
+        // Moving within the same cells only changes the stored box.
+        hash.update(7, 20F, 2F, 1F, 1F);
+        results.clear();
+        Assertions.assertEquals(0, hash.queryPoint(17.5F, 2.5F, results));
+        Assertions.assertEquals(1, hash.queryPoint(20.5F, 2.5F, results));
+        Assertions.assertEquals(1, hash.size());
+    }
+
+    /**
+     * A removed box is no longer found or counted, and removing it again does nothing.
+     */
+    @Test
+    public void removeForgetsBox() {
+        SpatialHash hash = new SpatialHash(16F);
+        IntList results = new IntList();
+
+        hash.update(1, 0F, 0F, 40F, 40F);
+        hash.update(2, 5F, 5F, 2F, 2F);
+        hash.remove(1);
+
+        Assertions.assertFalse(hash.contains(1));
+        Assertions.assertTrue(hash.contains(2));
+        Assertions.assertEquals(1, hash.size());
+        Assertions.assertEquals(1, hash.query(-100F, -100F, 100F, 100F, results));
+        Assertions.assertEquals(2, results.get(0));
+
+        hash.remove(1);
+        hash.remove(1000);
+        Assertions.assertEquals(1, hash.size());
+    }
+
+    /**
+     * A box spanning many cells is reported once per query, however many of its cells the query covers.
+     */
+    @Test
+    public void boxSpanningManyCellsIsReportedOnce() {
+        SpatialHash hash = new SpatialHash(16F);
+        IntList results = new IntList();
+
+        hash.update(3, -100F, -100F, 200F, 200F);
+        hash.update(4, 50F, -20F, 90F, 10F);
+
+        for (int run = 0; run < 3; run++) {
+            results.clear();
+            Assertions.assertEquals(2, hash.query(-60F, -60F, 120F, 60F, results));
+
+            int[] found = {results.get(0), results.get(1)};
+            Arrays.sort(found);
+            Assertions.assertArrayEquals(new int[] {3, 4}, found);
+        }
+    }
+
+    /**
+     * An area covering more cells than the hash table holds is answered by walking the table, with the same results.
+     */
+    @Test
+    public void largeAreaWalksTable() {
+        Random random = new Random(42L);
+        SpatialHash hash = new SpatialHash(1F);
+        float[][] boxes = new float[300][];
+
+        for (int id = 0; id < boxes.length; id++) {
+            boxes[id] = SpatialHashTest.randomBox(random, 2000F, 3F);
+            hash.update(id, boxes[id][0], boxes[id][1], boxes[id][2], boxes[id][3]);
+        }
+
+        // Far more cells than the table's slots, but still only part of the boxes.
+        SpatialHashTest.assertQuery(hash, boxes, -1000F, -2000F, 1000F, 2000F);
+        SpatialHashTest.assertQuery(hash, boxes, -1E6F, -1E6F, 1E6F, 1E6F);
+        SpatialHashTest.assertQuery(hash, boxes, 3000F, 3000F, 9000F, 9000F);
+    }
+
+    /**
+     * Check an area query against a scan.
+     */
+    static void assertQuery(
+        SpatialIndex index, float[][] boxes, float minX, float minY, float maxX, float maxY
+    ) {
+        IntList results = new IntList();
+        final int found = index.query(minX, minY, maxX, maxY, results);
+
+        Assertions.assertEquals(results.size(), found);
+        Assertions.assertArrayEquals(
+            SpatialHashTest.scan(boxes, minX, minY, maxX, maxY), SpatialHashTest.sorted(results)
+        );
+    }
+
+    /**
+     * Check a point query against a scan.
+     */
+    static void assertPoint(SpatialIndex index, float[][] boxes, float x, float y) {
+        IntList results = new IntList();
+        final int found = index.queryPoint(x, y, results);
+
+        Assertions.assertEquals(results.size(), found);
+        Assertions.assertArrayEquals(SpatialHashTest.scan(boxes, x, y, x, y), SpatialHashTest.sorted(results));
+    }
+
+    /**
+     * @return IDs of every box overlapping an area, edges included, in increasing order.
+     */
+    private static int[] scan(float[][] boxes, float minX, float minY, float maxX, float maxY) {
+        IntList ids = new IntList();
+
+        for (int id = 0; id < boxes.length; id++) {
+            float[] box = boxes[id];
+            if (box == null) { continue; }
+            if (box[0] <= maxX && box[0] + box[2] >= minX && box[1] <= maxY && box[1] + box[3] >= minY) { ids.add(id); }
+        }
+
+        return SpatialHashTest.sorted(ids);
+    }
+
+    /**
+     * @return Values of a list in increasing order.
+     */
+    private static int[] sorted(IntList list) {
+        int[] values = new int[list.size()];
+        for (int i = 0; i < values.length; i++) { values[i] = list.get(i); }
+
+        Arrays.sort(values);
+        return values;
+    }
+
+    /**
+     * @return Number of boxes present.
+     */
+    static int countPresent(float[][] boxes) {
+        int count = 0;
+        for (float[] box : boxes) { count += box == null ? 0 : 1; }
+
+        return count;
+    }
+
+    /**
+     * @return Random box as x, y, width and height, with its corner within a range of the origin.
+     */
+    static float[] randomBox(Random random, float range, float maxSize) {
+        final float x = (random.nextFloat() * 2F - 1F) * range;
+        final float y = (random.nextFloat() * 2F - 1F) * range;
+
+        return new float[] {x, y, random.nextFloat() * maxSize, random.nextFloat() * maxSize};
+    }
+}
@@ -0,0 +1,121 @@
+package pine.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pine.renderer.Graphics;
+import pine.renderer.RecordingBackend;
+import pine.renderer.Texture;
+import pine.renderer.TextureLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Tests of the texture budget of {@link AssetPool}, with textures loaded through a {@link RecordingBackend}.
+ */
+public class AssetPoolTest {
+    private static final String IMAGE = "src/main/resources/images/testImage.jpg";
+
+    /**
+     * Start every test with an empty pool, the default budget and a new recording backend.
+     */
+    @BeforeEach
+    public void setUp() {
+        Graphics.setBackend(new RecordingBackend());
+        AssetPool.clear();
+        AssetPool.setTextureBudget(AssetPool.DEFAULT_TEXTURE_BUDGET_BYTES);
+    }
+
+    /**
+     * The running total of video memory follows a texture from its placeholder to its uploaded image, and back to 0
+     * once it is evicted.
+     */
+    @Test
+    public void textureBytesFollowUploadsAndEvictions() throws InterruptedException {
+        Texture texture = AssetPool.textureAsync(IMAGE);
+        Assertions.assertEquals(4L, AssetPool.textureBytes());
+
+        AssetPoolTest.finishLoading();
+        Assertions.assertTrue(texture.loaded());
+        Assertions.assertTrue(texture.sizeBytes() > 4L);
+        Assertions.assertEquals(texture.sizeBytes(), AssetPool.textureBytes());
+
+        // Referenced textures are never evicted, however small the budget.
+        AssetPool.setTextureBudget(0L);
+        Assertions.assertEquals(texture.sizeBytes(), AssetPool.textureBytes());
+
+        final long evictions = AssetPool.evictions();
+        AssetPool.release(texture);
+        Assertions.assertEquals(0L, AssetPool.textureBytes());
+        Assertions.assertEquals(evictions + 1L, AssetPool.evictions());
+        Assertions.assertTrue(AssetPool.textures().isEmpty());
+    }
+
+    /**
+     * A texture whose file is missing is marked as failed, and can be evicted once it is no longer referenced.
+     *
+     * @param directory Temporary directory the missing texture is looked for in.
+     */
+    @Test
+    public void failedTexturesCanBeEvicted(@TempDir Path directory) throws InterruptedException {
+        Texture texture = AssetPool.textureAsync(directory.resolve("missing.png").toString());
+        AssetPoolTest.finishLoading();
+        Assertions.assertTrue(texture.failed());
+
+        AssetPool.setTextureBudget(0L);
+        Assertions.assertEquals(1, AssetPool.textures().size());
+
+        final long evictions = AssetPool.evictions();
+        AssetPool.release(texture);
+        Assertions.assertEquals(evictions + 1L, AssetPool.evictions());
+        Assertions.assertEquals(0L, AssetPool.textureBytes());
+    }
+
+    /**
+     * Requesting a texture that failed to load tries to load its file again, into the same texture, so every holder
+     * sees the image once the file can be read.
+     *
+     * @param directory Temporary directory for the texture file.
+     */
+    @Test
+    public void failedTexturesAreRetried(@TempDir Path directory) throws IOException, InterruptedException {
+        final String filePath = directory.resolve("late.jpg").toString();
+
+        Texture texture = AssetPool.textureAsync(filePath);
+        AssetPoolTest.finishLoading();
+        Assertions.assertTrue(texture.failed());
+
+        final long misses = AssetPool.misses();
+        Files.copy(Paths.get(IMAGE), Paths.get(filePath));
+
+        Assertions.assertSame(texture, AssetPool.textureAsync(filePath));
+        Assertions.assertFalse(texture.failed());
+        Assertions.assertEquals(misses + 1L, AssetPool.misses());
+
+        AssetPoolTest.finishLoading();
+        Assertions.assertTrue(texture.loaded());
+        Assertions.assertEquals(texture.sizeBytes(), AssetPool.textureBytes());
+
+        // A texture that has loaded is served from the cache again.
+        Assertions.assertSame(texture, AssetPool.texture(filePath));
+        Assertions.assertEquals(misses + 1L, AssetPool.misses());
+
+        for (int i = 0; i < 3; i++) { AssetPool.release(texture); }
+    }
+
+    /**
+     * Wait for every texture loading in the background to be decoded, then upload them.
+     */
+    private static void finishLoading() throws InterruptedException {
+        TextureLoader loader = TextureLoader.get();
+
+        while (loader.pending() > 0) {
+            loader.processUploads(Long.MAX_VALUE);
+            Thread.sleep(1L);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package pine.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * Tests of the fixed-timestep accumulator, driven with given frame times and a fake clock.
+ */
+public class FixedTimestepTest {
+    private static final double STEPS_PER_SECOND = 60D;
+    private static final double STEP = 1D / STEPS_PER_SECOND;
+
+    /**
+     * Frames of whole steps run exactly that many steps, and time left over is carried into the next frame.
+     */
+    @Test
+    public void countsWholeSteps() {
+        FixedTimestep timestep = new FixedTimestep(STEPS_PER_SECOND, 10, () -> 0D);
+
+        Assertions.assertEquals(1, timestep.advance(STEP));
+        Assertions.assertEquals(3, timestep.advance(3D * STEP));
+        Assertions.assertEquals(0, timestep.advance(0.5D * STEP));
+        Assertions.assertEquals(0.5D, timestep.alpha(), 1e-9D);
+        Assertions.assertEquals(1, timestep.advance(0.75D * STEP));
+        Assertions.assertEquals(0.25D, timestep.alpha(), 1e-9D);
+    }
+
+    /**
+     * Over many random frames, the steps run add up to the time passed, and alpha always stays in [0, 1).
+     */
+    @Test
+    public void alphaStaysInRangeAndNoTimeIsLost() {
+        FixedTimestep timestep = new FixedTimestep(STEPS_PER_SECOND, Integer.MAX_VALUE, () -> 0D);
+        Random random = new Random(42L);
+        double time = 0D;
+        long steps = 0L;
+
+        for (int frame = 0; frame < 100_000; frame++) {
+            final double frameTime = random.nextInt(4) == 0 ? STEP * random.nextInt(4) : random.nextDouble() * 0.05D;
+
+            time += frameTime;
+            steps += timestep.advance(frameTime);
+
+            Assertions.assertTrue(timestep.alpha() >= 0D && timestep.alpha() < 1D, "alpha " + timestep.alpha());
+        }
+
+        Assertions.assertEquals(time, steps * STEP + timestep.alpha() * STEP, 1e-6D);
+        Assertions.assertEquals(0L, timestep.droppedSteps());
+    }
+
+    /**
+     * A long frame runs at most the maximum number of steps and drops the rest instead of carrying it over.
+     */
+    @Test
+    public void clampDiscardsExcessTime() {
+        FixedTimestep timestep = new FixedTimestep(STEPS_PER_SECOND, 5, () -> 0D);
+
+        Assertions.assertEquals(5, timestep.advance(20.25D * STEP));
+        Assertions.assertEquals(15L, timestep.droppedSteps());
+        Assertions.assertEquals(0.25D, timestep.alpha(), 1e-9D);
+
+        // The next frame only runs its own steps.
+        Assertions.assertEquals(1, timestep.advance(STEP));
+        Assertions.assertEquals(15L, timestep.droppedSteps());
+    }
+
+    /**
+     * Frame times are measured from the clock, starting from the time of the last reset. The clock uses a step of
+     * 1/64 s, so that every time is exact.
+     */
+    @Test
+    public void measuresFramesWithTheClock() {
+        final double step = 1D / 64D;
+        double[] now = { 100D };
+        FixedTimestep timestep = new FixedTimestep(64D, 10, () -> now[0]);
+
+        now[0] += 2.5D * step;
+        Assertions.assertEquals(2, timestep.advance());
+        Assertions.assertEquals(2.5D * step, timestep.frameTime());
+
+        now[0] += 10D;
+        timestep.reset();
+        now[0] += step;
+        Assertions.assertEquals(1, timestep.advance());
+        Assertions.assertEquals(0L, timestep.droppedSteps());
+    }
+}